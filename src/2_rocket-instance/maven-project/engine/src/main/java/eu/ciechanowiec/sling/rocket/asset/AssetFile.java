@@ -5,6 +5,7 @@ import eu.ciechanowiec.sling.rocket.unit.DataSize;
 import javax.jcr.Property;
 import javax.jcr.PropertyType;
 import java.io.InputStream;
+import java.util.Optional;
 
 /**
  * Unary binary file of an {@link Asset}.
@@ -31,4 +32,15 @@ public interface AssetFile {
      * @return {@link DataSize} of the unary binary file of an {@link Asset}
      */
     DataSize size();
+
+    /**
+     * Returns the {@link SHA256Digest} of the unary binary file of an {@link Asset} if it is known upfront, i.e. if it
+     * can be returned without reading the unary binary file.
+     *
+     * @return {@link SHA256Digest} of the unary binary file of an {@link Asset} if it is known upfront; an empty
+     * {@link Optional} otherwise
+     */
+    default Optional<SHA256Digest> sha256Digest() {
+        return Optional.empty();
+    }
 }
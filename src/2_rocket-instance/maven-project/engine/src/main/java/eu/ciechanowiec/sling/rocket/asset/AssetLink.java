@@ -2,17 +2,16 @@ package eu.ciechanowiec.sling.rocket.asset;
 
 import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
 import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
-import eu.ciechanowiec.sling.rocket.jcr.ReferenceProperty;
 import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
 import eu.ciechanowiec.sling.rocket.jcr.ref.Referenceable;
 import eu.ciechanowiec.sling.rocket.jcr.ref.ReferenceableSimple;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 
-import java.util.Optional;
-
 @Slf4j
 @ToString
 class AssetLink implements Asset {
@@ -29,6 +28,13 @@ class AssetLink implements Asset {
         log.trace("Initialized {}", this);
     }
 
+    AssetLink(Resource resource, ResourceAccess resourceAccess) {
+        this.jcrPath = new TargetJCRPath(resource);
+        this.resourceAccess = resourceAccess;
+        new NodeProperties(resource).assertPrimaryType(NT_ASSET_LINK);
+        log.trace("Initialized {}", this);
+    }
+
     @Override
     public AssetFile assetFile() {
         Asset linkedAsset = linkedAsset();
@@ -44,18 +50,11 @@ class AssetLink implements Asset {
     }
 
     private Asset linkedAsset() {
-        ReferenceProperty referenceProperty = new ReferenceProperty(jcrPath, PN_LINKED_ASSET, resourceAccess);
-        Optional<JCRPath> referencedNodeJCRPathNullable = referenceProperty.referencedNode();
-        log.trace("{} has this linked asset: {}", this, referencedNodeJCRPathNullable);
-        return referencedNodeJCRPathNullable.flatMap(
-            referencedNodeJCRPath -> {
-                String referencedNodeJCRPathRaw = referencedNodeJCRPath.get();
-                try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
-                    return Optional.ofNullable(resourceResolver.getResource(referencedNodeJCRPathRaw))
-                        .map(resource -> new UniversalAsset(resource, resourceAccess));
-                }
-            }
-        ).orElseThrow();
+        try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
+            Resource target = new AssetLinkTargets().target(jcrPath.get(), resourceResolver);
+            log.trace("{} has this final target: {}", this, target);
+            return new UniversalAsset(target, resourceAccess);
+        }
     }
 
     private void assertPrimaryType() {
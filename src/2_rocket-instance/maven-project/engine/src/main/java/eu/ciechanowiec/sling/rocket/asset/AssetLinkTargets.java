@@ -0,0 +1,241 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.jcr.ref.ReferenceableResolvable;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+
+import javax.annotation.Nullable;
+import javax.jcr.Node;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the final target of an {@link Asset} of type {@link Asset#NT_ASSET_LINK}, i.e. the first {@link Asset} in
+ * the chain of links that is not a link itself.
+ * <p>
+ * All instances of this class share a bounded cache that maps a path of a link to the chain of links it is followed
+ * through and the path of its final target, so that a chain of links is followed only once. Next to the cache, a
+ * reverse index maps every path that a cached chain goes through to the links whose chain it is, so that the cache is
+ * invalidated by {@link AssetLinkTargetsInvalidation} without iterating over all cached chains. Since the invalidation
+ * is asynchronous and doesn't cover changes made on other cluster nodes, every cache hit is additionally verified
+ * against the {@link ResourceResolver}: every link of the chain must still be readable and point to the same
+ * {@link Node}, and the cached target must still be the same supported {@link Asset} that is not a link. The
+ * verification requires only direct reads of the cached paths, without resolving any UUIDs. Chains containing a cycle
+ * or longer than {@link AssetLinkTargets#MAX_LINK_DEPTH} aren't resolved.
+ */
+@Slf4j
+@ToString
+class AssetLinkTargets {
+
+    /**
+     * Maximum number of links that are followed while resolving the final target.
+     */
+    static final int MAX_LINK_DEPTH = 16;
+
+    private static final int MAX_CACHED_TARGETS = 10_000;
+    private static final ConcurrentNavigableMap<String, Set<String>> LINKS_PER_PATH = new ConcurrentSkipListMap<>();
+    private static final Cache<String, ResolvedLink> TARGETS = Caffeine.newBuilder()
+        .maximumSize(MAX_CACHED_TARGETS)
+        .evictionListener(
+            (@Nullable String linkPath, @Nullable ResolvedLink resolvedLink, RemovalCause cause) -> {
+                if (linkPath != null && resolvedLink != null) {
+                    unindex(linkPath, resolvedLink);
+                }
+            }
+        ).build();
+
+    AssetLinkTargets() {
+        log.trace("Initialized {}", this);
+    }
+
+    /**
+     * Returns the {@link Resource} of the final target of the link located at the specified path.
+     *
+     * @param linkPath         path of the link whose final target should be resolved
+     * @param resourceResolver {@link ResourceResolver} used to resolve the final target
+     * @return {@link Resource} of the final target of the link located at the specified path
+     * @throws IllegalStateException if the final target cannot be resolved, e.g. because the chain of links is broken,
+     *                               contains a cycle or is longer than {@link AssetLinkTargets#MAX_LINK_DEPTH}
+     */
+    Resource target(String linkPath, ResourceResolver resourceResolver) {
+        return Optional.ofNullable(TARGETS.getIfPresent(linkPath))
+            .filter(resolvedLink -> areLinksIntact(resolvedLink, resourceResolver))
+            .flatMap(resolvedLink -> intactTarget(resolvedLink, resourceResolver))
+            .map(
+                resource -> {
+                    log.trace("Cached target of the link at '{}' used: {}", linkPath, resource);
+                    return resource;
+                }
+            ).orElseGet(() -> resolve(linkPath, resourceResolver));
+    }
+
+    /**
+     * Discards cached targets of all links whose chain includes a link or a target located at the specified path or
+     * below it.
+     *
+     * @param removedPath path of a removed {@link Resource}
+     */
+    void invalidateRemoved(String removedPath) {
+        String descendantsPrefix = removedPath.endsWith("/") ? removedPath : removedPath + "/";
+        invalidate(LINKS_PER_PATH.get(removedPath));
+        // '0' is the character directly following '/', so the range covers all paths starting with the prefix:
+        LINKS_PER_PATH.subMap(descendantsPrefix, true, removedPath + '0', false).values().forEach(this::invalidate);
+    }
+
+    /**
+     * Discards cached targets of all links whose chain includes a link located exactly at the specified path.
+     *
+     * @param changedPath path of a changed {@link Resource}
+     */
+    void invalidateChanged(String changedPath) {
+        invalidate(LINKS_PER_PATH.get(changedPath));
+    }
+
+    /**
+     * Discards all cached targets.
+     */
+    void invalidateAll() {
+        TARGETS.invalidateAll();
+        LINKS_PER_PATH.clear();
+    }
+
+    /**
+     * Tells whether the final target of the link located at the specified path is cached.
+     *
+     * @param linkPath path of the link
+     * @return {@code true} if the final target of the link located at the specified path is cached; {@code false}
+     * otherwise
+     */
+    boolean isCached(String linkPath) {
+        return TARGETS.getIfPresent(linkPath) != null;
+    }
+
+    private void invalidate(@Nullable Set<String> linkPaths) {
+        Optional.ofNullable(linkPaths).map(Set::copyOf).stream().flatMap(Set::stream).forEach(
+            linkPath -> TARGETS.asMap().computeIfPresent(
+                linkPath, (key, resolvedLink) -> {
+                    unindex(key, resolvedLink);
+                    return null;
+                }
+            )
+        );
+    }
+
+    private boolean areLinksIntact(ResolvedLink resolvedLink, ResourceResolver resourceResolver) {
+        return resolvedLink.linkedUUIDs().entrySet().stream().allMatch(
+            link -> linkedUUID(resourceResolver.getResource(link.getKey())).filter(link.getValue()::equals).isPresent()
+        );
+    }
+
+    private Optional<Resource> intactTarget(ResolvedLink resolvedLink, ResourceResolver resourceResolver) {
+        return Optional.ofNullable(resourceResolver.getResource(resolvedLink.targetPath()))
+            .filter(this::isFinalTarget)
+            .filter(
+                target -> resolvedLink.targetUUID().equals(
+                    target.getValueMap().get(JcrConstants.JCR_UUID, String.class)
+                )
+            );
+    }
+
+    private boolean isFinalTarget(Resource resource) {
+        NodeProperties nodeProperties = new NodeProperties(resource);
+        return nodeProperties.isPrimaryType(Asset.SUPPORTED_PRIMARY_TYPES)
+            && !nodeProperties.isPrimaryType(Asset.NT_ASSET_LINK);
+    }
+
+    private static void index(String linkPath, ResolvedLink resolvedLink) {
+        resolvedLink.paths().forEach(
+            path -> LINKS_PER_PATH.computeIfAbsent(path, key -> ConcurrentHashMap.newKeySet()).add(linkPath)
+        );
+    }
+
+    private static void unindex(String linkPath, ResolvedLink resolvedLink) {
+        resolvedLink.paths().forEach(
+            path -> LINKS_PER_PATH.computeIfPresent(
+                path, (key, linkPaths) -> {
+                    linkPaths.remove(linkPath);
+                    return linkPaths.isEmpty() ? null : linkPaths;
+                }
+            )
+        );
+    }
+
+    @SuppressWarnings("PMD.CloseResource")
+    private Resource resolve(String linkPath, ResourceResolver resourceResolver) {
+        Map<String, String> visitedLinks = new LinkedHashMap<>();
+        Resource head = Optional.ofNullable(resourceResolver.getResource(linkPath)).orElseThrow(
+            () -> new IllegalStateException("No link found at '%s'".formatted(linkPath))
+        );
+        String linkedUUID = linkedUUID(head).orElseThrow(
+            () -> new IllegalStateException("Broken link: %s".formatted(linkPath))
+        );
+        Resource current = head;
+        while (new NodeProperties(current).isPrimaryType(Asset.NT_ASSET_LINK)) {
+            String currentPath = current.getPath();
+            linkedUUID = linkedUUID(current).orElseThrow(
+                () -> new IllegalStateException("Broken link: %s".formatted(currentPath))
+            );
+            if (visitedLinks.putIfAbsent(currentPath, linkedUUID) != null) {
+                throw new IllegalStateException("Cycle of links detected: %s".formatted(visitedLinks.keySet()));
+            }
+            if (visitedLinks.size() > MAX_LINK_DEPTH) {
+                throw new IllegalStateException(
+                    "Chain of links longer than %d: %s".formatted(MAX_LINK_DEPTH, visitedLinks.keySet())
+                );
+            }
+            current = linked(currentPath, linkedUUID, resourceResolver);
+        }
+        log.trace("Link at '{}' resolved to {} via {}", linkPath, current, visitedLinks.keySet());
+        ResolvedLink resolvedLink = new ResolvedLink(
+            Collections.unmodifiableMap(visitedLinks), current.getPath(), linkedUUID
+        );
+        TARGETS.asMap().compute(
+            linkPath, (key, previous) -> {
+                Optional.ofNullable(previous).ifPresent(previousLink -> unindex(key, previousLink));
+                index(key, resolvedLink);
+                return resolvedLink;
+            }
+        );
+        return current;
+    }
+
+    private Resource linked(String linkPath, String linkedUUID, ResourceResolver resourceResolver) {
+        return new ReferenceableResolvable(() -> linkedUUID, resourceResolver).resource()
+            .orElseThrow(() -> new IllegalStateException("Broken link: %s".formatted(linkPath)));
+    }
+
+    private Optional<String> linkedUUID(@Nullable Resource link) {
+        return Optional.ofNullable(link)
+            .map(Resource::getValueMap)
+            .map(valueMap -> valueMap.get(Asset.PN_LINKED_ASSET, String.class));
+    }
+
+    /**
+     * Chain of links and its final target.
+     *
+     * @param linkedUUIDs UUIDs of {@link Node}s the links of the chain point to, per path of every link, in the order
+     *                    the links are followed
+     * @param targetPath  path of the final target
+     * @param targetUUID  UUID of the final target
+     */
+    private record ResolvedLink(Map<String, String> linkedUUIDs, String targetPath, String targetUUID) {
+
+        private Stream<String> paths() {
+            return Stream.concat(linkedUUIDs.keySet().stream(), Stream.of(targetPath));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+
+import javax.jcr.Repository;
+import java.util.List;
+
+/**
+ * Invalidates the cached final targets of {@link Asset}s of type {@link Asset#NT_ASSET_LINK} whenever a link or its
+ * target is removed from the {@link Repository} or changed. Every {@link ResourceChange} is matched against the reverse
+ * index of cached chains of links in memory, without accessing the {@link Repository}. Since changes that happen while
+ * this listener isn't active can't be matched, all cached final targets are discarded upon activation.
+ */
+@Component(
+    service = {AssetLinkTargetsInvalidation.class, ResourceChangeListener.class},
+    immediate = true,
+    property = {
+        ResourceChangeListener.PATHS + "=/",
+        ResourceChangeListener.PATHS + "=!/jcr:system",
+        ResourceChangeListener.PATHS + "=!/oak:index",
+        ResourceChangeListener.PATHS + "=!/home",
+        ResourceChangeListener.PATHS + "=!/var/eventing",
+        ResourceChangeListener.CHANGES + "=" + ResourceChangeListener.CHANGE_REMOVED,
+        ResourceChangeListener.CHANGES + "=" + ResourceChangeListener.CHANGE_CHANGED,
+        ResourceChangeListener.PROPERTY_NAMES_HINT + "=" + Asset.PN_LINKED_ASSET
+    }
+)
+@ServiceDescription("Invalidates the cached final targets of Asset links")
+@Slf4j
+@ToString
+public class AssetLinkTargetsInvalidation implements ResourceChangeListener {
+
+    private final AssetLinkTargets assetLinkTargets;
+
+    /**
+     * Constructs an instance of this class.
+     */
+    @Activate
+    public AssetLinkTargetsInvalidation() {
+        this.assetLinkTargets = new AssetLinkTargets();
+        assetLinkTargets.invalidateAll();
+        log.info("Initialized {}", this);
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes) {
+        log.trace("Received {} Resource Change(s) to invalidate cached link targets", changes.size());
+        changes.forEach(
+            resourceChange -> {
+                if (resourceChange.getType() == ResourceChange.ChangeType.REMOVED) {
+                    assetLinkTargets.invalidateRemoved(resourceChange.getPath());
+                } else {
+                    assetLinkTargets.invalidateChanged(resourceChange.getPath());
+                }
+            }
+        );
+    }
+}
@@ -1,11 +1,7 @@
 package eu.ciechanowiec.sling.rocket.asset;
 
-import eu.ciechanowiec.conditional.Conditional;
 import eu.ciechanowiec.sling.rocket.commons.MemoizingSupplier;
 import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
-import org.apache.tika.mime.MimeType;
-import org.apache.tika.mime.MimeTypeException;
-import org.apache.tika.mime.MimeTypes;
 
 import javax.jcr.Node;
 import javax.jcr.Repository;
@@ -30,6 +26,26 @@ public interface AssetMetadata {
      */
     String PN_MIME_TYPE = "mimeType";
 
+    /**
+     * Name of the property that holds the {@link SHA256Digest} of the binary content of the associated {@link Asset}.
+     * The property is set automatically upon saving via {@link StagedAssetReal}.
+     */
+    String PN_SHA256 = "sha256";
+
+    /**
+     * Name of the property that holds the size of the binary content of the associated {@link Asset} in bytes, stored
+     * as a {@link Long}. The property is set automatically upon saving via {@link StagedAssetReal} and is indexed in
+     * an ordered way, so that the biggest {@link Asset}s can be retrieved without scanning all of them.
+     */
+    String PN_SIZE_BYTES = "sizeBytes";
+
+    /**
+     * Name of the property that holds the filename extension of the associated {@link Asset}, prepended with a dot,
+     * e.g. {@code '.jpg'}. The property is set automatically upon saving via {@link StagedAssetReal}, so that the
+     * extension doesn't have to be derived from the mime type upon every read.
+     */
+    String PN_FILENAME_EXTENSION = "filenameExtension";
+
     /**
      * Returns the mime type of the associated {@link Asset}, e.g. {@code image/jpeg}.
      *
@@ -65,24 +81,19 @@ public interface AssetMetadata {
      * a dot, e.g. {@code '.txt'}, {@code '.jpg'}, {@code '.pdf'}; if the filename extension cannot be determined, an
      * empty {@link Optional} is returned.
      *
+     * <p>
+     * The value of the {@link AssetMetadata#PN_FILENAME_EXTENSION} property is returned if present. Otherwise, the
+     * filename extension is derived from the {@link AssetMetadata#mimeType()}.
+     *
      * @return {@link Optional} containing the filename extension of the associated {@link Asset} and prepended with a
      * dot, e.g. {@code '.txt'}, {@code '.jpg'}, {@code '.pdf'}; if the filename extension cannot be determined, an
      * empty {@link Optional} is returned
      */
-    @SuppressWarnings({"unchecked", "squid:S1612", "squid:S1166", "PMD.LambdaCanBeMethodReference"})
     default Optional<String> filenameExtension() {
-        MimeTypes defaultMimeTypes = MimeTypes.getDefaultMimeTypes();
-        try {
-            MimeType mimeType = defaultMimeTypes.forName(mimeType());
-            String extension = mimeType.getExtension();
-            boolean isInvalidExtension = extension.isBlank();
-            return Conditional.conditional(isInvalidExtension)
-                .onTrue(() -> Optional.empty())
-                .onFalse(() -> Optional.of(extension))
-                .get(Optional.class);
-        } catch (MimeTypeException exception) {
-            return Optional.empty();
-        }
+        return properties()
+            .flatMap(nodeProperties -> nodeProperties.propertyValue(PN_FILENAME_EXTENSION, String.class))
+            .filter(extension -> !extension.isBlank())
+            .or(() -> new MimeTypeDetector().extension(mimeType()));
     }
 
     /**
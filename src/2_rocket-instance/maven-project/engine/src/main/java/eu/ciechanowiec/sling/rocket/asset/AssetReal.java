@@ -14,6 +14,7 @@ import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 
 import java.io.InputStream;
@@ -39,6 +40,13 @@ class AssetReal implements Asset {
         this(withJCRPath.jcrPath(), resourceAccess);
     }
 
+    AssetReal(Resource resource, ResourceAccess resourceAccess) {
+        this.jcrPath = new TargetJCRPath(resource);
+        this.resourceAccess = resourceAccess;
+        new NodeProperties(resource).assertPrimaryType(NT_ASSET_REAL);
+        log.trace("Initialized {}", this);
+    }
+
     @Override
     public AssetFile assetFile() {
         return new AssetFile() {
@@ -0,0 +1,19 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+/**
+ * Order in which {@link Asset}s are returned by an {@link AssetsRepository}.
+ */
+public enum AssetsOrder {
+
+    /**
+     * No particular order is guaranteed. This is the cheapest option, since the {@link Asset}s are returned in the
+     * order they are provided by the underlying query.
+     */
+    UNORDERED,
+
+    /**
+     * {@link Asset}s are ordered ascending by their {@link Asset#jcrPath()}. This order is stable, so it is suitable
+     * for iterating over consecutive {@link AssetsPage}s.
+     */
+    PATH
+}
@@ -0,0 +1,43 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.conditional.Conditional;
+import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
+
+/**
+ * Request for a single page of {@link Asset}s located at the specified {@link JCRPath} and its descendants.
+ *
+ * @param searchedPath {@link JCRPath} where the {@link Asset}s are searched
+ * @param offset       number of {@link Asset}s to skip before the first {@link Asset} of this page
+ * @param limit        maximum number of {@link Asset}s in this page
+ * @param order        {@link AssetsOrder} in which the {@link Asset}s are returned; only {@link AssetsOrder#PATH}
+ *                     guarantees that consecutive pages neither overlap nor miss {@link Asset}s
+ */
+public record AssetsPage(JCRPath searchedPath, long offset, int limit, AssetsOrder order) {
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param searchedPath {@link JCRPath} where the {@link Asset}s are searched
+     * @param offset       number of {@link Asset}s to skip before the first {@link Asset} of this page
+     * @param limit        maximum number of {@link Asset}s in this page
+     * @param order        {@link AssetsOrder} in which the {@link Asset}s are returned; only {@link AssetsOrder#PATH}
+     *                     guarantees that consecutive pages neither overlap nor miss {@link Asset}s
+     * @throws IllegalArgumentException if the offset is negative or the limit is not positive
+     */
+    public AssetsPage {
+        Conditional.isTrueOrThrow(
+            offset >= 0 && limit > 0, new IllegalArgumentException(
+                String.format("Illegal offset (%d) or limit (%d) of a page of Assets", offset, limit)
+            )
+        );
+    }
+
+    /**
+     * Returns the request for the page of {@link Asset}s directly following this page.
+     *
+     * @return request for the page of {@link Asset}s directly following this page
+     */
+    public AssetsPage next() {
+        return new AssetsPage(searchedPath, offset + limit, limit, order);
+    }
+}
@@ -8,20 +8,30 @@ import eu.ciechanowiec.sling.rocket.jcr.ref.Referenceable;
 import eu.ciechanowiec.sling.rocket.jcr.ref.ReferenceableResolvable;
 import eu.ciechanowiec.sling.rocket.unit.DataSize;
 import eu.ciechanowiec.sling.rocket.unit.DataUnit;
+import lombok.SneakyThrows;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.jackrabbit.JcrConstants;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 
+import javax.jcr.Node;
+import javax.jcr.PropertyIterator;
 import javax.jcr.Repository;
 import javax.jcr.query.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -32,7 +42,14 @@ import java.util.stream.StreamSupport;
 @ToString
 public class AssetsRepository {
 
+    private static final Map<String, String> OWNER_TYPES = Map.of(
+        JcrConstants.NT_RESOURCE, JcrConstants.NT_FILE,
+        JcrConstants.NT_FILE, Asset.NT_ASSET_REAL
+    );
+
     private final ResourceAccess resourceAccess;
+    @ToString.Exclude
+    private final Optional<AssetsTotals> assetsTotalsNullable;
 
     /**
      * Constructs an instance of this class.
@@ -41,6 +58,22 @@ public class AssetsRepository {
      */
     public AssetsRepository(ResourceAccess resourceAccess) {
         this.resourceAccess = resourceAccess;
+        this.assetsTotalsNullable = Optional.empty();
+        log.trace("Initialized {}", this);
+    }
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param resourceAccess {@link ResourceAccess} that will be used to acquire access to resources
+     * @param assetsTotals   {@link AssetsTotals} that will be used to answer {@link AssetsRepository#size(JCRPath)} and
+     *                       {@link AssetsRepository#count(JCRPath)} without scanning the {@link Repository}; if the
+     *                       {@link AssetsTotals} aren't available yet, the {@link Repository} is scanned
+     */
+    @SuppressWarnings("WeakerAccess")
+    public AssetsRepository(ResourceAccess resourceAccess, AssetsTotals assetsTotals) {
+        this.resourceAccess = resourceAccess;
+        this.assetsTotalsNullable = Optional.of(assetsTotals);
         log.trace("Initialized {}", this);
     }
 
@@ -74,6 +107,159 @@ public class AssetsRepository {
         }
     }
 
+    /**
+     * Finds {@link Asset}s for the given {@link Referenceable}s with a single query.
+     *
+     * @param referenceables {@link Referenceable}s pointing to the searched {@link Asset}s
+     * @return found {@link Asset}s, in the order of the given {@link Referenceable}s; {@link Referenceable}s for which
+     * no related {@link Asset} was found are skipped
+     */
+    @SuppressWarnings("WeakerAccess")
+    public List<Asset> find(List<? extends Referenceable> referenceables) {
+        List<String> jcrUUIDs = referenceables.stream().map(Referenceable::jcrUUID).distinct().toList();
+        if (jcrUUIDs.isEmpty()) {
+            return List.of();
+        }
+        StringJoiner quotedUUIDs = new StringJoiner(", ");
+        jcrUUIDs.forEach(jcrUUID -> quotedUUIDs.add("'%s'".formatted(jcrUUID.replace("'", "''"))));
+        String query = String.format(
+            "SELECT * FROM [%s] AS node WHERE node.[%s] IN (%s)",
+            JcrConstants.MIX_REFERENCEABLE, JcrConstants.JCR_UUID, quotedUUIDs
+        );
+        log.trace("{} searching for Assets for {} UUIDs. Query: {}", this, jcrUUIDs.size(), query);
+        try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
+            Map<String, Asset> assetsPerUUID = new HashMap<>();
+            lazyStream(resourceResolver.findResources(query, Query.JCR_SQL2))
+                .filter(resource -> new NodeProperties(resource).isPrimaryType(Asset.SUPPORTED_PRIMARY_TYPES))
+                .forEach(
+                    resource -> assetsPerUUID.put(
+                        resource.getValueMap().get(JcrConstants.JCR_UUID, StringUtils.EMPTY),
+                        new UniversalAsset(resource, resourceAccess)
+                    )
+                );
+            List<Asset> foundAssets = jcrUUIDs.stream()
+                .map(assetsPerUUID::get)
+                .filter(Objects::nonNull)
+                .toList();
+            log.debug("For {} UUIDs {} found {} Assets", jcrUUIDs.size(), this, foundAssets.size());
+            return foundAssets;
+        }
+    }
+
+    /**
+     * Finds an {@link Asset} of type {@link Asset#NT_ASSET_REAL} whose binary content has the given
+     * {@link SHA256Digest}.
+     *
+     * @param sha256Digest {@link SHA256Digest} of the binary content of the searched {@link Asset}
+     * @return {@link Optional} containing the found {@link Asset}; empty {@link Optional} is returned if no related
+     * {@link Asset} was found
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Optional<Asset> find(SHA256Digest sha256Digest) {
+        String digest = sha256Digest.get();
+        String query = String.format(
+            "SELECT * FROM [%s] AS node WHERE node.[%s] = '%s'",
+            Asset.NT_ASSET_METADATA, AssetMetadata.PN_SHA256, digest
+        );
+        log.trace("{} searching for Asset with SHA-256 digest '{}'. Query: {}", this, digest, query);
+        try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
+            Optional<Asset> assetNullable = lazyStream(resourceResolver.findResources(query, Query.JCR_SQL2))
+                .map(Resource::getParent)
+                .filter(Objects::nonNull)
+                .filter(resource -> new NodeProperties(resource).isPrimaryType(Asset.NT_ASSET_REAL))
+                .findFirst()
+                .map(resource -> new UniversalAsset(resource, resourceAccess));
+            log.debug("For SHA-256 digest '{}' this Asset was found by {}: {}", digest, this, assetNullable);
+            return assetNullable;
+        }
+    }
+
+    /**
+     * Finds the biggest {@link Asset}s stored in the {@link Repository}, ordered descending by the {@link DataSize} of
+     * their binaries. The {@link Asset}s are retrieved with an ordered query over the
+     * {@link AssetMetadata#PN_SIZE_BYTES} property and the iteration over the query results stops as soon as the
+     * specified number of {@link Asset}s of type {@link Asset#NT_ASSET_REAL} is found. Every such {@link Asset} is
+     * directly followed by the {@link Asset}s of type {@link Asset#NT_ASSET_LINK} that link to it, since they share its
+     * binary; those links don't count towards the limit. {@link Asset}s without the
+     * {@link AssetMetadata#PN_SIZE_BYTES} property, i.e. saved before that property was introduced and not backfilled
+     * by {@link AssetsSizeBackfill} yet, aren't considered. The query is served by an asynchronous index, so the result
+     * is eventually consistent: recently saved or removed {@link Asset}s might be missing or still present in the
+     * result until the index catches up.
+     *
+     * @param limit maximum number of returned {@link Asset}s of type {@link Asset#NT_ASSET_REAL}
+     * @return biggest {@link Asset}s stored in the {@link Repository}, ordered descending by the {@link DataSize} of
+     * their binaries
+     */
+    @SuppressWarnings("WeakerAccess")
+    public List<Asset> biggest(int limit) {
+        String query = String.format(
+            "SELECT * FROM [%s] AS node WHERE node.[%s] IS NOT NULL ORDER BY node.[%s] DESC",
+            Asset.NT_ASSET_METADATA, AssetMetadata.PN_SIZE_BYTES, AssetMetadata.PN_SIZE_BYTES
+        );
+        log.trace("{} searching for {} biggest Assets. Query: {}", this, limit, query);
+        try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
+            List<Asset> biggestAssets = lazyStream(resourceResolver.findResources(query, Query.JCR_SQL2))
+                .map(Resource::getParent)
+                .filter(Objects::nonNull)
+                .filter(resource -> new NodeProperties(resource).isPrimaryType(Asset.NT_ASSET_REAL))
+                .limit(limit)
+                .flatMap(resource -> Stream.concat(Stream.of(resource), links(resource).stream()))
+                .<Asset>map(resource -> new UniversalAsset(resource, resourceAccess))
+                .toList();
+            log.debug("{} found {} biggest Assets", this, biggestAssets.size());
+            return biggestAssets;
+        }
+    }
+
+    /**
+     * Finds consecutive {@link Asset}s of type {@link Asset#NT_ASSET_REAL} that directly follow the specified
+     * {@link Asset#jcrUUID()}, ordered ascending by their {@link Asset#jcrUUID()}. Unlike a page requested with an
+     * {@link AssetsPage}, whose preceding {@link Asset}s are skipped one by one, the {@link Asset}s are retrieved with
+     * an ordered query that starts right after the specified {@link Asset#jcrUUID()}, so every page costs the same no
+     * matter how many {@link Asset}s precede it. The iteration over the query results stops as soon as the page is
+     * filled. The query is served by an asynchronous index, so the result is eventually consistent: recently saved or
+     * removed {@link Asset}s might be missing or still present in the result until the index catches up.
+     *
+     * @param lastJCRUUID {@link Asset#jcrUUID()} after which the returned {@link Asset}s follow; an empty
+     *                    {@link String} to start with the first {@link Asset}
+     * @param limit       maximum number of returned {@link Asset}s
+     * @return {@link Asset}s of type {@link Asset#NT_ASSET_REAL} that directly follow the specified
+     * {@link Asset#jcrUUID()}; if there are fewer such {@link Asset}s than the limit, the returned {@link List} is
+     * shorter than that limit and can be empty
+     */
+    @SuppressWarnings("WeakerAccess")
+    public List<Asset> findAfter(String lastJCRUUID, int limit) {
+        String query = String.format(
+            "SELECT * FROM [%s] AS node WHERE node.[%s] > '%s' ORDER BY node.[%s]",
+            Asset.NT_ASSET_REAL, JcrConstants.JCR_UUID, lastJCRUUID.replace("'", "''"), JcrConstants.JCR_UUID
+        );
+        log.trace("{} searching for {} Assets after '{}'. Query: {}", this, limit, lastJCRUUID, query);
+        try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
+            List<Asset> assetsAfter = lazyStream(resourceResolver.findResources(query, Query.JCR_SQL2))
+                .limit(limit)
+                .<Asset>map(resource -> new UniversalAsset(resource, resourceAccess))
+                .toList();
+            log.debug("{} found {} Assets after '{}'", this, assetsAfter.size(), lastJCRUUID);
+            return assetsAfter;
+        }
+    }
+
+    @SneakyThrows
+    private List<Resource> links(Resource assetRealResource) {
+        ResourceResolver resourceResolver = assetRealResource.getResourceResolver();
+        Optional<Node> nodeNullable = Optional.ofNullable(assetRealResource.adaptTo(Node.class));
+        List<Resource> links = new ArrayList<>();
+        if (nodeNullable.isPresent()) {
+            PropertyIterator references = nodeNullable.orElseThrow().getReferences(Asset.PN_LINKED_ASSET);
+            while (references.hasNext()) {
+                Optional.ofNullable(resourceResolver.getResource(references.nextProperty().getParent().getPath()))
+                    .filter(link -> new NodeProperties(link).isPrimaryType(Asset.NT_ASSET_LINK))
+                    .ifPresent(links::add);
+            }
+        }
+        return links;
+    }
+
     /**
      * Finds all {@link Asset}s that are located at the specified {@link JCRPath}. All and exclusively {@link Asset}s
      * that are located exactly at the specified {@link JCRPath} and its descendants are returned.
@@ -84,19 +270,74 @@ public class AssetsRepository {
     @SuppressWarnings("WeakerAccess")
     public List<Asset> find(JCRPath searchedPath) {
         log.debug("{} searching for Assets at {}", this, searchedPath);
-        String query = buildPathQuery(searchedPath);
-        log.trace("This query was built by {} to retrieve Assets: {}", this, query);
         try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
-            List<Asset> allAssets = lazyStream(resourceResolver.findResources(query, Query.JCR_SQL2))
-                .filter(resource -> new NodeProperties(resource).isPrimaryType(Asset.SUPPORTED_PRIMARY_TYPES))
-                .<Asset>map(resource -> new UniversalAsset(new TargetJCRPath(resource), resourceAccess))
-                .distinct()
-                .toList();
-            log.debug("{} found {} Assets with this query: {}", this, allAssets.size(), query);
+            List<Asset> allAssets = stream(searchedPath, AssetsOrder.UNORDERED, resourceResolver).toList();
+            log.debug("{} found {} Assets at {}", this, allAssets.size(), searchedPath);
             return allAssets;
         }
     }
 
+    /**
+     * Finds a single page of {@link Asset}s described by the specified {@link AssetsPage}. All and exclusively
+     * {@link Asset}s that are located exactly at the {@link AssetsPage#searchedPath()} and its descendants are
+     * considered. A single {@link ResourceResolver} is used for the whole retrieval and the iteration over the
+     * underlying query results stops as soon as the page is filled.
+     *
+     * @param assetsPage {@link AssetsPage} describing the page of {@link Asset}s to retrieve
+     * @return {@link Asset}s from the requested page; if there are fewer {@link Asset}s than the
+     * {@link AssetsPage#limit()}, the returned {@link List} is shorter than that limit and can be empty
+     */
+    @SuppressWarnings("WeakerAccess")
+    public List<Asset> find(AssetsPage assetsPage) {
+        log.debug("{} searching for {}", this, assetsPage);
+        try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
+            List<Asset> assetsInPage = stream(assetsPage.searchedPath(), assetsPage.order(), resourceResolver)
+                .skip(assetsPage.offset())
+                .limit(assetsPage.limit())
+                .toList();
+            log.debug("{} found {} Assets for {}", this, assetsInPage.size(), assetsPage);
+            return assetsInPage;
+        }
+    }
+
+    /**
+     * Performs the specified action for every {@link Asset} located at the specified {@link JCRPath}. All and
+     * exclusively {@link Asset}s that are located exactly at the specified {@link JCRPath} and its descendants are
+     * considered. The {@link Asset}s are streamed one by one and aren't collected in memory, while a single
+     * {@link ResourceResolver} is used for the whole iteration.
+     *
+     * @param searchedPath {@link JCRPath} where the {@link Asset}s are searched
+     * @param order        {@link AssetsOrder} in which the {@link Asset}s are passed to the action
+     * @param action       action to perform for every found {@link Asset}
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void forEach(JCRPath searchedPath, AssetsOrder order, Consumer<? super Asset> action) {
+        log.debug("{} iterating over Assets at {} in {} order", this, searchedPath, order);
+        try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
+            stream(searchedPath, order, resourceResolver).forEach(action);
+        }
+    }
+
+    /**
+     * Performs the specified action for consecutive {@link Asset}s located at the specified {@link JCRPath}, as long as
+     * the action returns {@code true}. All and exclusively {@link Asset}s that are located exactly at the specified
+     * {@link JCRPath} and its descendants are considered. The {@link Asset}s are streamed one by one and aren't
+     * collected in memory, while a single {@link ResourceResolver} and a single query are used for the whole iteration.
+     *
+     * @param searchedPath {@link JCRPath} where the {@link Asset}s are searched
+     * @param order        {@link AssetsOrder} in which the {@link Asset}s are passed to the action
+     * @param action       action to perform for every found {@link Asset}; returns {@code false} to stop the iteration
+     * @return {@code true} if the action was performed for all found {@link Asset}s; {@code false} if the iteration
+     * was stopped by the action
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean forEachWhile(JCRPath searchedPath, AssetsOrder order, Predicate<? super Asset> action) {
+        log.debug("{} iterating over Assets at {} in {} order while possible", this, searchedPath, order);
+        try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
+            return stream(searchedPath, order, resourceResolver).allMatch(action);
+        }
+    }
+
     /**
      * Calculates the {@link DataSize} of binaries for all {@link Asset}s stored in the {@link Repository} and located
      * at the specified {@link JCRPath}. All and exclusively {@link Asset}s that are located exactly at the specified
@@ -108,12 +349,13 @@ public class AssetsRepository {
      */
     public DataSize size(JCRPath searchedPath) {
         log.debug("{} calculating size of Assets at {}", this, searchedPath);
-        String query = buildPathQuery(searchedPath);
+        return assetsTotalsNullable.flatMap(assetsTotals -> assetsTotals.size(searchedPath))
+            .orElseGet(() -> scanSize(searchedPath));
+    }
+
+    private DataSize scanSize(JCRPath searchedPath) {
         try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
-            long totalBytes = lazyStream(resourceResolver.findResources(query, Query.JCR_SQL2))
-                .filter(resource -> new NodeProperties(resource).isPrimaryType(Asset.SUPPORTED_PRIMARY_TYPES))
-                .map(resource -> new UniversalAsset(new TargetJCRPath(resource), resourceAccess))
-                .distinct()
+            long totalBytes = stream(searchedPath, AssetsOrder.UNORDERED, resourceResolver)
                 .map(Asset::assetFile)
                 .map(AssetFile::size)
                 .mapToLong(DataSize::bytes)
@@ -134,6 +376,32 @@ public class AssetsRepository {
         return size(new TargetJCRPath("/"));
     }
 
+    /**
+     * Counts all {@link Asset}s stored in the {@link Repository} and located at the specified {@link JCRPath}. All and
+     * exclusively {@link Asset}s that are located exactly at the specified {@link JCRPath} and its descendants are
+     * considered.
+     *
+     * @param searchedPath {@link JCRPath} where the {@link Asset}s are searched
+     * @return number of all {@link Asset}s stored in the {@link Repository} and located at the specified
+     * {@link JCRPath}
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long count(JCRPath searchedPath) {
+        log.debug("{} counting Assets at {}", this, searchedPath);
+        return assetsTotalsNullable.flatMap(assetsTotals -> assetsTotals.count(searchedPath))
+            .orElseGet(() -> (long) find(searchedPath).size());
+    }
+
+    /**
+     * Counts all {@link Asset}s stored in the {@link Repository}.
+     *
+     * @return number of all {@link Asset}s stored in the {@link Repository}
+     */
+    public long count() {
+        log.debug("{} counting all Assets", this);
+        return count(new TargetJCRPath("/"));
+    }
+
     /**
      * Retrieves all {@link Asset}s stored in the {@link Repository}.
      *
@@ -144,16 +412,49 @@ public class AssetsRepository {
         return find(new TargetJCRPath("/"));
     }
 
-    private String buildPathQuery(JCRPath searchedPath) {
+    private Stream<Asset> stream(JCRPath searchedPath, AssetsOrder order, ResourceResolver resourceResolver) {
+        String query = buildPathQuery(searchedPath, order);
+        log.trace("This query was built by {} to retrieve Assets: {}", this, query);
+        return lazyStream(resourceResolver.findResources(query, Query.JCR_SQL2))
+            .filter(resource -> new NodeProperties(resource).isPrimaryType(Asset.SUPPORTED_PRIMARY_TYPES))
+            .filter(resource -> isCanonical(resource, searchedPath))
+            .map(resource -> new UniversalAsset(resource, resourceAccess));
+    }
+
+    /**
+     * Several {@link Node}s might represent the same {@link Asset}, e.g. a {@link Node} of type
+     * {@link Asset#NT_ASSET_REAL} and its {@link JcrConstants#NT_FILE} and {@link JcrConstants#NT_RESOURCE}
+     * descendants. Only the outermost of those {@link Node}s that is located below the searched path, i.e. that can be
+     * found by the query, is considered canonical.
+     */
+    private boolean isCanonical(Resource resource, JCRPath searchedPath) {
+        String searchedPathPrefix = searchedPath.get().endsWith("/") ? searchedPath.get() : searchedPath.get() + "/";
+        return owner(resource, searchedPathPrefix).getPath().equals(resource.getPath());
+    }
+
+    private Resource owner(Resource resource, String searchedPathPrefix) {
+        String primaryType = new NodeProperties(resource).primaryType();
+        return Optional.ofNullable(OWNER_TYPES.get(primaryType))
+            .flatMap(
+                ownerType -> Optional.ofNullable(resource.getParent())
+                    .filter(parent -> parent.getPath().startsWith(searchedPathPrefix))
+                    .filter(parent -> new NodeProperties(parent).isPrimaryType(ownerType))
+            )
+            .map(parent -> owner(parent, searchedPathPrefix))
+            .orElse(resource);
+    }
+
+    private String buildPathQuery(JCRPath searchedPath, AssetsOrder order) {
         StringJoiner nodeTypesQueryPart = new StringJoiner(" OR ");
         Asset.SUPPORTED_PRIMARY_TYPES.forEach(
             primaryType -> nodeTypesQueryPart.add(
                 String.format("node.[%s] = '%s'", JcrConstants.JCR_PRIMARYTYPE, primaryType)
             )
         );
+        String orderQueryPart = order == AssetsOrder.PATH ? " ORDER BY [jcr:path]" : StringUtils.EMPTY;
         return String.format(
-            "SELECT * FROM [%s] AS node WHERE (%s) AND ISDESCENDANTNODE(node, '%s')",
-            JcrConstants.NT_BASE, nodeTypesQueryPart, searchedPath.get()
+            "SELECT * FROM [%s] AS node WHERE (%s) AND ISDESCENDANTNODE(node, '%s')%s",
+            JcrConstants.NT_BASE, nodeTypesQueryPart, searchedPath.get(), orderQueryPart
         );
     }
 
@@ -0,0 +1,158 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+
+import javax.jcr.query.Query;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sets the {@link AssetMetadata#PN_SIZE_BYTES} property on the {@link AssetMetadata} of {@link Asset}s that were saved
+ * before that property was introduced, so that those {@link Asset}s are found by
+ * {@link AssetsRepository#biggest(int)}.
+ * <p>
+ * Upon activation, the backfill is scheduled as a {@link Job} only if any {@link AssetMetadata} without the
+ * {@link AssetMetadata#PN_SIZE_BYTES} property is found with an indexed query, so once all {@link Asset}s have been
+ * backfilled, activations don't schedule anything. The backfill iterates over the query results lazily and saves the
+ * sizes in batches of {@link #BATCH_SIZE} {@link Asset}s, each committed at once, so neither the found {@link Asset}s
+ * nor the pending changes are accumulated in memory beyond a single batch.
+ */
+@Component(
+    service = {AssetsSizeBackfill.class, JobConsumer.class},
+    immediate = true,
+    property = JobConsumer.PROPERTY_TOPICS + "=" + AssetsSizeBackfill.JOB_TOPIC
+)
+@Slf4j
+@ToString
+@ServiceDescription("Sets the size property on metadata of Assets saved before that property was introduced")
+public class AssetsSizeBackfill implements JobConsumer {
+
+    static final String JOB_TOPIC = "eu/ciechanowiec/sling/rocket/asset/ASSETS_SIZE_BACKFILL";
+    static final int BATCH_SIZE = 500;
+
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param jobManager         {@link JobManager} that will be used by the constructed object to schedule the
+     *                           backfill if it is needed
+     */
+    @Activate
+    public AssetsSizeBackfill(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        JobManager jobManager
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        if (isBackfillNeeded()) {
+            log.info("Scheduling the backfill of Assets sizes");
+            jobManager.addJob(JOB_TOPIC, Map.of());
+        }
+        log.info("Initialized {}", this);
+    }
+
+    @Override
+    public JobResult process(Job job) {
+        backfill();
+        return JobResult.OK;
+    }
+
+    /**
+     * Sets the {@link AssetMetadata#PN_SIZE_BYTES} property on all {@link AssetMetadata} that don't have it.
+     *
+     * @return number of {@link AssetMetadata} on which the {@link AssetMetadata#PN_SIZE_BYTES} property was set
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long backfill() {
+        log.info("{} backfilling the size of Assets", this);
+        long numOfBackfilled = 0;
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            Iterator<Resource> metadataWithoutSize = resourceResolver.findResources(
+                queryForMetadataWithoutSize(), Query.JCR_SQL2
+            );
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            while (metadataWithoutSize.hasNext()) {
+                assetPath(metadataWithoutSize.next()).ifPresent(batch::add);
+                if (batch.size() >= BATCH_SIZE || !metadataWithoutSize.hasNext()) {
+                    numOfBackfilled += backfill(batch);
+                    batch.clear();
+                }
+            }
+        }
+        log.info("{} backfilled the size of {} Assets", this, numOfBackfilled);
+        return numOfBackfilled;
+    }
+
+    @SneakyThrows
+    private long backfill(List<String> assetPaths) {
+        long numOfBackfilled = 0;
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            for (String assetPath : assetPaths) {
+                Optional<ModifiableValueMap> metadataNullable = Optional.ofNullable(
+                    resourceResolver.getResource(assetPath + "/" + Asset.METADATA_NODE_NAME)
+                ).map(metadata -> metadata.adaptTo(ModifiableValueMap.class))
+                    .filter(metadata -> !metadata.containsKey(AssetMetadata.PN_SIZE_BYTES));
+                if (metadataNullable.isPresent()) {
+                    metadataNullable.orElseThrow().put(
+                        AssetMetadata.PN_SIZE_BYTES,
+                        new UniversalAsset(new TargetJCRPath(assetPath), fullResourceAccess).assetFile().size().bytes()
+                    );
+                    numOfBackfilled++;
+                }
+            }
+            resourceResolver.commit();
+        }
+        log.debug("{} backfilled the size of {} Assets in a batch of {}", this, numOfBackfilled, assetPaths.size());
+        return numOfBackfilled;
+    }
+
+    private boolean isBackfillNeeded() {
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            Iterator<Resource> metadataWithoutSize = resourceResolver.findResources(
+                queryForMetadataWithoutSize(), Query.JCR_SQL2
+            );
+            while (metadataWithoutSize.hasNext()) {
+                if (assetPath(metadataWithoutSize.next()).isPresent()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private Optional<String> assetPath(Resource metadata) {
+        return Optional.ofNullable(metadata.getParent())
+            .filter(parent -> new NodeProperties(parent).isPrimaryType(Asset.NT_ASSET_REAL))
+            .map(Resource::getPath);
+    }
+
+    private String queryForMetadataWithoutSize() {
+        return String.format(
+            "SELECT * FROM [%s] AS node WHERE node.[%s] IS NULL", Asset.NT_ASSET_METADATA, AssetMetadata.PN_SIZE_BYTES
+        );
+    }
+}
@@ -0,0 +1,245 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.IllegalPrimaryTypeException;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.job.SchedulableJobConsumer;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import eu.ciechanowiec.sling.rocket.unit.DataUnit;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.osgi.service.component.annotations.*;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.metatype.annotations.Designate;
+
+import javax.annotation.Nullable;
+import javax.jcr.Repository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Aggregated number and {@link DataSize} of {@link Asset}s stored in the {@link Repository}, answered without
+ * querying the {@link Repository}.
+ * <p>
+ * The totals are kept in memory, globally and per every path an {@link Asset} is nested in, where every {@link Asset}
+ * is credited to all paths above it. They are updated incrementally upon every added and removed {@link Asset} outside
+ * the paths excluded by {@link AssetsTotalsConfig#resource_paths()} and reconciled with the actual state of the
+ * {@link Repository} by a full scan, which is run on the configured schedule or on demand. Changes received while a
+ * reconciliation is running are recorded and replayed on top of its result, so they aren't lost. The first
+ * reconciliation is requested as a job when the totals are asked for the first time; until it finishes, the totals are
+ * not available. Since the totals aren't persisted, the full scan is repeated after every restart. Changes under the
+ * excluded paths might be missed by the totals until the next reconciliation, so the totals are eventually consistent.
+ */
+@Component(
+    service = {AssetsTotals.class, ResourceChangeListener.class, SchedulableJobConsumer.class, JobConsumer.class},
+    immediate = true,
+    configurationPolicy = ConfigurationPolicy.OPTIONAL,
+    property = {
+        ResourceChangeListener.PATHS + "=/",
+        ResourceChangeListener.PATHS + "=!/jcr:system",
+        ResourceChangeListener.PATHS + "=!/oak:index",
+        ResourceChangeListener.PATHS + "=!/home",
+        ResourceChangeListener.PATHS + "=!/var/eventing",
+        ResourceChangeListener.CHANGES + "=" + ResourceChangeListener.CHANGE_ADDED,
+        ResourceChangeListener.CHANGES + "=" + ResourceChangeListener.CHANGE_REMOVED,
+        JobConsumer.PROPERTY_TOPICS + "=" + AssetsTotals.JOB_TOPIC,
+        SchedulableJobConsumer.CRON_EXPRESSION_PROPERTY + "=" + AssetsTotals.DEFAULT_CRON_EXPRESSION
+    }
+)
+@Designate(ocd = AssetsTotalsConfig.class)
+@Slf4j
+@ToString
+@ServiceDescription("Aggregated number and size of Assets stored in the repository")
+public class AssetsTotals implements ResourceChangeListener, SchedulableJobConsumer {
+
+    static final String JOB_TOPIC = "eu/ciechanowiec/sling/rocket/asset/ASSETS_TOTALS_RECONCILIATION";
+    static final String DEFAULT_CRON_EXPRESSION = "0 0 3 * * ?";
+
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+    @ToString.Exclude
+    private final JobManager jobManager;
+    private final AtomicReference<AssetsTotalsState> state;
+    private final AtomicBoolean isReconciled;
+    private final AtomicBoolean isReconciliationRequested;
+    /**
+     * Changes received while a reconciliation is running; {@code null} if no reconciliation is running. Guarded by
+     * {@link #changesLock}.
+     */
+    @ToString.Exclude
+    @Nullable
+    private List<ResourceChange> changesDuringReconciliationNullable;
+    @ToString.Exclude
+    private final Object changesLock;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param jobManager         {@link JobManager} that will be used by the constructed object to request the first
+     *                           reconciliation of the totals when they are asked for the first time
+     */
+    @Activate
+    public AssetsTotals(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        JobManager jobManager
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        this.jobManager = jobManager;
+        this.state = new AtomicReference<>(new AssetsTotalsState());
+        this.isReconciled = new AtomicBoolean(false);
+        this.isReconciliationRequested = new AtomicBoolean(false);
+        this.changesDuringReconciliationNullable = null;
+        this.changesLock = new Object();
+        log.info("Initialized {}", this);
+    }
+
+    /**
+     * Returns the number of {@link Asset}s located at the specified {@link JCRPath} and its descendants. For the root
+     * result is computed in constant time.
+     *
+     * @param jcrPath {@link JCRPath} where the {@link Asset}s are located
+     * @return {@link Optional} containing the number of {@link Asset}s located at the specified {@link JCRPath} and its
+     * descendants; empty {@link Optional} is returned if the totals haven't been reconciled yet, in which case the
+     * first reconciliation is requested
+     */
+    public Optional<Long> count(JCRPath jcrPath) {
+        return Optional.of(isReconciledOrRequest())
+            .filter(Boolean::booleanValue)
+            .map(reconciled -> state.get().count(jcrPath.get()));
+    }
+
+    /**
+     * Returns the {@link DataSize} of binaries of {@link Asset}s located at the specified {@link JCRPath} and its
+     * descendants. The result is computed in constant time.
+     *
+     * @param jcrPath {@link JCRPath} where the {@link Asset}s are located
+     * @return {@link Optional} containing the {@link DataSize} of binaries of {@link Asset}s located at the specified
+     * {@link JCRPath} and its descendants; empty {@link Optional} is returned if the totals haven't been reconciled
+     * yet, in which case the first reconciliation is requested
+     */
+    public Optional<DataSize> size(JCRPath jcrPath) {
+        return Optional.of(isReconciledOrRequest())
+            .filter(Boolean::booleanValue)
+            .map(reconciled -> new DataSize(state.get().bytes(jcrPath.get()), DataUnit.BYTES));
+    }
+
+    private boolean isReconciledOrRequest() {
+        boolean isReconciledNow = isReconciled.get();
+        if (!isReconciledNow && isReconciliationRequested.compareAndSet(false, true)) {
+            log.info("Requesting the first reconciliation of {}", this);
+            jobManager.addJob(JOB_TOPIC, Map.of());
+        }
+        return isReconciledNow;
+    }
+
+    /**
+     * Rebuilds the totals from scratch by scanning all {@link Asset}s stored in the {@link Repository}. Changes
+     * received during the scan are replayed on top of its result before it replaces the current totals.
+     */
+    @SuppressWarnings({"WeakerAccess", "PMD.AvoidSynchronizedAtMethodLevel"})
+    public synchronized void reconcile() {
+        log.info("Reconciling {}", this);
+        synchronized (changesLock) {
+            changesDuringReconciliationNullable = new ArrayList<>();
+        }
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            AssetsTotalsState reconciledState = new AssetsTotalsState();
+            new AssetsRepository(fullResourceAccess).forEach(
+                new TargetJCRPath("/"), AssetsOrder.UNORDERED,
+                asset -> Optional.ofNullable(resourceResolver.getResource(asset.jcrPath().get())).ifPresent(
+                    resource -> reconciledState.add(resource.getPath(), asset.assetFile().size().bytes())
+                )
+            );
+            synchronized (changesLock) {
+                List<ResourceChange> changesDuringReconciliation = Optional.ofNullable(
+                    changesDuringReconciliationNullable
+                ).orElseGet(List::of);
+                log.debug("Replaying {} changes received during reconciliation", changesDuringReconciliation.size());
+                resourceResolver.refresh();
+                changesDuringReconciliation.forEach(
+                    resourceChange -> onChange(resourceChange, resourceResolver, reconciledState)
+                );
+                state.set(reconciledState);
+                isReconciled.set(true);
+            }
+            log.info("Reconciled {}. State: {}", this, reconciledState);
+        } finally {
+            synchronized (changesLock) {
+                changesDuringReconciliationNullable = null;
+            }
+        }
+    }
+
+    @Override
+    public JobResult process(Job job) {
+        reconcile();
+        return JobResult.OK;
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes) {
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            synchronized (changesLock) {
+                Optional.ofNullable(changesDuringReconciliationNullable).ifPresent(
+                    changesDuringReconciliation -> changesDuringReconciliation.addAll(changes)
+                );
+                AssetsTotalsState currentState = state.get();
+                changes.forEach(resourceChange -> onChange(resourceChange, resourceResolver, currentState));
+            }
+        }
+    }
+
+    private void onChange(
+        ResourceChange resourceChange, ResourceResolver resourceResolver, AssetsTotalsState currentState
+    ) {
+        String path = resourceChange.getPath();
+        if (resourceChange.getType() == ResourceChange.ChangeType.REMOVED) {
+            log.trace("Removing from totals: {}", path);
+            currentState.removeSubtree(path);
+            return;
+        }
+        if (currentState.containsAncestor(path)) {
+            log.trace("Skipping a descendant of a counted Asset: {}", path);
+            return;
+        }
+        Optional.ofNullable(resourceResolver.getResource(path))
+            .filter(resource -> new NodeProperties(resource).isPrimaryType(Asset.SUPPORTED_PRIMARY_TYPES))
+            .flatMap(this::asAsset)
+            .filter(asset -> !currentState.contains(asset.jcrPath().get()))
+            .ifPresent(
+                asset -> Optional.ofNullable(resourceResolver.getResource(asset.jcrPath().get())).ifPresent(
+                    assetResource -> {
+                        log.trace("Adding to totals: {}", assetResource);
+                        currentState.add(assetResource.getPath(), asset.assetFile().size().bytes());
+                    }
+                )
+            );
+    }
+
+    @SuppressWarnings("squid:S1166")
+    private Optional<Asset> asAsset(Resource resource) {
+        try {
+            return Optional.of(new UniversalAsset(resource, fullResourceAccess));
+        } catch (IllegalPrimaryTypeException exception) {
+            log.debug("Not an Asset: {}", resource, exception);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.job.SchedulableJobConsumer;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Configuration for {@link AssetsTotals}.
+ */
+@ObjectClassDefinition
+public @interface AssetsTotalsConfig {
+
+    /**
+     * Value for the {@link SchedulableJobConsumer#CRON_EXPRESSION_PROPERTY} that determines the schedule cycle of how
+     * often the {@link AssetsTotals} are reconciled with the actual state of the repository.
+     *
+     * @return value for the {@link SchedulableJobConsumer#CRON_EXPRESSION_PROPERTY} that determines the schedule cycle
+     * of how often the {@link AssetsTotals} are reconciled with the actual state of the repository
+     */
+    @AttributeDefinition(
+        name = "Quartz Cron Expression",
+        description = "Determines how often the totals are reconciled with the actual state of the repository",
+        defaultValue = AssetsTotals.DEFAULT_CRON_EXPRESSION,
+        type = AttributeType.STRING
+    )
+    @SuppressWarnings({"squid:S100", "squid:S125"})
+    String schedule$_$cycle_cron$_$expression() default AssetsTotals.DEFAULT_CRON_EXPRESSION;
+
+    /**
+     * Returns the value of the {@link ResourceChangeListener#PATHS} OSGi {@link Component#property()} that determines
+     * the paths where {@link AssetsTotals} are updated incrementally. Paths prefixed with {@code !} are excluded, so
+     * that frequent changes of nodes that are never {@link Asset}s don't have to be inspected.
+     *
+     * @return value of the {@link ResourceChangeListener#PATHS} OSGi {@link Component#property()} that determines the
+     * paths where {@link AssetsTotals} are updated incrementally
+     */
+    @AttributeDefinition(
+        name = "Resource Paths",
+        description = "Value of the 'resource.paths' OSGi property that determines the paths where the totals are "
+            + "updated incrementally. Paths prefixed with '!' are excluded",
+        defaultValue = {"/", "!/jcr:system", "!/oak:index", "!/home", "!/var/eventing"},
+        type = AttributeType.STRING
+    )
+    @SuppressWarnings("squid:S100")
+    String[] resource_paths() default {"/", "!/jcr:system", "!/oak:index", "!/home", "!/var/eventing"};
+}
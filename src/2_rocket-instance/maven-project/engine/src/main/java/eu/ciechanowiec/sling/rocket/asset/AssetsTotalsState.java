@@ -0,0 +1,146 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import lombok.ToString;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-memory totals of {@link Asset}s used by {@link AssetsTotals}. Keys of all maps are raw JCR paths. Every counted
+ * {@link Asset} is credited to all paths above it, so the totals for any path are read in constant time.
+ */
+@ToString
+class AssetsTotalsState {
+
+    private static final String ROOT_PATH = "/";
+
+    @ToString.Exclude
+    private final ConcurrentNavigableMap<String, Long> countedAssets;
+    @ToString.Exclude
+    private final ConcurrentNavigableMap<String, Totals> totalsPerAncestor;
+    private final Totals totalsGlobal;
+
+    AssetsTotalsState() {
+        this.countedAssets = new ConcurrentSkipListMap<>();
+        this.totalsPerAncestor = new ConcurrentSkipListMap<>();
+        this.totalsGlobal = new Totals();
+    }
+
+    boolean contains(String assetPath) {
+        return countedAssets.containsKey(assetPath);
+    }
+
+    /**
+     * Tells whether any {@link Asset} located above the specified path is counted, without accessing the repository.
+     */
+    boolean containsAncestor(String path) {
+        int separatorIndex = path.lastIndexOf(ROOT_PATH);
+        while (separatorIndex > 0) {
+            if (countedAssets.containsKey(path.substring(0, separatorIndex))) {
+                return true;
+            }
+            separatorIndex = path.lastIndexOf(ROOT_PATH, separatorIndex - 1);
+        }
+        return false;
+    }
+
+    @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+    synchronized void add(String assetPath, long bytes) {
+        Optional.ofNullable(countedAssets.put(assetPath, bytes)).ifPresent(
+            previousBytes -> subtract(assetPath, previousBytes)
+        );
+        totalsGlobal.add(bytes);
+        forEachAncestor(
+            assetPath, ancestorPath -> totalsPerAncestor.computeIfAbsent(ancestorPath, key -> new Totals()).add(bytes)
+        );
+    }
+
+    /**
+     * Removes the {@link Asset} at the specified path and all {@link Asset}s located below that path.
+     */
+    @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+    synchronized void removeSubtree(String removedPath) {
+        Optional.ofNullable(countedAssets.remove(removedPath)).ifPresent(bytes -> subtract(removedPath, bytes));
+        NavigableMap<String, Long> descendants = descendants(countedAssets, removedPath);
+        descendants.forEach(this::subtract);
+        descendants.clear();
+        totalsPerAncestor.remove(removedPath);
+        descendants(totalsPerAncestor, removedPath).clear();
+    }
+
+    long count(String path) {
+        if (countedAssets.containsKey(path)) {
+            return NumberUtils.LONG_ONE;
+        }
+        return totalsFor(path).map(Totals::count).orElse(NumberUtils.LONG_ZERO);
+    }
+
+    long bytes(String path) {
+        return Optional.ofNullable(countedAssets.get(path)).orElseGet(
+            () -> totalsFor(path).map(Totals::bytes).orElse(NumberUtils.LONG_ZERO)
+        );
+    }
+
+    private Optional<Totals> totalsFor(String path) {
+        return ROOT_PATH.equals(path) ? Optional.of(totalsGlobal) : Optional.ofNullable(totalsPerAncestor.get(path));
+    }
+
+    private void subtract(String assetPath, long bytes) {
+        totalsGlobal.subtract(bytes);
+        forEachAncestor(
+            assetPath, ancestorPath -> Optional.ofNullable(totalsPerAncestor.get(ancestorPath)).ifPresent(
+                totals -> totals.subtract(bytes)
+            )
+        );
+    }
+
+    /**
+     * Passes to the specified {@link Consumer} all paths above the specified path, except the root path.
+     */
+    private void forEachAncestor(String path, Consumer<String> action) {
+        int separatorIndex = path.indexOf(ROOT_PATH, 1);
+        while (separatorIndex > 0) {
+            action.accept(path.substring(0, separatorIndex));
+            separatorIndex = path.indexOf(ROOT_PATH, separatorIndex + 1);
+        }
+    }
+
+    private <T> NavigableMap<String, T> descendants(ConcurrentNavigableMap<String, T> map, String path) {
+        String prefix = prefixOf(path);
+        // '0' is the character directly following '/', so the range covers all paths starting with the prefix:
+        return map.subMap(prefix, true, prefix.substring(0, prefix.length() - 1) + '0', false);
+    }
+
+    private String prefixOf(String path) {
+        return path.endsWith(ROOT_PATH) ? path : path + ROOT_PATH;
+    }
+
+    private static final class Totals {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        private void add(long addedBytes) {
+            count.increment();
+            bytes.add(addedBytes);
+        }
+
+        private void subtract(long subtractedBytes) {
+            count.decrement();
+            bytes.add(-subtractedBytes);
+        }
+
+        private long count() {
+            return count.sum();
+        }
+
+        private long bytes() {
+            return bytes.sum();
+        }
+    }
+}
@@ -3,7 +3,6 @@ package eu.ciechanowiec.sling.rocket.asset;
 import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
 import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
 import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
-import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
 import org.apache.sling.api.resource.ResourceResolver;
 
 import javax.jcr.Node;
@@ -42,11 +41,7 @@ public class ConditionalAsset {
         try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
             String jcrPathRaw = jcrPath.get();
             return Optional.ofNullable(resourceResolver.getResource(jcrPathRaw))
-                .filter(
-                    resource -> new NodeProperties(
-                        new TargetJCRPath(resource), resourceAccess
-                    ).isPrimaryType(Asset.SUPPORTED_PRIMARY_TYPES)
-                )
+                .filter(resource -> new NodeProperties(resource).isPrimaryType(Asset.SUPPORTED_PRIMARY_TYPES))
                 .map(resource -> new UniversalAsset(resource, resourceAccess));
         }
     }
@@ -0,0 +1,56 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.StagedNode;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.jcr.Node;
+import javax.jcr.Repository;
+import java.util.Optional;
+
+/**
+ * Represents a request to save a new {@link Asset} in the {@link Repository} that avoids storing the same binary
+ * content more than once. Before the wrapped {@link StagedAssetReal} is saved, the {@link SHA256Digest} of its
+ * {@link AssetFile} is taken, if known upfront via {@link AssetFile#sha256Digest()}, or calculated otherwise, and an
+ * {@link Asset} of type {@link Asset#NT_ASSET_REAL} with the same
+ * {@link SHA256Digest} is searched for. If such an {@link Asset} is found, it is handled according to the specified
+ * {@link DeduplicationMode}. Otherwise, the wrapped {@link StagedAssetReal} is saved as usual.
+ * <p>
+ * Only {@link Asset}s that can be read via the {@link ResourceAccess} of the wrapped {@link StagedAssetReal} are
+ * considered during the search. If a new {@link Node} of type {@link Asset#NT_ASSET_LINK} is saved, the
+ * {@link AssetMetadata} of the wrapped {@link StagedAssetReal} is not persisted.
+ *
+ * @param stagedAssetReal      {@link StagedAssetReal} that should be saved if no {@link Asset} with identical binary
+ *                             content exists
+ * @param deduplicationMode    {@link DeduplicationMode} describing how to handle an already existing {@link Asset}
+ *                             with identical binary content
+ * @param deduplicationCounter {@link DeduplicationCounter} where outcomes of the deduplication will be registered
+ */
+@Slf4j
+public record DeduplicatingStagedAsset(
+    StagedAssetReal stagedAssetReal, DeduplicationMode deduplicationMode, DeduplicationCounter deduplicationCounter
+) implements StagedNode<Asset> {
+
+    @Override
+    public Asset save(TargetJCRPath targetJCRPath) {
+        if (deduplicationMode == DeduplicationMode.DISABLED) {
+            return stagedAssetReal.save(targetJCRPath);
+        }
+        ResourceAccess resourceAccess = stagedAssetReal.resourceAccess();
+        AssetFile assetFile = stagedAssetReal.assetFile();
+        SHA256Digest sha256Digest = assetFile.sha256Digest().orElseGet(() -> new SHA256Digest(assetFile));
+        Optional<Asset> existingAsset = new AssetsRepository(resourceAccess).find(sha256Digest);
+        existingAsset.ifPresentOrElse(
+            asset -> deduplicationCounter.registerHit(assetFile.size()),
+            deduplicationCounter::registerMiss
+        );
+        return existingAsset.map(
+            asset -> {
+                log.debug("Deduplicating {} with {} in mode {}", this, asset, deduplicationMode);
+                return deduplicationMode == DeduplicationMode.LINK
+                    ? new StagedAssetLink(asset, resourceAccess).save(targetJCRPath) : asset;
+            }
+        ).orElseGet(() -> stagedAssetReal.save(targetJCRPath));
+    }
+}
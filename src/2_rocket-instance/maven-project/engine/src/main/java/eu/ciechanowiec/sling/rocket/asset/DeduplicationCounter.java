@@ -0,0 +1,90 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import eu.ciechanowiec.sling.rocket.unit.DataUnit;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts outcomes of {@link DeduplicatingStagedAsset}-s saved since the start of this service.
+ */
+@Component(
+    service = DeduplicationCounter.class,
+    immediate = true
+)
+@Slf4j
+@ToString
+@ServiceDescription("Counts outcomes of Assets deduplication")
+public class DeduplicationCounter {
+
+    private final LongAdder lookups;
+    private final LongAdder hits;
+    private final LongAdder bytesSaved;
+
+    /**
+     * Constructs an instance of this class.
+     */
+    @Activate
+    public DeduplicationCounter() {
+        this.lookups = new LongAdder();
+        this.hits = new LongAdder();
+        this.bytesSaved = new LongAdder();
+        log.info("Initialized {}", this);
+    }
+
+    void registerMiss() {
+        lookups.increment();
+    }
+
+    void registerHit(DataSize savedDataSize) {
+        lookups.increment();
+        hits.increment();
+        bytesSaved.add(savedDataSize.bytes());
+    }
+
+    /**
+     * Returns the number of lookups for an already existing {@link Asset} with identical binary content.
+     *
+     * @return number of lookups for an already existing {@link Asset} with identical binary content
+     */
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Returns the number of lookups that found an already existing {@link Asset} with identical binary content.
+     *
+     * @return number of lookups that found an already existing {@link Asset} with identical binary content
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the ratio of {@link DeduplicationCounter#hits()} to {@link DeduplicationCounter#lookups()}; if no lookups
+     * were performed, {@code 0} is returned.
+     *
+     * @return ratio of {@link DeduplicationCounter#hits()} to {@link DeduplicationCounter#lookups()}; if no lookups
+     * were performed, {@code 0} is returned
+     */
+    @SuppressWarnings("WeakerAccess")
+    public double hitRatio() {
+        long numOfLookups = lookups();
+        return numOfLookups > NumberUtils.LONG_ZERO ? (double) hits() / numOfLookups : NumberUtils.DOUBLE_ZERO;
+    }
+
+    /**
+     * Returns the {@link DataSize} of binaries that were not stored thanks to deduplication.
+     *
+     * @return {@link DataSize} of binaries that were not stored thanks to deduplication
+     */
+    public DataSize bytesSaved() {
+        return new DataSize(bytesSaved.sum(), DataUnit.BYTES);
+    }
+}
@@ -0,0 +1,23 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+/**
+ * Describes how an {@link Asset} that is about to be saved should be handled if an {@link Asset} of type
+ * {@link Asset#NT_ASSET_REAL} with identical binary content, i.e. with the same {@link SHA256Digest}, already exists.
+ */
+public enum DeduplicationMode {
+
+    /**
+     * No deduplication is performed and a new {@link Asset} of type {@link Asset#NT_ASSET_REAL} is always saved.
+     */
+    DISABLED,
+
+    /**
+     * The already existing {@link Asset} is returned and nothing is saved.
+     */
+    REUSE,
+
+    /**
+     * A new {@link Asset} of type {@link Asset#NT_ASSET_LINK} pointing to the already existing {@link Asset} is saved.
+     */
+    LINK
+}
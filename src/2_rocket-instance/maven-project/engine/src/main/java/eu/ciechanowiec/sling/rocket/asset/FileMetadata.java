@@ -1,10 +1,8 @@
 package eu.ciechanowiec.sling.rocket.asset;
 
 import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
-import eu.ciechanowiec.sneakyfun.SneakySupplier;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
 
 import java.io.File;
 import java.util.Map;
@@ -43,14 +41,13 @@ public class FileMetadata implements AssetMetadata {
      */
     @SuppressWarnings("WeakerAccess")
     public FileMetadata(Supplier<File> fileSupplier) {
-        mimeTypeSupplier = SneakySupplier.sneaky(() -> {
+        mimeTypeSupplier = () -> {
             File file = fileSupplier.get();
-            Tika tika = new Tika();
             log.trace("Detecting the mime type of {}", file);
-            String detectedMimeType = tika.detect(file);
+            String detectedMimeType = new MimeTypeDetector().detect(file);
             log.trace("Mime type for {} detected: {}", file, detectedMimeType);
             return detectedMimeType;
-        });
+        };
         allSupplier = () -> Map.of(PN_MIME_TYPE, mimeType());
         propertiesSupplier = Optional::empty;
         log.trace("Initialized {}", this);
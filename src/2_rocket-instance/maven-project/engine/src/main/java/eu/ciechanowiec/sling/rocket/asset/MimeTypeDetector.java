@@ -0,0 +1,114 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.detect.Detector;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MimeTypeException;
+import org.apache.tika.mime.MimeTypes;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Optional;
+
+/**
+ * Thread-safe detector of mime types.
+ * <p>
+ * All instances of this class share a single underlying {@link Detector} and a bounded cache of resolved filename
+ * extensions, so constructing an instance is cheap. The detection never reads more than
+ * {@link MimeTypeDetector#PREFIX_SIZE_BYTES} bytes of the binary content.
+ */
+@Slf4j
+@ToString
+public class MimeTypeDetector {
+
+    /**
+     * Maximum number of bytes read from the beginning of the binary content to detect its mime type.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int PREFIX_SIZE_BYTES = 65_536;
+
+    private static final int MAX_CACHED_EXTENSIONS = 1000;
+    private static final MimeTypes MIME_TYPES = MimeTypes.getDefaultMimeTypes();
+    private static final Detector DETECTOR = TikaConfig.getDefaultConfig().getDetector();
+    private static final Cache<String, Optional<String>> EXTENSIONS = Caffeine.newBuilder()
+        .maximumSize(MAX_CACHED_EXTENSIONS)
+        .build();
+
+    /**
+     * Constructs an instance of this class.
+     */
+    @SuppressWarnings("PMD.UnnecessaryConstructor")
+    public MimeTypeDetector() {
+        log.trace("Initialized {}", this);
+    }
+
+    /**
+     * Detects the mime type of the specified {@link File}, e.g. {@code image/jpeg}.
+     *
+     * @param file {@link File} whose mime type should be detected
+     * @return detected mime type of the specified {@link File}, e.g. {@code image/jpeg}
+     */
+    @SneakyThrows
+    public String detect(File file) {
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            return detect(inputStream, file.getName());
+        }
+    }
+
+    /**
+     * Detects the mime type of the binary content provided by the specified {@link InputStream}, e.g.
+     * {@code image/jpeg}. At most {@link MimeTypeDetector#PREFIX_SIZE_BYTES} bytes are read from the
+     * {@link InputStream}. The {@link InputStream} isn't closed by this method.
+     *
+     * @param inputStream  {@link InputStream} providing the binary content whose mime type should be detected
+     * @param resourceName name of the resource from which the binary content comes from, e.g. a file name; it is used
+     *                     as a hint during the detection
+     * @return detected mime type of the binary content provided by the specified {@link InputStream}, e.g.
+     * {@code image/jpeg}
+     */
+    @SneakyThrows
+    @SuppressWarnings("WeakerAccess")
+    public String detect(InputStream inputStream, String resourceName) {
+        byte[] prefix = inputStream.readNBytes(PREFIX_SIZE_BYTES);
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, resourceName);
+        try (InputStream prefixInputStream = new ByteArrayInputStream(prefix)) {
+            String detectedMimeType = DETECTOR.detect(prefixInputStream, metadata).toString();
+            log.trace("Mime type for '{}' detected: {}", resourceName, detectedMimeType);
+            return detectedMimeType;
+        }
+    }
+
+    /**
+     * Returns an {@link Optional} containing the filename extension for the specified mime type, prepended with a dot,
+     * e.g. {@code '.jpg'} for {@code image/jpeg}; if the filename extension cannot be determined, an empty
+     * {@link Optional} is returned.
+     *
+     * @param mimeType mime type for which the filename extension should be returned, e.g. {@code image/jpeg}
+     * @return {@link Optional} containing the filename extension for the specified mime type, prepended with a dot,
+     * e.g. {@code '.jpg'} for {@code image/jpeg}; if the filename extension cannot be determined, an empty
+     * {@link Optional} is returned
+     */
+    public Optional<String> extension(String mimeType) {
+        return EXTENSIONS.get(mimeType, this::resolveExtension);
+    }
+
+    @SuppressWarnings("squid:S1166")
+    private Optional<String> resolveExtension(String mimeType) {
+        try {
+            return Optional.of(MIME_TYPES.forName(mimeType).getExtension())
+                .filter(extension -> !extension.isBlank());
+        } catch (MimeTypeException exception) {
+            log.trace("Unable to resolve the mime type '{}'", mimeType, exception);
+            return Optional.empty();
+        }
+    }
+}
@@ -29,7 +29,13 @@ class NTFile implements Asset {
     private final ResourceAccess resourceAccess;
 
     NTFile(Resource resource, ResourceAccess resourceAccess) {
-        this(new TargetJCRPath(resource), resourceAccess);
+        this.jcrPath = new TargetJCRPath(resource);
+        this.resourceAccess = resourceAccess;
+        new NodeProperties(resource).assertPrimaryType(JcrConstants.NT_FILE);
+        new NodeProperties(
+            new TargetJCRPath(new ParentJCRPath(jcrPath), JcrConstants.JCR_CONTENT), resource.getResourceResolver()
+        ).assertPrimaryType(JcrConstants.NT_RESOURCE);
+        log.trace("Initialized {}", this);
     }
 
     NTFile(JCRPath jcrPath, ResourceAccess resourceAccess) {
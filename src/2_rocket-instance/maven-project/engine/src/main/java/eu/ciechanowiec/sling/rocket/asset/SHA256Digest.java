@@ -0,0 +1,85 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.commons.MemoizingSupplier;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * SHA-256 digest of the binary content of an {@link AssetFile}, represented as a lowercase hexadecimal
+ * {@link String}. Unless it is already known upfront, the digest is calculated lazily upon the first call to
+ * {@link SHA256Digest#get()} and then cached.
+ */
+@Slf4j
+@ToString
+public class SHA256Digest implements Supplier<String> {
+
+    /**
+     * Name of the {@link MessageDigest} algorithm used by this class.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String ALGORITHM = "SHA-256";
+
+    @ToString.Exclude
+    private final MemoizingSupplier<String> digest;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param assetFile {@link AssetFile} for which the digest will be calculated
+     */
+    @SuppressWarnings("WeakerAccess")
+    public SHA256Digest(AssetFile assetFile) {
+        this.digest = new MemoizingSupplier<>(() -> calculate(assetFile));
+        log.trace("Initialized {}", this);
+    }
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param messageDigest {@link MessageDigest} of type {@link SHA256Digest#ALGORITHM} that has already been fed with
+     *                      the whole binary content, e.g. via a {@link DigestInputStream}
+     */
+    @SuppressWarnings("WeakerAccess")
+    public SHA256Digest(MessageDigest messageDigest) {
+        this.digest = new MemoizingSupplier<>(() -> HexFormat.of().formatHex(messageDigest.digest()));
+        log.trace("Initialized {}", this);
+    }
+
+    /**
+     * Constructs an instance of this class out of a digest that has already been calculated, e.g. while the binary
+     * content was being received.
+     *
+     * @param digest SHA-256 digest of the binary content, represented as a hexadecimal {@link String}
+     */
+    @SuppressWarnings("WeakerAccess")
+    public SHA256Digest(String digest) {
+        String normalizedDigest = digest.toLowerCase(Locale.ROOT);
+        this.digest = new MemoizingSupplier<>(() -> normalizedDigest);
+        log.trace("Initialized {}", this);
+    }
+
+    @SneakyThrows
+    private String calculate(AssetFile assetFile) {
+        MessageDigest messageDigest = MessageDigest.getInstance(ALGORITHM);
+        try (InputStream inputStream = new DigestInputStream(assetFile.retrieve(), messageDigest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        String calculatedDigest = HexFormat.of().formatHex(messageDigest.digest());
+        log.trace("Calculated SHA-256 digest for {}: '{}'", assetFile, calculatedDigest);
+        return calculatedDigest;
+    }
+
+    @Override
+    public String get() {
+        return digest.get();
+    }
+}
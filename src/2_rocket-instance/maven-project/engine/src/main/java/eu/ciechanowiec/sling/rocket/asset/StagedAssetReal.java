@@ -5,6 +5,7 @@ import eu.ciechanowiec.sling.rocket.jcr.StagedNode;
 import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
 import eu.ciechanowiec.sling.rocket.jcr.path.ParentJCRPath;
 import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.jackrabbit.JcrConstants;
@@ -16,6 +17,9 @@ import org.apache.sling.api.resource.ResourceUtil;
 import javax.jcr.Node;
 import javax.jcr.Repository;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -46,8 +50,8 @@ public record StagedAssetReal(
                 Map.of(JcrConstants.JCR_PRIMARYTYPE, Asset.NT_ASSET_REAL), null, false
             );
             log.trace("While saving {} to {}, this resource was staged: {}", this, targetJCRPath, assetRealResource);
-            attachFile(assetRealResource, assetFile, assetMetadata);
-            attachMetadata(assetRealResource, assetFile, assetMetadata);
+            SHA256Digest sha256Digest = attachFile(assetRealResource, assetFile, assetMetadata);
+            attachMetadata(assetRealResource, assetFile, assetMetadata, sha256Digest);
             resourceResolver.commit();
             Asset savedAsset = new UniversalAsset(assetRealResource, resourceAccess);
             log.debug("Saved: {}", savedAsset);
@@ -56,29 +60,49 @@ public record StagedAssetReal(
     }
 
     @SneakyThrows
-    private void attachFile(Resource assetRealResource, AssetFile assetFile, AssetMetadata assetMetadata) {
+    private SHA256Digest attachFile(Resource assetRealResource, AssetFile assetFile, AssetMetadata assetMetadata) {
         log.trace("Attaching {} to {}", assetFile, assetRealResource);
         Node assetRealNode = Optional.ofNullable(assetRealResource.adaptTo(Node.class)).orElseThrow();
         String mimeType = assetMetadata.mimeType();
-        try (InputStream assetFileIS = assetFile.retrieve()) {
+        Optional<SHA256Digest> knownSHA256Digest = assetFile.sha256Digest();
+        if (knownSHA256Digest.isPresent()) {
+            try (InputStream assetFileIS = assetFile.retrieve()) {
+                Node assetFileNode = JcrUtils.putFile(assetRealNode, Asset.FILE_NODE_NAME, mimeType, assetFileIS);
+                log.trace("Staged for saving: {}", assetFileNode);
+            }
+            return knownSHA256Digest.get();
+        }
+        MessageDigest messageDigest = MessageDigest.getInstance(SHA256Digest.ALGORITHM);
+        try (InputStream assetFileIS = new DigestInputStream(assetFile.retrieve(), messageDigest)) {
             Node assetFileNode = JcrUtils.putFile(assetRealNode, Asset.FILE_NODE_NAME, mimeType, assetFileIS);
             log.trace("Staged for saving: {}", assetFileNode);
         }
+        return new SHA256Digest(messageDigest);
     }
 
     @SneakyThrows
-    private void attachMetadata(Resource assetRealResource, AssetFile assetFile, AssetMetadata assetMetadata) {
+    private void attachMetadata(
+        Resource assetRealResource, AssetFile assetFile, AssetMetadata assetMetadata, SHA256Digest sha256Digest
+    ) {
         log.trace("Attaching {} to {}", assetMetadata, assetRealResource);
         String assetRealJCRPathRaw = assetRealResource.getPath();
         JCRPath metadataJCRPath = new TargetJCRPath(
             new ParentJCRPath(new TargetJCRPath(assetRealJCRPathRaw)), Asset.METADATA_NODE_NAME
         );
         String metadataJCRPathRaw = metadataJCRPath.get();
+        DataSize assetSize = assetFile.size();
         AssetMetadata supplementedAssetMetadata = assetMetadata.set(
             JcrConstants.JCR_PRIMARYTYPE, Asset.NT_ASSET_METADATA
-        ).set("assetSizeUponSaving", assetFile.size().toString());
+        ).set("assetSizeUponSaving", assetSize.toString())
+            .set(AssetMetadata.PN_SHA256, sha256Digest.get());
         @SuppressWarnings("PMD.LongVariable")
-        Map<String, Object> assetMetadataWithNodeTypeUnwrapped = supplementedAssetMetadata.allButObjectValues();
+        Map<String, Object> assetMetadataWithNodeTypeUnwrapped = new HashMap<>(
+            supplementedAssetMetadata.allButObjectValues()
+        );
+        assetMetadataWithNodeTypeUnwrapped.put(AssetMetadata.PN_SIZE_BYTES, assetSize.bytes());
+        assetMetadata.filenameExtension().ifPresent(
+            extension -> assetMetadataWithNodeTypeUnwrapped.put(AssetMetadata.PN_FILENAME_EXTENSION, extension)
+        );
         @SuppressWarnings("PMD.CloseResource")
         ResourceResolver resourceResolver = assetRealResource.getResourceResolver();
         Resource metadataResource = ResourceUtil.getOrCreateResource(
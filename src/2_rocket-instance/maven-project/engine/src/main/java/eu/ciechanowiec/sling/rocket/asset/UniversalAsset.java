@@ -10,6 +10,7 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.jackrabbit.JcrConstants;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
 
 import javax.jcr.Node;
 import javax.jcr.Repository;
@@ -29,6 +30,11 @@ public class UniversalAsset implements Asset {
 
     /**
      * Constructs an instance of this class.
+     * <p>
+     * The primary type of the {@link Node} behind the {@link Resource} is read via the {@link ResourceResolver} of
+     * that {@link Resource}, so no additional {@link ResourceResolver} is opened during the construction. For that
+     * reason, the {@link ResourceResolver} of the passed {@link Resource} must be open while this constructor is
+     * executed. After the construction, the constructed object uses exclusively the passed {@link ResourceAccess}.
      *
      * @param resource       the {@link Resource} that will back the constructed object; the type of a {@link Node}
      *                       behind the {@link Resource} must be one of the types supported by the {@link Asset}
@@ -40,7 +46,19 @@ public class UniversalAsset implements Asset {
     @SuppressWarnings("WeakerAccess")
     @SuppressFBWarnings("CT_CONSTRUCTOR_THROW")
     public UniversalAsset(Resource resource, ResourceAccess resourceAccess) {
-        this(new TargetJCRPath(resource), resourceAccess);
+        String primaryType = new NodeProperties(resource).primaryType();
+        Map<String, Supplier<? extends Asset>> implementationMappings = Map.of(
+            NT_ASSET_REAL, () -> new AssetReal(resource, resourceAccess),
+            NT_ASSET_LINK, () -> new AssetLink(resource, resourceAccess),
+            JcrConstants.NT_FILE, () -> new AssetRealCape(new NTFile(resource, resourceAccess), resourceAccess),
+            JcrConstants.NT_RESOURCE, () -> new AssetRealCape(
+                new NTFile(
+                    Optional.ofNullable(resource.getParent()).orElseThrow(), resourceAccess
+                ), resourceAccess
+            )
+        );
+        source = source(new TargetJCRPath(resource), primaryType, implementationMappings);
+        log.trace("Initialized {}", this);
     }
 
     /**
@@ -71,15 +89,21 @@ public class UniversalAsset implements Asset {
             )
         );
         String primaryType = nodeProperties.primaryType();
-        source = Optional.ofNullable(implementationMappings.get(primaryType))
-            .map(Supplier::get)
+        source = source(jcrPath, primaryType, implementationMappings);
+        log.trace("Initialized {}", this);
+    }
+
+    private Asset source(
+        JCRPath jcrPath, String primaryType, Map<String, Supplier<? extends Asset>> implementationMappings
+    ) {
+        return Optional.ofNullable(implementationMappings.get(primaryType))
+            .<Asset>map(Supplier::get)
             .orElseThrow(
                 () -> {
                     String message = String.format("Unsupported primary type of %s: %s", jcrPath, primaryType);
                     return new IllegalPrimaryTypeException(message);
                 }
             );
-        log.trace("Initialized {}", this);
     }
 
     @Override
@@ -3,9 +3,11 @@ package eu.ciechanowiec.sling.rocket.asset;
 import eu.ciechanowiec.sling.rocket.unit.DataSize;
 import lombok.SneakyThrows;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.util.Optional;
 
 /**
  * {@link AssetFile} made out of a {@link File}.
@@ -13,6 +15,8 @@ import java.nio.file.Files;
 public class UsualFileAsAssetFile implements AssetFile {
 
     private final File file;
+    @Nullable
+    private final SHA256Digest sha256DigestNullable;
 
     /**
      * Constructs an instance of this class.
@@ -21,6 +25,19 @@ public class UsualFileAsAssetFile implements AssetFile {
      */
     public UsualFileAsAssetFile(File file) {
         this.file = file;
+        this.sha256DigestNullable = null;
+    }
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param file         {@link File} to be wrapped by the constructed object
+     * @param sha256Digest {@link SHA256Digest} of the wrapped {@link File}, already calculated while that {@link File}
+     *                     was being written
+     */
+    public UsualFileAsAssetFile(File file, SHA256Digest sha256Digest) {
+        this.file = file;
+        this.sha256DigestNullable = sha256Digest;
     }
 
     @SneakyThrows
@@ -33,4 +50,9 @@ public class UsualFileAsAssetFile implements AssetFile {
     public DataSize size() {
         return new DataSize(file);
     }
+
+    @Override
+    public Optional<SHA256Digest> sha256Digest() {
+        return Optional.ofNullable(sha256DigestNullable);
+    }
 }
@@ -50,6 +50,12 @@ class AssetDescriptor implements Affected {
         this(requestDownload, StringUtils.EMPTY, StringUtils.EMPTY);
     }
 
+    AssetDescriptor(String rawAssetDescriptor) {
+        this.source = new MemoizingSupplier<>(() -> rawAssetDescriptor);
+        this.originalFileName = new MemoizingSupplier<>(() -> StringUtils.EMPTY);
+        this.downloadLink = new MemoizingSupplier<>(() -> StringUtils.EMPTY);
+    }
+
     private AssetDescriptor(SlingRequestWithDecomposition request, String originalFileName, String downloadLink) {
         this.source = new MemoizingSupplier<>(() -> {
             String assetDescriptorFromRequest = String.format(
@@ -0,0 +1,52 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.network.Affected;
+import lombok.ToString;
+
+/**
+ * Result of the deletion of a single {@link Asset} requested within a bulk request.
+ */
+@ToString
+class BulkDeletionResult implements Affected {
+
+    /**
+     * Outcome of the deletion of a single {@link Asset}.
+     */
+    enum Outcome {
+
+        /**
+         * The {@link Asset} was deleted.
+         */
+        DELETED,
+
+        /**
+         * No {@link Asset} matching the requested {@link AssetDescriptor} was found.
+         */
+        NOT_FOUND,
+
+        /**
+         * The {@link Asset} was found, but couldn't be deleted.
+         */
+        FAILED
+    }
+
+    private final AssetDescriptor assetDescriptor;
+    private final Outcome outcome;
+
+    BulkDeletionResult(AssetDescriptor assetDescriptor, Outcome outcome) {
+        this.assetDescriptor = assetDescriptor;
+        this.outcome = outcome;
+    }
+
+    @JsonProperty("assetDescriptor")
+    public String assetDescriptor() {
+        return assetDescriptor.toString();
+    }
+
+    @JsonProperty("outcome")
+    public Outcome outcome() {
+        return outcome;
+    }
+}
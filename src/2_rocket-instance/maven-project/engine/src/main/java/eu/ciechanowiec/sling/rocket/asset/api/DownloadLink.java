@@ -34,6 +34,11 @@ public class DownloadLink {
      */
     private DownloadLinkConfig config;
 
+    /**
+     * Base {@link URI} of the download links, built from the {@link DownloadLinkConfig} upon every (re)configuration.
+     */
+    private volatile String baseURI;
+
     /**
      * Constructs an instance of this class.
      *
@@ -42,17 +47,19 @@ public class DownloadLink {
     @Activate
     public DownloadLink(DownloadLinkConfig config) {
         this.config = config;
+        this.baseURI = uri(config).toString();
         log.info("Initialized {}", this);
     }
 
     @Modified
     void configure(DownloadLinkConfig config) {
         this.config = config;
+        this.baseURI = uri(config).toString();
         log.info("Configured {}", this);
     }
 
     @SneakyThrows
-    private URI uri() {
+    private URI uri(DownloadLinkConfig config) {
         return new URI(
             config.protocol(),
             null,
@@ -72,7 +79,7 @@ public class DownloadLink {
      */
     public String generate(Asset asset) {
         log.trace("{} generates link for this asset: '{}'", this, asset);
-        String link = "%s.%s.%s".formatted(uri(), ServletDownload.SELECTOR, new AssetDescriptor(asset));
+        String link = "%s.%s.%s".formatted(baseURI, ServletDownload.SELECTOR, new AssetDescriptor(asset));
         log.debug("For '{}' this link was generated: '{}'", asset, link);
         return link;
     }
@@ -0,0 +1,285 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetFile;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.asset.rendition.Renditions;
+import eu.ciechanowiec.sling.rocket.observation.stats.RocketStats;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import eu.ciechanowiec.sling.rocket.unit.DataUnit;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.jspecify.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.metatype.annotations.Designate;
+
+import javax.jcr.Binary;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory cache of binaries of small, frequently downloaded {@link Asset}s, used to serve such {@link Asset}s
+ * without opening a JCR {@link Binary}.
+ * <p>
+ * The cache is bounded by the total size of cached binaries. Every cached binary is keyed by the JCR UUID of its
+ * {@link Asset} and by a fingerprint of the binary content, i.e. the {@link AssetMetadata#PN_SHA256} value or, if
+ * absent, the {@link AssetMetadata#PN_SIZE_BYTES} value combined with the last modification time of the
+ * {@link AssetMetadata}. Both the fingerprint and the size are read from the {@link AssetMetadata}, so a cache hit
+ * doesn't open the binary. Cached binaries are indexed by the paths of their {@link Asset}s and invalidated when the
+ * resources of those {@link Asset}s are changed or removed; changes of {@link Renditions} stored under an
+ * {@link Asset} don't invalidate its binary.
+ * <p>
+ * The cache doesn't resolve {@link Asset}s on its own: it's consulted only for {@link Asset}s that have already been
+ * resolved on behalf of the requesting user, so the access control is enforced for every cache hit as well.
+ */
+@Component(
+    service = {HotAssetsCache.class, ResourceChangeListener.class, RocketStats.class},
+    immediate = true,
+    configurationPolicy = ConfigurationPolicy.REQUIRE,
+    property = {
+        ResourceChangeListener.PATHS + "=/",
+        ResourceChangeListener.PATHS + "=!/jcr:system",
+        ResourceChangeListener.PATHS + "=!/oak:index",
+        ResourceChangeListener.PATHS + "=!/home",
+        ResourceChangeListener.PATHS + "=!/var/eventing",
+        ResourceChangeListener.CHANGES + "=" + ResourceChangeListener.CHANGE_CHANGED,
+        ResourceChangeListener.CHANGES + "=" + ResourceChangeListener.CHANGE_REMOVED
+    }
+)
+@Designate(ocd = HotAssetsCacheConfig.class)
+@Slf4j
+@ToString
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+@ServiceDescription("In-memory cache of binaries of small, frequently downloaded Assets")
+public class HotAssetsCache implements ResourceChangeListener, RocketStats {
+
+    @ToString.Exclude
+    private final ConcurrentNavigableMap<String, Set<CachedBinaryKey>> keysPerAssetPath;
+    @ToString.Exclude
+    private volatile Cache<CachedBinaryKey, byte[]> binaries;
+    private volatile HotAssetsCacheConfig config;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param config {@link HotAssetsCacheConfig} that will be used by the constructed object
+     */
+    @Activate
+    public HotAssetsCache(HotAssetsCacheConfig config) {
+        this.keysPerAssetPath = new ConcurrentSkipListMap<>();
+        this.config = config;
+        this.binaries = newCache(config);
+        log.info("Initialized {}", this);
+    }
+
+    @Modified
+    void configure(HotAssetsCacheConfig config) {
+        this.config = config;
+        this.binaries = newCache(config);
+        keysPerAssetPath.clear();
+        log.info("Configured {}", this);
+    }
+
+    private Cache<CachedBinaryKey, byte[]> newCache(HotAssetsCacheConfig config) {
+        return Caffeine.newBuilder()
+            .maximumWeight(config.max$_$total$_$size_bytes())
+            .weigher((CachedBinaryKey key, byte[] binary) -> binary.length)
+            .evictionListener(
+                (@Nullable CachedBinaryKey key, byte[] binary, RemovalCause cause) -> {
+                    if (key != null) {
+                        unindex(key);
+                    }
+                }
+            )
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Returns the {@link AssetFile} of the specified {@link Asset}. If the binary of the {@link Asset} is small
+     * enough, it's served from this cache and loaded into it upon a miss. Otherwise, the original
+     * {@link Asset#assetFile()} is returned.
+     *
+     * @param asset {@link Asset} whose {@link AssetFile} is requested; it must have been resolved on behalf of the
+     *              user to whom the {@link AssetFile} will be served
+     * @return {@link AssetFile} of the specified {@link Asset}
+     */
+    @SuppressWarnings("WeakerAccess")
+    public AssetFile assetFile(Asset asset) {
+        AssetFile originalAssetFile = asset.assetFile();
+        Map<String, String> metadata = asset.assetMetadata().all();
+        long sizeBytes = Optional.ofNullable(metadata.get(AssetMetadata.PN_SIZE_BYTES))
+            .map(sizeBytesValue -> NumberUtils.toLong(sizeBytesValue, NumberUtils.LONG_MINUS_ONE))
+            .filter(sizeBytesValue -> sizeBytesValue >= NumberUtils.LONG_ZERO)
+            .orElseGet(() -> originalAssetFile.size().bytes());
+        if (sizeBytes > config.max$_$asset$_$size_bytes()) {
+            log.trace("{} is too big to be cached: {} bytes", asset, sizeBytes);
+            return originalAssetFile;
+        }
+        String fingerprint = Optional.ofNullable(metadata.get(AssetMetadata.PN_SHA256))
+            .orElseGet(
+                () -> "%d@%s".formatted(
+                    sizeBytes, metadata.getOrDefault(JcrConstants.JCR_LASTMODIFIED, StringUtils.EMPTY)
+                )
+            );
+        CachedBinaryKey key = new CachedBinaryKey(asset.jcrUUID(), fingerprint, asset.jcrPath().get());
+        byte[] binary = binaries.get(key, missedKey -> load(originalAssetFile));
+        index(key);
+        return new CachedAssetFile(binary);
+    }
+
+    @SneakyThrows
+    private byte[] load(AssetFile assetFile) {
+        try (InputStream inputStream = assetFile.retrieve()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes) {
+        changes.forEach(this::invalidate);
+    }
+
+    private void invalidate(ResourceChange resourceChange) {
+        String changedPath = resourceChange.getPath();
+        Optional<String> assetPathNullable = cachedAssetPath(changedPath);
+        assetPathNullable.filter(assetPath -> !isRenditionPath(assetPath, changedPath))
+            .ifPresent(this::invalidateAssetPath);
+        if (resourceChange.getType() == ResourceChange.ChangeType.REMOVED && assetPathNullable.isEmpty()) {
+            String descendantsPrefix = changedPath.endsWith("/") ? changedPath : changedPath + "/";
+            keysPerAssetPath.subMap(descendantsPrefix, descendantsPrefix + Character.MAX_VALUE)
+                .keySet()
+                .forEach(this::invalidateAssetPath);
+        }
+    }
+
+    private Optional<String> cachedAssetPath(String changedPath) {
+        String candidatePath = changedPath;
+        while (!candidatePath.isEmpty()) {
+            if (keysPerAssetPath.containsKey(candidatePath)) {
+                return Optional.of(candidatePath);
+            }
+            candidatePath = candidatePath.substring(NumberUtils.INTEGER_ZERO, candidatePath.lastIndexOf('/'));
+        }
+        return Optional.empty();
+    }
+
+    private boolean isRenditionPath(String assetPath, String changedPath) {
+        String renditionsPath = assetPath + "/" + Renditions.RENDITIONS_NODE_NAME;
+        return changedPath.equals(renditionsPath) || changedPath.startsWith(renditionsPath + "/");
+    }
+
+    private void invalidateAssetPath(String assetPath) {
+        Optional.ofNullable(keysPerAssetPath.remove(assetPath))
+            .ifPresent(keys -> binaries.invalidateAll(keys));
+    }
+
+    private void index(CachedBinaryKey key) {
+        keysPerAssetPath.computeIfAbsent(key.assetPath(), assetPath -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private void unindex(CachedBinaryKey key) {
+        keysPerAssetPath.computeIfPresent(
+            key.assetPath(), (assetPath, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            }
+        );
+    }
+
+    @JsonProperty
+    long hits() {
+        return binaries.stats().hitCount();
+    }
+
+    @JsonProperty
+    long misses() {
+        return binaries.stats().missCount();
+    }
+
+    @JsonProperty
+    long evictions() {
+        return binaries.stats().evictionCount();
+    }
+
+    @JsonProperty
+    double hitRate() {
+        return binaries.stats().hitRate();
+    }
+
+    @JsonProperty
+    long cachedBinaries() {
+        return binaries.estimatedSize();
+    }
+
+    @JsonProperty
+    long cachedBytes() {
+        binaries.cleanUp();
+        return binaries.policy()
+            .eviction()
+            .map(eviction -> eviction.weightedSize().orElse(NumberUtils.LONG_ZERO))
+            .orElse(NumberUtils.LONG_ZERO);
+    }
+
+    @Override
+    public String name() {
+        return HotAssetsCache.class.getName();
+    }
+
+    @SneakyThrows
+    @Override
+    public String asJSON() {
+        return new ObjectMapper().writeValueAsString(this);
+    }
+
+    private record CachedBinaryKey(String jcrUUID, String fingerprint, String assetPath) {
+    }
+
+    @ToString
+    private static final class CachedAssetFile implements AssetFile {
+
+        @ToString.Exclude
+        private final byte[] binary;
+
+        private CachedAssetFile(byte[] binary) {
+            this.binary = binary;
+        }
+
+        @Override
+        public InputStream retrieve() {
+            return new ByteArrayInputStream(binary);
+        }
+
+        @Override
+        public DataSize size() {
+            return new DataSize(binary.length, DataUnit.BYTES);
+        }
+    }
+}
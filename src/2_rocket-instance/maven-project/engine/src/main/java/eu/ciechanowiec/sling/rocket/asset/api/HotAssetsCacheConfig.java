@@ -0,0 +1,42 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Configuration for {@link HotAssetsCache}.
+ */
+@ObjectClassDefinition
+public @interface HotAssetsCacheConfig {
+
+    /**
+     * Maximum size in bytes of a single binary that can be cached.
+     *
+     * @return maximum size in bytes of a single binary that can be cached
+     */
+    @AttributeDefinition(
+        name = "Max asset size (bytes)",
+        description = "Maximum size in bytes of a single binary that can be cached. Bigger binaries are always "
+            + "streamed from the repository",
+        defaultValue = "262144",
+        type = AttributeType.LONG
+    )
+    @SuppressWarnings("squid:S100")
+    long max$_$asset$_$size_bytes() default 262_144L;
+
+    /**
+     * Maximum total size in bytes of all cached binaries.
+     *
+     * @return maximum total size in bytes of all cached binaries
+     */
+    @AttributeDefinition(
+        name = "Max total size (bytes)",
+        description = "Maximum total size in bytes of all cached binaries. When exceeded, the least valuable "
+            + "binaries are evicted",
+        defaultValue = "67108864",
+        type = AttributeType.LONG
+    )
+    @SuppressWarnings("squid:S100")
+    long max$_$total$_$size_bytes() default 67_108_864L;
+}
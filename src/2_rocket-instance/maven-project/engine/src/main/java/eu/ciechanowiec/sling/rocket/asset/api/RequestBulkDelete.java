@@ -0,0 +1,107 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.DeletableResources;
+import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
+import eu.ciechanowiec.sling.rocket.network.SlingRequest;
+import eu.ciechanowiec.sling.rocket.network.SlingRequestWithDecomposition;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Slf4j
+@ToString
+class RequestBulkDelete implements SlingRequestWithDecomposition {
+
+    private final SlingRequest slingRequest;
+    @ToString.Exclude
+    private final ResourceAccess resourceAccess;
+    @ToString.Exclude
+    private final RequestedAssets requestedAssets;
+
+    RequestBulkDelete(SlingRequest slingRequest, ResourceAccess resourceAccess) {
+        this.slingRequest = slingRequest;
+        this.resourceAccess = resourceAccess;
+        this.requestedAssets = new RequestedAssets(
+            slingRequest.parameterValues(ServletDeleteBulk.PARAMETER_ASSET_DESCRIPTOR), resourceAccess
+        );
+    }
+
+    List<String> rawAssetDescriptors() {
+        return requestedAssets.rawAssetDescriptors();
+    }
+
+    List<BulkDeletionResult> deleteAssets(int chunkSize) {
+        Map<AssetDescriptor, Optional<Asset>> matchedAssets = requestedAssets.matched();
+        List<JCRPath> jcrPathsToDelete = matchedAssets.values()
+            .stream()
+            .flatMap(Optional::stream)
+            .map(Asset::jcrPath)
+            .toList();
+        Set<JCRPath> deletedJCRPaths = new DeletableResources(jcrPathsToDelete, resourceAccess, chunkSize).delete();
+        List<BulkDeletionResult> results = matchedAssets.entrySet()
+            .stream()
+            .map(
+                entry -> new BulkDeletionResult(
+                    entry.getKey(),
+                    entry.getValue()
+                        .map(Asset::jcrPath)
+                        .map(
+                            jcrPath -> deletedJCRPaths.contains(jcrPath)
+                                ? BulkDeletionResult.Outcome.DELETED : BulkDeletionResult.Outcome.FAILED
+                        ).orElse(BulkDeletionResult.Outcome.NOT_FOUND)
+                )
+            ).toList();
+        log.trace("For {} these deletion results were produced: {}", slingRequest, results);
+        return results;
+    }
+
+    @Override
+    public String contentPath() {
+        return slingRequest.contentPath();
+    }
+
+    @Override
+    public Optional<String> firstSelector() {
+        return slingRequest.firstSelector();
+    }
+
+    @Override
+    public Optional<String> secondSelector() {
+        return slingRequest.secondSelector();
+    }
+
+    @Override
+    public Optional<String> thirdSelector() {
+        return slingRequest.thirdSelector();
+    }
+
+    @Override
+    public Optional<String> selectorString() {
+        return slingRequest.selectorString();
+    }
+
+    @Override
+    public int numOfSelectors() {
+        return slingRequest.numOfSelectors();
+    }
+
+    @Override
+    public Optional<String> extension() {
+        return slingRequest.extension();
+    }
+
+    boolean isValidStructure() {
+        return new RequestStructure(this).isValid();
+    }
+
+    @Override
+    public Optional<String> suffix() {
+        return slingRequest.suffix();
+    }
+}
@@ -0,0 +1,83 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
+import eu.ciechanowiec.sling.rocket.network.SlingRequest;
+import eu.ciechanowiec.sling.rocket.network.SlingRequestWithDecomposition;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@ToString
+class RequestBulkDownload implements SlingRequestWithDecomposition {
+
+    private final SlingRequest slingRequest;
+    @ToString.Exclude
+    private final RequestedAssets requestedAssets;
+
+    RequestBulkDownload(SlingRequest slingRequest, ResourceAccess resourceAccess) {
+        this.slingRequest = slingRequest;
+        this.requestedAssets = new RequestedAssets(
+            slingRequest.parameterValues(ServletDownloadBulk.PARAMETER_ASSET_DESCRIPTOR), resourceAccess
+        );
+    }
+
+    List<String> rawAssetDescriptors() {
+        return requestedAssets.rawAssetDescriptors();
+    }
+
+    List<Asset> targetAssets() {
+        return requestedAssets.found();
+    }
+
+    List<AssetDescriptor> missingAssets() {
+        return requestedAssets.missing();
+    }
+
+    @Override
+    public String contentPath() {
+        return slingRequest.contentPath();
+    }
+
+    @Override
+    public Optional<String> firstSelector() {
+        return slingRequest.firstSelector();
+    }
+
+    @Override
+    public Optional<String> secondSelector() {
+        return slingRequest.secondSelector();
+    }
+
+    @Override
+    public Optional<String> thirdSelector() {
+        return slingRequest.thirdSelector();
+    }
+
+    @Override
+    public Optional<String> selectorString() {
+        return slingRequest.selectorString();
+    }
+
+    @Override
+    public int numOfSelectors() {
+        return slingRequest.numOfSelectors();
+    }
+
+    @Override
+    public Optional<String> extension() {
+        return slingRequest.extension();
+    }
+
+    boolean isValidStructure() {
+        return new RequestStructure(this).isValid();
+    }
+
+    @Override
+    public Optional<String> suffix() {
+        return slingRequest.suffix();
+    }
+}
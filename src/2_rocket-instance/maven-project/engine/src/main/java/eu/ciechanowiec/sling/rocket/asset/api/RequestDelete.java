@@ -3,6 +3,7 @@ package eu.ciechanowiec.sling.rocket.asset.api;
 import eu.ciechanowiec.sling.rocket.asset.Asset;
 import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
 import eu.ciechanowiec.sling.rocket.commons.MemoizingSupplier;
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
 import eu.ciechanowiec.sling.rocket.jcr.ref.Referenceable;
 import eu.ciechanowiec.sling.rocket.network.SlingRequest;
 import eu.ciechanowiec.sling.rocket.network.SlingRequestWithDecomposition;
@@ -19,14 +20,12 @@ class RequestDelete implements SlingRequestWithDecomposition {
     @ToString.Exclude
     private final MemoizingSupplier<Optional<Asset>> matchingAsset;
 
-    RequestDelete(SlingRequest slingRequest) {
+    RequestDelete(SlingRequest slingRequest, ResourceAccess resourceAccess) {
         this.slingRequest = slingRequest;
         matchingAsset = new MemoizingSupplier<>(
             () -> slingRequest.secondSelector()
                 .flatMap(
-                    jcrUUID -> new AssetsRepository(
-                        slingRequest.userResourceAccess()
-                    ).find((Referenceable) () -> jcrUUID)
+                    jcrUUID -> new AssetsRepository(resourceAccess).find((Referenceable) () -> jcrUUID)
                 )
                 .filter(
                     asset -> {
@@ -2,7 +2,9 @@ package eu.ciechanowiec.sling.rocket.asset.api;
 
 import eu.ciechanowiec.sling.rocket.asset.Asset;
 import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
+import eu.ciechanowiec.sling.rocket.asset.rendition.RenditionSize;
 import eu.ciechanowiec.sling.rocket.commons.MemoizingSupplier;
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
 import eu.ciechanowiec.sling.rocket.jcr.ref.Referenceable;
 import eu.ciechanowiec.sling.rocket.network.SlingRequest;
 import eu.ciechanowiec.sling.rocket.network.SlingRequestWithDecomposition;
@@ -19,14 +21,12 @@ class RequestDownload implements SlingRequestWithDecomposition {
     @ToString.Exclude
     private final MemoizingSupplier<Optional<Asset>> matchingAsset;
 
-    RequestDownload(SlingRequest slingRequest) {
+    RequestDownload(SlingRequest slingRequest, ResourceAccess resourceAccess) {
         this.slingRequest = slingRequest;
         matchingAsset = new MemoizingSupplier<>(
             () -> slingRequest.secondSelector()
                 .flatMap(
-                    jcrUUID -> new AssetsRepository(
-                        slingRequest.userResourceAccess()
-                    ).find((Referenceable) () -> jcrUUID)
+                    jcrUUID -> new AssetsRepository(resourceAccess).find((Referenceable) () -> jcrUUID)
                 )
                 .filter(
                     asset -> {
@@ -56,6 +56,10 @@ class RequestDownload implements SlingRequestWithDecomposition {
         return matchingAsset.get();
     }
 
+    Optional<RenditionSize> renditionSize() {
+        return slingRequest.thirdSelector().flatMap(RenditionSize::parse);
+    }
+
     @Override
     public String contentPath() {
         return slingRequest.contentPath();
@@ -0,0 +1,119 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
+import eu.ciechanowiec.sling.rocket.commons.MemoizingSupplier;
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.ref.Referenceable;
+import eu.ciechanowiec.sling.rocket.network.SlingRequest;
+import eu.ciechanowiec.sling.rocket.network.SlingRequestWithDecomposition;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.Optional;
+
+@Slf4j
+@ToString
+class RequestSimilar implements SlingRequestWithDecomposition {
+
+    private final SlingRequest slingRequest;
+    @ToString.Exclude
+    private final MemoizingSupplier<Optional<Asset>> referenceAsset;
+
+    RequestSimilar(SlingRequest slingRequest, ResourceAccess resourceAccess) {
+        this.slingRequest = slingRequest;
+        this.referenceAsset = new MemoizingSupplier<>(
+            () -> slingRequest.secondSelector()
+                .flatMap(jcrUUID -> new AssetsRepository(resourceAccess).find((Referenceable) () -> jcrUUID))
+        );
+    }
+
+    Optional<Asset> referenceAsset() {
+        return referenceAsset.get();
+    }
+
+    /**
+     * Returns the requested maximum normalized Hamming distance between perceptual hashes of similar images.
+     *
+     * @return {@link Optional} containing the requested maximum distance; {@link ServletSimilar#DEFAULT_MAX_DISTANCE}
+     * is returned if the distance wasn't specified; empty {@link Optional} is returned if the specified distance isn't
+     * a number from {@code 0} to {@code 1}
+     */
+    Optional<Double> maxDistance() {
+        return slingRequest.parameterValues(ServletSimilar.PARAMETER_MAX_DISTANCE)
+            .stream()
+            .findFirst()
+            .map(
+                rawMaxDistance -> Optional.of(rawMaxDistance)
+                    .filter(NumberUtils::isCreatable)
+                    .map(Double::parseDouble)
+                    .filter(maxDistance -> maxDistance >= 0 && maxDistance <= 1)
+            )
+            .orElse(Optional.of(ServletSimilar.DEFAULT_MAX_DISTANCE));
+    }
+
+    /**
+     * Returns the requested maximum number of returned {@link Asset}s.
+     *
+     * @return {@link Optional} containing the requested maximum number of returned {@link Asset}s;
+     * {@link ServletSimilar#DEFAULT_LIMIT} is returned if the limit wasn't specified; empty {@link Optional} is
+     * returned if the specified limit isn't an integer from {@code 1} to {@link ServletSimilar#MAX_LIMIT}
+     */
+    Optional<Integer> limit() {
+        return slingRequest.parameterValues(ServletSimilar.PARAMETER_LIMIT)
+            .stream()
+            .findFirst()
+            .map(
+                rawLimit -> Optional.of(rawLimit)
+                    .filter(NumberUtils::isDigits)
+                    .map(digits -> NumberUtils.toInt(digits, NumberUtils.INTEGER_ZERO))
+                    .filter(limit -> limit > 0 && limit <= ServletSimilar.MAX_LIMIT)
+            )
+            .orElse(Optional.of(ServletSimilar.DEFAULT_LIMIT));
+    }
+
+    @Override
+    public String contentPath() {
+        return slingRequest.contentPath();
+    }
+
+    @Override
+    public Optional<String> firstSelector() {
+        return slingRequest.firstSelector();
+    }
+
+    @Override
+    public Optional<String> secondSelector() {
+        return slingRequest.secondSelector();
+    }
+
+    @Override
+    public Optional<String> thirdSelector() {
+        return slingRequest.thirdSelector();
+    }
+
+    @Override
+    public Optional<String> selectorString() {
+        return slingRequest.selectorString();
+    }
+
+    @Override
+    public int numOfSelectors() {
+        return slingRequest.numOfSelectors();
+    }
+
+    @Override
+    public Optional<String> extension() {
+        return slingRequest.extension();
+    }
+
+    boolean isValidStructure() {
+        return new RequestStructure(this).isValid();
+    }
+
+    @Override
+    public Optional<String> suffix() {
+        return slingRequest.suffix();
+    }
+}
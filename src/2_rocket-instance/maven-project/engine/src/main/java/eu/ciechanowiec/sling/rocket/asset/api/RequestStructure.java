@@ -6,11 +6,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 
+import java.util.List;
 import java.util.function.Supplier;
 
 @Slf4j
 class RequestStructure {
 
+    private static final String UUID_REGEX
+        = "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}";
+    private static final String RENDITION_SIZE_REGEX = "[0-9]{1,5}x[0-9]{1,5}";
+    private static final int RENDITION_NUM_OF_SELECTORS = 3;
+    private static final String ASSET_DESCRIPTOR_REGEX = "^%s\\.[0-9a-zA-Z]+$".formatted(UUID_REGEX);
+
     @SuppressWarnings("PMD.LinguisticNaming")
     private final Supplier<Boolean> isValid;
 
@@ -41,14 +48,30 @@ class RequestStructure {
     }
 
     RequestStructure(RequestDownload request) {
-        isValid = () -> new RequestStructure(request, ServletDownload.SELECTOR).isValid();
+        isValid = () -> {
+            if (request.numOfSelectors() != RENDITION_NUM_OF_SELECTORS) {
+                return new RequestStructure(request, ServletDownload.SELECTOR).isValid();
+            }
+            String expectedStructureRegex = String.format(
+                "^%s\\.%s\\.%s\\.%s\\.[0-9a-zA-Z]*$",
+                AssetsAPI.ASSETS_API_PATH, ServletDownload.SELECTOR, UUID_REGEX, RENDITION_SIZE_REGEX
+            );
+            String actualStructure = String.format(
+                "%s.%s.%s",
+                request.contentPath(),
+                request.selectorString().orElse(StringUtils.EMPTY),
+                request.extension().orElse(StringUtils.EMPTY)
+            );
+            return request.renditionSize().isPresent() && new RequestStructure(
+                expectedStructureRegex, actualStructure, RENDITION_NUM_OF_SELECTORS, request
+            ).isValid();
+        };
     }
 
     private RequestStructure(SlingRequestWithDecomposition request, String expectedFirstSelector) {
         isValid = () -> {
-            String uuidRegex = "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}";
             String expectedStructureRegex = String.format(
-                "^%s\\.%s\\.%s\\.[0-9a-zA-Z]*$", AssetsAPI.ASSETS_API_PATH, expectedFirstSelector, uuidRegex
+                "^%s\\.%s\\.%s\\.[0-9a-zA-Z]*$", AssetsAPI.ASSETS_API_PATH, expectedFirstSelector, UUID_REGEX
             );
             String actualStructure = String.format(
                 "%s.%s.%s.%s",
@@ -61,6 +84,81 @@ class RequestStructure {
         };
     }
 
+    RequestStructure(RequestBulkDownload request) {
+        isValid = () -> new RequestStructure(
+            request, ServletDownloadBulk.SELECTOR, ServletDownloadBulk.EXTENSION, request.rawAssetDescriptors()
+        ).isValid();
+    }
+
+    RequestStructure(RequestBulkDelete request) {
+        isValid = () -> new RequestStructure(
+            request, ServletDeleteBulk.SELECTOR, ServletDeleteBulk.EXTENSION, request.rawAssetDescriptors()
+        ).isValid();
+    }
+
+    private RequestStructure(
+        SlingRequestWithDecomposition request, String expectedFirstSelector,
+        String expectedExtension, List<String> rawAssetDescriptors
+    ) {
+        isValid = () -> {
+            String expectedStructureRegex = String.format(
+                "^%s\\.%s\\.%s$", AssetsAPI.ASSETS_API_PATH, expectedFirstSelector, expectedExtension
+            );
+            String actualStructure = String.format(
+                "%s.%s.%s",
+                request.contentPath(),
+                request.firstSelector().orElse(StringUtils.EMPTY),
+                request.extension().orElse(StringUtils.EMPTY)
+            );
+            boolean areValidAssetDescriptors = !rawAssetDescriptors.isEmpty()
+                && rawAssetDescriptors.stream().allMatch(descriptor -> descriptor.matches(ASSET_DESCRIPTOR_REGEX));
+            log.trace("{}: are valid asset descriptors: {}", request, areValidAssetDescriptors);
+            return areValidAssetDescriptors && new RequestStructure(
+                expectedStructureRegex, actualStructure, NumberUtils.INTEGER_ONE, request
+            ).isValid();
+        };
+    }
+
+    RequestStructure(RequestUploadSession request) {
+        isValid = () -> {
+            String expectedStructureRegex = String.format(
+                "^%s\\.%s(\\.%s)?\\.%s$", AssetsAPI.ASSETS_API_PATH, ServletUploadSession.SELECTOR, UUID_REGEX,
+                ServletUploadSession.EXTENSION
+            );
+            String actualStructure = String.format(
+                "%s.%s.%s",
+                request.contentPath(),
+                request.selectorString().orElse(StringUtils.EMPTY),
+                request.extension().orElse(StringUtils.EMPTY)
+            );
+            int expectedNumOfSelectors = request.uploadSessionID().isPresent() ? 2 : NumberUtils.INTEGER_ONE;
+            return new RequestStructure(
+                expectedStructureRegex, actualStructure, expectedNumOfSelectors, request
+            ).isValid();
+        };
+    }
+
+    RequestStructure(RequestSimilar request) {
+        isValid = () -> {
+            String expectedStructureRegex = String.format(
+                "^%s\\.%s\\.%s\\.%s$", AssetsAPI.ASSETS_API_PATH, ServletSimilar.SELECTOR, UUID_REGEX,
+                ServletSimilar.EXTENSION
+            );
+            String actualStructure = String.format(
+                "%s.%s.%s",
+                request.contentPath(),
+                request.selectorString().orElse(StringUtils.EMPTY),
+                request.extension().orElse(StringUtils.EMPTY)
+            );
+            boolean isValidMaxDistance = request.maxDistance().isPresent();
+            boolean isValidLimit = request.limit().isPresent();
+            log.trace("{}: is valid max distance: {}, is valid limit: {}", request, isValidMaxDistance, isValidLimit);
+            return isValidMaxDistance && isValidLimit && new RequestStructure(
+                expectedStructureRegex, actualStructure, 2, request
+            ).isValid();
+        };
+    }
+
     RequestStructure(RequestUpload request) {
         isValid = () -> {
             String expectedStructureRegex = String.format(
@@ -1,8 +1,15 @@
 package eu.ciechanowiec.sling.rocket.asset.api;
 
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetFile;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicatingStagedAsset;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationCounter;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationMode;
 import eu.ciechanowiec.sling.rocket.asset.FileMetadata;
+import eu.ciechanowiec.sling.rocket.asset.SHA256Digest;
 import eu.ciechanowiec.sling.rocket.asset.StagedAssetReal;
 import eu.ciechanowiec.sling.rocket.asset.UsualFileAsAssetFile;
+import eu.ciechanowiec.sling.rocket.commons.FileWithOriginalName;
 import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
 import eu.ciechanowiec.sling.rocket.jcr.path.ParentJCRPath;
 import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
@@ -17,6 +24,7 @@ import java.io.File;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Slf4j
 @ToString
@@ -69,17 +77,35 @@ class RequestUpload implements SlingRequestWithDecomposition {
         return new RequestStructure(this).isValid();
     }
 
-    List<Affected> saveAssets(ParentJCRPath parentJCRPath, boolean doIncludeDownloadLink) {
+    List<Affected> saveAssets(
+        ParentJCRPath parentJCRPath, boolean doIncludeDownloadLink,
+        DeduplicationMode deduplicationMode, DeduplicationCounter deduplicationCounter,
+        Consumer<Asset> savedAssetConsumer
+    ) {
+        return saveAssets(
+            slingRequest.uploadedFiles(), parentJCRPath, doIncludeDownloadLink,
+            deduplicationMode, deduplicationCounter, savedAssetConsumer
+        );
+    }
+
+    @SuppressWarnings("MethodWithTooManyParameters")
+    List<Affected> saveAssets(
+        List<FileWithOriginalName> filesToSave, ParentJCRPath parentJCRPath, boolean doIncludeDownloadLink,
+        DeduplicationMode deduplicationMode, DeduplicationCounter deduplicationCounter,
+        Consumer<Asset> savedAssetConsumer
+    ) {
         log.trace("{} saving assets at {}", this, parentJCRPath);
         UserResourceAccess userResourceAccess = slingRequest.userResourceAccess();
-        return slingRequest.uploadedFiles()
-            .stream()
+        return filesToSave.stream()
             .map(
                 fileWithOriginalName -> {
                     File file = fileWithOriginalName.file();
                     String originalName = fileWithOriginalName.originalName();
+                    AssetFile assetFile = fileWithOriginalName.sha256Digest()
+                        .map(sha256Digest -> new UsualFileAsAssetFile(file, new SHA256Digest(sha256Digest)))
+                        .orElseGet(() -> new UsualFileAsAssetFile(file));
                     return new StagedAssetReal(
-                        new UsualFileAsAssetFile(file),
+                        assetFile,
                         new FileMetadata(file)
                             .set("originalName", originalName)
                             .set("remoteAddress", slingRequest.remoteAddress())
@@ -88,9 +114,20 @@ class RequestUpload implements SlingRequestWithDecomposition {
                     );
                 }
             )
+            .map(
+                stagedAssetReal -> new DeduplicatingStagedAsset(
+                    stagedAssetReal, deduplicationMode, deduplicationCounter
+                )
+            )
             .map(SafeSaving::new)
             .map(safeSaving -> safeSaving.save(new TargetJCRPath(parentJCRPath, UUID.randomUUID())))
             .flatMap(Optional::stream)
+            .map(
+                asset -> {
+                    savedAssetConsumer.accept(asset);
+                    return asset;
+                }
+            )
             .map(
                 asset -> (Affected) new AssetDescriptor(
                     asset, doIncludeDownloadLink ? downloadLink.generate(asset) : StringUtils.EMPTY
@@ -0,0 +1,65 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.network.SlingRequest;
+import eu.ciechanowiec.sling.rocket.network.SlingRequestWithDecomposition;
+import lombok.ToString;
+
+import java.util.Optional;
+
+@ToString
+class RequestUploadSession implements SlingRequestWithDecomposition {
+
+    private final SlingRequest slingRequest;
+
+    RequestUploadSession(SlingRequest slingRequest) {
+        this.slingRequest = slingRequest;
+    }
+
+    Optional<String> uploadSessionID() {
+        return slingRequest.secondSelector();
+    }
+
+    @Override
+    public String contentPath() {
+        return slingRequest.contentPath();
+    }
+
+    @Override
+    public Optional<String> firstSelector() {
+        return slingRequest.firstSelector();
+    }
+
+    @Override
+    public Optional<String> secondSelector() {
+        return slingRequest.secondSelector();
+    }
+
+    @Override
+    public Optional<String> thirdSelector() {
+        return slingRequest.thirdSelector();
+    }
+
+    @Override
+    public Optional<String> selectorString() {
+        return slingRequest.selectorString();
+    }
+
+    @Override
+    public int numOfSelectors() {
+        return slingRequest.numOfSelectors();
+    }
+
+    @Override
+    public Optional<String> extension() {
+        return slingRequest.extension();
+    }
+
+    boolean isValidStructure() {
+        return new RequestStructure(this).isValid();
+    }
+
+    @Override
+    public Optional<String> suffix() {
+        return slingRequest.suffix();
+    }
+}
@@ -0,0 +1,72 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
+import eu.ciechanowiec.sling.rocket.commons.MemoizingSupplier;
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.ref.Referenceable;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link Asset}s requested by a single request via a list of raw {@link AssetDescriptor}s. Every requested
+ * {@link Asset} is looked up once, with the same {@link ResourceAccess}, in the order the {@link AssetDescriptor}s were
+ * sent. Duplicated {@link AssetDescriptor}s are considered only once.
+ */
+@Slf4j
+@ToString
+class RequestedAssets {
+
+    private final List<String> rawAssetDescriptors;
+    @ToString.Exclude
+    private final MemoizingSupplier<Map<AssetDescriptor, Optional<Asset>>> matchedAssets;
+
+    RequestedAssets(List<String> rawAssetDescriptors, ResourceAccess resourceAccess) {
+        this.rawAssetDescriptors = List.copyOf(rawAssetDescriptors);
+        this.matchedAssets = new MemoizingSupplier<>(() -> match(new AssetsRepository(resourceAccess)));
+    }
+
+    private Map<AssetDescriptor, Optional<Asset>> match(AssetsRepository assetsRepository) {
+        Map<AssetDescriptor, Optional<Asset>> matched = new LinkedHashMap<>();
+        rawAssetDescriptors.stream()
+            .distinct()
+            .forEach(
+                rawAssetDescriptor -> {
+                    AssetDescriptor requestedAssetDescriptor = new AssetDescriptor(rawAssetDescriptor);
+                    String jcrUUID = StringUtils.substringBefore(rawAssetDescriptor, ".");
+                    Optional<Asset> matchedAsset = assetsRepository.find((Referenceable) () -> jcrUUID)
+                        .filter(asset -> new AssetDescriptor(asset).equals(requestedAssetDescriptor));
+                    log.trace("For '{}' this asset was matched: {}", rawAssetDescriptor, matchedAsset);
+                    matched.put(requestedAssetDescriptor, matchedAsset);
+                }
+            );
+        return Collections.unmodifiableMap(matched);
+    }
+
+    List<String> rawAssetDescriptors() {
+        return rawAssetDescriptors;
+    }
+
+    Map<AssetDescriptor, Optional<Asset>> matched() {
+        return matchedAssets.get();
+    }
+
+    List<Asset> found() {
+        return matched().values().stream().flatMap(Optional::stream).toList();
+    }
+
+    List<AssetDescriptor> missing() {
+        return matched().entrySet()
+            .stream()
+            .filter(entry -> entry.getValue().isEmpty())
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+}
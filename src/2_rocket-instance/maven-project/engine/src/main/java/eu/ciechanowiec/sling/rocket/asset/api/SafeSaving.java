@@ -2,7 +2,7 @@ package eu.ciechanowiec.sling.rocket.asset.api;
 
 import eu.ciechanowiec.conditional.Conditional;
 import eu.ciechanowiec.sling.rocket.asset.Asset;
-import eu.ciechanowiec.sling.rocket.asset.StagedAssetReal;
+import eu.ciechanowiec.sling.rocket.jcr.StagedNode;
 import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -13,10 +13,10 @@ import java.util.Optional;
 @Slf4j
 class SafeSaving {
 
-    private final StagedAssetReal stagedAssetReal;
+    private final StagedNode<Asset> stagedAsset;
 
-    SafeSaving(StagedAssetReal stagedAssetReal) {
-        this.stagedAssetReal = stagedAssetReal;
+    SafeSaving(StagedNode<Asset> stagedAsset) {
+        this.stagedAsset = stagedAsset;
     }
 
     @SneakyThrows
@@ -27,11 +27,11 @@ class SafeSaving {
     )
     Optional<Asset> save(TargetJCRPath targetJCRPath) {
         try {
-            return Optional.of(stagedAssetReal.save(targetJCRPath));
+            return Optional.of(stagedAsset.save(targetJCRPath));
         } catch (IllegalArgumentException exception) {
             boolean isExpectedMessage = exception.getMessage().equals("Can't create child on a synthetic root");
             Conditional.isTrueOrThrow(isExpectedMessage, exception);
-            String message = "Failed to save %s to %s".formatted(stagedAssetReal, targetJCRPath);
+            String message = "Failed to save %s to %s".formatted(stagedAsset, targetJCRPath);
             log.warn(message, exception);
             return Optional.empty();
         } catch (
@@ -39,7 +39,7 @@ class SafeSaving {
             Exception exception) {
             boolean isPersistenceException = exception.getClass().isAssignableFrom(PersistenceException.class);
             Conditional.isTrueOrThrow(isPersistenceException, exception);
-            String message = "Failed to save %s to %s".formatted(stagedAssetReal, targetJCRPath);
+            String message = "Failed to save %s to %s".formatted(stagedAsset, targetJCRPath);
             log.warn(message, exception);
             return Optional.empty();
         }
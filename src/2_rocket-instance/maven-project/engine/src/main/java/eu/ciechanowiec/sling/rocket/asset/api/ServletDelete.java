@@ -1,6 +1,7 @@
 package eu.ciechanowiec.sling.rocket.asset.api;
 
 import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.ScopedResourceAccess;
 import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
 import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
 import eu.ciechanowiec.sling.rocket.jcr.DeletableResource;
@@ -79,31 +80,33 @@ public class ServletDelete extends SlingJakartaAllMethodsServlet implements Requ
         UserResourceAccess userResourceAccess = new UserResourceAccess(authIDUser, fullResourceAccess);
         SlingRequest slingRequest = new SlingRequest(request, userResourceAccess);
         log.trace("Processing {}", slingRequest);
-        RequestDelete requestDelete = new RequestDelete(slingRequest);
-        if (requestDelete.isValidStructure()) {
-            requestDelete.targetAsset()
-                .map(asset -> new DeletableResource(asset, userResourceAccess))
-                .flatMap(DeletableResource::delete)
-                .map(
-                    deletedPath -> new Response(
-                        response, new Status(HttpServletResponse.SC_OK, "Asset deleted"),
-                        List.of(new AssetDescriptor(requestDelete))
-                    )
-                ).or(
-                    () -> Optional.of(
-                        new Response(
-                            response, new Status(
-                            HttpServletResponse.SC_BAD_REQUEST,
-                            "Unable to delete: '%s'".formatted(new AssetDescriptor(requestDelete))
+        try (ScopedResourceAccess scopedResourceAccess = new ScopedResourceAccess(userResourceAccess)) {
+            RequestDelete requestDelete = new RequestDelete(slingRequest, scopedResourceAccess);
+            if (requestDelete.isValidStructure()) {
+                requestDelete.targetAsset()
+                    .map(asset -> new DeletableResource(asset, scopedResourceAccess))
+                    .flatMap(DeletableResource::delete)
+                    .map(
+                        deletedPath -> new Response(
+                            response, new Status(HttpServletResponse.SC_OK, "Asset deleted"),
+                            List.of(new AssetDescriptor(requestDelete))
                         )
+                    ).or(
+                        () -> Optional.of(
+                            new Response(
+                                response, new Status(
+                                HttpServletResponse.SC_BAD_REQUEST,
+                                "Unable to delete: '%s'".formatted(new AssetDescriptor(requestDelete))
+                            )
+                            )
                         )
-                    )
-                ).ifPresent(Response::send);
-        } else {
-            Response responseWithError = new Response(
-                response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")
-            );
-            responseWithError.send();
+                    ).ifPresent(Response::send);
+            } else {
+                Response responseWithError = new Response(
+                    response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")
+                );
+                responseWithError.send();
+            }
         }
     }
 
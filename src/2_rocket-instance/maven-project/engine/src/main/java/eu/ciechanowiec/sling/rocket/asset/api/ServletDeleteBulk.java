@@ -0,0 +1,157 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.ScopedResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
+import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
+import eu.ciechanowiec.sling.rocket.jcr.DeletableResources;
+import eu.ciechanowiec.sling.rocket.network.Affected;
+import eu.ciechanowiec.sling.rocket.network.Response;
+import eu.ciechanowiec.sling.rocket.network.SlingRequest;
+import eu.ciechanowiec.sling.rocket.network.Status;
+import eu.ciechanowiec.sling.rocket.privilege.RequiresPrivilege;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sling.api.SlingJakartaHttpServletRequest;
+import org.apache.sling.api.SlingJakartaHttpServletResponse;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.api.servlets.SlingJakartaAllMethodsServlet;
+import org.apache.sling.servlets.annotations.SlingServletResourceTypes;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.metatype.annotations.Designate;
+
+import java.util.List;
+
+/**
+ * Servlet for handling BULK DELETE requests to Assets API.
+ * <p>
+ * The requested {@link Asset}s are specified via one or more {@link ServletDeleteBulk#PARAMETER_ASSET_DESCRIPTOR}
+ * request parameters. All of them are looked up with a single {@link ResourceResolver} and deleted in chunks, with a
+ * single commit per chunk. The response contains the outcome of the deletion of every requested {@link Asset}.
+ * Requests with more of those parameters than {@link ServletDeleteBulkConfig#max_assets()} are rejected before any
+ * {@link Asset} is looked up.
+ */
+@Component(
+    service = {ServletDeleteBulk.class, Servlet.class},
+    immediate = true,
+    configurationPolicy = ConfigurationPolicy.OPTIONAL
+)
+@Designate(ocd = ServletDeleteBulkConfig.class)
+@SlingServletResourceTypes(
+    methods = HttpConstants.METHOD_POST,
+    resourceTypes = AssetsAPI.ASSETS_API_RESOURCE_TYPE,
+    selectors = ServletDeleteBulk.SELECTOR,
+    extensions = ServletDeleteBulk.EXTENSION
+)
+@Slf4j
+@ToString
+@ServiceDescription("Servlet for handling BULK DELETE requests to Assets API")
+public class ServletDeleteBulk extends SlingJakartaAllMethodsServlet implements RequiresPrivilege {
+
+    static final String SELECTOR = "bulk-delete";
+    static final String EXTENSION = "json";
+
+    /**
+     * Name of the request parameter with a descriptor of a requested {@link Asset}, e.g.
+     * {@code 5f1ed4e2-4ae8-4d8a-9a1f-3f4d2e1f9c0b.jpg}. The parameter can be repeated.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String PARAMETER_ASSET_DESCRIPTOR = "assetDescriptor";
+
+    /**
+     * {@link FullResourceAccess} that will be used by this {@link ServletDeleteBulk} to acquire access to resources.
+     */
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+
+    private ServletDeleteBulkConfig config;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param config             {@link ServletDeleteBulkConfig} that will be used by the constructed object
+     */
+    @Activate
+    public ServletDeleteBulk(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        ServletDeleteBulkConfig config
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        this.config = config;
+        log.info("Initialized {}", this);
+    }
+
+    @Modified
+    void configure(ServletDeleteBulkConfig config) {
+        this.config = config;
+        log.info("Configured {}", this);
+    }
+
+    @Override
+    @SuppressWarnings("PMD.CloseResource")
+    protected void doPost(
+        @NotNull SlingJakartaHttpServletRequest request, @NotNull SlingJakartaHttpServletResponse response
+    ) {
+        ResourceResolver resourceResolver = request.getResourceResolver();
+        String userID = resourceResolver.getUserID();
+        AuthIDUser authIDUser = new AuthIDUser(userID);
+        UserResourceAccess userResourceAccess = new UserResourceAccess(authIDUser, fullResourceAccess);
+        SlingRequest slingRequest = new SlingRequest(request, userResourceAccess);
+        log.trace("Processing {}", slingRequest);
+        try (ScopedResourceAccess scopedResourceAccess = new ScopedResourceAccess(userResourceAccess)) {
+            RequestBulkDelete requestBulkDelete = new RequestBulkDelete(slingRequest, scopedResourceAccess);
+            int maxAssets = config.max_assets();
+            if (!requestBulkDelete.isValidStructure()) {
+                Response responseWithError = new Response(
+                    response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")
+                );
+                responseWithError.send();
+            } else if (requestBulkDelete.rawAssetDescriptors().size() > maxAssets) {
+                Response responseWithError = new Response(
+                    response, new Status(
+                    HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Requested assets exceed the limit of %d assets".formatted(maxAssets)
+                )
+                );
+                responseWithError.send();
+            } else {
+                List<BulkDeletionResult> results = requestBulkDelete.deleteAssets(config.chunk_size());
+                Response slingResponse = new Response(response, status(results), List.<Affected>copyOf(results));
+                slingResponse.send();
+            }
+        }
+    }
+
+    private Status status(List<BulkDeletionResult> results) {
+        boolean areAllDeleted = results.stream()
+            .allMatch(result -> result.outcome() == BulkDeletionResult.Outcome.DELETED);
+        boolean areAllNotFound = results.stream()
+            .allMatch(result -> result.outcome() == BulkDeletionResult.Outcome.NOT_FOUND);
+        if (areAllDeleted) {
+            return new Status(HttpServletResponse.SC_OK, "Assets deleted");
+        } else if (areAllNotFound) {
+            return new Status(HttpServletResponse.SC_NOT_FOUND, "Assets not found");
+        } else {
+            return new Status(HttpServletResponse.SC_BAD_REQUEST, "Not all assets deleted");
+        }
+    }
+
+    @Override
+    public List<String> requiredPrivileges() {
+        return new DeletableResources(List.of(), fullResourceAccess).requiredPrivileges();
+    }
+}
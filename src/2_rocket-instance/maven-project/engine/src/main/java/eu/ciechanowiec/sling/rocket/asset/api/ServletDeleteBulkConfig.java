@@ -0,0 +1,48 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.jcr.DeletableResources;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Configuration for {@link ServletDeleteBulk}.
+ */
+@ObjectClassDefinition
+public @interface ServletDeleteBulkConfig {
+
+    /**
+     * Default maximum number of {@link Asset}s that can be requested within a single request.
+     */
+    int DEFAULT_MAX_ASSETS = 1000;
+
+    /**
+     * Maximum number of {@link Asset}s deleted within a single commit.
+     *
+     * @return maximum number of {@link Asset}s deleted within a single commit
+     */
+    @AttributeDefinition(
+        name = "Chunk size",
+        description = "Maximum number of Assets deleted within a single commit. Must be positive",
+        defaultValue = "" + DeletableResources.DEFAULT_CHUNK_SIZE,
+        type = AttributeType.INTEGER
+    )
+    int chunk_size() default DeletableResources.DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Maximum number of asset descriptors that can be sent within a single request. If more asset descriptors are sent,
+     * the request is rejected before any {@link Asset} is looked up.
+     *
+     * @return maximum number of asset descriptors that can be sent within a single request
+     */
+    @AttributeDefinition(
+        name = "Max assets",
+        description = "Maximum number of asset descriptors that can be sent within a single request. If more asset "
+            + "descriptors are sent, the request is rejected before any Asset is looked up",
+        defaultValue = "" + DEFAULT_MAX_ASSETS,
+        type = AttributeType.INTEGER
+    )
+    @SuppressWarnings("squid:S100")
+    int max_assets() default DEFAULT_MAX_ASSETS;
+}
@@ -1,6 +1,11 @@
 package eu.ciechanowiec.sling.rocket.asset.api;
 
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.rendition.RenditionSize;
+import eu.ciechanowiec.sling.rocket.asset.rendition.Renditions;
 import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.ScopedResourceAccess;
 import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
 import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
 import eu.ciechanowiec.sling.rocket.network.*;
@@ -20,9 +25,13 @@ import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.component.propertytypes.ServiceDescription;
 
+import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Servlet for handling DOWNLOAD requests to Assets API.
@@ -47,18 +56,48 @@ public class ServletDownload extends SlingJakartaSafeMethodsServlet implements R
      */
     private final FullResourceAccess fullResourceAccess;
 
+    /**
+     * {@link HotAssetsCache} from which binaries of small {@link Asset}s will be served, if available.
+     */
+    private final Optional<HotAssetsCache> hotAssetsCacheNullable;
+
+    /**
+     * {@link Renditions} from which resized variants of image {@link Asset}s will be served, if available.
+     */
+    private final Optional<Renditions> renditionsNullable;
+
     /**
      * Constructs an instance of this class.
      *
      * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
      *                           access to resources
+     * @param hotAssetsCache     {@link HotAssetsCache} from which binaries of small {@link Asset}s will be served; if
+     *                           {@code null}, all binaries will be streamed from the repository
+     * @param renditions         {@link Renditions} from which resized variants of image {@link Asset}s will be
+     *                           served; if {@code null}, requests for renditions will be answered with 404
      */
     @Activate
     public ServletDownload(
         @Reference(cardinality = ReferenceCardinality.MANDATORY)
-        FullResourceAccess fullResourceAccess
+        FullResourceAccess fullResourceAccess,
+        @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.STATIC,
+            policyOption = ReferencePolicyOption.GREEDY
+        )
+        @Nullable
+        HotAssetsCache hotAssetsCache,
+        @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.STATIC,
+            policyOption = ReferencePolicyOption.GREEDY
+        )
+        @Nullable
+        Renditions renditions
     ) {
         this.fullResourceAccess = fullResourceAccess;
+        this.hotAssetsCacheNullable = Optional.ofNullable(hotAssetsCache);
+        this.renditionsNullable = Optional.ofNullable(renditions);
         log.info("Initialized {}", this);
     }
 
@@ -73,30 +112,56 @@ public class ServletDownload extends SlingJakartaSafeMethodsServlet implements R
         UserResourceAccess userResourceAccess = new UserResourceAccess(authIDUser, fullResourceAccess);
         SlingRequest slingRequest = new SlingRequest(request, userResourceAccess);
         log.trace("Processing {}", slingRequest);
-        RequestDownload requestDownload = new RequestDownload(slingRequest);
-        if (requestDownload.isValidStructure()) {
-            requestDownload.targetAsset()
-                .map(asset -> new ResponseWithAsset(response, asset))
-                .ifPresentOrElse(
-                    responseWithAsset -> responseWithAsset.send(ContentDispositionHeader.ATTACHMENT),
-                    () -> {
-                        Response responseWithError = new Response(
-                            response, new Status(
-                            HttpServletResponse.SC_NOT_FOUND,
-                            "No asset found: '%s'".formatted(new AssetDescriptor(requestDownload))
-                        )
-                        );
-                        responseWithError.send();
-                    }
+        try (ScopedResourceAccess scopedResourceAccess = new ScopedResourceAccess(userResourceAccess)) {
+            RequestDownload requestDownload = new RequestDownload(slingRequest, scopedResourceAccess);
+            if (requestDownload.isValidStructure()) {
+                Optional<RenditionSize> renditionSize = requestDownload.renditionSize();
+                requestDownload.targetAsset()
+                    .flatMap(asset -> responseWithAsset(response, asset, renditionSize, scopedResourceAccess))
+                    .ifPresentOrElse(
+                        responseWithAsset -> responseWithAsset.send(ContentDispositionHeader.ATTACHMENT),
+                        () -> {
+                            Response responseWithError = new Response(
+                                response, new Status(
+                                HttpServletResponse.SC_NOT_FOUND,
+                                renditionSize.map(
+                                    size -> "No rendition available: '%s' (%s)".formatted(
+                                        new AssetDescriptor(requestDownload), size
+                                    )
+                                ).orElseGet(
+                                    () -> "No asset found: '%s'".formatted(new AssetDescriptor(requestDownload))
+                                )
+                            )
+                            );
+                            responseWithError.send();
+                        }
+                    );
+            } else {
+                Response responseWithError = new Response(
+                    response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")
                 );
-        } else {
-            Response responseWithError = new Response(
-                response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")
-            );
-            responseWithError.send();
+                responseWithError.send();
+            }
         }
     }
 
+    private Optional<ResponseWithAsset> responseWithAsset(
+        HttpServletResponse response, Asset asset, Optional<RenditionSize> renditionSize,
+        ResourceAccess requesterAccess
+    ) {
+        return renditionSize.map(
+            size -> renditionsNullable.flatMap(renditions -> renditions.rendition(asset, size, requesterAccess))
+                .map(rendition -> new ResponseWithAsset(response, rendition))
+        ).orElseGet(
+            () -> Optional.of(
+                new ResponseWithAsset(
+                    response, asset,
+                    hotAssetsCacheNullable.map(cache -> cache.assetFile(asset)).orElseGet(asset::assetFile)
+                )
+            )
+        );
+    }
+
     @Override
     public List<String> requiredPrivileges() {
         return List.of(PrivilegeConstants.JCR_READ);
@@ -0,0 +1,180 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.ScopedResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
+import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
+import eu.ciechanowiec.sling.rocket.network.Affected;
+import eu.ciechanowiec.sling.rocket.network.Response;
+import eu.ciechanowiec.sling.rocket.network.ResponseWithZippedAssets;
+import eu.ciechanowiec.sling.rocket.network.SlingRequest;
+import eu.ciechanowiec.sling.rocket.network.Status;
+import eu.ciechanowiec.sling.rocket.privilege.RequiresPrivilege;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import eu.ciechanowiec.sling.rocket.unit.DataUnit;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.jackrabbit.oak.spi.security.privilege.PrivilegeConstants;
+import org.apache.sling.api.SlingJakartaHttpServletRequest;
+import org.apache.sling.api.SlingJakartaHttpServletResponse;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.api.servlets.SlingJakartaAllMethodsServlet;
+import org.apache.sling.servlets.annotations.SlingServletResourceTypes;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.metatype.annotations.Designate;
+
+import java.util.List;
+
+/**
+ * Servlet for handling BULK DOWNLOAD requests to Assets API.
+ * <p>
+ * The requested {@link Asset}s are specified via one or more {@link ServletDownloadBulk#PARAMETER_ASSET_DESCRIPTOR}
+ * request parameters and are streamed to the client as a single ZIP archive. All requested {@link Asset}s are read
+ * with a single {@link ResourceResolver}. Requests with more of those parameters than
+ * {@link ServletDownloadBulkConfig#max_assets()} are rejected before any {@link Asset} is looked up.
+ */
+@Component(
+    service = {ServletDownloadBulk.class, Servlet.class},
+    immediate = true,
+    configurationPolicy = ConfigurationPolicy.OPTIONAL
+)
+@Designate(ocd = ServletDownloadBulkConfig.class)
+@SlingServletResourceTypes(
+    methods = {HttpConstants.METHOD_GET, HttpConstants.METHOD_POST},
+    resourceTypes = AssetsAPI.ASSETS_API_RESOURCE_TYPE,
+    selectors = ServletDownloadBulk.SELECTOR,
+    extensions = ServletDownloadBulk.EXTENSION
+)
+@Slf4j
+@ToString
+@ServiceDescription("Servlet for handling BULK DOWNLOAD requests to Assets API")
+public class ServletDownloadBulk extends SlingJakartaAllMethodsServlet implements RequiresPrivilege {
+
+    static final String SELECTOR = "bulk-download";
+    static final String EXTENSION = "zip";
+
+    /**
+     * Name of the request parameter with a descriptor of a requested {@link Asset}, e.g.
+     * {@code 5f1ed4e2-4ae8-4d8a-9a1f-3f4d2e1f9c0b.jpg}. The parameter can be repeated.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String PARAMETER_ASSET_DESCRIPTOR = "assetDescriptor";
+
+    /**
+     * {@link FullResourceAccess} that will be used by this {@link ServletDownloadBulk} to acquire access to resources.
+     */
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+
+    private ServletDownloadBulkConfig config;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param config             {@link ServletDownloadBulkConfig} that will be used by the constructed object
+     */
+    @Activate
+    public ServletDownloadBulk(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        ServletDownloadBulkConfig config
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        this.config = config;
+        log.info("Initialized {}", this);
+    }
+
+    @Modified
+    void configure(ServletDownloadBulkConfig config) {
+        this.config = config;
+        log.info("Configured {}", this);
+    }
+
+    @Override
+    protected void doGet(
+        @NotNull SlingJakartaHttpServletRequest request, @NotNull SlingJakartaHttpServletResponse response
+    ) {
+        process(request, response);
+    }
+
+    @Override
+    protected void doPost(
+        @NotNull SlingJakartaHttpServletRequest request, @NotNull SlingJakartaHttpServletResponse response
+    ) {
+        process(request, response);
+    }
+
+    @SuppressWarnings("PMD.CloseResource")
+    private void process(SlingJakartaHttpServletRequest request, SlingJakartaHttpServletResponse response) {
+        ResourceResolver resourceResolver = request.getResourceResolver();
+        String userID = resourceResolver.getUserID();
+        AuthIDUser authIDUser = new AuthIDUser(userID);
+        UserResourceAccess userResourceAccess = new UserResourceAccess(authIDUser, fullResourceAccess);
+        SlingRequest slingRequest = new SlingRequest(request, userResourceAccess);
+        log.trace("Processing {}", slingRequest);
+        try (ScopedResourceAccess scopedResourceAccess = new ScopedResourceAccess(userResourceAccess)) {
+            RequestBulkDownload requestBulkDownload = new RequestBulkDownload(slingRequest, scopedResourceAccess);
+            int maxAssets = config.max_assets();
+            if (!requestBulkDownload.isValidStructure()) {
+                Response responseWithError = new Response(
+                    response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")
+                );
+                responseWithError.send();
+            } else if (requestBulkDownload.rawAssetDescriptors().size() > maxAssets) {
+                Response responseWithError = new Response(
+                    response, new Status(
+                    HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Requested assets exceed the limit of %d assets".formatted(maxAssets)
+                )
+                );
+                responseWithError.send();
+            } else {
+                send(requestBulkDownload, response);
+            }
+        }
+    }
+
+    private void send(RequestBulkDownload requestBulkDownload, HttpServletResponse response) {
+        List<Affected> missingAssets = List.copyOf(requestBulkDownload.missingAssets());
+        List<Asset> targetAssets = requestBulkDownload.targetAssets();
+        DataSize totalSize = targetAssets.stream()
+            .map(asset -> asset.assetFile().size())
+            .reduce(new DataSize(0, DataUnit.BYTES), DataSize::add);
+        DataSize maxTotalSize = new DataSize(config.max$_$total$_$size_bytes(), DataUnit.BYTES);
+        log.trace("Requested assets: {}. Missing: {}. Total size: {}", targetAssets, missingAssets, totalSize);
+        if (!missingAssets.isEmpty()) {
+            Response responseWithError = new Response(
+                response, new Status(HttpServletResponse.SC_NOT_FOUND, "Not all assets found"), missingAssets
+            );
+            responseWithError.send();
+        } else if (totalSize.biggerThan(maxTotalSize)) {
+            Response responseWithError = new Response(
+                response, new Status(
+                HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                "Requested assets exceed the limit of %d bytes".formatted(maxTotalSize.bytes())
+            )
+            );
+            responseWithError.send();
+        } else {
+            new ResponseWithZippedAssets(response, targetAssets).send();
+        }
+    }
+
+    @Override
+    public List<String> requiredPrivileges() {
+        return List.of(PrivilegeConstants.JCR_READ);
+    }
+}
@@ -0,0 +1,55 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Configuration for {@link ServletDownloadBulk}.
+ */
+@ObjectClassDefinition
+public @interface ServletDownloadBulkConfig {
+
+    /**
+     * Default maximum total size in bytes of all {@link Asset}s that can be downloaded within a single request.
+     */
+    long DEFAULT_MAX_TOTAL_SIZE_BYTES = 1_073_741_824L;
+
+    /**
+     * Default maximum number of {@link Asset}s that can be requested within a single request.
+     */
+    int DEFAULT_MAX_ASSETS = 1000;
+
+    /**
+     * Maximum total size in bytes of all {@link Asset}s that can be downloaded within a single request. If the
+     * requested {@link Asset}s are bigger, the request is rejected before any binary content is sent.
+     *
+     * @return maximum total size in bytes of all {@link Asset}s that can be downloaded within a single request
+     */
+    @AttributeDefinition(
+        name = "Max total size in bytes",
+        description = "Maximum total size in bytes of all Assets that can be downloaded within a single request. "
+            + "If the requested Assets are bigger, the request is rejected before any binary content is sent",
+        defaultValue = "1073741824",
+        type = AttributeType.LONG
+    )
+    @SuppressWarnings("squid:S100")
+    long max$_$total$_$size_bytes() default DEFAULT_MAX_TOTAL_SIZE_BYTES;
+
+    /**
+     * Maximum number of asset descriptors that can be sent within a single request. If more asset descriptors are sent,
+     * the request is rejected before any {@link Asset} is looked up.
+     *
+     * @return maximum number of asset descriptors that can be sent within a single request
+     */
+    @AttributeDefinition(
+        name = "Max assets",
+        description = "Maximum number of asset descriptors that can be sent within a single request. If more asset "
+            + "descriptors are sent, the request is rejected before any Asset is looked up",
+        defaultValue = "" + DEFAULT_MAX_ASSETS,
+        type = AttributeType.INTEGER
+    )
+    @SuppressWarnings("squid:S100")
+    int max_assets() default DEFAULT_MAX_ASSETS;
+}
@@ -0,0 +1,185 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
+import eu.ciechanowiec.sling.rocket.asset.image.SimilarAssets;
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.ScopedResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
+import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
+import eu.ciechanowiec.sling.rocket.jcr.ref.Referenceable;
+import eu.ciechanowiec.sling.rocket.network.Affected;
+import eu.ciechanowiec.sling.rocket.network.Response;
+import eu.ciechanowiec.sling.rocket.network.SlingRequest;
+import eu.ciechanowiec.sling.rocket.network.Status;
+import eu.ciechanowiec.sling.rocket.privilege.RequiresPrivilege;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.jackrabbit.oak.spi.security.privilege.PrivilegeConstants;
+import org.apache.sling.api.SlingJakartaHttpServletRequest;
+import org.apache.sling.api.SlingJakartaHttpServletResponse;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.api.servlets.SlingJakartaSafeMethodsServlet;
+import org.apache.sling.servlets.annotations.SlingServletResourceTypes;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Servlet for handling SIMILAR requests to Assets API, i.e. requests for image {@link Asset}s similar to a given one.
+ * <p>
+ * The similarity is determined by the Hamming distance between persisted perceptual hashes of images, normalized to
+ * the range from {@code 0} to {@code 1}. The maximum distance can be specified via the
+ * {@link ServletSimilar#PARAMETER_MAX_DISTANCE} request parameter. Only {@link Asset}s accessible to the requesting
+ * user are returned, at most as many as specified via the {@link ServletSimilar#PARAMETER_LIMIT} request parameter.
+ * The matches are resolved in batches of that size, each with a single query.
+ */
+@Component(
+    service = {ServletSimilar.class, Servlet.class},
+    immediate = true
+)
+@SlingServletResourceTypes(
+    methods = HttpConstants.METHOD_GET,
+    resourceTypes = AssetsAPI.ASSETS_API_RESOURCE_TYPE,
+    selectors = ServletSimilar.SELECTOR,
+    extensions = ServletSimilar.EXTENSION
+)
+@Slf4j
+@ToString
+@ServiceDescription("Servlet for handling SIMILAR requests to Assets API")
+public class ServletSimilar extends SlingJakartaSafeMethodsServlet implements RequiresPrivilege {
+
+    static final String SELECTOR = "similar";
+    static final String EXTENSION = "json";
+    static final double DEFAULT_MAX_DISTANCE = 0.1;
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+
+    /**
+     * Name of the request parameter with the maximum normalized Hamming distance between perceptual hashes of similar
+     * images, e.g. {@code 0.1}. Must be a number from {@code 0} to {@code 1}.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String PARAMETER_MAX_DISTANCE = "maxDistance";
+
+    /**
+     * Name of the request parameter with the maximum number of returned {@link Asset}s, e.g. {@code 20}. Must be an
+     * integer from {@code 1} to {@link ServletSimilar#MAX_LIMIT}.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String PARAMETER_LIMIT = "limit";
+
+    /**
+     * {@link FullResourceAccess} that will be used by this {@link ServletSimilar} to acquire access to resources.
+     */
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+
+    /**
+     * {@link SimilarAssets} that will be used by this {@link ServletSimilar} to search for similar {@link Asset}s.
+     */
+    @ToString.Exclude
+    private final Optional<SimilarAssets> similarAssetsNullable;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param similarAssets      {@link SimilarAssets} that will be used by the constructed object to search for
+     *                           similar {@link Asset}s; if {@code null}, all requests will be answered with 503
+     */
+    @Activate
+    public ServletSimilar(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.STATIC,
+            policyOption = ReferencePolicyOption.GREEDY
+        )
+        @Nullable
+        SimilarAssets similarAssets
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        this.similarAssetsNullable = Optional.ofNullable(similarAssets);
+        log.info("Initialized {}", this);
+    }
+
+    @Override
+    @SuppressWarnings("PMD.CloseResource")
+    protected void doGet(
+        @NotNull SlingJakartaHttpServletRequest request, @NotNull SlingJakartaHttpServletResponse response
+    ) {
+        ResourceResolver resourceResolver = request.getResourceResolver();
+        String userID = resourceResolver.getUserID();
+        AuthIDUser authIDUser = new AuthIDUser(userID);
+        UserResourceAccess userResourceAccess = new UserResourceAccess(authIDUser, fullResourceAccess);
+        SlingRequest slingRequest = new SlingRequest(request, userResourceAccess);
+        log.trace("Processing {}", slingRequest);
+        try (ScopedResourceAccess scopedResourceAccess = new ScopedResourceAccess(userResourceAccess)) {
+            RequestSimilar requestSimilar = new RequestSimilar(slingRequest, scopedResourceAccess);
+            if (!requestSimilar.isValidStructure()) {
+                new Response(
+                    response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")
+                ).send();
+            } else if (similarAssetsNullable.isEmpty()) {
+                new Response(
+                    response, new Status(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Similarity search unavailable")
+                ).send();
+            } else {
+                SimilarAssets similarAssets = similarAssetsNullable.get();
+                double maxDistance = requestSimilar.maxDistance().orElse(DEFAULT_MAX_DISTANCE);
+                int limit = requestSimilar.limit().orElse(DEFAULT_LIMIT);
+                requestSimilar.referenceAsset()
+                    .map(asset -> similarAssets.similarAssetUUIDs(asset, maxDistance))
+                    .ifPresentOrElse(
+                        similarAssetUUIDs -> {
+                            List<Affected> affected = accessibleAssets(
+                                similarAssetUUIDs, limit, new AssetsRepository(scopedResourceAccess)
+                            ).stream().<Affected>map(AssetDescriptor::new).toList();
+                            new Response(
+                                response, new Status(HttpServletResponse.SC_OK, "Similar assets found"), affected
+                            ).send();
+                        },
+                        () -> new Response(
+                            response, new Status(HttpServletResponse.SC_NOT_FOUND, "No asset found")
+                        ).send()
+                    );
+            }
+        }
+    }
+
+    private List<Asset> accessibleAssets(List<String> assetUUIDs, int limit, AssetsRepository assetsRepository) {
+        List<Asset> accessibleAssets = new ArrayList<>(limit);
+        for (int from = 0; from < assetUUIDs.size() && accessibleAssets.size() < limit; from += limit) {
+            List<Referenceable> batch = assetUUIDs.subList(from, Math.min(from + limit, assetUUIDs.size()))
+                .stream()
+                .<Referenceable>map(assetUUID -> () -> assetUUID)
+                .toList();
+            assetsRepository.find(batch)
+                .stream()
+                .limit((long) limit - accessibleAssets.size())
+                .forEach(accessibleAssets::add);
+        }
+        return accessibleAssets;
+    }
+
+    @Override
+    public List<String> requiredPrivileges() {
+        return List.of(PrivilegeConstants.JCR_READ);
+    }
+}
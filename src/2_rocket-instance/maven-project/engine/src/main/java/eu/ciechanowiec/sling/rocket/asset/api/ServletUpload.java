@@ -4,6 +4,10 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import eu.ciechanowiec.conditional.Conditional;
 import eu.ciechanowiec.sling.rocket.asset.Asset;
 import eu.ciechanowiec.sling.rocket.asset.Assets;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationCounter;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationMode;
+import eu.ciechanowiec.sling.rocket.asset.extraction.MetadataExtraction;
+import eu.ciechanowiec.sling.rocket.commons.FileWithOriginalName;
 import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
 import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
 import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
@@ -36,8 +40,10 @@ import org.osgi.service.component.annotations.*;
 import org.osgi.service.component.propertytypes.ServiceDescription;
 import org.osgi.service.metatype.annotations.Designate;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Servlet for handling UPLOAD requests to Assets API.
@@ -80,14 +86,29 @@ public class ServletUpload extends SlingJakartaAllMethodsServlet implements Requ
      */
     private final DownloadLink downloadLink;
 
+    /**
+     * {@link DeduplicationCounter} where outcomes of the deduplication of uploaded {@link Asset}s will be registered.
+     */
+    private final DeduplicationCounter deduplicationCounter;
+
+    /**
+     * {@link MetadataExtraction} to which uploaded {@link Asset}s will be submitted, if available.
+     */
+    private final Optional<MetadataExtraction> metadataExtractionNullable;
+
     /**
      * Constructs an instance of this class.
      *
-     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
-     *                           access to resources
-     * @param config             {@link ServletUploadConfig} that will be used by the constructed object
-     * @param downloadLink       {@link DownloadLink} that will be used by this {@link ServletUpload} to generate
-     *                           download links for uploaded {@link Asset}s
+     * @param fullResourceAccess   {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                             access to resources
+     * @param config               {@link ServletUploadConfig} that will be used by the constructed object
+     * @param downloadLink         {@link DownloadLink} that will be used by this {@link ServletUpload} to generate
+     *                             download links for uploaded {@link Asset}s
+     * @param deduplicationCounter {@link DeduplicationCounter} where outcomes of the deduplication of uploaded
+     *                             {@link Asset}s will be registered
+     * @param metadataExtraction   {@link MetadataExtraction} to which uploaded {@link Asset}s will be submitted for
+     *                             asynchronous extraction of additional metadata; if {@code null}, no extraction
+     *                             will be performed
      */
     @Activate
     public ServletUpload(
@@ -95,11 +116,22 @@ public class ServletUpload extends SlingJakartaAllMethodsServlet implements Requ
         FullResourceAccess fullResourceAccess,
         ServletUploadConfig config,
         @Reference(cardinality = ReferenceCardinality.MANDATORY)
-        DownloadLink downloadLink
+        DownloadLink downloadLink,
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        DeduplicationCounter deduplicationCounter,
+        @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.STATIC,
+            policyOption = ReferencePolicyOption.GREEDY
+        )
+        @Nullable
+        MetadataExtraction metadataExtraction
     ) {
         this.fullResourceAccess = fullResourceAccess;
         this.config = config;
         this.downloadLink = downloadLink;
+        this.deduplicationCounter = deduplicationCounter;
+        this.metadataExtractionNullable = Optional.ofNullable(metadataExtraction);
         ensurePath(fullResourceAccess, new TargetJCRPath(this.config.jcr_path()));
         log.info("Initialized {}", this);
     }
@@ -124,9 +156,7 @@ public class ServletUpload extends SlingJakartaAllMethodsServlet implements Requ
         log.trace("Processing {}", slingRequest);
         RequestUpload requestUpload = new RequestUpload(slingRequest, downloadLink);
         if (requestUpload.isValidStructure()) {
-            List<Affected> savedAssets = requestUpload.saveAssets(
-                new ParentJCRPath(new TargetJCRPath(config.jcr_path())), config.do$_$include$_$download$_$link()
-            );
+            List<Affected> savedAssets = saveAssets(requestUpload, slingRequest.uploadedFiles());
             Status status = Conditional.conditional(savedAssets.isEmpty())
                 .onTrue(() -> new Status(HttpServletResponse.SC_BAD_REQUEST, "No files uploaded"))
                 .onFalse(() -> new Status(HttpServletResponse.SC_CREATED, "File(s) uploaded"))
@@ -141,6 +171,26 @@ public class ServletUpload extends SlingJakartaAllMethodsServlet implements Requ
         }
     }
 
+    /**
+     * Saves the specified files as {@link Asset}s in the same way as files uploaded via this {@link ServletUpload}.
+     *
+     * @param slingRequest {@link SlingRequest} on behalf of which the files are saved
+     * @param filesToSave  files to be saved as {@link Asset}s
+     * @return {@link AssetDescriptor}s of the saved {@link Asset}s
+     */
+    List<Affected> saveAssets(SlingRequest slingRequest, List<FileWithOriginalName> filesToSave) {
+        return saveAssets(new RequestUpload(slingRequest, downloadLink), filesToSave);
+    }
+
+    private List<Affected> saveAssets(RequestUpload requestUpload, List<FileWithOriginalName> filesToSave) {
+        return requestUpload.saveAssets(
+            filesToSave, new ParentJCRPath(new TargetJCRPath(config.jcr_path())),
+            config.do$_$include$_$download$_$link(),
+            DeduplicationMode.valueOf(config.deduplication_mode()), deduplicationCounter,
+            asset -> metadataExtractionNullable.ifPresent(extraction -> extraction.submit(asset))
+        );
+    }
+
     @SneakyThrows
     @SuppressWarnings("TypeMayBeWeakened")
     private void ensurePath(FullResourceAccess fullResourceAccess, JCRPath pathToEnsure) {
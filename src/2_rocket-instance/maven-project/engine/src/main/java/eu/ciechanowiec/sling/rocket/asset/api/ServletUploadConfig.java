@@ -1,10 +1,12 @@
 package eu.ciechanowiec.sling.rocket.asset.api;
 
 import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationMode;
 import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.AttributeType;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.osgi.service.metatype.annotations.Option;
 
 /**
  * Configuration for {@link ServletUpload}.
@@ -47,4 +49,25 @@ public @interface ServletUploadConfig {
         type = AttributeType.BOOLEAN
     )
     boolean do$_$include$_$download$_$link() default true;
+
+    /**
+     * Name of the {@link DeduplicationMode} that should be applied to uploaded {@link Asset}s.
+     *
+     * @return name of the {@link DeduplicationMode} that should be applied to uploaded {@link Asset}s
+     */
+    @AttributeDefinition(
+        name = "Deduplication mode",
+        description = "Describes how an uploaded Asset should be handled if an Asset with identical binary content "
+            + "already exists. 'DISABLED' - the uploaded Asset is always saved as a new one; 'REUSE' - the existing "
+            + "Asset is returned and nothing is saved; 'LINK' - a new Asset link pointing to the existing Asset is "
+            + "saved",
+        defaultValue = "DISABLED",
+        type = AttributeType.STRING,
+        options = {
+            @Option(label = "DISABLED", value = "DISABLED"),
+            @Option(label = "REUSE", value = "REUSE"),
+            @Option(label = "LINK", value = "LINK")
+        }
+    )
+    String deduplication_mode() default "DISABLED";
 }
@@ -0,0 +1,312 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.conditional.Conditional;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
+import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
+import eu.ciechanowiec.sling.rocket.network.Affected;
+import eu.ciechanowiec.sling.rocket.network.Response;
+import eu.ciechanowiec.sling.rocket.network.SlingRequest;
+import eu.ciechanowiec.sling.rocket.network.Status;
+import eu.ciechanowiec.sling.rocket.privilege.RequiresPrivilege;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.sling.api.SlingJakartaHttpServletRequest;
+import org.apache.sling.api.SlingJakartaHttpServletResponse;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.api.servlets.SlingJakartaAllMethodsServlet;
+import org.apache.sling.servlets.annotations.SlingServletResourceTypes;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Servlet for handling resumable UPLOAD requests to Assets API.
+ * <p>
+ * A large file is uploaded within an {@link UploadSession} in the following steps:
+ * <ol>
+ *     <li>{@code POST /api/assets.upload-session.json} with the {@link ServletUploadSession#PARAMETER_FILE_NAME},
+ *     {@link ServletUploadSession#PARAMETER_SIZE} and, optionally, {@link ServletUploadSession#PARAMETER_SHA256}
+ *     parameters opens a new {@link UploadSession}.</li>
+ *     <li>{@code PUT /api/assets.upload-session.<upload-session-id>.json} with the
+ *     {@link ServletUploadSession#HEADER_UPLOAD_OFFSET} header sends a chunk of the file. After an interrupted
+ *     transfer the current offset can be retrieved via {@code GET} sent to the same URL.</li>
+ *     <li>{@code POST /api/assets.upload-session.<upload-session-id>.json} finalizes the {@link UploadSession}: the
+ *     size and the declared SHA-256 digest of the uploaded file are verified and the file is saved as an
+ *     {@link Asset} in the same way as by the {@link ServletUpload}.</li>
+ * </ol>
+ * An {@link UploadSession} can be aborted via {@code DELETE} sent to its URL. Every {@link UploadSession} is
+ * accessible only to the user who opened it. An {@link UploadSession} is finalized only once: the first finalization
+ * request claims it, so neither a concurrent finalization nor an abort or expiration can touch the file being saved.
+ */
+@Component(
+    service = {ServletUploadSession.class, Servlet.class},
+    immediate = true
+)
+@SlingServletResourceTypes(
+    methods = {
+        HttpConstants.METHOD_GET, HttpConstants.METHOD_POST, HttpConstants.METHOD_PUT, HttpConstants.METHOD_DELETE
+    },
+    resourceTypes = AssetsAPI.ASSETS_API_RESOURCE_TYPE,
+    selectors = ServletUploadSession.SELECTOR,
+    extensions = ServletUploadSession.EXTENSION
+)
+@Slf4j
+@ToString
+@ServiceDescription("Servlet for handling resumable UPLOAD requests to Assets API")
+public class ServletUploadSession extends SlingJakartaAllMethodsServlet implements RequiresPrivilege {
+
+    static final String SELECTOR = "upload-session";
+    static final String EXTENSION = "json";
+
+    /**
+     * Name of the request parameter with the original name of the uploaded file.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String PARAMETER_FILE_NAME = "fileName";
+
+    /**
+     * Name of the request parameter with the size in bytes of the uploaded file.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String PARAMETER_SIZE = "size";
+
+    /**
+     * Name of the optional request parameter with the hexadecimal SHA-256 digest of the uploaded file.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String PARAMETER_SHA256 = "sha256";
+
+    /**
+     * Name of the request header with the offset in bytes at which the sent chunk starts.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String HEADER_UPLOAD_OFFSET = "Upload-Offset";
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final int SC_INSUFFICIENT_STORAGE = 507;
+
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+    @ToString.Exclude
+    private final UploadSessions uploadSessions;
+    @ToString.Exclude
+    private final ServletUpload servletUpload;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param uploadSessions     {@link UploadSessions} where the {@link UploadSession}s will be registered
+     * @param servletUpload      {@link ServletUpload} that will be used to save the uploaded files as {@link Asset}s
+     */
+    @Activate
+    public ServletUploadSession(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        UploadSessions uploadSessions,
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        ServletUpload servletUpload
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        this.uploadSessions = uploadSessions;
+        this.servletUpload = servletUpload;
+        log.info("Initialized {}", this);
+    }
+
+    @Override
+    protected void doGet(
+        @NotNull SlingJakartaHttpServletRequest request, @NotNull SlingJakartaHttpServletResponse response
+    ) {
+        process(
+            request, response, (slingRequest, uploadSession) -> new Response(
+                response, new Status(HttpServletResponse.SC_OK, "Upload session found"), List.of(uploadSession)
+            ).send()
+        );
+    }
+
+    @Override
+    protected void doPost(
+        @NotNull SlingJakartaHttpServletRequest request, @NotNull SlingJakartaHttpServletResponse response
+    ) {
+        process(request, response, (slingRequest, uploadSession) -> complete(slingRequest, uploadSession, response));
+    }
+
+    @Override
+    protected void doPut(
+        @NotNull SlingJakartaHttpServletRequest request, @NotNull SlingJakartaHttpServletResponse response
+    ) {
+        process(
+            request, response,
+            (slingRequest, uploadSession) -> appendChunk(request, uploadSession, response)
+        );
+    }
+
+    @Override
+    protected void doDelete(
+        @NotNull SlingJakartaHttpServletRequest request, @NotNull SlingJakartaHttpServletResponse response
+    ) {
+        process(
+            request, response, (slingRequest, uploadSession) -> {
+                uploadSessions.close(uploadSession);
+                new Response(
+                    response, new Status(HttpServletResponse.SC_OK, "Upload session aborted"), List.of(uploadSession)
+                ).send();
+            }
+        );
+    }
+
+    @SuppressWarnings("PMD.CloseResource")
+    private void process(
+        SlingJakartaHttpServletRequest request, SlingJakartaHttpServletResponse response,
+        BiConsumer<SlingRequest, UploadSession> sessionAction
+    ) {
+        String userID = request.getResourceResolver().getUserID();
+        UserResourceAccess userResourceAccess = new UserResourceAccess(new AuthIDUser(userID), fullResourceAccess);
+        SlingRequest slingRequest = new SlingRequest(request, userResourceAccess);
+        log.trace("Processing {}", slingRequest);
+        RequestUploadSession requestUploadSession = new RequestUploadSession(slingRequest);
+        Optional<String> uploadSessionIDNullable = requestUploadSession.uploadSessionID();
+        if (!requestUploadSession.isValidStructure()) {
+            new Response(response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")).send();
+        } else if (uploadSessionIDNullable.isEmpty()) {
+            open(slingRequest, userID, response);
+        } else {
+            uploadSessionIDNullable.flatMap(uploadSessionID -> uploadSessions.find(uploadSessionID, userID))
+                .ifPresentOrElse(
+                    uploadSession -> sessionAction.accept(slingRequest, uploadSession),
+                    () -> new Response(
+                        response, new Status(HttpServletResponse.SC_NOT_FOUND, "Upload session not found")
+                    ).send()
+                );
+        }
+    }
+
+    private void open(SlingRequest slingRequest, String userID, HttpServletResponse response) {
+        if (!HttpConstants.METHOD_POST.equals(slingRequest.method())) {
+            new Response(response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")).send();
+            return;
+        }
+        Optional<String> fileNameNullable = firstParameter(slingRequest, PARAMETER_FILE_NAME)
+            .filter(StringUtils::isNotBlank);
+        long size = firstParameter(slingRequest, PARAMETER_SIZE)
+            .map(rawSize -> NumberUtils.toLong(rawSize, NumberUtils.LONG_MINUS_ONE))
+            .orElse(NumberUtils.LONG_MINUS_ONE);
+        if (fileNameNullable.isEmpty() || size < 0) {
+            new Response(response, new Status(HttpServletResponse.SC_BAD_REQUEST, "Invalid request structure")).send();
+        } else if (size > uploadSessions.maxSizeBytes()) {
+            new Response(
+                response, new Status(
+                HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                "Upload size exceeds the limit of %d bytes".formatted(uploadSessions.maxSizeBytes())
+            )
+            ).send();
+        } else {
+            uploadSessions.open(userID, fileNameNullable.get(), size, firstParameter(slingRequest, PARAMETER_SHA256))
+                .ifPresentOrElse(
+                    uploadSession -> new Response(
+                        response, new Status(HttpServletResponse.SC_CREATED, "Upload session opened"),
+                        List.of(uploadSession)
+                    ).send(),
+                    () -> new Response(response, sessionLimitStatus(size)).send()
+                );
+        }
+    }
+
+    private void appendChunk(
+        SlingJakartaHttpServletRequest request, UploadSession uploadSession, HttpServletResponse response
+    ) {
+        long chunkOffset = Optional.ofNullable(request.getHeader(HEADER_UPLOAD_OFFSET))
+            .map(rawOffset -> NumberUtils.toLong(rawOffset, NumberUtils.LONG_MINUS_ONE))
+            .orElse(NumberUtils.LONG_MINUS_ONE);
+        if (chunkOffset < 0) {
+            new Response(
+                response, new Status(
+                HttpServletResponse.SC_BAD_REQUEST, "Missing or invalid %s header".formatted(HEADER_UPLOAD_OFFSET)
+            ), List.of(uploadSession)
+            ).send();
+            return;
+        }
+        Status status;
+        try (InputStream chunk = request.getInputStream()) {
+            status = Conditional.conditional(uploadSession.append(chunkOffset, chunk))
+                .onTrue(() -> new Status(HttpServletResponse.SC_OK, "Chunk accepted"))
+                .onFalse(() -> new Status(HttpServletResponse.SC_CONFLICT, "Chunk rejected"))
+                .get(Status.class);
+        } catch (IOException exception) {
+            log.warn("Unable to append a chunk to {}", uploadSession, exception);
+            status = new Status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Chunk not saved");
+        }
+        new Response(response, status, List.of(uploadSession)).send();
+    }
+
+    private void complete(SlingRequest slingRequest, UploadSession uploadSession, HttpServletResponse response) {
+        if (!uploadSession.isComplete()) {
+            new Response(
+                response, new Status(HttpServletResponse.SC_CONFLICT, "Upload incomplete"), List.of(uploadSession)
+            ).send();
+            return;
+        }
+        if (!uploadSessions.claim(uploadSession)) {
+            new Response(response, new Status(HttpServletResponse.SC_NOT_FOUND, "Upload session not found")).send();
+            return;
+        }
+        if (!uploadSession.isChecksumValid()) {
+            uploadSession.release();
+            new Response(
+                response, new Status(HttpServletResponse.SC_UNPROCESSABLE_CONTENT, "Checksum mismatch"),
+                List.of(uploadSession)
+            ).send();
+            return;
+        }
+        List<Affected> savedAssets;
+        try {
+            savedAssets = servletUpload.saveAssets(slingRequest, List.of(uploadSession.file()));
+        } finally {
+            uploadSession.release();
+        }
+        Status status = Conditional.conditional(savedAssets.isEmpty())
+            .onTrue(() -> new Status(HttpServletResponse.SC_BAD_REQUEST, "No files uploaded"))
+            .onFalse(() -> new Status(HttpServletResponse.SC_CREATED, "File(s) uploaded"))
+            .get(Status.class);
+        new Response(response, status, savedAssets).send();
+    }
+
+    private Status sessionLimitStatus(long size) {
+        if (uploadSessions.hasStagingSpaceFor(size)) {
+            return new Status(
+                SC_TOO_MANY_REQUESTS,
+                "Limit of %d open upload sessions reached".formatted(uploadSessions.maxSessionsPerUser())
+            );
+        }
+        return new Status(
+            SC_INSUFFICIENT_STORAGE,
+            "Limit of %d bytes staged by all upload sessions reached".formatted(uploadSessions.maxStagingSizeBytes())
+        );
+    }
+
+    private Optional<String> firstParameter(SlingRequest slingRequest, String parameterName) {
+        return slingRequest.parameterValues(parameterName).stream().findFirst();
+    }
+
+    @Override
+    public List<String> requiredPrivileges() {
+        return servletUpload.requiredPrivileges();
+    }
+}
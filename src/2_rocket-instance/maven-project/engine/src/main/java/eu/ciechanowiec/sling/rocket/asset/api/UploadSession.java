@@ -0,0 +1,213 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import eu.ciechanowiec.sling.rocket.asset.SHA256Digest;
+import eu.ciechanowiec.sling.rocket.asset.UsualFileAsAssetFile;
+import eu.ciechanowiec.sling.rocket.commons.FileWithOriginalName;
+import eu.ciechanowiec.sling.rocket.network.Affected;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Session of a resumable upload of a single file, sent to the server in consecutive chunks.
+ * <p>
+ * The chunks are appended to a staging file in the order of their offsets. A chunk is accepted only if its offset is
+ * equal to the number of bytes already received, so after an interrupted transfer the client can ask for the current
+ * offset and continue from there. Once claimed for finalization or discarded, the {@link UploadSession} doesn't accept
+ * chunks anymore.
+ */
+@Slf4j
+@ToString
+class UploadSession implements Affected {
+
+    private final String uploadSessionID;
+    private final String ownerID;
+    private final String originalName;
+    private final long size;
+    private final Optional<String> sha256Nullable;
+    private final Path stagingFile;
+    @Nullable
+    private String verifiedSHA256Nullable;
+    private long offset;
+    private Instant lastActivity;
+    private boolean isClaimed;
+    private boolean isDiscarded;
+
+    @SneakyThrows
+    UploadSession(
+        String ownerID, String originalName, long size, Optional<String> sha256Nullable, Path stagingDirectory
+    ) {
+        this.uploadSessionID = UUID.randomUUID().toString();
+        this.ownerID = ownerID;
+        this.originalName = originalName;
+        this.size = size;
+        this.sha256Nullable = sha256Nullable;
+        this.stagingFile = Files.createFile(stagingDirectory.resolve(uploadSessionID));
+        this.verifiedSHA256Nullable = null;
+        this.offset = 0;
+        this.lastActivity = Instant.now();
+        this.isClaimed = false;
+        this.isDiscarded = false;
+        log.trace("Initialized {}", this);
+    }
+
+    @JsonProperty("uploadSessionID")
+    public String uploadSessionID() {
+        return uploadSessionID;
+    }
+
+    @JsonProperty("offset")
+    public synchronized long offset() {
+        return offset;
+    }
+
+    @JsonProperty("size")
+    public long size() {
+        return size;
+    }
+
+    boolean isOwnedBy(String userID) {
+        return ownerID.equals(userID);
+    }
+
+    /**
+     * Appends a chunk to the staging file of this {@link UploadSession}.
+     *
+     * @param chunkOffset offset at which the chunk starts
+     * @param chunk       {@link InputStream} with the content of the chunk
+     * @return {@code true} if the chunk was appended; {@code false} if the chunk offset isn't equal to the current
+     * offset of this {@link UploadSession}, if the chunk would exceed the declared size or if this
+     * {@link UploadSession} has already been claimed or discarded
+     * @throws IOException if the chunk couldn't be read or written; in this case the staging file is truncated back to
+     *                     the offset from before the chunk, so the chunk can be resent
+     */
+    synchronized boolean append(long chunkOffset, InputStream chunk) throws IOException {
+        lastActivity = Instant.now();
+        if (isClaimed || isDiscarded) {
+            log.debug("Chunk sent to a claimed or discarded {}", this);
+            return false;
+        }
+        if (chunkOffset != offset) {
+            log.debug("Chunk offset {} doesn't match the current offset of {}", chunkOffset, this);
+            return false;
+        }
+        try (FileChannel fileChannel = FileChannel.open(stagingFile, StandardOpenOption.WRITE)) {
+            fileChannel.position(offset);
+            long maxChunkSize = size - offset;
+            long written = IOUtils.copyLarge(
+                chunk, Channels.newOutputStream(fileChannel), NumberUtils.LONG_ZERO, maxChunkSize + 1
+            );
+            if (written > maxChunkSize) {
+                log.debug("Chunk of {} bytes exceeds the declared size of {}", written, this);
+                fileChannel.truncate(offset);
+                return false;
+            }
+            offset += written;
+            log.trace("Appended {} bytes to {}", written, this);
+            return true;
+        } catch (IOException exception) {
+            try (FileChannel fileChannel = FileChannel.open(stagingFile, StandardOpenOption.WRITE)) {
+                fileChannel.truncate(offset);
+            }
+            throw exception;
+        }
+    }
+
+    synchronized boolean isComplete() {
+        return offset == size;
+    }
+
+    /**
+     * Verifies the content of the staging file against the SHA-256 digest declared upon creation of this
+     * {@link UploadSession}, if any was declared. A matching digest is kept and passed on with the {@link #file()}, so
+     * the staging file isn't hashed again when it is saved.
+     *
+     * @return {@code true} if no digest was declared or the declared digest matches the content of the staging file;
+     * {@code false} otherwise
+     */
+    synchronized boolean isChecksumValid() {
+        File file = stagingFile.toFile();
+        return sha256Nullable.map(
+            expectedDigest -> {
+                String actualDigest = new SHA256Digest(new UsualFileAsAssetFile(file)).get();
+                boolean isValid = expectedDigest.equalsIgnoreCase(actualDigest);
+                verifiedSHA256Nullable = isValid ? actualDigest : null;
+                return isValid;
+            }
+        ).orElse(true);
+    }
+
+    synchronized boolean isExpired(Instant now, Duration timeToLive) {
+        return lastActivity.plus(timeToLive).isBefore(now);
+    }
+
+    synchronized FileWithOriginalName file() {
+        return new FileWithOriginalName(stagingFile.toFile(), originalName, verifiedSHA256Nullable);
+    }
+
+    /**
+     * Tells whether the staging file of this {@link UploadSession} has been deleted.
+     *
+     * @return {@code true} if this {@link UploadSession} has been discarded or released; {@code false} otherwise
+     */
+    synchronized boolean isDiscarded() {
+        return isDiscarded;
+    }
+
+    /**
+     * Claims this {@link UploadSession} for finalization.
+     *
+     * @return {@code true} if this {@link UploadSession} was claimed by the calling thread; {@code false} if it has
+     * already been claimed or discarded
+     */
+    synchronized boolean claim() {
+        if (isClaimed || isDiscarded) {
+            return false;
+        }
+        isClaimed = true;
+        return true;
+    }
+
+    /**
+     * Discards the staging file of this {@link UploadSession}, unless this {@link UploadSession} has been claimed.
+     */
+    synchronized void discard() {
+        if (isClaimed) {
+            log.trace("Not discarding claimed {}", this);
+            return;
+        }
+        isDiscarded = true;
+        deleteStagingFile();
+    }
+
+    /**
+     * Discards the staging file of this {@link UploadSession} after it has been claimed and finalized.
+     */
+    synchronized void release() {
+        isDiscarded = true;
+        deleteStagingFile();
+    }
+
+    @SneakyThrows
+    private void deleteStagingFile() {
+        log.trace("Discarding {}", this);
+        Files.deleteIfExists(stagingFile);
+    }
+}
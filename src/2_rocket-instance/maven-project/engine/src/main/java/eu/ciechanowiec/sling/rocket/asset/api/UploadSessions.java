@@ -0,0 +1,225 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.conditional.Conditional;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.job.SchedulableJobConsumer;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.osgi.service.component.annotations.*;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.metatype.annotations.Designate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of open {@link UploadSession}s used for resumable uploads of large {@link Asset}s.
+ * <p>
+ * Chunks of every {@link UploadSession} are staged in a temporary directory on the local file system. The
+ * {@link UploadSession}s are kept in memory only, so they don't survive a restart of this component. Expired
+ * {@link UploadSession}s are periodically discarded together with their staged chunks. Every user can have at most
+ * {@link UploadSessionsConfig#max$_$sessions_per$_$user()} {@link UploadSession}s open at the same time, while the
+ * declared sizes of all {@link UploadSession}s whose files are staged, including the claimed ones that are being
+ * finalized, can't exceed {@link UploadSessionsConfig#max$_$staging$_$size_bytes()} in total.
+ * <p>
+ * An {@link UploadSession} is finalized by the single caller that {@link UploadSessions#claim(UploadSession)}s it: the
+ * claimed {@link UploadSession} is removed from the registry and neither accepts chunks nor can be discarded by a
+ * concurrent abort or expiration, so its staged file stays intact until the caller saves it.
+ */
+@Component(
+    service = {UploadSessions.class, SchedulableJobConsumer.class, JobConsumer.class},
+    immediate = true,
+    configurationPolicy = ConfigurationPolicy.OPTIONAL,
+    property = {
+        JobConsumer.PROPERTY_TOPICS + "=" + UploadSessions.JOB_TOPIC,
+        SchedulableJobConsumer.CRON_EXPRESSION_PROPERTY + "=" + UploadSessions.DEFAULT_CRON_EXPRESSION
+    }
+)
+@Designate(ocd = UploadSessionsConfig.class)
+@Slf4j
+@ToString
+@ServiceDescription("Registry of open upload sessions used for resumable uploads of large Assets")
+public class UploadSessions implements SchedulableJobConsumer {
+
+    static final String JOB_TOPIC = "eu/ciechanowiec/sling/rocket/asset/api/UPLOAD_SESSIONS_CLEANUP";
+    static final String DEFAULT_CRON_EXPRESSION = "0 */5 * * * ?";
+
+    @ToString.Exclude
+    private final Map<String, UploadSession> sessions;
+    @ToString.Exclude
+    private final Set<UploadSession> stagingSessions;
+    private final Path stagingDirectory;
+    private UploadSessionsConfig config;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param config {@link UploadSessionsConfig} that will be used by the constructed object
+     */
+    @Activate
+    @SneakyThrows
+    public UploadSessions(UploadSessionsConfig config) {
+        this.sessions = new ConcurrentHashMap<>();
+        this.stagingSessions = ConcurrentHashMap.newKeySet();
+        this.stagingDirectory = Files.createTempDirectory("rocket-upload-sessions");
+        this.config = config;
+        log.info("Initialized {}", this);
+    }
+
+    @Modified
+    void configure(UploadSessionsConfig config) {
+        this.config = config;
+        log.info("Configured {}", this);
+    }
+
+    @Deactivate
+    void deactivate() {
+        log.info("Deactivating {}. Discarding {} session(s)", this, sessions.size());
+        sessions.values().forEach(UploadSession::discard);
+        sessions.clear();
+        stagingSessions.clear();
+        try {
+            FileUtils.deleteDirectory(stagingDirectory.toFile());
+        } catch (IOException exception) {
+            log.warn("Unable to delete the staging directory {}", stagingDirectory, exception);
+        }
+    }
+
+    /**
+     * Opens a new {@link UploadSession}.
+     *
+     * @param ownerID        ID of the user who owns the opened {@link UploadSession}
+     * @param originalName   original name of the uploaded file
+     * @param size           declared size in bytes of the uploaded file
+     * @param sha256Nullable SHA-256 digest of the uploaded file that will be verified upon finalization, if present
+     * @return {@link Optional} containing the opened {@link UploadSession}; empty {@link Optional} is returned if the
+     * specified user already has the maximum number of {@link UploadSession}s open or if there is no staging space
+     * left for the declared size
+     * @throws IllegalArgumentException if the declared size is negative or exceeds the configured maximum
+     */
+    @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+    synchronized Optional<UploadSession> open(
+        String ownerID, String originalName, long size, Optional<String> sha256Nullable
+    ) {
+        Conditional.isTrueOrThrow(
+            size >= 0 && size <= maxSizeBytes(),
+            new IllegalArgumentException("Invalid upload size: %d".formatted(size))
+        );
+        long numOfOwnedSessions = sessions.values().stream().filter(session -> session.isOwnedBy(ownerID)).count();
+        if (numOfOwnedSessions >= maxSessionsPerUser()) {
+            log.debug("User '{}' already has {} open upload session(s)", ownerID, numOfOwnedSessions);
+            return Optional.empty();
+        }
+        if (!hasStagingSpaceFor(size)) {
+            log.debug("No staging space left for {} bytes. Staged sessions: {}", size, stagingSessions.size());
+            return Optional.empty();
+        }
+        UploadSession uploadSession = new UploadSession(ownerID, originalName, size, sha256Nullable, stagingDirectory);
+        sessions.put(uploadSession.uploadSessionID(), uploadSession);
+        stagingSessions.add(uploadSession);
+        log.debug("Opened {}", uploadSession);
+        return Optional.of(uploadSession);
+    }
+
+    /**
+     * Returns an open {@link UploadSession} with the specified ID if it's owned by the specified user.
+     *
+     * @param uploadSessionID ID of the requested {@link UploadSession}
+     * @param userID          ID of the user who requests the {@link UploadSession}
+     * @return {@link Optional} containing the requested {@link UploadSession}; empty {@link Optional} is returned if
+     * there is no such {@link UploadSession} or if it isn't owned by the specified user
+     */
+    Optional<UploadSession> find(String uploadSessionID, String userID) {
+        return Optional.ofNullable(sessions.get(uploadSessionID))
+            .filter(uploadSession -> uploadSession.isOwnedBy(userID));
+    }
+
+    /**
+     * Closes the specified {@link UploadSession} and discards its staged chunks, unless it has been claimed.
+     *
+     * @param uploadSession {@link UploadSession} to be closed
+     */
+    void close(UploadSession uploadSession) {
+        sessions.remove(uploadSession.uploadSessionID(), uploadSession);
+        uploadSession.discard();
+        log.debug("Closed {}", uploadSession);
+    }
+
+    /**
+     * Claims the specified {@link UploadSession} for finalization and removes it from this registry. Only one caller
+     * can claim a given {@link UploadSession}; after that the claiming caller is responsible for
+     * {@link UploadSession#release()}-ing it.
+     *
+     * @param uploadSession {@link UploadSession} to be claimed
+     * @return {@code true} if the {@link UploadSession} was claimed by the calling thread; {@code false} if it has
+     * already been claimed or discarded
+     */
+    boolean claim(UploadSession uploadSession) {
+        boolean isClaimed = uploadSession.claim();
+        if (isClaimed) {
+            sessions.remove(uploadSession.uploadSessionID(), uploadSession);
+            log.debug("Claimed {}", uploadSession);
+        }
+        return isClaimed;
+    }
+
+    /**
+     * Tells whether a file of the specified size can be staged without exceeding
+     * {@link UploadSessionsConfig#max$_$staging$_$size_bytes()}, given the declared sizes of all
+     * {@link UploadSession}s whose files are currently staged.
+     *
+     * @param size declared size in bytes of the file to be staged
+     * @return {@code true} if a file of the specified size can be staged; {@code false} otherwise
+     */
+    @SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+    synchronized boolean hasStagingSpaceFor(long size) {
+        stagingSessions.removeIf(UploadSession::isDiscarded);
+        long reservedBytes = stagingSessions.stream().mapToLong(UploadSession::size).sum();
+        return reservedBytes + size <= config.max$_$staging$_$size_bytes();
+    }
+
+    long maxStagingSizeBytes() {
+        return config.max$_$staging$_$size_bytes();
+    }
+
+    long maxSizeBytes() {
+        return config.max$_$size_bytes();
+    }
+
+    int maxSessionsPerUser() {
+        return config.max$_$sessions_per$_$user();
+    }
+
+    /**
+     * Closes all expired {@link UploadSession}s.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void closeExpired() {
+        Instant now = Instant.now();
+        Duration timeToLive = Duration.ofSeconds(config.session$_$ttl_seconds());
+        List<UploadSession> expired = sessions.values()
+            .stream()
+            .filter(uploadSession -> uploadSession.isExpired(now, timeToLive))
+            .toList();
+        expired.forEach(this::close);
+        log.debug("Closed {} expired upload session(s). Open sessions: {}", expired.size(), sessions.size());
+    }
+
+    @Override
+    public JobResult process(Job job) {
+        closeExpired();
+        return JobResult.OK;
+    }
+}
@@ -0,0 +1,90 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.job.SchedulableJobConsumer;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Configuration for {@link UploadSessions}.
+ */
+@ObjectClassDefinition
+public @interface UploadSessionsConfig {
+
+    /**
+     * Number of seconds after the last activity in an upload session upon which the session is considered expired.
+     *
+     * @return number of seconds after the last activity in an upload session upon which the session is considered
+     * expired
+     */
+    @AttributeDefinition(
+        name = "Session TTL (seconds)",
+        description = "Number of seconds after the last activity in an upload session upon which the session is "
+            + "considered expired. Expired sessions are discarded together with all already uploaded chunks",
+        defaultValue = "3600",
+        type = AttributeType.LONG
+    )
+    @SuppressWarnings("squid:S100")
+    long session$_$ttl_seconds() default 3600;
+
+    /**
+     * Maximum size in bytes of a file that can be uploaded via a single upload session.
+     *
+     * @return maximum size in bytes of a file that can be uploaded via a single upload session
+     */
+    @AttributeDefinition(
+        name = "Max size (bytes)",
+        description = "Maximum size in bytes of a file that can be uploaded via a single upload session",
+        defaultValue = "10737418240",
+        type = AttributeType.LONG
+    )
+    @SuppressWarnings("squid:S100")
+    long max$_$size_bytes() default 10_737_418_240L;
+
+    /**
+     * Maximum number of upload sessions that can be open at the same time by a single user.
+     *
+     * @return maximum number of upload sessions that can be open at the same time by a single user
+     */
+    @AttributeDefinition(
+        name = "Max sessions per user",
+        description = "Maximum number of upload sessions that can be open at the same time by a single user. Since "
+            + "every session can stage a file of the maximum size, this limits the disk space a single user can occupy",
+        defaultValue = "5",
+        type = AttributeType.INTEGER
+    )
+    @SuppressWarnings("squid:S100")
+    int max$_$sessions_per$_$user() default 5;
+
+    /**
+     * Maximum total size in bytes of files that can be staged by all upload sessions at the same time.
+     *
+     * @return maximum total size in bytes of files that can be staged by all upload sessions at the same time
+     */
+    @AttributeDefinition(
+        name = "Max staging size (bytes)",
+        description = "Maximum total size in bytes of files that can be staged by all upload sessions at the same "
+            + "time. The declared size of every session is reserved upon opening it and freed once the session is "
+            + "finalized, aborted or expired, so this limits the disk space occupied by all users together",
+        defaultValue = "53687091200",
+        type = AttributeType.LONG
+    )
+    @SuppressWarnings("squid:S100")
+    long max$_$staging$_$size_bytes() default 53_687_091_200L;
+
+    /**
+     * Value for the {@link SchedulableJobConsumer#CRON_EXPRESSION_PROPERTY} that determines the schedule cycle of how
+     * often expired upload sessions are discarded.
+     *
+     * @return value for the {@link SchedulableJobConsumer#CRON_EXPRESSION_PROPERTY} that determines the schedule cycle
+     * of how often expired upload sessions are discarded
+     */
+    @AttributeDefinition(
+        name = "Quartz Cron Expression",
+        description = "Determines how often expired upload sessions are discarded",
+        defaultValue = UploadSessions.DEFAULT_CRON_EXPRESSION,
+        type = AttributeType.STRING
+    )
+    @SuppressWarnings({"squid:S100", "squid:S125"})
+    String schedule$_$cycle_cron$_$expression() default UploadSessions.DEFAULT_CRON_EXPRESSION;
+}
@@ -0,0 +1,73 @@
+package eu.ciechanowiec.sling.rocket.asset.extraction;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link MetadataExtractor} that extracts the duration of uncompressed audio files supported by {@link AudioSystem},
+ * i.e. WAVE, AIFF and AU files.
+ */
+@Component(
+    service = MetadataExtractor.class,
+    immediate = true
+)
+@Slf4j
+@ToString
+@ServiceDescription("Extracts the duration of uncompressed audio files")
+public class AudioDurationExtractor implements MetadataExtractor {
+
+    /**
+     * Name of the property that holds the duration of an audio file in seconds.
+     */
+    public static final String PN_DURATION_SECONDS = "durationSeconds";
+
+    private final Set<String> supportedMimeTypes;
+
+    /**
+     * Constructs an instance of this class.
+     */
+    @Activate
+    public AudioDurationExtractor() {
+        this.supportedMimeTypes = Set.of(
+            "audio/vnd.wave", "audio/wav", "audio/x-wav", "audio/x-aiff", "audio/aiff", "audio/basic"
+        );
+        log.info("Initialized {}", this);
+    }
+
+    @Override
+    public boolean supports(String mimeType) {
+        return supportedMimeTypes.contains(mimeType);
+    }
+
+    @SneakyThrows
+    @Override
+    @SuppressWarnings("squid:S1166")
+    public Map<String, String> extract(Asset asset) {
+        try (InputStream inputStream = new BufferedInputStream(asset.assetFile().retrieve())) {
+            AudioFileFormat audioFileFormat = AudioSystem.getAudioFileFormat(inputStream);
+            long frameLength = audioFileFormat.getFrameLength();
+            float frameRate = audioFileFormat.getFormat().getFrameRate();
+            if (frameLength == AudioSystem.NOT_SPECIFIED || frameRate <= 0) {
+                log.debug("Unable to determine the duration of {}", asset);
+                return Map.of();
+            }
+            return Map.of(PN_DURATION_SECONDS, String.valueOf(frameLength / frameRate));
+        } catch (UnsupportedAudioFileException exception) {
+            log.debug("Unsupported audio file: {}", asset, exception);
+            return Map.of();
+        }
+    }
+}
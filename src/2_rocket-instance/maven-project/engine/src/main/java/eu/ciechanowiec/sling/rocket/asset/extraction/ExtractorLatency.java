@@ -0,0 +1,61 @@
+package eu.ciechanowiec.sling.rocket.asset.extraction;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+class ExtractorLatency {
+
+    private final LongAdder invocations;
+    private final LongAdder failures;
+    private final LongAdder totalNanos;
+    private final AtomicLong maxNanos;
+
+    ExtractorLatency() {
+        this.invocations = new LongAdder();
+        this.failures = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new AtomicLong();
+    }
+
+    void register(long elapsedNanos, boolean wasSuccessful) {
+        invocations.increment();
+        totalNanos.add(elapsedNanos);
+        maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        if (!wasSuccessful) {
+            failures.increment();
+        }
+    }
+
+    @JsonProperty
+    long invocations() {
+        return invocations.sum();
+    }
+
+    @JsonProperty
+    long failures() {
+        return failures.sum();
+    }
+
+    @JsonProperty
+    long averageMillis() {
+        long numOfInvocations = invocations();
+        return numOfInvocations > NumberUtils.LONG_ZERO
+            ? Duration.ofNanos(totalNanos.sum() / numOfInvocations).toMillis()
+            : NumberUtils.LONG_ZERO;
+    }
+
+    @JsonProperty
+    long maxMillis() {
+        return Duration.ofNanos(maxNanos.get()).toMillis();
+    }
+}
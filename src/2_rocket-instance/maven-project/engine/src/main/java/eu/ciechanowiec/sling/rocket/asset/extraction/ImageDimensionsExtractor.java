@@ -0,0 +1,78 @@
+package eu.ciechanowiec.sling.rocket.asset.extraction;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * {@link MetadataExtractor} that extracts the width and height of images. Only the header of an image is read, so the
+ * image is never fully decoded.
+ */
+@Component(
+    service = MetadataExtractor.class,
+    immediate = true
+)
+@Slf4j
+@ToString
+@ServiceDescription("Extracts the width and height of images")
+public class ImageDimensionsExtractor implements MetadataExtractor {
+
+    /**
+     * Name of the property that holds the width of an image in pixels.
+     */
+    public static final String PN_IMAGE_WIDTH = "imageWidth";
+
+    /**
+     * Name of the property that holds the height of an image in pixels.
+     */
+    public static final String PN_IMAGE_HEIGHT = "imageHeight";
+
+    /**
+     * Constructs an instance of this class.
+     */
+    @Activate
+    public ImageDimensionsExtractor() {
+        log.info("Initialized {}", this);
+    }
+
+    @Override
+    public boolean supports(String mimeType) {
+        return ImageIO.getImageReadersByMIMEType(mimeType).hasNext();
+    }
+
+    @SneakyThrows
+    @Override
+    public Map<String, String> extract(Asset asset) {
+        try (
+            InputStream inputStream = asset.assetFile().retrieve();
+            ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)
+        ) {
+            Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
+            if (!imageReaders.hasNext()) {
+                log.debug("No image reader found for {}", asset);
+                return Map.of();
+            }
+            ImageReader imageReader = imageReaders.next();
+            try {
+                imageReader.setInput(imageInputStream, true, true);
+                return Map.of(
+                    PN_IMAGE_WIDTH, String.valueOf(imageReader.getWidth(0)),
+                    PN_IMAGE_HEIGHT, String.valueOf(imageReader.getHeight(0))
+                );
+            } finally {
+                imageReader.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package eu.ciechanowiec.sling.rocket.asset.extraction;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.ref.Referenceable;
+import eu.ciechanowiec.sling.rocket.observation.stats.RocketStats;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.osgi.service.component.annotations.*;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Extracts additional {@link AssetMetadata} of {@link Asset}s asynchronously, after the {@link Asset}s have been saved.
+ * <p>
+ * {@link Asset}s are submitted for extraction via {@link MetadataExtraction#submit(Asset)}, which schedules a
+ * {@link Job} and returns immediately. The {@link Job} runs every registered {@link MetadataExtractor} that
+ * {@link MetadataExtractor#supports(String)} the mime type of the {@link Asset} and persists the extracted properties
+ * in the {@link AssetMetadata} of that {@link Asset}. The latency of every {@link MetadataExtractor} is measured and
+ * exposed as {@link RocketStats}.
+ */
+@Component(
+    service = {MetadataExtraction.class, JobConsumer.class, RocketStats.class},
+    immediate = true,
+    property = JobConsumer.PROPERTY_TOPICS + "=" + MetadataExtraction.JOB_TOPIC
+)
+@Slf4j
+@ToString
+@ServiceDescription("Extracts additional metadata of Assets asynchronously")
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+public class MetadataExtraction implements JobConsumer, RocketStats {
+
+    static final String JOB_TOPIC = "eu/ciechanowiec/sling/rocket/asset/extraction/METADATA_EXTRACTION";
+    static final String PN_ASSET_UUID = "assetUUID";
+
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+    @ToString.Exclude
+    private final JobManager jobManager;
+    @ToString.Exclude
+    private final Map<String, ExtractorLatency> latencies;
+
+    @SuppressWarnings("unused")
+    @Reference(
+        cardinality = ReferenceCardinality.MULTIPLE,
+        policy = ReferencePolicy.DYNAMIC,
+        policyOption = ReferencePolicyOption.GREEDY
+    )
+    private final Collection<MetadataExtractor> metadataExtractors;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param jobManager         {@link JobManager} that will be used by the constructed object to schedule
+     *                           {@link Job}s
+     */
+    @Activate
+    public MetadataExtraction(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        JobManager jobManager
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        this.jobManager = jobManager;
+        this.latencies = new ConcurrentHashMap<>();
+        this.metadataExtractors = new CopyOnWriteArrayList<>();
+        log.info("Initialized {}", this);
+    }
+
+    /**
+     * Submits the specified {@link Asset} for asynchronous extraction of additional {@link AssetMetadata}.
+     *
+     * @param asset {@link Asset} to be submitted for asynchronous extraction of additional {@link AssetMetadata}
+     */
+    public void submit(Asset asset) {
+        log.trace("Submitting {} for metadata extraction", asset);
+        jobManager.addJob(JOB_TOPIC, Map.of(PN_ASSET_UUID, asset.jcrUUID()));
+    }
+
+    @Override
+    public JobResult process(Job job) {
+        log.trace("Processing {}", job);
+        Optional<Asset> assetNullable = Optional.ofNullable(job.getProperty(PN_ASSET_UUID, String.class))
+            .flatMap(assetUUID -> new AssetsRepository(fullResourceAccess).find((Referenceable) () -> assetUUID));
+        assetNullable.ifPresentOrElse(
+            this::extract, () -> log.warn("No Asset found for {}, extraction cancelled", job)
+        );
+        return assetNullable.map(asset -> JobResult.OK).orElse(JobResult.CANCEL);
+    }
+
+    private void extract(Asset asset) {
+        AssetMetadata assetMetadata = asset.assetMetadata();
+        String mimeType = assetMetadata.mimeType();
+        Map<String, Object> extractedProperties = new HashMap<>();
+        metadataExtractors.stream()
+            .filter(metadataExtractor -> metadataExtractor.supports(mimeType))
+            .map(metadataExtractor -> measuredExtraction(metadataExtractor, asset))
+            .forEach(extractedProperties::putAll);
+        log.debug("Extracted from {}: {}", asset, extractedProperties);
+        if (!extractedProperties.isEmpty()) {
+            assetMetadata.properties().ifPresent(nodeProperties -> nodeProperties.setProperties(extractedProperties));
+        }
+    }
+
+    @SuppressWarnings({"IllegalCatch", "PMD.AvoidCatchingGenericException"})
+    private Map<String, String> measuredExtraction(MetadataExtractor metadataExtractor, Asset asset) {
+        ExtractorLatency extractorLatency = latencies.computeIfAbsent(
+            metadataExtractor.name(), name -> new ExtractorLatency()
+        );
+        long startNanos = System.nanoTime();
+        try {
+            Map<String, String> extracted = metadataExtractor.extract(asset);
+            extractorLatency.register(System.nanoTime() - startNanos, true);
+            return extracted;
+        } catch (
+            @SuppressWarnings({"OverlyBroadCatchBlock", "squid:S2221"})
+            Exception exception) {
+            extractorLatency.register(System.nanoTime() - startNanos, false);
+            log.warn("{} failed to extract metadata from {}", metadataExtractor.name(), asset, exception);
+            return Map.of();
+        }
+    }
+
+    @JsonProperty("extractors")
+    Map<String, ExtractorLatency> latencies() {
+        return new ConcurrentSkipListMap<>(latencies);
+    }
+
+    @Override
+    public String name() {
+        return MetadataExtraction.class.getName();
+    }
+
+    @SneakyThrows
+    @Override
+    public String asJSON() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        return objectMapper.writeValueAsString(this);
+    }
+}
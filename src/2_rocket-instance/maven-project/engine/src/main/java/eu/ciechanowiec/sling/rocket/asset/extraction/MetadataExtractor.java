@@ -0,0 +1,43 @@
+package eu.ciechanowiec.sling.rocket.asset.extraction;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+
+import java.util.Map;
+
+/**
+ * Extracts additional {@link AssetMetadata} from the binary content of an {@link Asset}, e.g. dimensions of an image
+ * or duration of an audio file.
+ * <p>
+ * Every {@link MetadataExtractor} registered as an OSGi service is automatically used by {@link MetadataExtraction}.
+ */
+public interface MetadataExtractor {
+
+    /**
+     * Returns the name of this {@link MetadataExtractor}, used to identify it in statistics.
+     *
+     * @return name of this {@link MetadataExtractor}, used to identify it in statistics
+     */
+    default String name() {
+        return getClass().getName();
+    }
+
+    /**
+     * Returns {@code true} if this {@link MetadataExtractor} is able to extract {@link AssetMetadata} from the binary
+     * content of the specified mime type; {@code false} otherwise.
+     *
+     * @param mimeType mime type of the binary content, e.g. {@code image/jpeg}
+     * @return {@code true} if this {@link MetadataExtractor} is able to extract {@link AssetMetadata} from the binary
+     * content of the specified mime type; {@code false} otherwise
+     */
+    boolean supports(String mimeType);
+
+    /**
+     * Extracts {@link AssetMetadata} from the binary content of the specified {@link Asset}.
+     *
+     * @param asset {@link Asset} from whose binary content the {@link AssetMetadata} should be extracted
+     * @return {@link Map} of names of extracted properties to their values; if nothing could be extracted, an empty
+     * {@link Map} is returned
+     */
+    Map<String, String> extract(Asset asset);
+}
@@ -0,0 +1,9 @@
+/**
+ * Asynchronous extraction of {@link eu.ciechanowiec.sling.rocket.asset.AssetMetadata}.
+ */
+@Export
+@Version("1.0.0")
+package eu.ciechanowiec.sling.rocket.asset.extraction;
+
+import org.osgi.annotation.bundle.Export;
+import org.osgi.annotation.versioning.Version;
@@ -0,0 +1,100 @@
+package eu.ciechanowiec.sling.rocket.asset.image;
+
+import dev.brachtendorf.jimagehash.hashAlgorithms.HashingAlgorithm;
+import eu.ciechanowiec.conditional.Conditional;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes perceptual hashes of many {@link ComparableImage}s in parallel.
+ * <p>
+ * The hashes are computed on a fixed number of threads, owned by the {@link BatchHashing} and reused by all its
+ * {@link BatchHashing#hash(ComparableImages)} calls until it's closed. The memory occupied at the same time by the
+ * decoded images is limited: a hashing waits until the estimated size of its decoded image fits into the limit. Big
+ * images are decoded with subsampling, so a single image usually needs only a fraction of the memory of its full
+ * resolution. Every thread reuses its own instance of the hashing algorithm for all images it hashes.
+ */
+@Slf4j
+@ToString
+@SuppressWarnings("WeakerAccess")
+public class BatchHashing implements AutoCloseable {
+
+    private final int parallelism;
+    private final DecodingMemoryLimit decodingMemoryLimit;
+    @ToString.Exclude
+    private final ExecutorService executorService;
+    @ToString.Exclude
+    private final ThreadLocal<HashingAlgorithm> hashingAlgorithm;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param parallelism         maximum number of images hashed at the same time; must be positive
+     * @param decodingMemoryLimit maximum memory that can be occupied at the same time by all images decoded by the
+     *                            constructed {@link BatchHashing}
+     * @throws IllegalArgumentException if the parallelism isn't positive
+     */
+    public BatchHashing(int parallelism, DataSize decodingMemoryLimit) {
+        Conditional.isTrueOrThrow(
+            parallelism > 0, new IllegalArgumentException("Invalid parallelism: %d".formatted(parallelism))
+        );
+        this.parallelism = parallelism;
+        this.decodingMemoryLimit = new DecodingMemoryLimit(decodingMemoryLimit);
+        this.hashingAlgorithm = ThreadLocal.withInitial(PerceptualHash::newHashingAlgorithm);
+        this.executorService = Executors.newFixedThreadPool(
+            parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "rocket-batch-hashing");
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+    }
+
+    /**
+     * Returns a new instance of {@link ComparableImages} that contains the same images as the specified
+     * {@link ComparableImages}, but with all perceptual hashes already computed. The order of the images is
+     * preserved. Images that have already been hashed aren't hashed again.
+     *
+     * @param comparableImages {@link ComparableImages} to be hashed
+     * @return new instance of {@link ComparableImages} with all perceptual hashes already computed
+     */
+    @SneakyThrows
+    public ComparableImages hash(ComparableImages comparableImages) {
+        log.debug("Hashing {} image(s) with {}", comparableImages.source().size(), this);
+        List<Future<ComparableImage>> hashedImages = comparableImages.source()
+            .stream()
+            .map(
+                comparableImage -> executorService.submit(
+                    () -> comparableImage.isHashed() ? comparableImage : new ComparableImage(
+                        comparableImage.fileWithImage(),
+                        new PerceptualHash(comparableImage.fileWithImage(), hashingAlgorithm.get())
+                            .compute(Optional.of(decodingMemoryLimit))
+                    )
+                )
+            )
+            .toList();
+        List<ComparableImage> result = new ArrayList<>(hashedImages.size());
+        for (Future<ComparableImage> hashedImage : hashedImages) {
+            result.add(hashedImage.get());
+        }
+        return new ComparableImages(result);
+    }
+
+    /**
+     * Stops the threads of this {@link BatchHashing}. Hashings already submitted are completed.
+     */
+    @Override
+    public void close() {
+        log.debug("Closing {}", this);
+        executorService.close();
+    }
+}
@@ -1,8 +1,6 @@
 package eu.ciechanowiec.sling.rocket.asset.image;
 
 import dev.brachtendorf.jimagehash.hash.Hash;
-import dev.brachtendorf.jimagehash.hashAlgorithms.HashingAlgorithm;
-import dev.brachtendorf.jimagehash.hashAlgorithms.PerceptiveHash;
 import eu.ciechanowiec.sling.rocket.commons.MemoizingSupplier;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -10,7 +8,6 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.Optional;
 
 /**
@@ -23,7 +20,7 @@ import java.util.Optional;
 public class ComparableImage {
 
     @SuppressWarnings({"FieldNamingConvention", "PMD.LongVariable"})
-    private static final double DEFAULT_MAX_NORMALIZED_HAMMING_DISTANCE = 0.1; // Optimal after tests
+    static final double DEFAULT_MAX_NORMALIZED_HAMMING_DISTANCE = 0.1; // Optimal after tests
 
     @Getter
     private final File fileWithImage;
@@ -40,25 +37,19 @@ public class ComparableImage {
      */
     public ComparableImage(File fileWithImage) {
         this.fileWithImage = fileWithImage;
-        memorizedHash = new MemoizingSupplier<>(() -> computeHash(fileWithImage));
+        memorizedHash = new MemoizingSupplier<>(() -> new PerceptualHash(fileWithImage).compute());
     }
 
-    private Optional<Hash> computeHash(File file) {
-        int bitResolution = BitResolution.MAX_256.value();
-        HashingAlgorithm hashingAlgorithm = new PerceptiveHash(bitResolution);
-        log.trace("Trying to hash {}", file);
-        try {
-            Hash hash = hashingAlgorithm.hash(file);
-            log.trace("Hashed {} to {}", file, hash);
-            return Optional.of(hash);
-        } catch (IOException | IllegalArgumentException exception) {
-            String errorMessage = String.format("Unable to hash %s", file);
-            log.trace(errorMessage, exception);
-            return Optional.empty();
-        }
+    ComparableImage(File fileWithImage, Optional<Hash> precomputedHash) {
+        this.fileWithImage = fileWithImage;
+        memorizedHash = new MemoizingSupplier<>(() -> precomputedHash);
+    }
+
+    boolean isHashed() {
+        return memorizedHash.wasComputed();
     }
 
-    private Optional<Hash> lastComputedHash() {
+    Optional<Hash> lastComputedHash() {
         return memorizedHash.get();
     }
 
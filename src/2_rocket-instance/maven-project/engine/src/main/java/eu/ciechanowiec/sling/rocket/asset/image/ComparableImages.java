@@ -1,13 +1,12 @@
 package eu.ciechanowiec.sling.rocket.asset.image;
 
+import dev.brachtendorf.jimagehash.hash.Hash;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.File;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -37,25 +36,23 @@ public record ComparableImages(Collection<ComparableImage> source) {
      * Useful specifically in cases where this {@link ComparableImages} contains instances of {@link ComparableImage}-s
      * which represent the same image but with different resolutions or other properties, although it isn't completely
      * guaranteed that in such cases all similar images will be excluded.
+     * <p>
+     * Similar images are looked up in a BK-tree over the perceptual hashes of the images, so that every image is
+     * compared only with images whose hashes might be close enough, rather than with all other images.
      *
      * @return new instance of {@link ComparableImages} with similar images excluded
      */
     public ComparableImages excludeSimilarImages() {
-        List<ComparableImage> withoutSimilarImages = source.stream()
-            .collect(Collectors.toUnmodifiableMap(
-                    Function.identity(),
-                    comparableImage -> extractSimilarImages(comparableImage, source)
-                )
-            )
-            .entrySet()
-            .stream()
-            .map(similarImages -> {
-                ComparableImage keyImage = similarImages.getKey();
-                Collection<ComparableImage> valueImages = similarImages.getValue();
-                return Stream.concat(Stream.of(keyImage), valueImages.stream())
+        List<ComparableImage> images = source.stream().distinct().toList();
+        HammingIndex hammingIndex = new HammingIndex(images.stream().map(ComparableImage::lastComputedHash).toList());
+        List<ComparableImage> withoutSimilarImages = images.stream()
+            .map(comparableImage -> Stream.concat(
+                        Stream.of(comparableImage),
+                        extractSimilarImages(comparableImage, images, hammingIndex).stream()
+                    )
                     .distinct()
-                    .toList();
-            })
+                    .toList()
+            )
             .map(similarImages -> similarImages.stream().reduce(ComparableImage::biggerOrSame))
             .flatMap(Optional::stream)
             .distinct()
@@ -64,10 +61,21 @@ public record ComparableImages(Collection<ComparableImage> source) {
     }
 
     private Collection<ComparableImage> extractSimilarImages(
-        ComparableImage referenceImage, Collection<ComparableImage> imagesToExtractFrom
+        ComparableImage referenceImage, List<ComparableImage> indexedImages, HammingIndex hammingIndex
     ) {
-        return imagesToExtractFrom.stream()
-            .filter(referenceImage::isSimilar)
-            .toList();
+        return referenceImage.lastComputedHash()
+            .map(
+                hash -> hammingIndex.positionsWithin(hash, maxHammingDistance(hash))
+                    .stream()
+                    .sorted()
+                    .map(indexedImages::get)
+                    .filter(referenceImage::isSimilar)
+                    .toList()
+            )
+            .orElse(List.of());
+    }
+
+    private int maxHammingDistance(Hash hash) {
+        return (int) Math.ceil(ComparableImage.DEFAULT_MAX_NORMALIZED_HAMMING_DISTANCE * hash.getBitResolution());
     }
 }
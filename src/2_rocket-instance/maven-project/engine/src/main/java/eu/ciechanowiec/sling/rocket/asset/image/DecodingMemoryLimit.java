@@ -0,0 +1,56 @@
+package eu.ciechanowiec.sling.rocket.asset.image;
+
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limit of memory that can be occupied at the same time by decoded images.
+ * <p>
+ * Every decoding reserves a part of the limit proportional to the estimated size of the decoded pixels and waits if
+ * the limit is exhausted. A single decoding bigger than the whole limit reserves the whole limit, so that it's
+ * executed alone rather than blocked forever.
+ */
+@Slf4j
+@ToString
+class DecodingMemoryLimit {
+
+    private static final int BYTES_PER_PERMIT = 1024;
+
+    private final int totalPermits;
+    @ToString.Exclude
+    private final Semaphore permits;
+
+    DecodingMemoryLimit(DataSize limit) {
+        this.totalPermits = (int) Math.clamp(limit.bytes() / BYTES_PER_PERMIT, 1L, Integer.MAX_VALUE);
+        this.permits = new Semaphore(totalPermits, true);
+    }
+
+    /**
+     * Reserves the specified amount of memory, waiting until it's available.
+     *
+     * @param estimatedBytes estimated number of bytes that will be occupied by a decoded image
+     * @return {@link Reservation} that must be released once the decoded image is no longer needed
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    Reservation reserve(long estimatedBytes) throws InterruptedException {
+        int requestedPermits = (int) Math.clamp(
+            Math.ceilDiv(estimatedBytes, BYTES_PER_PERMIT), 1L, totalPermits
+        );
+        log.trace("Reserving {} permit(s) of {}", requestedPermits, this);
+        permits.acquire(requestedPermits);
+        return () -> permits.release(requestedPermits);
+    }
+
+    /**
+     * Reserved part of a {@link DecodingMemoryLimit}.
+     */
+    @FunctionalInterface
+    interface Reservation extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,113 @@
+package eu.ciechanowiec.sling.rocket.asset.image;
+
+import dev.brachtendorf.jimagehash.hash.Hash;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * BK-tree over perceptual {@link Hash}es, e.g. of {@link ComparableImage}s, keyed by the Hamming distance between the
+ * {@link Hash}es.
+ * <p>
+ * Thanks to the triangle inequality of the Hamming distance, a query for {@link Hash}es within a given distance visits
+ * only those subtrees that might contain matching {@link Hash}es, instead of comparing the queried {@link Hash} with
+ * every indexed one. New {@link Hash}es can be added incrementally; this class isn't thread-safe, so the client code
+ * must synchronize additions with queries.
+ */
+@Slf4j
+@ToString
+class HammingIndex {
+
+    @ToString.Exclude
+    private Optional<Node> rootNullable;
+    private int size;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param hashes {@link Hash}es to be indexed; empty {@link Optional}s, e.g. of images that can't be hashed, are
+     *               skipped, but still occupy their positions
+     */
+    HammingIndex(List<Optional<Hash>> hashes) {
+        this.rootNullable = Optional.empty();
+        this.size = 0;
+        for (int position = 0; position < hashes.size(); position++) {
+            int hashPosition = position;
+            hashes.get(position).ifPresent(hash -> add(hashPosition, hash));
+        }
+        log.trace("Initialized {}", this);
+    }
+
+    /**
+     * Adds the specified {@link Hash} to this {@link HammingIndex}.
+     *
+     * @param position position of the added {@link Hash}, returned by the queries that match it
+     * @param hash     {@link Hash} to be added
+     */
+    void add(int position, Hash hash) {
+        Node node = new Node(position, hash);
+        rootNullable.ifPresentOrElse(root -> root.add(node), () -> rootNullable = Optional.of(node));
+        size++;
+    }
+
+    /**
+     * Returns positions of all indexed {@link Hash}es whose Hamming distance to the specified {@link Hash} doesn't
+     * exceed the specified maximum.
+     *
+     * @param hash        queried {@link Hash}
+     * @param maxDistance maximum Hamming distance
+     * @return positions in the originally indexed {@link List} of {@link Hash}es, in an unspecified order
+     */
+    List<Integer> positionsWithin(Hash hash, int maxDistance) {
+        List<Integer> positions = new ArrayList<>();
+        Deque<Node> toVisit = new ArrayDeque<>();
+        rootNullable.ifPresent(toVisit::push);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.pop();
+            int distance = node.hash.hammingDistance(hash);
+            if (distance <= maxDistance) {
+                positions.add(node.position);
+            }
+            node.children.forEach(
+                (childDistance, child) -> {
+                    if (Math.abs(childDistance - distance) <= maxDistance) {
+                        toVisit.push(child);
+                    }
+                }
+            );
+        }
+        return positions;
+    }
+
+    private static final class Node {
+
+        private final int position;
+        private final Hash hash;
+        private final Map<Integer, Node> children;
+
+        private Node(int position, Hash hash) {
+            this.position = position;
+            this.hash = hash;
+            this.children = new HashMap<>();
+        }
+
+        private void add(Node newNode) {
+            Node current = this;
+            while (true) {
+                int distance = current.hash.hammingDistance(newNode.hash);
+                Node child = current.children.putIfAbsent(distance, newNode);
+                if (child == null) {
+                    return;
+                }
+                current = child;
+            }
+        }
+    }
+}
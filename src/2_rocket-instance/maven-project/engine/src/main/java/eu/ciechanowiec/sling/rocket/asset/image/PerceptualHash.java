@@ -0,0 +1,169 @@
+package eu.ciechanowiec.sling.rocket.asset.image;
+
+import dev.brachtendorf.jimagehash.hash.Hash;
+import dev.brachtendorf.jimagehash.hashAlgorithms.HashingAlgorithm;
+import dev.brachtendorf.jimagehash.hashAlgorithms.PerceptiveHash;
+import eu.ciechanowiec.sling.rocket.asset.AssetFile;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Perceptual {@link Hash} of an image stored in a {@link File} or in an {@link AssetFile}.
+ * <p>
+ * Since the {@link Hash} is computed from a heavily downscaled image anyway, big images are decoded with subsampling,
+ * so that their shorter side has at least {@link #MIN_DECODED_DIMENSION} pixels. This way the decoded image occupies
+ * only a fraction of the memory needed for the full resolution. The {@link HashingAlgorithm} can be passed in, so that
+ * callers hashing many images, e.g. the workers of {@link BatchHashing}, reuse a single instance of it.
+ */
+@Slf4j
+@ToString
+class PerceptualHash {
+
+    /**
+     * Minimal number of pixels of the shorter side of a decoded image.
+     */
+    static final int MIN_DECODED_DIMENSION = 512;
+
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int ALGORITHM_ID = newHashingAlgorithm().algorithmId();
+
+    private final String sourceDescription;
+    @ToString.Exclude
+    private final ImageSource imageSource;
+    @ToString.Exclude
+    private final HashingAlgorithm hashingAlgorithm;
+
+    PerceptualHash(File fileWithImage) {
+        this(fileWithImage, newHashingAlgorithm());
+    }
+
+    PerceptualHash(File fileWithImage, HashingAlgorithm hashingAlgorithm) {
+        this.sourceDescription = fileWithImage.toString();
+        this.imageSource = () -> new OpenedImageSource(fileWithImage, () -> { });
+        this.hashingAlgorithm = hashingAlgorithm;
+    }
+
+    PerceptualHash(AssetFile assetFile) {
+        this.sourceDescription = assetFile.toString();
+        this.imageSource = () -> {
+            InputStream inputStream = assetFile.retrieve();
+            return new OpenedImageSource(inputStream, inputStream);
+        };
+        this.hashingAlgorithm = newHashingAlgorithm();
+    }
+
+    /**
+     * Returns the ID of the algorithm used to compute {@link Hash}es, needed to restore persisted {@link Hash}es.
+     *
+     * @return ID of the algorithm used to compute {@link Hash}es
+     */
+    static int algorithmID() {
+        return ALGORITHM_ID;
+    }
+
+    /**
+     * Creates a new instance of the {@link HashingAlgorithm} used to compute {@link Hash}es.
+     *
+     * @return new instance of the {@link HashingAlgorithm} used to compute {@link Hash}es
+     */
+    static HashingAlgorithm newHashingAlgorithm() {
+        return new PerceptiveHash(BitResolution.MAX_256.value());
+    }
+
+    /**
+     * Computes the {@link Hash} without limiting the memory occupied by the decoded image.
+     *
+     * @return {@link Optional} containing the computed {@link Hash}; empty {@link Optional} is returned if the
+     * source can't be decoded as an image
+     */
+    Optional<Hash> compute() {
+        return compute(Optional.empty());
+    }
+
+    /**
+     * Computes the {@link Hash}, reserving the memory for the decoded image in the specified
+     * {@link DecodingMemoryLimit}, if present.
+     *
+     * @param decodingMemoryLimitNullable {@link DecodingMemoryLimit} in which the memory for the decoded image will be
+     *                                    reserved, if present
+     * @return {@link Optional} containing the computed {@link Hash}; empty {@link Optional} is returned if the
+     * source can't be decoded as an image or the current thread was interrupted while waiting for memory
+     */
+    @SuppressWarnings("squid:S2142")
+    Optional<Hash> compute(Optional<DecodingMemoryLimit> decodingMemoryLimitNullable) {
+        log.trace("Trying to hash {}", sourceDescription);
+        try (
+            OpenedImageSource openedImageSource = imageSource.open();
+            ImageInputStream imageInputStream = ImageIO.createImageInputStream(openedImageSource.input())
+        ) {
+            Iterator<ImageReader> imageReaders = Optional.ofNullable(imageInputStream)
+                .map(ImageIO::getImageReaders)
+                .orElseGet(Collections::emptyIterator);
+            if (!imageReaders.hasNext()) {
+                log.trace("No image reader for {}", sourceDescription);
+                return Optional.empty();
+            }
+            ImageReader imageReader = imageReaders.next();
+            try {
+                imageReader.setInput(imageInputStream, true, true);
+                return Optional.of(hash(imageReader, decodingMemoryLimitNullable));
+            } finally {
+                imageReader.dispose();
+            }
+        } catch (IOException | IllegalArgumentException exception) {
+            String errorMessage = String.format("Unable to hash %s", sourceDescription);
+            log.trace(errorMessage, exception);
+            return Optional.empty();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            log.debug("Interrupted while hashing {}", sourceDescription, exception);
+            return Optional.empty();
+        }
+    }
+
+    private Hash hash(ImageReader imageReader, Optional<DecodingMemoryLimit> decodingMemoryLimitNullable)
+        throws IOException, InterruptedException {
+        int width = imageReader.getWidth(0);
+        int height = imageReader.getHeight(0);
+        int subsampling = Math.max(1, Math.min(width, height) / MIN_DECODED_DIMENSION);
+        ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+        imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        long estimatedBytes = (long) Math.ceilDiv(width, subsampling) * Math.ceilDiv(height, subsampling)
+            * BYTES_PER_PIXEL;
+        DecodingMemoryLimit.Reservation reservation = decodingMemoryLimitNullable.isPresent()
+            ? decodingMemoryLimitNullable.get().reserve(estimatedBytes) : () -> { };
+        try (reservation) {
+            BufferedImage image = imageReader.read(0, imageReadParam);
+            Hash hash = hashingAlgorithm.hash(image);
+            log.trace("Hashed {} decoded with subsampling {} to {}", sourceDescription, subsampling, hash);
+            return hash;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ImageSource {
+
+        OpenedImageSource open() throws IOException;
+    }
+
+    private record OpenedImageSource(Object input, Closeable closeable) implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package eu.ciechanowiec.sling.rocket.asset.image;
+
+import dev.brachtendorf.jimagehash.hash.Hash;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.asset.extraction.MetadataExtractor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+
+import javax.imageio.ImageIO;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link MetadataExtractor} that computes the perceptual {@link Hash} of images, so that similar images can be found
+ * by {@link SimilarAssets} without decoding them again.
+ * <p>
+ * If an image can't be hashed, an empty {@link #PN_PERCEPTUAL_HASH} is stored, so that the image isn't submitted for
+ * hashing again by {@link SimilarAssets}.
+ */
+@Component(
+    service = MetadataExtractor.class,
+    immediate = true
+)
+@Slf4j
+@ToString
+@ServiceDescription("Computes the perceptual hash of images")
+public class PerceptualHashExtractor implements MetadataExtractor {
+
+    /**
+     * Name of the {@link AssetMetadata} property that holds the hexadecimal value of the perceptual {@link Hash} of an
+     * image.
+     */
+    public static final String PN_PERCEPTUAL_HASH = "perceptualHash";
+
+    /**
+     * Name of the {@link AssetMetadata} property that holds the number of bits of the perceptual {@link Hash} of an
+     * image.
+     */
+    public static final String PN_PERCEPTUAL_HASH_BITS = "perceptualHashBits";
+
+    private static final int HEX_RADIX = 16;
+
+    /**
+     * Constructs an instance of this class.
+     */
+    @Activate
+    public PerceptualHashExtractor() {
+        log.info("Initialized {}", this);
+    }
+
+    @Override
+    public boolean supports(String mimeType) {
+        return ImageIO.getImageReadersByMIMEType(mimeType).hasNext();
+    }
+
+    @Override
+    public Map<String, String> extract(Asset asset) {
+        return new PerceptualHash(asset.assetFile()).compute()
+            .map(
+                hash -> Map.of(
+                    PN_PERCEPTUAL_HASH, hash.getHashValue().toString(HEX_RADIX),
+                    PN_PERCEPTUAL_HASH_BITS, String.valueOf(hash.getBitResolution())
+                )
+            ).orElseGet(
+                () -> {
+                    log.debug("Unable to hash {}", asset);
+                    return Map.of(PN_PERCEPTUAL_HASH, StringUtils.EMPTY);
+                }
+            );
+    }
+
+    /**
+     * Restores the perceptual {@link Hash} persisted in the specified {@link AssetMetadata} properties.
+     *
+     * @param properties {@link AssetMetadata} properties
+     * @return {@link Optional} containing the restored {@link Hash}; empty {@link Optional} is returned if there is no
+     * valid persisted {@link Hash}
+     */
+    static Optional<Hash> storedHash(Map<String, String> properties) {
+        String hashValue = properties.getOrDefault(PN_PERCEPTUAL_HASH, StringUtils.EMPTY);
+        String bitResolution = properties.getOrDefault(PN_PERCEPTUAL_HASH_BITS, StringUtils.EMPTY);
+        if (!hashValue.matches("^[0-9a-f]+$") || !StringUtils.isNumeric(bitResolution)) {
+            return Optional.empty();
+        }
+        return Optional.of(
+            new Hash(
+                new BigInteger(hashValue, HEX_RADIX), Integer.parseInt(bitResolution), PerceptualHash.algorithmID()
+            )
+        );
+    }
+}
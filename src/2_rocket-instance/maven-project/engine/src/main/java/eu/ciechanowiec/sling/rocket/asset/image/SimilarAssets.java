@@ -0,0 +1,432 @@
+package eu.ciechanowiec.sling.rocket.asset.image;
+
+import dev.brachtendorf.jimagehash.hash.Hash;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.asset.UniversalAsset;
+import eu.ciechanowiec.sling.rocket.asset.extraction.MetadataExtraction;
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.DefaultProperties;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.job.SchedulableJobConsumer;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.osgi.service.component.annotations.*;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.metatype.annotations.Designate;
+
+import javax.annotation.Nullable;
+import javax.jcr.query.Query;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Repository-wide search for image {@link Asset}s similar to a given one.
+ * <p>
+ * The search is based on the perceptual hashes persisted in the {@link AssetMetadata} by the
+ * {@link PerceptualHashExtractor}, so images are never decoded during the search. The persisted hashes are loaded into
+ * an in-memory {@link HammingIndex} by a job, requested upon the first search; until the job completes, searches are
+ * answered from the current index, which is empty at first. Afterward, the index is updated incrementally: changed
+ * {@link AssetMetadata} is re-read and indexed again, while removed {@link Asset}s are only marked as removed in the
+ * index. The index is rebuilt from scratch by a job requested when the removed {@link Asset}s outnumber the indexed
+ * ones and upon every scheduled backfill, which also picks up {@link Asset}s moved together with their ancestors.
+ * Since the rebuild reads the asynchronously updated query index, changes received during the rebuild are replayed on
+ * top of its result before it replaces the current index.
+ * <p>
+ * Image {@link Asset}s saved before the {@link PerceptualHashExtractor} was introduced are periodically submitted to
+ * the {@link MetadataExtraction} in batches, so that their hashes are computed in the background.
+ */
+@Component(
+    service = {SimilarAssets.class, ResourceChangeListener.class, SchedulableJobConsumer.class, JobConsumer.class},
+    immediate = true,
+    configurationPolicy = ConfigurationPolicy.OPTIONAL,
+    property = {
+        ResourceChangeListener.PATHS + "=/",
+        ResourceChangeListener.PATHS + "=!/jcr:system",
+        ResourceChangeListener.PATHS + "=!/oak:index",
+        ResourceChangeListener.PATHS + "=!/home",
+        ResourceChangeListener.PATHS + "=!/var/eventing",
+        ResourceChangeListener.CHANGES + "=" + ResourceChangeListener.CHANGE_ADDED,
+        ResourceChangeListener.CHANGES + "=" + ResourceChangeListener.CHANGE_CHANGED,
+        ResourceChangeListener.CHANGES + "=" + ResourceChangeListener.CHANGE_REMOVED,
+        JobConsumer.PROPERTY_TOPICS + "=" + SimilarAssets.JOB_TOPIC,
+        SchedulableJobConsumer.CRON_EXPRESSION_PROPERTY + "=" + SimilarAssets.DEFAULT_CRON_EXPRESSION
+    }
+)
+@Designate(ocd = SimilarAssetsConfig.class)
+@Slf4j
+@ToString
+@ServiceDescription("Repository-wide search for image Assets similar to a given one")
+public class SimilarAssets implements ResourceChangeListener, SchedulableJobConsumer {
+
+    static final String JOB_TOPIC = "eu/ciechanowiec/sling/rocket/asset/image/PERCEPTUAL_HASH_BACKFILL";
+    static final String DEFAULT_CRON_EXPRESSION = "0 0 2 * * ?";
+
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+    @ToString.Exclude
+    private final Optional<MetadataExtraction> metadataExtractionNullable;
+    @ToString.Exclude
+    private final JobManager jobManager;
+    @ToString.Exclude
+    private final AtomicBoolean isStale;
+    @ToString.Exclude
+    private final AtomicBoolean isRebuildRequested;
+    /**
+     * Changes received while a rebuild is running; {@code null} if no rebuild is running. Guarded by
+     * {@link #indexLock}.
+     */
+    @ToString.Exclude
+    @Nullable
+    private List<ResourceChange> changesDuringRebuildNullable;
+    /**
+     * Guards {@link #indexedHashes} and {@link #changesDuringRebuildNullable}.
+     */
+    @ToString.Exclude
+    private final Object indexLock;
+    @ToString.Exclude
+    private volatile IndexedHashes indexedHashes;
+    private volatile SimilarAssetsConfig config;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param jobManager         {@link JobManager} that will be used by the constructed object to request a rebuild
+     *                           of the index when it's stale
+     * @param metadataExtraction {@link MetadataExtraction} to which image {@link Asset}s without a perceptual hash will
+     *                           be submitted; if {@code null}, no such {@link Asset}s will be submitted
+     * @param config             {@link SimilarAssetsConfig} that will be used by the constructed object
+     */
+    @Activate
+    public SimilarAssets(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        JobManager jobManager,
+        @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.STATIC,
+            policyOption = ReferencePolicyOption.GREEDY
+        )
+        @Nullable
+        MetadataExtraction metadataExtraction,
+        SimilarAssetsConfig config
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        this.jobManager = jobManager;
+        this.metadataExtractionNullable = Optional.ofNullable(metadataExtraction);
+        this.isStale = new AtomicBoolean(true);
+        this.isRebuildRequested = new AtomicBoolean(false);
+        this.changesDuringRebuildNullable = null;
+        this.indexLock = new Object();
+        this.indexedHashes = new IndexedHashes();
+        this.config = config;
+        log.info("Initialized {}", this);
+    }
+
+    @Modified
+    void configure(SimilarAssetsConfig config) {
+        this.config = config;
+        log.info("Configured {}", this);
+    }
+
+    /**
+     * Returns JCR UUIDs of {@link Asset}s of type {@link Asset#NT_ASSET_REAL} whose images are similar to the image of
+     * the specified {@link Asset}, ordered from the most similar one. The specified {@link Asset} itself isn't
+     * included.
+     * <p>
+     * The returned JCR UUIDs aren't filtered by access rights, so the client code must resolve them on behalf of the
+     * user to whom they will be exposed.
+     *
+     * @param asset                        {@link Asset} to which the searched {@link Asset}s must be similar
+     * @param maxNormalizedHammingDistance maximum Hamming distance between perceptual hashes of similar images,
+     *                                     normalized to the range from {@code 0} to {@code 1}
+     * @return JCR UUIDs of {@link Asset}s whose images are similar to the image of the specified {@link Asset}; if the
+     * specified {@link Asset} has no persisted perceptual hash, an empty {@link List} is returned; if the index is
+     * stale, its rebuild is requested and the current index is searched
+     */
+    public List<String> similarAssetUUIDs(Asset asset, double maxNormalizedHammingDistance) {
+        Optional<Hash> hashNullable = PerceptualHashExtractor.storedHash(asset.assetMetadata().all());
+        if (hashNullable.isEmpty()) {
+            log.debug("{} has no perceptual hash", asset);
+            return List.of();
+        }
+        Hash hash = hashNullable.get();
+        int maxDistance = (int) Math.floor(maxNormalizedHammingDistance * hash.getBitResolution());
+        requestRebuildIfStale();
+        List<String> similarAssetUUIDs;
+        synchronized (indexLock) {
+            similarAssetUUIDs = indexedHashes.similarAssetUUIDs(hash, maxDistance)
+                .stream()
+                .filter(assetUUID -> !assetUUID.equals(asset.jcrUUID()))
+                .toList();
+        }
+        log.debug("For {} found {} similar Asset(s)", asset, similarAssetUUIDs.size());
+        return similarAssetUUIDs;
+    }
+
+    private void requestRebuildIfStale() {
+        if (isStale.get() && isRebuildRequested.compareAndSet(false, true)) {
+            log.info("Requesting a rebuild of {}", this);
+            jobManager.addJob(JOB_TOPIC, Map.of());
+        }
+    }
+
+    /**
+     * Rebuilds the index from scratch by loading all persisted perceptual hashes. Changes received during the rebuild
+     * are replayed on top of its result before it replaces the current index.
+     */
+    @SuppressWarnings({"WeakerAccess", "PMD.AvoidSynchronizedAtMethodLevel"})
+    public synchronized void rebuild() {
+        log.info("Rebuilding {}", this);
+        isStale.set(false);
+        isRebuildRequested.set(false);
+        synchronized (indexLock) {
+            changesDuringRebuildNullable = new ArrayList<>();
+        }
+        boolean isRebuilt = false;
+        try {
+            IndexedHashes rebuiltHashes = loadIndexedHashes();
+            try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+                synchronized (indexLock) {
+                    List<ResourceChange> changesDuringRebuild = Optional.ofNullable(changesDuringRebuildNullable)
+                        .orElseGet(List::of);
+                    log.debug("Replaying {} changes received during the rebuild", changesDuringRebuild.size());
+                    changesDuringRebuild.forEach(change -> apply(change, resourceResolver, rebuiltHashes));
+                    indexedHashes = rebuiltHashes;
+                }
+            }
+            isRebuilt = true;
+            log.info("Rebuilt {}", this);
+        } finally {
+            synchronized (indexLock) {
+                changesDuringRebuildNullable = null;
+            }
+            if (!isRebuilt) {
+                isStale.set(true);
+            }
+        }
+    }
+
+    private IndexedHashes loadIndexedHashes() {
+        String query = String.format(
+            "SELECT * FROM [%s] AS node WHERE node.[%s] IS NOT NULL",
+            Asset.NT_ASSET_METADATA, PerceptualHashExtractor.PN_PERCEPTUAL_HASH
+        );
+        IndexedHashes loadedHashes = new IndexedHashes();
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            lazyStream(resourceResolver.findResources(query, Query.JCR_SQL2)).forEach(
+                metadataResource -> index(metadataResource, loadedHashes)
+            );
+        }
+        log.debug("{} indexed {} perceptual hash(es)", this, loadedHashes.size());
+        return loadedHashes;
+    }
+
+    private void index(Resource metadataResource, IndexedHashes targetHashes) {
+        Optional.ofNullable(metadataResource.getParent())
+            .filter(assetResource -> new NodeProperties(assetResource).isPrimaryType(Asset.NT_ASSET_REAL))
+            .ifPresent(
+                assetResource -> storedHash(new NodeProperties(metadataResource)).ifPresentOrElse(
+                    hash -> targetHashes.put(
+                        assetResource.getPath(),
+                        new NodeProperties(assetResource).propertyValue(
+                            JcrConstants.JCR_UUID, DefaultProperties.STRING_EMPTY
+                        ),
+                        hash
+                    ),
+                    () -> targetHashes.remove(assetResource.getPath())
+                )
+            );
+    }
+
+    private Optional<Hash> storedHash(NodeProperties metadataProperties) {
+        return PerceptualHashExtractor.storedHash(
+            Map.of(
+                PerceptualHashExtractor.PN_PERCEPTUAL_HASH, metadataProperties.propertyValue(
+                    PerceptualHashExtractor.PN_PERCEPTUAL_HASH, DefaultProperties.STRING_EMPTY
+                ),
+                PerceptualHashExtractor.PN_PERCEPTUAL_HASH_BITS, metadataProperties.propertyValue(
+                    PerceptualHashExtractor.PN_PERCEPTUAL_HASH_BITS, DefaultProperties.STRING_EMPTY
+                )
+            )
+        );
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes) {
+        List<ResourceChange> affectingChanges = changes.stream()
+            .filter(
+                change -> change.getType() == ResourceChange.ChangeType.REMOVED
+                    || change.getPath().endsWith("/" + Asset.METADATA_NODE_NAME)
+            )
+            .toList();
+        if (affectingChanges.isEmpty()) {
+            return;
+        }
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            synchronized (indexLock) {
+                Optional.ofNullable(changesDuringRebuildNullable).ifPresent(
+                    changesDuringRebuild -> changesDuringRebuild.addAll(affectingChanges)
+                );
+                IndexedHashes currentHashes = indexedHashes;
+                affectingChanges.forEach(change -> apply(change, resourceResolver, currentHashes));
+                if (currentHashes.isFragmented() && !isStale.getAndSet(true)) {
+                    log.debug("{} marked as stale, since most of its indexed hashes were removed", this);
+                }
+            }
+        }
+    }
+
+    private void apply(ResourceChange change, ResourceResolver resourceResolver, IndexedHashes targetHashes) {
+        String changedPath = change.getPath();
+        boolean isMetadataPath = changedPath.endsWith("/" + Asset.METADATA_NODE_NAME);
+        if (change.getType() == ResourceChange.ChangeType.REMOVED) {
+            targetHashes.remove(changedPath);
+            targetHashes.removeDescendants(changedPath);
+            if (isMetadataPath) {
+                targetHashes.remove(StringUtils.substringBeforeLast(changedPath, "/"));
+            }
+        } else {
+            Optional.ofNullable(resourceResolver.getResource(changedPath))
+                .ifPresent(metadataResource -> index(metadataResource, targetHashes));
+        }
+    }
+
+    /**
+     * Submits a batch of image {@link Asset}s of type {@link Asset#NT_ASSET_REAL} without a persisted perceptual hash
+     * to the {@link MetadataExtraction}.
+     *
+     * @return number of submitted {@link Asset}s
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int backfill() {
+        if (metadataExtractionNullable.isEmpty()) {
+            log.debug("No metadata extraction available for {}", this);
+            return 0;
+        }
+        MetadataExtraction metadataExtraction = metadataExtractionNullable.get();
+        String query = String.format(
+            "SELECT * FROM [%s] AS node WHERE node.[%s] IS NULL AND node.[%s] LIKE 'image/%%'",
+            Asset.NT_ASSET_METADATA, PerceptualHashExtractor.PN_PERCEPTUAL_HASH, AssetMetadata.PN_MIME_TYPE
+        );
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            List<Asset> assetsToHash = lazyStream(resourceResolver.findResources(query, Query.JCR_SQL2))
+                .map(Resource::getParent)
+                .filter(Objects::nonNull)
+                .filter(resource -> new NodeProperties(resource).isPrimaryType(Asset.NT_ASSET_REAL))
+                .limit(config.backfill$_$batch_size())
+                .<Asset>map(resource -> new UniversalAsset(resource, fullResourceAccess))
+                .toList();
+            assetsToHash.forEach(metadataExtraction::submit);
+            log.debug("{} submitted {} Asset(s) for hashing", this, assetsToHash.size());
+            return assetsToHash.size();
+        }
+    }
+
+    @Override
+    public JobResult process(Job job) {
+        rebuild();
+        backfill();
+        return JobResult.OK;
+    }
+
+    private Stream<Resource> lazyStream(Iterator<Resource> iterator) {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false
+        );
+    }
+
+    /**
+     * Perceptual hashes of {@link Asset}s indexed in a {@link HammingIndex}. Since a {@link HammingIndex} doesn't
+     * support removals, removed hashes are only marked as removed and skipped in search results.
+     */
+    private static final class IndexedHashes {
+
+        private final List<String> assetUUIDs;
+        private final List<Optional<Hash>> hashes;
+        private final NavigableMap<String, Integer> positionsPerAssetPath;
+        private final HammingIndex hammingIndex;
+        private int numOfRemoved;
+
+        private IndexedHashes() {
+            this.assetUUIDs = new ArrayList<>();
+            this.hashes = new ArrayList<>();
+            this.positionsPerAssetPath = new TreeMap<>();
+            this.hammingIndex = new HammingIndex(List.of());
+            this.numOfRemoved = 0;
+        }
+
+        private void put(String assetPath, String assetUUID, Hash hash) {
+            boolean isAlreadyIndexed = Optional.ofNullable(positionsPerAssetPath.get(assetPath))
+                .flatMap(hashes::get)
+                .filter(hash::equals)
+                .isPresent();
+            if (isAlreadyIndexed) {
+                return;
+            }
+            remove(assetPath);
+            int position = hashes.size();
+            assetUUIDs.add(assetUUID);
+            hashes.add(Optional.of(hash));
+            positionsPerAssetPath.put(assetPath, position);
+            hammingIndex.add(position, hash);
+        }
+
+        private void remove(String assetPath) {
+            Optional.ofNullable(positionsPerAssetPath.remove(assetPath)).ifPresent(
+                position -> {
+                    hashes.set(position, Optional.empty());
+                    numOfRemoved++;
+                }
+            );
+        }
+
+        private void removeDescendants(String ancestorPath) {
+            String descendantsPrefix = ancestorPath.endsWith("/") ? ancestorPath : ancestorPath + "/";
+            List.copyOf(
+                positionsPerAssetPath.subMap(descendantsPrefix, descendantsPrefix + Character.MAX_VALUE).keySet()
+            ).forEach(this::remove);
+        }
+
+        private List<String> similarAssetUUIDs(Hash hash, int maxDistance) {
+            return hammingIndex.positionsWithin(hash, maxDistance)
+                .stream()
+                .filter(position -> hashes.get(position).isPresent())
+                .sorted(Comparator.comparingInt(position -> hashes.get(position).orElseThrow().hammingDistance(hash)))
+                .map(assetUUIDs::get)
+                .toList();
+        }
+
+        private boolean isFragmented() {
+            return numOfRemoved > positionsPerAssetPath.size();
+        }
+
+        private int size() {
+            return positionsPerAssetPath.size();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package eu.ciechanowiec.sling.rocket.asset.image;
+
+import eu.ciechanowiec.sling.rocket.job.SchedulableJobConsumer;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Configuration for {@link SimilarAssets}.
+ */
+@ObjectClassDefinition
+public @interface SimilarAssetsConfig {
+
+    /**
+     * Maximum number of image Assets without a perceptual hash submitted for hashing in a single schedule cycle.
+     *
+     * @return maximum number of image Assets without a perceptual hash submitted for hashing in a single schedule
+     * cycle
+     */
+    @AttributeDefinition(
+        name = "Backfill batch size",
+        description = "Maximum number of image Assets without a perceptual hash submitted for hashing in a single "
+            + "schedule cycle",
+        defaultValue = "500",
+        type = AttributeType.INTEGER
+    )
+    @SuppressWarnings("squid:S100")
+    int backfill$_$batch_size() default 500;
+
+    /**
+     * Value for the {@link SchedulableJobConsumer#CRON_EXPRESSION_PROPERTY} that determines the schedule cycle of how
+     * often image Assets without a perceptual hash are submitted for hashing.
+     *
+     * @return value for the {@link SchedulableJobConsumer#CRON_EXPRESSION_PROPERTY} that determines the schedule cycle
+     * of how often image Assets without a perceptual hash are submitted for hashing
+     */
+    @AttributeDefinition(
+        name = "Quartz Cron Expression",
+        description = "Determines how often image Assets without a perceptual hash are submitted for hashing",
+        defaultValue = SimilarAssets.DEFAULT_CRON_EXPRESSION,
+        type = AttributeType.STRING
+    )
+    @SuppressWarnings({"squid:S100", "squid:S125"})
+    String schedule$_$cycle_cron$_$expression() default SimilarAssets.DEFAULT_CRON_EXPRESSION;
+}
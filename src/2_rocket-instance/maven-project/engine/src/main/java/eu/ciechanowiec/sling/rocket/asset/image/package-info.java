@@ -2,7 +2,7 @@
  * Operations on images.
  */
 @Export
-@Version("14.0.0")
+@Version("14.2.0")
 package eu.ciechanowiec.sling.rocket.asset.image;
 
 import org.osgi.annotation.bundle.Export;
@@ -2,7 +2,7 @@
  * {@link eu.ciechanowiec.sling.rocket.asset.Asset} utilities.
  */
 @Export
-@Version("16.0.0")
+@Version("16.1.0")
 package eu.ciechanowiec.sling.rocket.asset;
 
 import org.osgi.annotation.bundle.Export;
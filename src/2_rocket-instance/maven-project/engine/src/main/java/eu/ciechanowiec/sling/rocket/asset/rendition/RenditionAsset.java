@@ -0,0 +1,68 @@
+package eu.ciechanowiec.sling.rocket.asset.rendition;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetFile;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
+import lombok.ToString;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Rendition of an {@link Asset}, represented as an {@link Asset} that has the identity of the original {@link Asset},
+ * but the binary content and the mime type of the rendition. The mime type might differ from the one of the original
+ * {@link Asset} if the rendition had to be encoded in a different format, so that the filename extension derived from
+ * the {@link AssetMetadata} matches the actual content.
+ */
+@ToString
+class RenditionAsset implements Asset {
+
+    private final Asset original;
+    @ToString.Exclude
+    private final AssetFile renditionFile;
+    private final String mimeType;
+
+    RenditionAsset(Asset original, AssetFile renditionFile, String mimeType) {
+        this.original = original;
+        this.renditionFile = renditionFile;
+        this.mimeType = mimeType;
+    }
+
+    @Override
+    public AssetFile assetFile() {
+        return renditionFile;
+    }
+
+    @Override
+    public AssetMetadata assetMetadata() {
+        return new AssetMetadata() {
+
+            @Override
+            public String mimeType() {
+                return mimeType;
+            }
+
+            @Override
+            public Map<String, String> all() {
+                return Map.of(PN_MIME_TYPE, mimeType);
+            }
+
+            @Override
+            public Optional<NodeProperties> properties() {
+                return Optional.empty();
+            }
+        };
+    }
+
+    @Override
+    public String jcrUUID() {
+        return original.jcrUUID();
+    }
+
+    @Override
+    public JCRPath jcrPath() {
+        return original.jcrPath();
+    }
+}
@@ -0,0 +1,55 @@
+package eu.ciechanowiec.sling.rocket.asset.rendition;
+
+import eu.ciechanowiec.conditional.Conditional;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bounding box into which a rendition of an image must fit. The aspect ratio of the original image is always
+ * preserved, so the actual dimensions of a rendition might be smaller than the bounding box in one of the dimensions.
+ *
+ * @param width  maximum width in pixels of the rendition
+ * @param height maximum height in pixels of the rendition
+ */
+public record RenditionSize(int width, int height) {
+
+    private static final Pattern RAW_SIZE_PATTERN = Pattern.compile("^(\\d{1,5})x(\\d{1,5})$");
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param width  maximum width in pixels of the rendition; must be positive
+     * @param height maximum height in pixels of the rendition; must be positive
+     * @throws IllegalArgumentException if any of the dimensions isn't positive
+     */
+    public RenditionSize {
+        Conditional.isTrueOrThrow(
+            width > 0 && height > 0,
+            new IllegalArgumentException("Invalid rendition size: %dx%d".formatted(width, height))
+        );
+    }
+
+    /**
+     * Parses the specified raw size in the {@code <width>x<height>} format, e.g. {@code 320x240}.
+     *
+     * @param rawSize raw size to be parsed
+     * @return {@link Optional} containing the parsed {@link RenditionSize}; empty {@link Optional} is returned if the
+     * raw size has an invalid format or any of the dimensions isn't positive
+     */
+    public static Optional<RenditionSize> parse(String rawSize) {
+        Matcher matcher = RAW_SIZE_PATTERN.matcher(rawSize);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        int width = Integer.parseInt(matcher.group(1));
+        int height = Integer.parseInt(matcher.group(2));
+        return width > 0 && height > 0 ? Optional.of(new RenditionSize(width, height)) : Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "%dx%d".formatted(width, height);
+    }
+}
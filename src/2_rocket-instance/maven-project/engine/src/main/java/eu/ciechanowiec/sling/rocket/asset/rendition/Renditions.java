@@ -0,0 +1,480 @@
+package eu.ciechanowiec.sling.rocket.asset.rendition;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetFile;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.asset.UniversalAsset;
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.observation.stats.RocketStats;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import eu.ciechanowiec.sling.rocket.unit.DataUnit;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.jackrabbit.commons.JcrUtils;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.metatype.annotations.Designate;
+
+import javax.jcr.Binary;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generator and store of renditions, i.e. resized variants of image {@link Asset}s.
+ * <p>
+ * Only renditions of the sizes listed in {@link RenditionsConfig#allowed_sizes()} can be requested. A rendition is
+ * generated upon the first request for it on a bounded pool of worker threads. Concurrent requests for the same
+ * rendition share a single generation. Renditions of links are generated from and kept for the final target of the
+ * link, so all links to the same {@link Asset} share its renditions. A rendition is keyed by a fingerprint of the
+ * original binary, i.e. the {@link AssetMetadata#PN_SHA256} value or, if absent, the
+ * {@link AssetMetadata#PN_SIZE_BYTES} value combined with the last modification time of the {@link AssetMetadata}.
+ * <p>
+ * Recently used renditions are kept in a bounded in-memory cache. Generated renditions of
+ * {@link Asset#NT_ASSET_REAL} {@link Asset}s are additionally stored in the repository under the {@link Asset} in a
+ * {@link Node} of type {@link #NT_RENDITION}, along with the fingerprint, so that they are generated once and
+ * discarded when the original binary changes. A rendition is stored only if it was requested by a user who is allowed
+ * to add it under the {@link Asset} on their own, so read-only users never cause the repository to grow.
+ * <p>
+ * Renditions aren't stored as {@link JcrConstants#NT_FILE} {@link Node}s, so they are never treated as
+ * {@link Asset}s on their own.
+ */
+@Component(
+    service = {Renditions.class, RocketStats.class},
+    immediate = true,
+    configurationPolicy = ConfigurationPolicy.OPTIONAL
+)
+@Designate(ocd = RenditionsConfig.class)
+@Slf4j
+@ToString
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+@ServiceDescription("Generator and store of renditions, i.e. resized variants of image Assets")
+@SuppressWarnings({"ClassWithTooManyMethods", "PMD.TooManyMethods"})
+public class Renditions implements RocketStats {
+
+    /**
+     * The type of {@link Node} that contains all renditions of a single {@link Asset}.
+     */
+    public static final String NT_RENDITIONS = "rocket:Renditions";
+
+    /**
+     * The type of {@link Node} that contains a single rendition.
+     */
+    public static final String NT_RENDITION = "rocket:Rendition";
+
+    /**
+     * Name of the {@link Node} of type {@link #NT_RENDITIONS} stored under an {@link Asset}.
+     */
+    public static final String RENDITIONS_NODE_NAME = "renditions";
+
+    /**
+     * Name of the property of a {@link Node} of type {@link #NT_RENDITION} that stores the fingerprint of the original
+     * binary from which the rendition was generated.
+     */
+    public static final String PN_SOURCE_FINGERPRINT = "sourceFingerprint";
+
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+    @ToString.Exclude
+    private final Map<RenditionKey, CompletableFuture<Optional<byte[]>>> inFlight;
+    @ToString.Exclude
+    private final LongAdder memoryHits;
+    @ToString.Exclude
+    private final LongAdder repositoryHits;
+    @ToString.Exclude
+    private final LongAdder generations;
+    @ToString.Exclude
+    private final LongAdder generationNanos;
+    @ToString.Exclude
+    private final LongAccumulator maxGenerationNanos;
+    @ToString.Exclude
+    private final AtomicLong rejections;
+    @ToString.Exclude
+    private final AtomicLong failures;
+    @ToString.Exclude
+    private volatile Cache<RenditionKey, byte[]> memory;
+    private volatile Set<RenditionSize> allowedSizes;
+    @ToString.Exclude
+    private volatile ThreadPoolExecutor workers;
+    private volatile RenditionsConfig config;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param config             {@link RenditionsConfig} that will be used by the constructed object
+     */
+    @Activate
+    public Renditions(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        RenditionsConfig config
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        this.inFlight = new ConcurrentHashMap<>();
+        this.memoryHits = new LongAdder();
+        this.repositoryHits = new LongAdder();
+        this.generations = new LongAdder();
+        this.generationNanos = new LongAdder();
+        this.maxGenerationNanos = new LongAccumulator(Math::max, NumberUtils.LONG_ZERO);
+        this.rejections = new AtomicLong();
+        this.failures = new AtomicLong();
+        this.config = config;
+        this.allowedSizes = allowedSizes(config);
+        this.memory = newMemory(config);
+        this.workers = newWorkers(config);
+        log.info("Initialized {}", this);
+    }
+
+    @Modified
+    void configure(RenditionsConfig config) {
+        ThreadPoolExecutor previousWorkers = workers;
+        this.config = config;
+        this.allowedSizes = allowedSizes(config);
+        this.memory = newMemory(config);
+        this.workers = newWorkers(config);
+        previousWorkers.shutdown();
+        log.info("Configured {}", this);
+    }
+
+    @Deactivate
+    void deactivate() {
+        log.info("Deactivating {}", this);
+        workers.shutdownNow();
+        memory.invalidateAll();
+    }
+
+    private Set<RenditionSize> allowedSizes(RenditionsConfig config) {
+        return Stream.of(config.allowed_sizes())
+            .map(
+                rawSize -> RenditionSize.parse(rawSize).or(
+                    () -> {
+                        log.warn("Ignoring invalid rendition size '{}'", rawSize);
+                        return Optional.empty();
+                    }
+                )
+            )
+            .flatMap(Optional::stream)
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private Cache<RenditionKey, byte[]> newMemory(RenditionsConfig config) {
+        return Caffeine.newBuilder()
+            .maximumWeight(config.memory$_$cache$_$size_bytes())
+            .weigher((RenditionKey key, byte[] rendition) -> rendition.length)
+            .build();
+    }
+
+    private ThreadPoolExecutor newWorkers(RenditionsConfig config) {
+        int workerThreads = Math.max(NumberUtils.INTEGER_ONE, config.worker_threads());
+        return new ThreadPoolExecutor(
+            workerThreads, workerThreads, NumberUtils.LONG_ZERO, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(NumberUtils.INTEGER_ONE, config.queue_size())),
+            runnable -> {
+                Thread thread = new Thread(runnable, "rocket-renditions");
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+    }
+
+    /**
+     * Returns a rendition of the specified {@link Asset} that fits into the specified {@link RenditionSize}. The
+     * rendition is served from memory or from the repository if available and generated otherwise.
+     *
+     * @param asset           {@link Asset} whose rendition is requested; it must have been resolved on behalf of the
+     *                        user to whom the rendition will be served
+     * @param renditionSize   {@link RenditionSize} into which the rendition must fit
+     * @param requesterAccess {@link ResourceAccess} of the user to whom the rendition will be served; a generated
+     *                        rendition is stored in the repository only if this user is allowed to add it under the
+     *                        {@link Asset}
+     * @return {@link Optional} containing the rendition, represented as an {@link Asset} with the identity of the
+     * specified {@link Asset}; empty {@link Optional} is returned if the {@link RenditionSize} isn't allowed, if the
+     * {@link Asset} isn't a decodable image, if the generation queue is full or if the generation failed or timed out
+     */
+    public Optional<Asset> rendition(Asset asset, RenditionSize renditionSize, ResourceAccess requesterAccess) {
+        if (!allowedSizes.contains(renditionSize)) {
+            log.debug("{} isn't allowed by {}", renditionSize, this);
+            return Optional.empty();
+        }
+        AssetMetadata assetMetadata = asset.assetMetadata();
+        String sourcePath = assetMetadata.properties()
+            .map(metadataProperties -> StringUtils.substringBeforeLast(metadataProperties.jcrPath().get(), "/"))
+            .orElseGet(() -> asset.jcrPath().get());
+        RenditionKey key = new RenditionKey(sourcePath, fingerprint(asset, assetMetadata.all()), renditionSize);
+        String mimeType = new ScaledImage(renditionSize, assetMetadata.filenameExtension()).mimeType();
+        Optional<byte[]> fromMemory = Optional.ofNullable(memory.getIfPresent(key));
+        fromMemory.ifPresent(rendition -> memoryHits.increment());
+        return fromMemory.or(() -> awaitRendition(key, isStorable(requesterAccess, key)))
+            .map(rendition -> new RenditionAsset(asset, new RenditionFile(rendition), mimeType));
+    }
+
+    private String fingerprint(Asset asset, Map<String, String> metadata) {
+        return Optional.ofNullable(metadata.get(AssetMetadata.PN_SHA256))
+            .orElseGet(
+                () -> "%s@%s".formatted(
+                    Optional.ofNullable(metadata.get(AssetMetadata.PN_SIZE_BYTES))
+                        .orElseGet(() -> String.valueOf(asset.assetFile().size().bytes())),
+                    metadata.getOrDefault(JcrConstants.JCR_LASTMODIFIED, StringUtils.EMPTY)
+                )
+            );
+    }
+
+    private boolean isStorable(ResourceAccess requesterAccess, RenditionKey key) {
+        String renditionPath = renditionPath(key);
+        try (ResourceResolver resourceResolver = requesterAccess.acquireAccess()) {
+            Session session = resourceResolver.adaptTo(Session.class);
+            boolean isStorable = session != null && session.hasPermission(
+                renditionPath, "%s,%s".formatted(Session.ACTION_ADD_NODE, Session.ACTION_SET_PROPERTY)
+            );
+            log.trace("Is rendition {} storable on behalf of {}: {}", key, resourceResolver.getUserID(), isStorable);
+            return isStorable;
+        } catch (RepositoryException exception) {
+            log.debug("Unable to check whether rendition {} can be stored at {}", key, renditionPath, exception);
+            return false;
+        }
+    }
+
+    private String renditionPath(RenditionKey key) {
+        return "%s/%s/%s".formatted(key.sourcePath(), RENDITIONS_NODE_NAME, key.renditionSize());
+    }
+
+    @SuppressWarnings("squid:S2142")
+    private Optional<byte[]> awaitRendition(RenditionKey key, boolean isStorable) {
+        CompletableFuture<Optional<byte[]>> rendition;
+        try {
+            rendition = inFlight.computeIfAbsent(
+                key, missedKey -> CompletableFuture.supplyAsync(() -> load(missedKey, isStorable), workers)
+            );
+        } catch (RejectedExecutionException exception) {
+            rejections.incrementAndGet();
+            log.warn("Rendition {} rejected by {}: the generation queue is full", key, this, exception);
+            return Optional.empty();
+        }
+        rendition.whenComplete((result, exception) -> inFlight.remove(key, rendition));
+        try {
+            return rendition.get(config.generation$_$timeout_seconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for rendition {}", key, exception);
+            return Optional.empty();
+        } catch (ExecutionException | TimeoutException exception) {
+            failures.incrementAndGet();
+            log.warn("Unable to get rendition {}", key, exception);
+            return Optional.empty();
+        }
+    }
+
+    @SneakyThrows
+    private Optional<byte[]> load(RenditionKey key, boolean isStorable) {
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            Resource sourceResource = Optional.ofNullable(resourceResolver.getResource(key.sourcePath()))
+                .orElseThrow();
+            Optional<byte[]> stored = stored(resourceResolver, key);
+            if (stored.isPresent()) {
+                repositoryHits.increment();
+                memory.put(key, stored.get());
+                return stored;
+            }
+            Asset source = new UniversalAsset(sourceResource, fullResourceAccess);
+            long startNanos = System.nanoTime();
+            Optional<byte[]> generated;
+            try (InputStream original = source.assetFile().retrieve()) {
+                generated = new ScaledImage(key.renditionSize(), source.assetMetadata().filenameExtension())
+                    .render(original);
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            generations.increment();
+            generationNanos.add(elapsedNanos);
+            maxGenerationNanos.accumulate(elapsedNanos);
+            log.debug("Generated rendition {} in {} ms", key, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            generated.ifPresent(
+                rendition -> {
+                    if (isStorable) {
+                        store(sourceResource, key, rendition);
+                    }
+                    memory.put(key, rendition);
+                }
+            );
+            return generated;
+        }
+    }
+
+    @SneakyThrows
+    private Optional<byte[]> stored(ResourceResolver resourceResolver, RenditionKey key) {
+        Optional<Resource> renditionResource = Optional.ofNullable(resourceResolver.getResource(renditionPath(key)))
+            .filter(
+                resource -> key.fingerprint().equals(
+                    resource.getValueMap().get(PN_SOURCE_FINGERPRINT, String.class)
+                )
+            );
+        if (renditionResource.isEmpty()) {
+            return Optional.empty();
+        }
+        try (
+            InputStream rendition = Optional.ofNullable(
+                renditionResource.get().getValueMap().get(JcrConstants.JCR_DATA, InputStream.class)
+            ).orElseGet(InputStream::nullInputStream)
+        ) {
+            return Optional.of(rendition.readAllBytes()).filter(bytes -> bytes.length > 0);
+        }
+    }
+
+    private void store(Resource sourceResource, RenditionKey key, byte[] rendition) {
+        if (!Asset.NT_ASSET_REAL.equals(new NodeProperties(sourceResource).primaryType())) {
+            log.trace("Not storing rendition {} under {}", key, sourceResource);
+            return;
+        }
+        @SuppressWarnings("PMD.CloseResource")
+        ResourceResolver resourceResolver = sourceResource.getResourceResolver();
+        try {
+            Node assetNode = Optional.ofNullable(sourceResource.adaptTo(Node.class)).orElseThrow();
+            Node renditionsNode = JcrUtils.getOrAddNode(assetNode, RENDITIONS_NODE_NAME, NT_RENDITIONS);
+            Node renditionNode = JcrUtils.getOrAddNode(renditionsNode, key.renditionSize().toString(), NT_RENDITION);
+            Binary binary = assetNode.getSession().getValueFactory().createBinary(new ByteArrayInputStream(rendition));
+            try {
+                renditionNode.setProperty(JcrConstants.JCR_DATA, binary);
+                renditionNode.setProperty(PN_SOURCE_FINGERPRINT, key.fingerprint());
+                resourceResolver.commit();
+            } finally {
+                binary.dispose();
+            }
+            log.trace("Stored rendition {} at {}", key, renditionNode.getPath());
+        } catch (RepositoryException | PersistenceException exception) {
+            resourceResolver.revert();
+            log.warn("Unable to store rendition {} under {}", key, sourceResource, exception);
+        }
+    }
+
+    @JsonProperty
+    long generations() {
+        return generations.sum();
+    }
+
+    @JsonProperty
+    long averageGenerationMillis() {
+        long generationsCount = generations.sum();
+        return generationsCount == NumberUtils.LONG_ZERO
+            ? NumberUtils.LONG_ZERO : TimeUnit.NANOSECONDS.toMillis(generationNanos.sum() / generationsCount);
+    }
+
+    @JsonProperty
+    long maxGenerationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxGenerationNanos.get());
+    }
+
+    @JsonProperty
+    long memoryHits() {
+        return memoryHits.sum();
+    }
+
+    @JsonProperty
+    long repositoryHits() {
+        return repositoryHits.sum();
+    }
+
+    @JsonProperty
+    double hitRatio() {
+        long hits = memoryHits.sum() + repositoryHits.sum();
+        long requests = hits + generations.sum();
+        return requests == NumberUtils.LONG_ZERO ? NumberUtils.DOUBLE_ZERO : (double) hits / requests;
+    }
+
+    @JsonProperty
+    long rejections() {
+        return rejections.get();
+    }
+
+    @JsonProperty
+    long failures() {
+        return failures.get();
+    }
+
+    @JsonProperty
+    int queuedGenerations() {
+        return workers.getQueue().size();
+    }
+
+    @JsonProperty
+    long renditionsInMemory() {
+        return memory.estimatedSize();
+    }
+
+    @Override
+    public String name() {
+        return Renditions.class.getName();
+    }
+
+    @SneakyThrows
+    @Override
+    public String asJSON() {
+        return new ObjectMapper().writeValueAsString(this);
+    }
+
+    private record RenditionKey(String sourcePath, String fingerprint, RenditionSize renditionSize) {
+    }
+
+    @ToString
+    private static final class RenditionFile implements AssetFile {
+
+        @ToString.Exclude
+        private final byte[] rendition;
+
+        private RenditionFile(byte[] rendition) {
+            this.rendition = rendition;
+        }
+
+        @Override
+        public InputStream retrieve() {
+            return new ByteArrayInputStream(rendition);
+        }
+
+        @Override
+        public DataSize size() {
+            return new DataSize(rendition.length, DataUnit.BYTES);
+        }
+    }
+}
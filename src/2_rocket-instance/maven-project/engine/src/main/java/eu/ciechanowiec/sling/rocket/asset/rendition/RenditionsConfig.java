@@ -0,0 +1,85 @@
+package eu.ciechanowiec.sling.rocket.asset.rendition;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Configuration for {@link Renditions}.
+ */
+@ObjectClassDefinition
+public @interface RenditionsConfig {
+
+    /**
+     * Number of threads that generate renditions.
+     *
+     * @return number of threads that generate renditions
+     */
+    @AttributeDefinition(
+        name = "Worker threads",
+        description = "Number of threads that generate renditions",
+        defaultValue = "2",
+        type = AttributeType.INTEGER
+    )
+    @SuppressWarnings("squid:S100")
+    int worker_threads() default 2;
+
+    /**
+     * Maximum number of renditions waiting for generation.
+     *
+     * @return maximum number of renditions waiting for generation
+     */
+    @AttributeDefinition(
+        name = "Queue size",
+        description = "Maximum number of renditions waiting for generation. When exceeded, requests for new "
+            + "renditions are rejected",
+        defaultValue = "32",
+        type = AttributeType.INTEGER
+    )
+    @SuppressWarnings("squid:S100")
+    int queue_size() default 32;
+
+    /**
+     * Sizes of renditions that can be requested, each in the {@code <width>x<height>} format, e.g. {@code 320x240}.
+     *
+     * @return sizes of renditions that can be requested
+     */
+    @AttributeDefinition(
+        name = "Allowed sizes",
+        description = "Sizes of renditions that can be requested, each in the <width>x<height> format, e.g. 320x240. "
+            + "Requests for other sizes are rejected, so that the number of renditions per Asset is bounded",
+        defaultValue = {"128x128", "256x256", "512x512", "1024x1024", "2048x2048"},
+        type = AttributeType.STRING
+    )
+    @SuppressWarnings("squid:S100")
+    String[] allowed_sizes() default {"128x128", "256x256", "512x512", "1024x1024", "2048x2048"};
+
+    /**
+     * Maximum number of seconds to wait for a generated rendition.
+     *
+     * @return maximum number of seconds to wait for a generated rendition
+     */
+    @AttributeDefinition(
+        name = "Generation timeout (seconds)",
+        description = "Maximum number of seconds to wait for a generated rendition",
+        defaultValue = "30",
+        type = AttributeType.LONG
+    )
+    @SuppressWarnings("squid:S100")
+    long generation$_$timeout_seconds() default 30L;
+
+    /**
+     * Maximum total size in bytes of renditions kept in memory.
+     *
+     * @return maximum total size in bytes of renditions kept in memory
+     */
+    @AttributeDefinition(
+        name = "Memory cache size (bytes)",
+        description = "Maximum total size in bytes of renditions kept in memory. When exceeded, the least recently "
+            + "used renditions are evicted",
+        defaultValue = "33554432",
+        type = AttributeType.LONG
+    )
+    @SuppressWarnings("squid:S100")
+    long memory$_$cache$_$size_bytes() default 33_554_432L;
+}
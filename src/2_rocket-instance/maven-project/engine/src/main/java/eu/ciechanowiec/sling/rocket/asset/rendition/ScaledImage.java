@@ -0,0 +1,138 @@
+package eu.ciechanowiec.sling.rocket.asset.rendition;
+
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Image scaled down to fit into a {@link RenditionSize} and encoded in the format of the original image, if that
+ * format can be written, or in PNG otherwise.
+ * <p>
+ * Images much bigger than the {@link RenditionSize} are decoded with subsampling, so that the decoded image is still
+ * at least as big as the rendition, but occupies only a fraction of the memory needed for the full resolution.
+ */
+@Slf4j
+@ToString
+class ScaledImage {
+
+    private static final String FALLBACK_FORMAT = "png";
+    private static final String FALLBACK_MIME_TYPE = "image/png";
+
+    private final RenditionSize renditionSize;
+    private final String formatName;
+
+    ScaledImage(RenditionSize renditionSize, Optional<String> filenameExtensionNullable) {
+        this.renditionSize = renditionSize;
+        this.formatName = filenameExtensionNullable.map(extension -> extension.replaceFirst("^\\.", ""))
+            .map(extension -> extension.toLowerCase(Locale.ROOT))
+            .filter(extension -> ImageIO.getImageWritersBySuffix(extension).hasNext())
+            .orElse(FALLBACK_FORMAT);
+    }
+
+    /**
+     * Returns the mime type of the format in which the image is encoded.
+     *
+     * @return mime type of the format in which the image is encoded, e.g. {@code image/jpeg}
+     */
+    String mimeType() {
+        Iterator<ImageWriter> imageWriters = ImageIO.getImageWritersBySuffix(formatName);
+        return Optional.ofNullable(imageWriters.hasNext() ? imageWriters.next().getOriginatingProvider() : null)
+            .map(ImageWriterSpi::getMIMETypes)
+            .filter(mimeTypes -> mimeTypes.length > 0)
+            .map(mimeTypes -> mimeTypes[0])
+            .orElse(FALLBACK_MIME_TYPE);
+    }
+
+    /**
+     * Renders the image read from the specified {@link InputStream}.
+     *
+     * @param source {@link InputStream} with the original image; it isn't closed by this method
+     * @return {@link Optional} containing the encoded rendition; empty {@link Optional} is returned if the original
+     * image can't be decoded or the rendition can't be encoded
+     */
+    @SneakyThrows
+    Optional<byte[]> render(InputStream source) {
+        Optional<BufferedImage> originalNullable = decode(source);
+        if (originalNullable.isEmpty()) {
+            log.debug("Unable to decode the original image for {}", this);
+            return Optional.empty();
+        }
+        BufferedImage original = originalNullable.get();
+        BufferedImage scaled = scale(original);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        boolean isWritten = ImageIO.write(scaled, formatName, output);
+        log.trace("{} rendered {}x{} into {} bytes", this, scaled.getWidth(), scaled.getHeight(), output.size());
+        return isWritten ? Optional.of(output.toByteArray()) : Optional.empty();
+    }
+
+    private Optional<BufferedImage> decode(InputStream source) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> imageReaders = Optional.ofNullable(imageInputStream)
+                .map(ImageIO::getImageReaders)
+                .orElseGet(Collections::emptyIterator);
+            if (!imageReaders.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader imageReader = imageReaders.next();
+            try {
+                imageReader.setInput(imageInputStream, true, true);
+                int width = imageReader.getWidth(0);
+                int height = imageReader.getHeight(0);
+                int subsampling = Math.max(
+                    1, Math.min(width / renditionSize.width(), height / renditionSize.height())
+                );
+                ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+                imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                log.trace("Decoding {}x{} image for {} with subsampling {}", width, height, this, subsampling);
+                return Optional.of(imageReader.read(0, imageReadParam));
+            } catch (IllegalArgumentException exception) {
+                log.trace("Unable to decode the original image for {}", this, exception);
+                return Optional.empty();
+            } finally {
+                imageReader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage original) {
+        double scale = Math.min(
+            Math.min(
+                (double) renditionSize.width() / original.getWidth(),
+                (double) renditionSize.height() / original.getHeight()
+            ), 1.0
+        );
+        int width = Math.max(1, (int) Math.round(original.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(original.getHeight() * scale));
+        boolean supportsAlpha = original.getColorModel().hasAlpha() && !"jpg".equals(formatName)
+            && !"jpeg".equals(formatName);
+        BufferedImage scaled = new BufferedImage(
+            width, height, supportsAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB
+        );
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * On-demand resized variants of image {@link eu.ciechanowiec.sling.rocket.asset.Asset}s.
+ */
+@Export
+@Version("1.0.0")
+package eu.ciechanowiec.sling.rocket.asset.rendition;
+
+import org.osgi.annotation.bundle.Export;
+import org.osgi.annotation.versioning.Version;
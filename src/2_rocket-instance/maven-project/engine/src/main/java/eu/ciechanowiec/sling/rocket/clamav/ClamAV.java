@@ -1,5 +1,6 @@
 package eu.ciechanowiec.sling.rocket.clamav;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -9,21 +10,35 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import eu.ciechanowiec.sling.rocket.asset.Asset;
 import eu.ciechanowiec.sling.rocket.asset.AssetFile;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.asset.SHA256Digest;
 import eu.ciechanowiec.sling.rocket.observation.stats.RocketStats;
 import lombok.SneakyThrows;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.jackrabbit.oak.commons.jmx.AnnotatedStandardMBean;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.propertytypes.ServiceDescription;
 import org.osgi.service.metatype.annotations.Designate;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -32,23 +47,65 @@ import java.util.concurrent.atomic.LongAdder;
  * <p>
  * By default, the ClamAV daemon (clamd) of the standard <i>Sling Rocket</i> deployment at {@code rocket-clamav:3310} is
  * used, so this {@link VirusScanner} is fully functional without any explicit {@link ClamAVConfig}.
+ * <p>
+ * Commands are exchanged with the ClamAV daemon (clamd) over a pool of persistent connections in the {@code IDSESSION}
+ * mode of the clamd protocol, so that no new TCP connection is established for every scan.
+ * <p>
+ * If multiple ClamAV daemons (clamd) are configured, every command is sent to the one with the fewest commands in
+ * progress and is retried on another one if no connection can be established. A ClamAV daemon (clamd) that fails
+ * repeatedly, i.e. can't be connected to, produces {@link Failed} {@link ScanResult}s or doesn't answer a {@code PING}
+ * command, isn't used until a probe with a {@code PING} command succeeds. The version of the virus definitions
+ * database is reported only if all available ClamAV daemons (clamd) agree on it.
+ * <p>
+ * Asynchronous scans are performed on a bounded executor, so that the number of concurrent scans never exceeds the
+ * configured limit and waiting scans never exhaust the calling threads. Asynchronous scans requested when the queue of
+ * waiting scans is full are rejected immediately. Every asynchronous scan is completed with a {@link ScanResult}: a
+ * scan that fails unexpectedly or is dropped from the queue upon deactivation is completed with a {@link Failed} one.
+ * <p>
+ * {@link ScanResult}s are cached by the SHA-256 digest of the scanned content, computed while the content is streamed
+ * to the ClamAV daemon (clamd), and are valid only as long as the version of its virus definitions database is
+ * unchanged. A cached {@link ScanResult} is reused when an {@link Asset} whose {@link AssetMetadata#PN_SHA256} is known
+ * upfront is scanned.
+ * <p>
+ * The time of every scan that produced a verdict is recorded in {@link LatencyHistogram}s, split into the phases of
+ * the scan and into size classes of the scanned content, together with the number of scanned bytes. Those metrics are
+ * exposed both as a part of the {@link RocketStats} and via JMX.
  */
 @Component(
-    service = {VirusScanner.class, RocketStats.class, ClamAV.class},
+    service = {VirusScanner.class, RocketStats.class, ClamAV.class, ClamAVMBean.class},
     immediate = true,
-    configurationPolicy = ConfigurationPolicy.OPTIONAL
+    configurationPolicy = ConfigurationPolicy.OPTIONAL,
+    property = "jmx.objectname=eu.ciechanowiec.sling.rocket.engine:type=Antivirus,name=ClamAV"
 )
 @Slf4j
-@ServiceDescription("ClamAV antivirus scanner")
+@ServiceDescription(ClamAV.SERVICE_DESCRIPTION)
 @Designate(ocd = ClamAVConfig.class)
 @SuppressWarnings({"unused", "WeakerAccess"})
 @ToString
-public class ClamAV implements VirusScanner, RocketStats {
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+public class ClamAV extends AnnotatedStandardMBean implements ClamAVMBean, VirusScanner, RocketStats {
+
+    static final String SERVICE_DESCRIPTION = "ClamAV antivirus scanner";
+    private static final int END_OF_STREAM = -1;
 
     private final AtomicReference<ClamAVConfig> config;
+    @ToString.Exclude
+    private final AtomicReference<ClamdCluster> cluster;
+    @ToString.Exclude
+    private final AtomicReference<ThreadPoolExecutor> scanners;
+    @ToString.Exclude
+    private final AtomicReference<ScanResultCache> scanResultCache;
+    @ToString.Exclude
+    private final AtomicReference<ScanMetrics> scanMetrics;
     private final LongAdder cleanScans;
     private final LongAdder infectedScans;
     private final LongAdder failedScans;
+    private final LongAdder admittedScans;
+    private final LongAdder rejectedScans;
 
     @SuppressWarnings("unused")
     @JsonProperty
@@ -62,10 +119,17 @@ public class ClamAV implements VirusScanner, RocketStats {
      */
     @Activate
     public ClamAV(ClamAVConfig config) {
+        super(ClamAVMBean.class);
         this.config = new AtomicReference<>(config);
+        this.cluster = new AtomicReference<>(new ClamdCluster(config));
+        this.scanners = new AtomicReference<>(newScanners(config));
+        this.scanResultCache = new AtomicReference<>(new ScanResultCache(config, this::version));
+        this.scanMetrics = new AtomicReference<>(new ScanMetrics());
         this.cleanScans = new LongAdder();
         this.infectedScans = new LongAdder();
         this.failedScans = new LongAdder();
+        this.admittedScans = new LongAdder();
+        this.rejectedScans = new LongAdder();
         this.since = LocalDateTime.now();
         log.info("Initialized {}", this);
     }
@@ -78,9 +142,33 @@ public class ClamAV implements VirusScanner, RocketStats {
     @Modified
     void configure(ClamAVConfig config) {
         this.config.set(config);
+        cluster.getAndSet(new ClamdCluster(config)).close();
+        scanners.getAndSet(newScanners(config)).shutdown();
+        scanResultCache.set(new ScanResultCache(config, this::version));
         log.info("Configured {}", this);
     }
 
+    @Deactivate
+    void deactivate() {
+        log.info("Deactivating {}", this);
+        List<Runnable> droppedScans = scanners.get().shutdownNow();
+        log.debug("{} dropped {} pending asynchronous scans", this, droppedScans.size());
+        droppedScans.stream()
+            .filter(ScanTask.class::isInstance)
+            .map(ScanTask.class::cast)
+            .forEach(scanTask -> scanTask.fail("The scan was dropped, because the scanner was deactivated"));
+        cluster.get().close();
+    }
+
+    private ThreadPoolExecutor newScanners(ClamAVConfig config) {
+        int maxConcurrentScans = Math.max(NumberUtils.INTEGER_ONE, config.clamav_max$_$concurrent$_$scans());
+        return new ThreadPoolExecutor(
+            maxConcurrentScans, maxConcurrentScans, NumberUtils.LONG_ZERO, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(NumberUtils.INTEGER_ONE, config.clamav_scan$_$queue_size())),
+            Thread.ofVirtual().name("rocket-clamav-scan-", NumberUtils.LONG_ZERO).factory()
+        );
+    }
+
     @Override
     public ScanResult scan(InputStream content) {
         return register(scanWithoutRegistering(content));
@@ -89,7 +177,7 @@ public class ClamAV implements VirusScanner, RocketStats {
     @Override
     public ScanResult scan(Asset asset) {
         log.trace("{} is scanning {}", this, asset);
-        return scan(asset.assetFile());
+        return cachedScanResult(asset).map(this::register).orElseGet(() -> scan(asset.assetFile()));
     }
 
     @Override
@@ -97,6 +185,41 @@ public class ClamAV implements VirusScanner, RocketStats {
         return register(scanWithoutRegistering(assetFile));
     }
 
+    @Override
+    public CompletableFuture<ScanResult> scanAsync(Asset asset) {
+        return cachedScanResult(asset)
+            .map(this::register)
+            .map(CompletableFuture::completedFuture)
+            .orElseGet(() -> scanAsync(asset.assetFile()));
+    }
+
+    @Override
+    public CompletableFuture<ScanResult> scanAsync(AssetFile assetFile) {
+        ScanTask scanTask = new ScanTask(assetFile);
+        while (true) {
+            ThreadPoolExecutor currentScanners = scanners.get();
+            try {
+                currentScanners.execute(scanTask);
+                admittedScans.increment();
+                return scanTask.scanResult();
+            } catch (RejectedExecutionException exception) {
+                if (!currentScanners.isShutdown()) {
+                    rejectedScans.increment();
+                    log.warn("{} rejected an asynchronous scan of {}", this, assetFile, exception);
+                    return CompletableFuture.completedFuture(
+                        new Failed("The scan was rejected, because too many scans are pending")
+                    );
+                } else if (currentScanners == scanners.get()) {
+                    log.warn("{} is deactivated and can't scan {}", this, assetFile, exception);
+                    return CompletableFuture.completedFuture(
+                        new Failed("The scan was rejected, because the scanner is deactivated")
+                    );
+                }
+                log.debug("{} was reconfigured while scheduling a scan of {}, retrying", this, assetFile);
+            }
+        }
+    }
+
     /**
      * Total number of {@link ScanResult}s produced by this {@link ClamAV}. The counter is kept in memory only and
      * resets when the application restarts.
@@ -141,6 +264,48 @@ public class ClamAV implements VirusScanner, RocketStats {
         return failedScans.sum();
     }
 
+    /**
+     * Number of asynchronous scans admitted for execution by this {@link ClamAV}. The counter is kept in memory only
+     * and resets when the application restarts.
+     *
+     * @return number of asynchronous scans admitted for execution by this {@link ClamAV}
+     */
+    @JsonProperty
+    public long numOfAdmittedScans() {
+        return admittedScans.sum();
+    }
+
+    /**
+     * Number of asynchronous scans rejected by this {@link ClamAV}, because the queue of waiting scans was full. The
+     * counter is kept in memory only and resets when the application restarts.
+     *
+     * @return number of asynchronous scans rejected by this {@link ClamAV}
+     */
+    @JsonProperty
+    public long numOfRejectedScans() {
+        return rejectedScans.sum();
+    }
+
+    /**
+     * Number of asynchronous scans currently being performed by this {@link ClamAV}.
+     *
+     * @return number of asynchronous scans currently being performed by this {@link ClamAV}
+     */
+    @JsonProperty
+    public int numOfActiveScans() {
+        return scanners.get().getActiveCount();
+    }
+
+    /**
+     * Number of asynchronous scans currently waiting for execution by this {@link ClamAV}.
+     *
+     * @return number of asynchronous scans currently waiting for execution by this {@link ClamAV}
+     */
+    @JsonProperty
+    public int numOfQueuedScans() {
+        return scanners.get().getQueue().size();
+    }
+
     private ScanResult scanWithoutRegistering(AssetFile assetFile) {
         try (InputStream content = assetFile.retrieve()) {
             return scanWithoutRegistering(content);
@@ -150,13 +315,54 @@ public class ClamAV implements VirusScanner, RocketStats {
         }
     }
 
+    @SneakyThrows
+    @SuppressWarnings("PMD.CloseResource")
     private ScanResult scanWithoutRegistering(InputStream content) {
-        try (ClamdConnection connection = connect()) {
-            return connection.scan(content);
+        MessageDigest messageDigest = MessageDigest.getInstance(SHA256Digest.ALGORITHM);
+        DigestInputStream digestedContent = new DigestInputStream(content, messageDigest);
+        long startNanos = System.nanoTime();
+        ScanResult scanResult;
+        try {
+            scanResult = cluster.get().exchange(
+                connection -> {
+                    Duration connectTime = Duration.ofNanos(System.nanoTime() - startNanos);
+                    ScanResult result = connection.scan(digestedContent);
+                    if (!(result instanceof Failed)) {
+                        scanMetrics.get().record(
+                            connectTime, connection.lastScanTrace(), Duration.ofNanos(System.nanoTime() - startNanos)
+                        );
+                    }
+                    return new ExchangedScan(result, connection.isLastScanFailedInClamd());
+                }, ExchangedScan::isFailedInClamd
+            ).scanResult();
         } catch (IOException exception) {
             log.warn("Unable to scan content", exception);
             return new Failed("clamd is unreachable: " + exception);
         }
+        if (!(scanResult instanceof Failed) && isFullyConsumed(digestedContent)) {
+            scanResultCache.get().put(new SHA256Digest(messageDigest).get(), scanResult);
+        }
+        return scanResult;
+    }
+
+    private boolean isFullyConsumed(InputStream content) {
+        try {
+            return content.read() == END_OF_STREAM;
+        } catch (IOException exception) {
+            log.debug("Unable to verify whether the scanned content was fully consumed", exception);
+            return false;
+        }
+    }
+
+    private Optional<ScanResult> cachedScanResult(Asset asset) {
+        return Optional.ofNullable(asset.assetMetadata().all().get(AssetMetadata.PN_SHA256))
+            .flatMap(sha256 -> scanResultCache.get().get(sha256))
+            .map(
+                scanResult -> {
+                    log.trace("{} reuses the cached scan result of {}: {}", this, asset, scanResult.summary());
+                    return scanResult;
+                }
+            );
     }
 
     private ScanResult register(ScanResult scanResult) {
@@ -172,8 +378,8 @@ public class ClamAV implements VirusScanner, RocketStats {
     @JsonProperty("reachable")
     @Override
     public boolean ping() {
-        try (ClamdConnection connection = connect()) {
-            return connection.ping();
+        try {
+            return cluster.get().exchange(ClamdConnection::ping, isReachable -> !isReachable);
         } catch (IOException exception) {
             log.warn("Unable to ping clamd", exception);
             return false;
@@ -184,12 +390,91 @@ public class ClamAV implements VirusScanner, RocketStats {
     @JsonInclude(JsonInclude.Include.NON_ABSENT)
     @Override
     public Optional<String> version() {
-        try (ClamdConnection connection = connect()) {
-            return connection.version();
-        } catch (IOException exception) {
-            log.warn("Unable to retrieve the clamd version", exception);
-            return Optional.empty();
-        }
+        return cluster.get().version();
+    }
+
+    /**
+     * ClamAV daemons (clamd) used by this {@link ClamAV}, together with their circuit breakers and metrics of their
+     * pools of connections.
+     *
+     * @return ClamAV daemons (clamd) used by this {@link ClamAV}
+     */
+    @JsonProperty("endpoints")
+    List<ClamdEndpoint> endpoints() {
+        return cluster.get().endpoints();
+    }
+
+    /**
+     * Number of times a command was retried with another ClamAV daemon (clamd), because no connection with the
+     * previously selected one could be established. The counter resets when this {@link ClamAV} is reconfigured.
+     *
+     * @return number of times a command was retried with another ClamAV daemon (clamd)
+     */
+    @JsonProperty("failovers")
+    long failovers() {
+        return cluster.get().failovers();
+    }
+
+    /**
+     * Metrics of the cache of {@link ScanResult}s used by this {@link ClamAV}.
+     *
+     * @return metrics of the cache of {@link ScanResult}s used by this {@link ClamAV}
+     */
+    @JsonProperty("scanResultCache")
+    ScanResultCache scanResultCache() {
+        return scanResultCache.get();
+    }
+
+    /**
+     * Latency and throughput metrics of scans performed by this {@link ClamAV}.
+     *
+     * @return latency and throughput metrics of scans performed by this {@link ClamAV}
+     */
+    @JsonProperty("scanMetrics")
+    ScanMetrics scanMetricsSnapshot() {
+        return scanMetrics.get();
+    }
+
+    @Override
+    public long getNumOfScans() {
+        return numOfScans();
+    }
+
+    @Override
+    public double getScanTimeP50Millis() {
+        return scanMetrics.get().scanTime().p50Millis();
+    }
+
+    @Override
+    public double getScanTimeP99Millis() {
+        return scanMetrics.get().scanTime().p99Millis();
+    }
+
+    @Override
+    public double getScanTimeMaxMillis() {
+        return scanMetrics.get().scanTime().maxMillis();
+    }
+
+    @Override
+    public long getScannedBytes() {
+        return scanMetrics.get().scannedBytes();
+    }
+
+    @Override
+    public double getThroughputBytesPerSecond() {
+        return scanMetrics.get().throughputBytesPerSecond();
+    }
+
+    @SneakyThrows
+    @Override
+    public String getScanMetrics() {
+        return new ObjectMapper().writeValueAsString(scanMetrics.get());
+    }
+
+    @Override
+    public void resetScanMetrics() {
+        log.info("Resetting scan metrics of {}", this);
+        scanMetrics.set(new ScanMetrics());
     }
 
     @Override
@@ -207,13 +492,52 @@ public class ClamAV implements VirusScanner, RocketStats {
         return mapper.writeValueAsString(this);
     }
 
-    private ClamdConnection connect() throws IOException {
-        ClamAVConfig clamAVConfig = config.get();
-        return new ClamdConnection(
-            clamAVConfig.clamav_host(),
-            clamAVConfig.clamav_port(),
-            clamAVConfig.clamav_connect$_$timeout(),
-            clamAVConfig.clamav_read$_$timeout()
-        );
+    /**
+     * Asynchronous scan of an {@link AssetFile}, whose {@link ScanResult} is always completed, also if the scan throws
+     * a {@link RuntimeException} or is dropped from the queue of waiting scans.
+     */
+    @ToString
+    private final class ScanTask implements Runnable {
+
+        private final AssetFile assetFile;
+        @ToString.Exclude
+        private final CompletableFuture<ScanResult> scanResult;
+
+        private ScanTask(AssetFile assetFile) {
+            this.assetFile = assetFile;
+            this.scanResult = new CompletableFuture<>();
+        }
+
+        private CompletableFuture<ScanResult> scanResult() {
+            return scanResult;
+        }
+
+        @Override
+        public void run() {
+            try {
+                scanResult.complete(scan(assetFile));
+            } catch (RuntimeException exception) {
+                log.warn("Unable to scan {}", assetFile, exception);
+                fail("The scan failed unexpectedly: " + exception);
+            }
+        }
+
+        private void fail(String message) {
+            scanResult.complete(register(new Failed(message)));
+        }
+    }
+
+    /**
+     * {@link ScanResult} of a scan exchanged with a ClamAV daemon (clamd), together with the information whether it's
+     * a {@link Failed} {@link ScanResult} caused by the ClamAV daemon (clamd) or the connection with it, which is the
+     * only kind of {@link Failed} {@link ScanResult}s recorded as a failure in the circuit breaker of the ClamAV daemon
+     * (clamd). {@link Failed} {@link ScanResult}s caused by the scanned content, e.g. by content that cannot be read or
+     * exceeds the maximum content size allowed by the ClamAV daemon (clamd), aren't recorded as failures.
+     *
+     * @param scanResult      {@link ScanResult} of the scan
+     * @param isFailedInClamd {@code true} if the scan failed because of the ClamAV daemon (clamd) or the connection
+     *                        with it; {@code false} otherwise
+     */
+    private record ExchangedScan(ScanResult scanResult, boolean isFailedInClamd) {
     }
 }
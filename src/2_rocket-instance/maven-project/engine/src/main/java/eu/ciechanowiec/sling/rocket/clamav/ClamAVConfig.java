@@ -1,10 +1,11 @@
 package eu.ciechanowiec.sling.rocket.clamav;
 
+import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.AttributeType;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
-import java.net.Socket;
+import java.nio.channels.SocketChannel;
 
 /**
  * Configuration that describes how the associated {@link ClamAV} should connect to a ClamAV daemon (clamd).
@@ -45,11 +46,84 @@ public @interface ClamAVConfig {
     int clamav_port() default 3310;
 
     /**
-     * Maximum time in milliseconds to wait for a {@link Socket} connection with the ClamAV daemon (clamd) to be
+     * Path to the unix domain socket of a co-located ClamAV daemon (clamd) to connect to. If set, it takes precedence
+     * over the host and the TCP port.
+     *
+     * @return path to the unix domain socket of a co-located ClamAV daemon (clamd) to connect to; if blank, the
+     * connection is established over TCP
+     */
+    @AttributeDefinition(
+        name = "ClamAV Unix Socket Path",
+        description = "Path to the unix domain socket of a co-located ClamAV daemon (clamd) to connect to, e.g. "
+            + "/run/clamav/clamd.ctl. If set, it takes precedence over the host and the TCP port. If blank, the "
+            + "connection is established over TCP.",
+        defaultValue = StringUtils.EMPTY,
+        type = AttributeType.STRING
+    )
+    String clamav_unix$_$socket_path() default StringUtils.EMPTY;
+
+    /**
+     * Addresses of multiple ClamAV daemons (clamd) to balance scans across. If set, it takes precedence over the host,
+     * the TCP port and the path to the unix domain socket.
+     *
+     * @return addresses of multiple ClamAV daemons (clamd) to balance scans across, each in the {@code host:port} or
+     * {@code unix:/path/to/socket} format; if empty, the single ClamAV daemon (clamd) described by the host, the TCP
+     * port and the path to the unix domain socket is used
+     */
+    @SuppressWarnings("squid:S100")
+    @AttributeDefinition(
+        name = "ClamAV Endpoints",
+        description = "Addresses of multiple ClamAV daemons (clamd) to balance scans across, each in the host:port "
+            + "or unix:/path/to/socket format, e.g. rocket-clamav-1:3310. If the port is omitted, the ClamAV Port is "
+            + "used. Every scan is sent to the ClamAV daemon (clamd) with the fewest scans in progress, and is retried "
+            + "on another one if the connection can't be established. If set, it takes precedence over the host, the "
+            + "TCP port and the path to the unix domain socket.",
+        type = AttributeType.STRING
+    )
+    String[] clamav_endpoints() default {};
+
+    /**
+     * Number of consecutive failed exchanges with a ClamAV daemon (clamd) after which it isn't used for the
+     * {@link #clamav_circuit_open$_$duration()}.
+     *
+     * @return number of consecutive failed exchanges with a ClamAV daemon (clamd) after which it isn't used for the
+     * {@link #clamav_circuit_open$_$duration()}
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Circuit Breaker Failure Threshold",
+        description = "Number of consecutive failed exchanges with a ClamAV daemon (clamd) after which it isn't "
+            + "used until a probe with a PING command succeeds.",
+        defaultValue = "3",
+        type = AttributeType.INTEGER,
+        min = "1"
+    )
+    int clamav_circuit_failure$_$threshold() default 3;
+
+    /**
+     * Time in milliseconds for which a failing ClamAV daemon (clamd) isn't used before it's probed with a {@code PING}
+     * command.
+     *
+     * @return time in milliseconds for which a failing ClamAV daemon (clamd) isn't used before it's probed with a
+     * {@code PING} command
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Circuit Breaker Open Duration (millis)",
+        description = "Time in milliseconds for which a failing ClamAV daemon (clamd) isn't used before it's probed "
+            + "with a PING command.",
+        defaultValue = "10000",
+        type = AttributeType.LONG,
+        min = "0"
+    )
+    long clamav_circuit_open$_$duration() default 10_000L;
+
+    /**
+     * Maximum time in milliseconds to wait for a {@link SocketChannel} connection with the ClamAV daemon (clamd) to be
      * established.
      *
-     * @return maximum time in milliseconds to wait for a {@link Socket} connection with the ClamAV daemon (clamd) to be
-     * established
+     * @return maximum time in milliseconds to wait for a {@link SocketChannel} connection with the ClamAV daemon
+     * (clamd) to be established
      */
     @SuppressWarnings("MagicNumber")
     @AttributeDefinition(
@@ -77,4 +151,140 @@ public @interface ClamAVConfig {
         min = "0"
     )
     int clamav_read$_$timeout() default 60_000;
+
+    /**
+     * Maximum number of idle connections with the ClamAV daemon (clamd) that are kept open for reuse.
+     *
+     * @return maximum number of idle connections with the ClamAV daemon (clamd) that are kept open for reuse
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Pool Size",
+        description = "Maximum number of idle connections with the ClamAV daemon (clamd) that are kept open for "
+            + "reuse. Every connection is kept in the IDSESSION mode, so that multiple commands are exchanged over it. "
+            + "If set to 0, a new connection is established for every command.",
+        defaultValue = "4",
+        type = AttributeType.INTEGER,
+        min = "0"
+    )
+    int clamav_pool_size() default 4;
+
+    /**
+     * Maximum number of connections with a single ClamAV daemon (clamd) that are open at the same time, both in use
+     * and idle.
+     *
+     * @return maximum number of connections with a single ClamAV daemon (clamd) that are open at the same time
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Pool Max Connections",
+        description = "Maximum number of connections with a single ClamAV daemon (clamd) that are open at the same "
+            + "time, both in use and idle. If all of them are in use, a command waits for a free connection for at "
+            + "most the connect timeout. Values lower than 1 are treated as 1.",
+        defaultValue = "10",
+        type = AttributeType.INTEGER,
+        min = "1"
+    )
+    int clamav_pool_max$_$connections() default 10;
+
+    /**
+     * Maximum time in milliseconds for which an idle connection with the ClamAV daemon (clamd) is kept open. Should be
+     * lower than the {@code IdleTimeout} of the ClamAV daemon (clamd).
+     *
+     * @return maximum time in milliseconds for which an idle connection with the ClamAV daemon (clamd) is kept open
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Pool Max Idle Time (millis)",
+        description = "Maximum time in milliseconds for which an idle connection with the ClamAV daemon (clamd) is "
+            + "kept open. Should be lower than the IdleTimeout of the ClamAV daemon (clamd), which is 30 seconds by "
+            + "default.",
+        defaultValue = "20000",
+        type = AttributeType.INTEGER,
+        min = "0"
+    )
+    int clamav_pool_max$_$idle() default 20_000;
+
+    /**
+     * Maximum number of asynchronous scans performed concurrently. Should match the {@code MaxThreads} setting of the
+     * ClamAV daemon (clamd).
+     *
+     * @return maximum number of asynchronous scans performed concurrently
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Max Concurrent Scans",
+        description = "Maximum number of asynchronous scans performed concurrently. Should match the MaxThreads "
+            + "setting of the ClamAV daemon (clamd), which is 10 by default.",
+        defaultValue = "10",
+        type = AttributeType.INTEGER,
+        min = "1"
+    )
+    int clamav_max$_$concurrent$_$scans() default 10;
+
+    /**
+     * Maximum number of asynchronous scans waiting for execution. Asynchronous scans requested when this number is
+     * reached are rejected immediately.
+     *
+     * @return maximum number of asynchronous scans waiting for execution
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Scan Queue Size",
+        description = "Maximum number of asynchronous scans waiting for execution. Asynchronous scans requested "
+            + "when this number is reached are rejected immediately with a failed scan result.",
+        defaultValue = "100",
+        type = AttributeType.INTEGER,
+        min = "1"
+    )
+    int clamav_scan$_$queue_size() default 100;
+
+    /**
+     * Maximum number of {@link ScanResult}s cached by the SHA-256 digest of the scanned content.
+     *
+     * @return maximum number of {@link ScanResult}s cached by the SHA-256 digest of the scanned content
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Scan Result Cache Size",
+        description = "Maximum number of scan results cached by the SHA-256 digest of the scanned content. Cached "
+            + "results are valid only as long as the version of the virus definitions database of the ClamAV daemon "
+            + "(clamd) is unchanged. If set to 0, no scan results are cached.",
+        defaultValue = "10000",
+        type = AttributeType.INTEGER,
+        min = "0"
+    )
+    int clamav_cache_size() default 10_000;
+
+    /**
+     * Whether {@link Infected} {@link ScanResult}s should be cached in addition to {@link Clean} ones.
+     *
+     * @return {@code true} if {@link Infected} {@link ScanResult}s should be cached in addition to {@link Clean} ones;
+     * {@code false} otherwise
+     */
+    @AttributeDefinition(
+        name = "Cache Infected Scan Results",
+        description = "Whether infected scan results should be cached in addition to clean ones.",
+        defaultValue = "false",
+        type = AttributeType.BOOLEAN
+    )
+    boolean clamav_cache_infected() default false;
+
+    /**
+     * Minimum time in milliseconds between two checks of the version of the virus definitions database of the ClamAV
+     * daemon (clamd) performed to validate cached {@link ScanResult}s.
+     *
+     * @return minimum time in milliseconds between two checks of the version of the virus definitions database of the
+     * ClamAV daemon (clamd) performed to validate cached {@link ScanResult}s
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Cache Version Check Interval (millis)",
+        description = "Minimum time in milliseconds between two checks of the version of the virus definitions "
+            + "database of the ClamAV daemon (clamd) performed to validate cached scan results.",
+        defaultValue = "60000",
+        type = AttributeType.LONG,
+        min = "0"
+    )
+    long clamav_cache_version$_$check$_$interval() default 60_000L;
 }
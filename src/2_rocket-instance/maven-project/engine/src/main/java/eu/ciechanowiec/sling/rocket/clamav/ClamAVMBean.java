@@ -0,0 +1,82 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import org.apache.jackrabbit.oak.api.jmx.Description;
+
+/**
+ * MBean for a {@link ClamAV}.
+ */
+@SuppressWarnings("WeakerAccess")
+@Description(ClamAV.SERVICE_DESCRIPTION)
+public interface ClamAVMBean {
+
+    /**
+     * Total number of {@link ScanResult}s produced by the {@link ClamAV}.
+     *
+     * @return total number of {@link ScanResult}s produced by the {@link ClamAV}
+     */
+    @SuppressWarnings("unused")
+    @Description("Total number of scan results produced by the scanner")
+    long getNumOfScans();
+
+    /**
+     * Median time in milliseconds of scans that produced a verdict.
+     *
+     * @return median time in milliseconds of scans that produced a verdict
+     */
+    @SuppressWarnings("unused")
+    @Description("Median time in milliseconds of scans that produced a verdict")
+    double getScanTimeP50Millis();
+
+    /**
+     * 99th percentile of the time in milliseconds of scans that produced a verdict.
+     *
+     * @return 99th percentile of the time in milliseconds of scans that produced a verdict
+     */
+    @SuppressWarnings("unused")
+    @Description("99th percentile of the time in milliseconds of scans that produced a verdict")
+    double getScanTimeP99Millis();
+
+    /**
+     * Maximum time in milliseconds of scans that produced a verdict.
+     *
+     * @return maximum time in milliseconds of scans that produced a verdict
+     */
+    @SuppressWarnings("unused")
+    @Description("Maximum time in milliseconds of scans that produced a verdict")
+    double getScanTimeMaxMillis();
+
+    /**
+     * Total number of bytes scanned in scans that produced a verdict.
+     *
+     * @return total number of bytes scanned in scans that produced a verdict
+     */
+    @SuppressWarnings("unused")
+    @Description("Total number of bytes scanned in scans that produced a verdict")
+    long getScannedBytes();
+
+    /**
+     * Average number of bytes per second scanned in scans that produced a verdict.
+     *
+     * @return average number of bytes per second scanned in scans that produced a verdict
+     */
+    @SuppressWarnings("unused")
+    @Description("Average number of bytes per second scanned in scans that produced a verdict")
+    double getThroughputBytesPerSecond();
+
+    /**
+     * Latency histograms of scans that produced a verdict, split into phases and size classes of the scanned content.
+     *
+     * @return JSON string with latency histograms of scans that produced a verdict, split into phases and size classes
+     * of the scanned content
+     */
+    @SuppressWarnings("unused")
+    @Description("Latency histograms of scans, split into phases and size classes of the scanned content, as JSON")
+    String getScanMetrics();
+
+    /**
+     * Discards all recorded latency histograms and throughput metrics of scans.
+     */
+    @SuppressWarnings("unused")
+    @Description("Discards all recorded latency histograms and throughput metrics of scans")
+    void resetScanMetrics();
+}
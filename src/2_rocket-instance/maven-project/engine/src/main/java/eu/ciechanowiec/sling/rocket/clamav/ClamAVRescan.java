@@ -0,0 +1,519 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.DefaultProperties;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.jcr.SimpleNode;
+import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.job.SchedulableJobConsumer;
+import eu.ciechanowiec.sling.rocket.observation.audit.Entry;
+import eu.ciechanowiec.sling.rocket.observation.audit.EntryTrampoline;
+import eu.ciechanowiec.sling.rocket.observation.stats.RocketStats;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.jspecify.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.metatype.annotations.Designate;
+
+import javax.jcr.Repository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rescans {@link Asset}s stored in the {@link Repository} with the {@link ClamAV} after the virus definitions database
+ * of the ClamAV daemon (clamd) has been updated, so that new antivirus signatures also reach already stored content.
+ * <p>
+ * On every scheduled run, the current version of the virus definitions database is retrieved from the ClamAV daemon
+ * (clamd) and compared with the version recorded in a checkpoint persisted in the {@link Repository}. The first run
+ * only records the current version, because all stored {@link Asset}s are expected to have been scanned upon upload.
+ * Once the version changes, all stored {@link Asset}s of type {@link Asset#NT_ASSET_REAL}, whose binaries are also
+ * shared by the {@link Asset}s linking to them, are rescanned page by page in the order of their
+ * {@link Asset#jcrUUID()}. Every page is retrieved with {@link AssetsRepository#findAfter(String, int)}, i.e. with an
+ * indexed query that starts right after the last rescanned {@link Asset#jcrUUID()}, so that no run iterates again over
+ * the {@link Asset}s rescanned by previous runs. The {@link Asset#jcrUUID()} of the last rescanned {@link Asset} is
+ * checkpointed after every page, so that a rescan interrupted by a restart, by an unreachable ClamAV daemon (clamd) or
+ * by exceeding the configured run duration is continued by the next run after that {@link Asset#jcrUUID()} instead of
+ * being started over. Unlike a numeric offset, the checkpointed {@link Asset#jcrUUID()} isn't shifted by
+ * {@link Asset}s added or removed in the meantime.
+ * <p>
+ * The content is streamed to the ClamAV daemon (clamd) no faster than the configured throttle allows. The SHA-256
+ * digest of every scanned content is persisted in the {@link Repository} below the checkpoint together with the
+ * version it was scanned under, so that {@link Asset}s whose {@link AssetMetadata#PN_SHA256} has already been scanned
+ * under the current version, according to those records or to the cache of {@link ScanResult}s of the {@link ClamAV},
+ * are skipped, also after a restart. The records of a page are saved together with its checkpoint in a single commit
+ * and are removed in batches of {@link #BATCH_SIZE} once the version changes. Every {@link Infected} {@link Asset} is
+ * logged and recorded as an {@link Entry} via the {@link EntryTrampoline}, if available.
+ */
+@Component(
+    service = {ClamAVRescan.class, SchedulableJobConsumer.class, JobConsumer.class, RocketStats.class},
+    immediate = true,
+    configurationPolicy = ConfigurationPolicy.OPTIONAL,
+    property = {
+        JobConsumer.PROPERTY_TOPICS + "=" + ClamAVRescan.JOB_TOPIC,
+        SchedulableJobConsumer.CRON_EXPRESSION_PROPERTY + "=" + ClamAVRescan.DEFAULT_CRON_EXPRESSION
+    }
+)
+@Designate(ocd = ClamAVRescanConfig.class)
+@Slf4j
+@ToString
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+@ServiceDescription("Rescans stored Assets after the virus definitions database of ClamAV has been updated")
+public class ClamAVRescan implements SchedulableJobConsumer, RocketStats {
+
+    static final String JOB_TOPIC = "eu/ciechanowiec/sling/rocket/clamav/RESCAN";
+    static final String DEFAULT_CRON_EXPRESSION = "0 */15 * * * ?";
+    static final String CHECKPOINT_PATH = "/var/clamav/eu.ciechanowiec.sling.rocket/rescan";
+    static final String PN_SIGNATURE_VERSION = "signatureVersion";
+    static final String PN_LAST_JCR_UUID = "lastJCRUUID";
+    static final String PN_IS_COMPLETED = "isCompleted";
+    static final String SCANNED_DIGESTS_PATH = CHECKPOINT_PATH + "/scannedDigests";
+    static final int BATCH_SIZE = 500;
+    private static final int DIGEST_SHARD_LENGTH = 2;
+
+    @ToString.Exclude
+    private final FullResourceAccess fullResourceAccess;
+    @ToString.Exclude
+    private final ClamAV clamAV;
+    @ToString.Exclude
+    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+    private final Optional<EntryTrampoline> entryTrampolineNullable;
+    private final AtomicReference<ClamAVRescanConfig> config;
+    private final JCRPath checkpointPath;
+    private final AtomicBoolean isRunning;
+    private final LongAdder rescannedAssets;
+    private final LongAdder skippedAssets;
+    private final LongAdder infectedAssets;
+    private final LongAdder failedAssets;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                           access to resources
+     * @param clamAV             {@link ClamAV} that will be used by the constructed object to rescan {@link Asset}s
+     * @param entryTrampoline    {@link EntryTrampoline} that will be used by the constructed object to record
+     *                           {@link Infected} {@link Asset}s
+     * @param config             {@link ClamAVRescanConfig} that will be used by the constructed object
+     */
+    @Activate
+    public ClamAVRescan(
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        FullResourceAccess fullResourceAccess,
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        ClamAV clamAV,
+        @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.STATIC,
+            policyOption = ReferencePolicyOption.GREEDY
+        )
+        @Nullable
+        EntryTrampoline entryTrampoline,
+        ClamAVRescanConfig config
+    ) {
+        this.fullResourceAccess = fullResourceAccess;
+        this.clamAV = clamAV;
+        this.entryTrampolineNullable = Optional.ofNullable(entryTrampoline);
+        this.config = new AtomicReference<>(config);
+        this.checkpointPath = new TargetJCRPath(CHECKPOINT_PATH);
+        this.isRunning = new AtomicBoolean(false);
+        this.rescannedAssets = new LongAdder();
+        this.skippedAssets = new LongAdder();
+        this.infectedAssets = new LongAdder();
+        this.failedAssets = new LongAdder();
+        log.info("Initialized {}", this);
+    }
+
+    @Modified
+    void configure(ClamAVRescanConfig config) {
+        this.config.set(config);
+        log.info("Configured {}", this);
+    }
+
+    /**
+     * Checks whether the version of the virus definitions database of the ClamAV daemon (clamd) has changed since the
+     * last rescan and, if so or if the last rescan hasn't been completed, rescans stored {@link Asset}s from the
+     * checkpoint on, until all of them are rescanned or the configured run duration is exceeded. Does nothing if
+     * another rescan is already running.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void rescan() {
+        if (!isRunning.compareAndSet(false, true)) {
+            log.debug("{} is already running. Skipping", this);
+            return;
+        }
+        try {
+            clamAV.version().ifPresentOrElse(
+                this::rescan, () -> log.warn("Unable to retrieve the clamd version. {} skipped", this)
+            );
+        } finally {
+            isRunning.set(false);
+        }
+    }
+
+    private void rescan(String signatureVersion) {
+        Optional<RescanCheckpoint> savedCheckpoint = checkpoint();
+        if (savedCheckpoint.isEmpty()) {
+            log.info("Recording {} as the baseline clamd version. No rescan needed", signatureVersion);
+            save(new RescanCheckpoint(signatureVersion, StringUtils.EMPTY, true), Set.of());
+            return;
+        }
+        RescanCheckpoint checkpoint = savedCheckpoint.get();
+        if (!checkpoint.signatureVersion().equals(signatureVersion)) {
+            log.info(
+                "clamd version changed from {} to {}. Rescanning stored assets", checkpoint.signatureVersion(),
+                signatureVersion
+            );
+            checkpoint = new RescanCheckpoint(signatureVersion, StringUtils.EMPTY, false);
+            removeScannedDigests();
+            save(checkpoint, Set.of());
+        }
+        if (checkpoint.isCompleted()) {
+            log.debug("Stored assets have already been rescanned under {}", signatureVersion);
+            return;
+        }
+        rescan(checkpoint);
+    }
+
+    private void rescan(RescanCheckpoint checkpoint) {
+        ClamAVRescanConfig currentConfig = config.get();
+        log.info("Rescanning stored assets from {}", checkpoint);
+        long deadlineNanos = System.nanoTime()
+            + Duration.ofSeconds(currentConfig.run_max$_$duration_seconds()).toNanos();
+        Throttle throttle = new Throttle(currentConfig.throttle_bytes$_$per$_$second());
+        int pageSize = Math.max(NumberUtils.INTEGER_ONE, currentConfig.page_size());
+        String signatureVersion = checkpoint.signatureVersion();
+        AssetsRepository assetsRepository = new AssetsRepository(fullResourceAccess);
+        String lastJCRUUID = checkpoint.lastJCRUUID();
+        long numOfRescannedInRun = NumberUtils.LONG_ZERO;
+        boolean canContinue = true;
+        boolean isCompleted;
+        List<Asset> page = assetsRepository.findAfter(lastJCRUUID, pageSize);
+        do {
+            Set<String> scannedDigests = new HashSet<>();
+            for (Asset asset : page) {
+                canContinue = System.nanoTime() < deadlineNanos
+                    && rescan(asset, signatureVersion, throttle, scannedDigests);
+                if (!canContinue) {
+                    break;
+                }
+                lastJCRUUID = asset.jcrUUID();
+                numOfRescannedInRun++;
+            }
+            page = canContinue && !page.isEmpty() ? assetsRepository.findAfter(lastJCRUUID, pageSize) : List.of();
+            isCompleted = canContinue && page.isEmpty();
+            save(new RescanCheckpoint(signatureVersion, lastJCRUUID, isCompleted), scannedDigests);
+        } while (canContinue && !isCompleted);
+        if (isCompleted) {
+            log.info("Rescanned {} stored asset(s) under {} in this run", numOfRescannedInRun, signatureVersion);
+        } else {
+            log.info("Paused rescanning stored assets after {}", lastJCRUUID);
+        }
+    }
+
+    private boolean rescan(Asset asset, String signatureVersion, Throttle throttle, Set<String> scannedDigests) {
+        Optional<String> sha256Nullable = Optional.ofNullable(asset.assetMetadata().all().get(AssetMetadata.PN_SHA256));
+        boolean isAlreadyScanned = sha256Nullable.filter(
+            sha256 -> scannedDigests.contains(sha256)
+                || scannedVersion(sha256).filter(signatureVersion::equals).isPresent()
+                || clamAV.scanResultCache().get(sha256).isPresent()
+        ).isPresent();
+        if (isAlreadyScanned) {
+            log.trace("{} has already been scanned under {}. Skipping", asset, signatureVersion);
+            skippedAssets.increment();
+            sha256Nullable.ifPresent(scannedDigests::add);
+            return true;
+        }
+        long sizeBytes = asset.assetFile().size().bytes();
+        ScanResult scanResult = clamAV.scan(asset.assetFile());
+        switch (scanResult) {
+            case Clean _ -> rescannedAssets.increment();
+            case Infected infected -> {
+                rescannedAssets.increment();
+                infectedAssets.increment();
+                record(asset, infected, signatureVersion);
+            }
+            case Failed failed -> {
+                if (!clamAV.ping()) {
+                    log.warn("clamd became unreachable while rescanning {}: {}", asset, failed.summary());
+                    return false;
+                }
+                log.warn("Unable to rescan {}: {}", asset, failed.summary());
+                failedAssets.increment();
+            }
+        }
+        if (!(scanResult instanceof Failed)) {
+            sha256Nullable.ifPresent(scannedDigests::add);
+        }
+        return throttle.await(sizeBytes);
+    }
+
+    private JCRPath scannedDigestPath(String sha256) {
+        return new TargetJCRPath(
+            "%s/%s/%s".formatted(
+                SCANNED_DIGESTS_PATH, StringUtils.left(sha256, DIGEST_SHARD_LENGTH), sha256
+            )
+        );
+    }
+
+    private Optional<String> scannedVersion(String sha256) {
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            return Optional.ofNullable(resourceResolver.getResource(scannedDigestPath(sha256).get()))
+                .map(resource -> resource.getValueMap().get(PN_SIGNATURE_VERSION, String.class));
+        }
+    }
+
+    private void removeScannedDigests() {
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            Optional<Resource> scannedDigestsNullable = Optional.ofNullable(
+                resourceResolver.getResource(SCANNED_DIGESTS_PATH)
+            );
+            if (scannedDigestsNullable.isEmpty()) {
+                return;
+            }
+            Resource scannedDigests = scannedDigestsNullable.get();
+            long numOfRemoved = NumberUtils.LONG_ZERO;
+            for (String shardPath : childPaths(scannedDigests)) {
+                numOfRemoved += removeInBatches(shardPath, resourceResolver);
+            }
+            resourceResolver.delete(scannedDigests);
+            resourceResolver.commit();
+            log.debug("Removed {} record(s) of content scanned under previous versions", numOfRemoved);
+        } catch (PersistenceException exception) {
+            log.error("Unable to remove records of content scanned under previous versions", exception);
+        }
+    }
+
+    private List<String> childPaths(Resource resource) {
+        List<String> childPaths = new ArrayList<>();
+        resource.listChildren().forEachRemaining(child -> childPaths.add(child.getPath()));
+        return childPaths;
+    }
+
+    private long removeInBatches(String shardPath, ResourceResolver resourceResolver) throws PersistenceException {
+        long numOfRemoved = NumberUtils.LONG_ZERO;
+        List<Resource> batch = nextBatch(shardPath, resourceResolver);
+        while (!batch.isEmpty()) {
+            for (Resource scannedDigest : batch) {
+                resourceResolver.delete(scannedDigest);
+            }
+            resourceResolver.commit();
+            numOfRemoved += batch.size();
+            batch = nextBatch(shardPath, resourceResolver);
+        }
+        return numOfRemoved;
+    }
+
+    private List<Resource> nextBatch(String shardPath, ResourceResolver resourceResolver) {
+        List<Resource> batch = new ArrayList<>(BATCH_SIZE);
+        Optional.ofNullable(resourceResolver.getResource(shardPath)).map(Resource::listChildren).ifPresent(
+            children -> {
+                while (children.hasNext() && batch.size() < BATCH_SIZE) {
+                    batch.add(children.next());
+                }
+            }
+        );
+        return batch;
+    }
+
+    private void record(Asset asset, Infected infected, String signatureVersion) {
+        String assetPath = asset.jcrPath().get();
+        log.warn("Rescan under {} found {} infected: {}", signatureVersion, assetPath, infected.summary());
+        entryTrampolineNullable.ifPresent(
+            entryTrampoline -> entryTrampoline.submitForSaving(
+                new Entry(
+                    "system", assetPath, LocalDateTime.now(),
+                    Map.of(
+                        "assetUUID", asset.jcrUUID(),
+                        "signatureName", infected.signatureName(),
+                        "signatureVersion", signatureVersion
+                    )
+                )
+            )
+        );
+    }
+
+    private Optional<RescanCheckpoint> checkpoint() {
+        NodeProperties nodeProperties = new SimpleNode(checkpointPath, fullResourceAccess).nodeProperties();
+        return nodeProperties.propertyValue(PN_SIGNATURE_VERSION, DefaultProperties.STRING_CLASS).map(
+            signatureVersion -> new RescanCheckpoint(
+                signatureVersion,
+                nodeProperties.propertyValue(PN_LAST_JCR_UUID, DefaultProperties.STRING_CLASS)
+                    .orElse(StringUtils.EMPTY),
+                nodeProperties.propertyValue(PN_IS_COMPLETED, DefaultProperties.BOOLEAN_CLASS).orElse(false)
+            )
+        );
+    }
+
+    private void save(RescanCheckpoint checkpoint, Set<String> scannedDigests) {
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            String signatureVersion = checkpoint.signatureVersion();
+            for (String sha256 : scannedDigests) {
+                modifiableValueMap(scannedDigestPath(sha256), resourceResolver).put(
+                    PN_SIGNATURE_VERSION, signatureVersion
+                );
+            }
+            modifiableValueMap(checkpointPath, resourceResolver).putAll(
+                Map.of(
+                    PN_SIGNATURE_VERSION, signatureVersion,
+                    PN_LAST_JCR_UUID, checkpoint.lastJCRUUID(),
+                    PN_IS_COMPLETED, checkpoint.isCompleted()
+                )
+            );
+            resourceResolver.commit();
+            log.debug("Saved {} with {} record(s) of scanned content", checkpoint, scannedDigests.size());
+        } catch (PersistenceException exception) {
+            log.error("Unable to save {}", checkpoint, exception);
+        }
+    }
+
+    private ModifiableValueMap modifiableValueMap(JCRPath jcrPath, ResourceResolver resourceResolver)
+        throws PersistenceException {
+        Resource resource = ResourceUtil.getOrCreateResource(
+            resourceResolver, jcrPath.get(), Map.of(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED),
+            null, false
+        );
+        return Optional.ofNullable(resource.adaptTo(ModifiableValueMap.class)).orElseThrow(
+            () -> new PersistenceException("Unable to modify %s".formatted(resource))
+        );
+    }
+
+    @Override
+    public JobResult process(Job job) {
+        rescan();
+        return JobResult.OK;
+    }
+
+    @JsonProperty
+    boolean isRunning() {
+        return isRunning.get();
+    }
+
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_ABSENT)
+    Optional<RescanCheckpoint> lastCheckpoint() {
+        return checkpoint();
+    }
+
+    @JsonProperty
+    long rescannedAssets() {
+        return rescannedAssets.sum();
+    }
+
+    @JsonProperty
+    long skippedAssets() {
+        return skippedAssets.sum();
+    }
+
+    @JsonProperty
+    long infectedAssets() {
+        return infectedAssets.sum();
+    }
+
+    @JsonProperty
+    long failedAssets() {
+        return failedAssets.sum();
+    }
+
+    @Override
+    public String name() {
+        return ClamAVRescan.class.getName();
+    }
+
+    @SneakyThrows
+    @Override
+    public String asJSON() {
+        return new ObjectMapper().registerModule(new Jdk8Module()).writeValueAsString(this);
+    }
+
+    /**
+     * Position of a rescan of stored {@link Asset}s.
+     *
+     * @param signatureVersion version of the virus definitions database of the ClamAV daemon (clamd) under which the
+     *                         stored {@link Asset}s are rescanned
+     * @param lastJCRUUID      {@link Asset#jcrUUID()} of the last rescanned {@link Asset}; empty if no {@link Asset}
+     *                         has been rescanned yet
+     * @param isCompleted      {@code true} if all stored {@link Asset}s have been rescanned; {@code false} otherwise
+     */
+    record RescanCheckpoint(
+        @JsonProperty String signatureVersion, @JsonProperty String lastJCRUUID, @JsonProperty boolean isCompleted
+    ) {
+    }
+
+    private static final class Throttle {
+
+        private static final long MILLIS_PER_SECOND = 1_000L;
+
+        private final long maxBytesPerSecond;
+        private final long startNanos;
+        private long streamedBytes;
+
+        private Throttle(long maxBytesPerSecond) {
+            this.maxBytesPerSecond = maxBytesPerSecond;
+            this.startNanos = System.nanoTime();
+            this.streamedBytes = NumberUtils.LONG_ZERO;
+        }
+
+        @SuppressWarnings("squid:S1166")
+        private boolean await(long bytes) {
+            streamedBytes += bytes;
+            if (maxBytesPerSecond <= NumberUtils.LONG_ZERO) {
+                return true;
+            }
+            Duration expectedElapsed = Duration.ofMillis(streamedBytes * MILLIS_PER_SECOND / maxBytesPerSecond);
+            Duration actualElapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+            Duration delay = expectedElapsed.minus(actualElapsed);
+            if (delay.isNegative() || delay.isZero()) {
+                return true;
+            }
+            try {
+                Thread.sleep(delay);
+                return true;
+            } catch (InterruptedException exception) {
+                log.debug("Interrupted while throttling a rescan", exception);
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import eu.ciechanowiec.sling.rocket.job.SchedulableJobConsumer;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Configuration for {@link ClamAVRescan}.
+ */
+@ObjectClassDefinition
+public @interface ClamAVRescanConfig {
+
+    /**
+     * Value for the {@link SchedulableJobConsumer#CRON_EXPRESSION_PROPERTY} that determines the schedule cycle of how
+     * often the version of the virus definitions database of the ClamAV daemon (clamd) is checked and a pending rescan
+     * of stored assets is continued.
+     *
+     * @return value for the {@link SchedulableJobConsumer#CRON_EXPRESSION_PROPERTY} that determines the schedule cycle
+     * of how often the version of the virus definitions database of the ClamAV daemon (clamd) is checked and a pending
+     * rescan of stored assets is continued
+     */
+    @AttributeDefinition(
+        name = "Quartz Cron Expression",
+        description = "Determines how often the version of the virus definitions database of the ClamAV daemon "
+            + "(clamd) is checked and a pending rescan of stored assets is continued",
+        defaultValue = ClamAVRescan.DEFAULT_CRON_EXPRESSION,
+        type = AttributeType.STRING
+    )
+    @SuppressWarnings({"squid:S100", "squid:S125"})
+    String schedule$_$cycle_cron$_$expression() default ClamAVRescan.DEFAULT_CRON_EXPRESSION;
+
+    /**
+     * Number of stored assets rescanned between two consecutive checkpoints of the progress of a rescan.
+     *
+     * @return number of stored assets rescanned between two consecutive checkpoints of the progress of a rescan
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Page Size",
+        description = "Number of stored assets rescanned between two consecutive checkpoints of the progress of a "
+            + "rescan.",
+        defaultValue = "100",
+        type = AttributeType.INTEGER,
+        min = "1"
+    )
+    int page_size() default 100;
+
+    /**
+     * Maximum number of bytes per second streamed to the ClamAV daemon (clamd) during a rescan.
+     *
+     * @return maximum number of bytes per second streamed to the ClamAV daemon (clamd) during a rescan; if not
+     * positive, the rescan isn't throttled
+     */
+    @SuppressWarnings({"MagicNumber", "squid:S100"})
+    @AttributeDefinition(
+        name = "Throttle (bytes per second)",
+        description = "Maximum number of bytes per second streamed to the ClamAV daemon (clamd) during a rescan, so "
+            + "that the rescan doesn't starve scans of newly uploaded content. If set to 0, the rescan isn't "
+            + "throttled.",
+        defaultValue = "10485760",
+        type = AttributeType.LONG,
+        min = "0"
+    )
+    long throttle_bytes$_$per$_$second() default 10_485_760L;
+
+    /**
+     * Maximum number of seconds a single run of a rescan lasts. A rescan that isn't finished within that time is
+     * continued from the checkpoint by the next run.
+     *
+     * @return maximum number of seconds a single run of a rescan lasts
+     */
+    @SuppressWarnings({"MagicNumber", "squid:S100"})
+    @AttributeDefinition(
+        name = "Max Run Duration (seconds)",
+        description = "Maximum number of seconds a single run of a rescan lasts. A rescan that isn't finished within "
+            + "that time is continued from the checkpoint by the next run.",
+        defaultValue = "600",
+        type = AttributeType.LONG,
+        min = "1"
+    )
+    long run_max$_$duration_seconds() default 600L;
+}
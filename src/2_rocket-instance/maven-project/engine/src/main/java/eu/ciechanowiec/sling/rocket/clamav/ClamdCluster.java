@@ -0,0 +1,211 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Set of {@link ClamdEndpoint}s that commands are balanced across.
+ * <p>
+ * Every {@link ClamdPool.Exchange} is performed with the available {@link ClamdEndpoint} that has the fewest
+ * outstanding exchanges, where ties are broken randomly. If no connection with the selected {@link ClamdEndpoint} can
+ * be established, the {@link ClamdPool.Exchange} is retried with the next available {@link ClamdEndpoint}, so that
+ * every {@link ClamdEndpoint} is tried at most once. Exchanges that failed after they have been started aren't
+ * retried, because the content they were streaming might have been consumed already.
+ * <p>
+ * The version of the ClamAV daemons (clamd) and of their virus definitions databases is reported only if all available
+ * {@link ClamdEndpoint}s agree on it, so that a version doesn't flip back and forth depending on which
+ * {@link ClamdEndpoint} happens to be asked while the virus definitions databases are being updated one by one.
+ */
+@Slf4j
+@ToString
+final class ClamdCluster implements AutoCloseable {
+
+    private static final String UNIX_SCHEME = "unix:";
+    private static final char PORT_SEPARATOR = ':';
+
+    private final List<ClamdEndpoint> endpoints;
+    @ToString.Exclude
+    private final LongAdder failovers;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param config {@link ClamAVConfig} that describes the ClamAV daemons (clamd) to balance commands across
+     */
+    ClamdCluster(ClamAVConfig config) {
+        List<SocketAddress> addresses = Optional.ofNullable(config.clamav_endpoints())
+            .stream()
+            .flatMap(Arrays::stream)
+            .map(endpoint -> parse(endpoint, config.clamav_port()))
+            .flatMap(Optional::stream)
+            .distinct()
+            .toList();
+        this.endpoints = (addresses.isEmpty() ? List.of(defaultAddress(config)) : addresses)
+            .stream()
+            .map(address -> new ClamdEndpoint(config, address))
+            .toList();
+        this.failovers = new LongAdder();
+    }
+
+    private SocketAddress defaultAddress(ClamAVConfig config) {
+        String unixSocketPath = config.clamav_unix$_$socket_path();
+        return unixSocketPath.isBlank()
+            ? InetSocketAddress.createUnresolved(config.clamav_host(), config.clamav_port())
+            : UnixDomainSocketAddress.of(unixSocketPath);
+    }
+
+    private Optional<SocketAddress> parse(String endpoint, int defaultPort) {
+        String trimmed = StringUtils.trimToEmpty(endpoint);
+        try {
+            if (trimmed.startsWith(UNIX_SCHEME)) {
+                String path = trimmed.substring(UNIX_SCHEME.length());
+                return path.isBlank() ? invalid(endpoint) : Optional.of(UnixDomainSocketAddress.of(path));
+            }
+            int portSeparatorIndex = trimmed.lastIndexOf(PORT_SEPARATOR);
+            boolean hasPort = portSeparatorIndex > trimmed.lastIndexOf(']');
+            String host = StringUtils.strip(hasPort ? trimmed.substring(0, portSeparatorIndex) : trimmed, "[]");
+            int port = hasPort ? Integer.parseInt(trimmed.substring(portSeparatorIndex + 1)) : defaultPort;
+            return host.isBlank() ? invalid(endpoint) : Optional.of(InetSocketAddress.createUnresolved(host, port));
+        } catch (IllegalArgumentException exception) {
+            log.warn("Invalid clamd endpoint: '{}'", endpoint, exception);
+            return Optional.empty();
+        }
+    }
+
+    private Optional<SocketAddress> invalid(String endpoint) {
+        log.warn("Invalid clamd endpoint: '{}'", endpoint);
+        return Optional.empty();
+    }
+
+    /**
+     * Performs the passed {@link ClamdPool.Exchange} with the available {@link ClamdEndpoint} that has the fewest
+     * outstanding exchanges, failing over to other available {@link ClamdEndpoint}s if no connection can be
+     * established.
+     *
+     * @param exchange {@link ClamdPool.Exchange} to perform
+     * @param <T>      type of the result of the {@link ClamdPool.Exchange}
+     * @return result of the {@link ClamdPool.Exchange}
+     * @throws ClamdUnavailableException if no connection with any available {@link ClamdEndpoint} can be established
+     * @throws IOException               if the {@link ClamdPool.Exchange} fails
+     */
+    <T> T exchange(ClamdPool.Exchange<T> exchange) throws IOException {
+        return exchange(exchange, result -> false);
+    }
+
+    /**
+     * Performs the passed {@link ClamdPool.Exchange} with the available {@link ClamdEndpoint} that has the fewest
+     * outstanding exchanges, failing over to other available {@link ClamdEndpoint}s if no connection can be
+     * established. Results recognized by the passed {@link Predicate} are recorded as failures in the circuit breaker
+     * of the selected {@link ClamdEndpoint}, although they are still returned.
+     *
+     * @param exchange  {@link ClamdPool.Exchange} to perform
+     * @param isFailure {@link Predicate} that recognizes results of failed exchanges
+     * @param <T>       type of the result of the {@link ClamdPool.Exchange}
+     * @return result of the {@link ClamdPool.Exchange}
+     * @throws ClamdUnavailableException if no connection with any available {@link ClamdEndpoint} can be established
+     * @throws IOException               if the {@link ClamdPool.Exchange} fails
+     */
+    <T> T exchange(ClamdPool.Exchange<T> exchange, Predicate<? super T> isFailure) throws IOException {
+        Set<ClamdEndpoint> attempted = new HashSet<>();
+        List<ClamdUnavailableException> failures = new ArrayList<>();
+        Optional<ClamdEndpoint> endpoint = select(attempted);
+        while (endpoint.isPresent()) {
+            ClamdEndpoint selected = endpoint.orElseThrow();
+            attempted.add(selected);
+            try {
+                return selected.exchange(exchange, isFailure);
+            } catch (ClamdUnavailableException exception) {
+                log.debug("Unable to connect to {}", selected, exception);
+                failures.add(exception);
+            }
+            endpoint = select(attempted);
+            endpoint.ifPresent(next -> failovers.increment());
+        }
+        ClamdUnavailableException exception = new ClamdUnavailableException(
+            "No clamd endpoint is available among %s".formatted(endpoints)
+        );
+        failures.forEach(exception::addSuppressed);
+        throw exception;
+    }
+
+    /**
+     * Retrieves the version of the ClamAV daemons (clamd) and of their virus definitions databases from all available
+     * {@link ClamdEndpoint}s.
+     *
+     * @return {@link Optional} containing the version all available {@link ClamdEndpoint}s agree on; empty
+     * {@link Optional} is returned if they disagree or if the version can't be retrieved from any of them
+     */
+    Optional<String> version() {
+        Set<String> versions = new HashSet<>();
+        for (ClamdEndpoint endpoint : endpoints) {
+            if (endpoint.isAvailable()) {
+                try {
+                    endpoint.exchange(ClamdConnection::version, Optional::isEmpty).ifPresent(versions::add);
+                } catch (IOException exception) {
+                    log.debug("Unable to retrieve the clamd version from {}", endpoint, exception);
+                }
+            }
+        }
+        if (versions.size() > NumberUtils.INTEGER_ONE) {
+            log.warn("clamd endpoints disagree on the version: {}. Treating it as unknown", versions);
+            return Optional.empty();
+        }
+        return versions.stream().findFirst();
+    }
+
+    private Optional<ClamdEndpoint> select(Set<ClamdEndpoint> attempted) {
+        int numOfEndpoints = endpoints.size();
+        int start = numOfEndpoints > NumberUtils.INTEGER_ONE ? ThreadLocalRandom.current().nextInt(numOfEndpoints) : 0;
+        ClamdEndpoint selected = null;
+        for (int offset = 0; offset < numOfEndpoints; offset++) {
+            ClamdEndpoint candidate = endpoints.get((start + offset) % numOfEndpoints);
+            boolean isCandidate = !attempted.contains(candidate)
+                && (selected == null || candidate.outstanding() < selected.outstanding())
+                && candidate.isAvailable();
+            if (isCandidate) {
+                selected = candidate;
+            }
+        }
+        return Optional.ofNullable(selected);
+    }
+
+    /**
+     * {@link ClamdEndpoint}s of this {@link ClamdCluster}.
+     *
+     * @return {@link ClamdEndpoint}s of this {@link ClamdCluster}
+     */
+    List<ClamdEndpoint> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Number of times an exchange was retried with another {@link ClamdEndpoint}, because no connection with the
+     * previously selected one could be established.
+     *
+     * @return number of times an exchange was retried with another {@link ClamdEndpoint}
+     */
+    long failovers() {
+        return failovers.sum();
+    }
+
+    @Override
+    public void close() {
+        endpoints.forEach(ClamdEndpoint::close);
+    }
+}
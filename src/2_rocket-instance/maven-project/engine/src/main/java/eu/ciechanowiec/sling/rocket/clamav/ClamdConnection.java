@@ -3,25 +3,42 @@ package eu.ciechanowiec.sling.rocket.clamav;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Optional;
 
 /**
- * Single {@link Socket} connection to a ClamAV daemon (clamd) over which exactly one command can be exchanged.
+ * Single {@link SocketChannel} connection to a ClamAV daemon (clamd), either over TCP or over a unix domain socket.
  * <p>
  * The commands are sent in the {@code z}-style of the clamd protocol, i.e. both the commands and the replies are
- * delimited with a {@code NUL} character.
+ * delimited with a {@code NUL} character. By default, exactly one command can be exchanged over the connection. After
+ * {@link ClamdConnection#startSession()} is called, the connection is switched into the {@code IDSESSION} mode of
+ * the clamd protocol, so that multiple commands can be exchanged one after another over the same connection.
+ * <p>
+ * The {@link SocketChannel} is operated in the non-blocking mode with a dedicated {@link Selector}, so that the
+ * configured timeouts are enforced for every single read and write. The buffers used for the exchange are allocated
+ * once per connection and reused for all commands: every chunk of the scanned content is written together with its
+ * length header in a single gathering write, and replies are read into a buffer instead of byte by byte.
+ * <p>
+ * Every scan is traced with a {@link ScanTrace}, which tells apart the time spent on streaming the scanned content
+ * from the time spent on waiting for the verdict of the ClamAV daemon (clamd).
  */
 @Slf4j
 final class ClamdConnection implements AutoCloseable {
 
     private static final int CHUNK_SIZE = 65_536;
+    private static final int REPLY_BUFFER_SIZE = 4_096;
     private static final int END_OF_STREAM = -1;
     private static final int NUL = 0;
     private static final int STREAM_TERMINATOR = 0;
@@ -29,37 +46,115 @@ final class ClamdConnection implements AutoCloseable {
     private static final byte[] INSTREAM_COMMAND = "zINSTREAM\0".getBytes(StandardCharsets.US_ASCII);
     private static final byte[] PING_COMMAND = "zPING\0".getBytes(StandardCharsets.US_ASCII);
     private static final byte[] VERSION_COMMAND = "zVERSION\0".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDSESSION_COMMAND = "zIDSESSION\0".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END_COMMAND = "zEND\0".getBytes(StandardCharsets.US_ASCII);
+    private static final String SESSION_REPLY_PREFIX_FORMAT = "%d: ";
 
-    private final Socket socket;
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final SelectionKey selectionKey;
+    private final int readTimeoutMillis;
+    private final ByteBuffer lengthHeader;
+    private final ByteBuffer chunk;
+    private final byte[] chunkTransfer;
+    private final ByteBuffer replyBuffer;
+    private boolean isInSession;
+    private boolean isReusable;
+    private boolean isLastScanFailedInClamd;
+    private int lastCommandID;
+    private long streamedBytes;
+    private long streamEndNanos;
+    private ScanTrace lastScanTrace;
 
     /**
-     * Constructs an instance of this class, connected to the ClamAV daemon (clamd) at the passed host and port.
+     * Constructs an instance of this class, connected to the ClamAV daemon (clamd) at the passed address.
      *
-     * @param host                 host of the ClamAV daemon (clamd) to connect to
-     * @param port                 TCP port of the ClamAV daemon (clamd) to connect to
+     * @param address              address of the ClamAV daemon (clamd) to connect to; if it's a
+     *                             {@link UnixDomainSocketAddress}, the connection is established over a unix domain
+     *                             socket, otherwise over TCP
      * @param connectTimeoutMillis maximum time in milliseconds to wait for the connection to be established
-     * @param readTimeoutMillis    maximum time in milliseconds to wait for every single read to complete
+     * @param readTimeoutMillis    maximum time in milliseconds to wait for every single read or write to complete
      * @throws IOException if the connection cannot be established
      */
-    ClamdConnection(String host, int port, int connectTimeoutMillis, int readTimeoutMillis) throws IOException {
-        this.socket = new Socket();
+    ClamdConnection(SocketAddress address, int connectTimeoutMillis, int readTimeoutMillis) throws IOException {
+        this.channel = address instanceof UnixDomainSocketAddress
+            ? SocketChannel.open(StandardProtocolFamily.UNIX)
+            : SocketChannel.open();
+        try {
+            this.selector = Selector.open();
+        } catch (IOException exception) {
+            closeQuietly(channel);
+            throw exception;
+        }
         try {
-            this.socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
-            this.socket.setSoTimeout(readTimeoutMillis);
+            channel.configureBlocking(false);
+            this.selectionKey = channel.register(selector, 0);
+            connect(address, connectTimeoutMillis);
         } catch (IOException exception) {
-            closeQuietly();
+            closeQuietly(selector);
+            closeQuietly(channel);
             throw exception;
         }
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.lengthHeader = ByteBuffer.allocateDirect(Integer.BYTES);
+        this.chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        this.chunkTransfer = new byte[CHUNK_SIZE];
+        this.replyBuffer = ByteBuffer.allocateDirect(REPLY_BUFFER_SIZE).flip();
+        this.lastScanTrace = new ScanTrace(0, Duration.ZERO, Duration.ZERO);
     }
 
-    private void closeQuietly() {
+    private void connect(SocketAddress address, int connectTimeoutMillis) throws IOException {
+        boolean isConnected = channel.connect(address);
+        while (!isConnected) {
+            awaitReadiness(SelectionKey.OP_CONNECT, connectTimeoutMillis);
+            isConnected = channel.finishConnect();
+        }
+    }
+
+    private void awaitReadiness(int operation, int timeoutMillis) throws IOException {
+        selectionKey.interestOps(operation);
+        int numOfReadyChannels = selector.select(timeoutMillis);
+        selector.selectedKeys().clear();
+        selectionKey.interestOps(0);
+        if (numOfReadyChannels == 0) {
+            throw new SocketTimeoutException("Timed out after %d ms while talking to clamd".formatted(timeoutMillis));
+        }
+    }
+
+    private void closeQuietly(AutoCloseable closeable) {
         try {
-            socket.close();
-        } catch (IOException exception) {
-            log.debug("Unable to close the socket", exception);
+            closeable.close();
+        } catch (Exception exception) {
+            log.debug("Unable to close {}", closeable, exception);
         }
     }
 
+    /**
+     * Switches this {@link ClamdConnection} into the {@code IDSESSION} mode of the clamd protocol, so that multiple
+     * commands can be exchanged over it one after another. Every reply in that mode is prefixed by the ClamAV daemon
+     * (clamd) with the ID of the command it answers, which is verified and stripped by this {@link ClamdConnection}.
+     *
+     * @throws IOException if the command exchange fails
+     */
+    void startSession() throws IOException {
+        sendCommand(IDSESSION_COMMAND);
+        isInSession = true;
+        isReusable = true;
+        lastCommandID = 0;
+    }
+
+    /**
+     * Tells whether further commands can be exchanged over this {@link ClamdConnection}. It is the case only if this
+     * {@link ClamdConnection} is in the {@code IDSESSION} mode and every previous command exchange over it completed
+     * with a well-formed reply that didn't report an error.
+     *
+     * @return {@code true} if further commands can be exchanged over this {@link ClamdConnection}; {@code false}
+     * otherwise
+     */
+    boolean isReusable() {
+        return isInSession && isReusable && channel.isOpen();
+    }
+
     /**
      * Scans the content provided by the passed {@link InputStream} for viruses via the {@code INSTREAM} command.
      *
@@ -67,16 +162,60 @@ final class ClamdConnection implements AutoCloseable {
      * @return {@link ScanResult} of scanning the passed content
      */
     ScanResult scan(InputStream content) {
+        long streamStartNanos = System.nanoTime();
+        streamedBytes = 0;
+        streamEndNanos = streamStartNanos;
+        isLastScanFailedInClamd = false;
         try {
-            return requestScan(content);
+            ScanResult scanResult = toScanResult(requestScan(content));
+            isReusable = isReusable && !(scanResult instanceof Failed);
+            return scanResult;
+        } catch (UnreadableContentException exception) {
+            log.debug("Unable to read the scanned content", exception);
+            isReusable = false;
+            streamEndNanos = System.nanoTime();
+            return new Failed("Unable to read the scanned content: " + exception.getCause());
         } catch (IOException exception) {
             log.debug("Streaming the scanned content to clamd failed. A pending reply will be read", exception);
-            return readReplyQuietly()
-                .map(ClamdReply::toScanResult)
-                .orElseGet(() -> new Failed("Streaming the scanned content to clamd failed: " + exception));
+            isReusable = false;
+            streamEndNanos = System.nanoTime();
+            return readReplyQuietly().map(this::toScanResult).orElseGet(
+                () -> {
+                    isLastScanFailedInClamd = true;
+                    return new Failed("Streaming the scanned content to clamd failed: " + exception);
+                }
+            );
+        } finally {
+            lastScanTrace = new ScanTrace(
+                streamedBytes, Duration.ofNanos(streamEndNanos - streamStartNanos),
+                Duration.ofNanos(System.nanoTime() - streamEndNanos)
+            );
         }
     }
 
+    /**
+     * Tells whether the last {@link ClamdConnection#scan(InputStream)} performed over this {@link ClamdConnection}
+     * produced a {@link Failed} {@link ScanResult} because of the ClamAV daemon (clamd) or the connection with it, i.e.
+     * not because the scanned content couldn't be read or was rejected by the ClamAV daemon (clamd).
+     *
+     * @return {@code true} if the last {@link ClamdConnection#scan(InputStream)} failed because of the ClamAV daemon
+     * (clamd) or the connection with it; {@code false} otherwise
+     */
+    boolean isLastScanFailedInClamd() {
+        return isLastScanFailedInClamd;
+    }
+
+    /**
+     * Returns the {@link ScanTrace} of the last {@link ClamdConnection#scan(InputStream)} performed over this
+     * {@link ClamdConnection}.
+     *
+     * @return {@link ScanTrace} of the last {@link ClamdConnection#scan(InputStream)} performed over this
+     * {@link ClamdConnection}
+     */
+    ScanTrace lastScanTrace() {
+        return lastScanTrace;
+    }
+
     /**
      * Checks whether the ClamAV daemon (clamd) is reachable and responsive via the {@code PING} command.
      *
@@ -101,38 +240,84 @@ final class ClamdConnection implements AutoCloseable {
         return Optional.of(readReply()).filter(reply -> !reply.isEmpty());
     }
 
-    @SuppressWarnings("PMD.CloseResource")
-    private ScanResult requestScan(InputStream content) throws IOException {
-        DataOutputStream output = new DataOutputStream(socket.getOutputStream());
-        output.write(INSTREAM_COMMAND);
-        writeChunks(content, output);
-        output.writeInt(STREAM_TERMINATOR);
-        output.flush();
-        return ClamdReply.toScanResult(readReply());
+    private String requestScan(InputStream content) throws IOException {
+        sendCommand(INSTREAM_COMMAND);
+        writeChunks(content);
+        lengthHeader.clear().putInt(STREAM_TERMINATOR).flip();
+        writeFully(lengthHeader);
+        streamEndNanos = System.nanoTime();
+        return readReply();
     }
 
-    private void writeChunks(InputStream content, DataOutputStream output) throws IOException {
-        byte[] buffer = new byte[CHUNK_SIZE];
-        int numOfReadBytes = content.read(buffer);
+    private ScanResult toScanResult(String reply) {
+        ScanResult scanResult = ClamdReply.toScanResult(reply);
+        isLastScanFailedInClamd = scanResult instanceof Failed && !ClamdReply.isContentRejection(reply);
+        return scanResult;
+    }
+
+    private void writeChunks(InputStream content) throws IOException {
+        int numOfReadBytes = readChunk(content);
         while (numOfReadBytes != END_OF_STREAM) {
             if (numOfReadBytes > 0) {
-                output.writeInt(numOfReadBytes);
-                output.write(buffer, 0, numOfReadBytes);
+                lengthHeader.clear().putInt(numOfReadBytes).flip();
+                chunk.clear().put(chunkTransfer, 0, numOfReadBytes).flip();
+                writeFully(lengthHeader, chunk);
+                streamedBytes += numOfReadBytes;
+            }
+            numOfReadBytes = readChunk(content);
+        }
+    }
+
+    private int readChunk(InputStream content) throws UnreadableContentException {
+        try {
+            return content.read(chunkTransfer);
+        } catch (IOException exception) {
+            throw new UnreadableContentException(exception);
+        }
+    }
+
+    private void writeFully(ByteBuffer... buffers) throws IOException {
+        while (Arrays.stream(buffers).anyMatch(ByteBuffer::hasRemaining)) {
+            long numOfWrittenBytes = channel.write(buffers);
+            if (numOfWrittenBytes == 0) {
+                awaitReadiness(SelectionKey.OP_WRITE, readTimeoutMillis);
             }
-            numOfReadBytes = content.read(buffer);
         }
     }
 
-    @SuppressWarnings("PMD.CloseResource")
     private String readReply() throws IOException {
-        InputStream input = socket.getInputStream();
         ByteArrayOutputStream replyBytes = new ByteArrayOutputStream();
-        int singleByte = input.read();
-        while (singleByte != END_OF_STREAM && singleByte != NUL) {
-            replyBytes.write(singleByte);
-            singleByte = input.read();
+        boolean isReplyComplete = false;
+        while (!isReplyComplete && (replyBuffer.hasRemaining() || fillReplyBuffer())) {
+            byte singleByte = replyBuffer.get();
+            isReplyComplete = singleByte == NUL;
+            if (!isReplyComplete) {
+                replyBytes.write(singleByte);
+            }
+        }
+        String reply = replyBytes.toString(StandardCharsets.UTF_8).strip();
+        return isInSession ? withoutSessionPrefix(reply) : reply;
+    }
+
+    private boolean fillReplyBuffer() throws IOException {
+        replyBuffer.clear();
+        int numOfReadBytes = channel.read(replyBuffer);
+        while (numOfReadBytes == 0) {
+            awaitReadiness(SelectionKey.OP_READ, readTimeoutMillis);
+            numOfReadBytes = channel.read(replyBuffer);
         }
-        return replyBytes.toString(StandardCharsets.UTF_8).strip();
+        replyBuffer.flip();
+        return numOfReadBytes != END_OF_STREAM;
+    }
+
+    private String withoutSessionPrefix(String reply) {
+        String expectedPrefix = SESSION_REPLY_PREFIX_FORMAT.formatted(lastCommandID);
+        if (reply.startsWith(expectedPrefix)) {
+            return reply.substring(expectedPrefix.length()).strip();
+        }
+        log.debug("Reply '{}' doesn't answer command #{} of the clamd session", reply, lastCommandID);
+        isReusable = false;
+        return reply;
     }
 
     private Optional<String> readReplyQuietly() {
@@ -144,15 +329,31 @@ final class ClamdConnection implements AutoCloseable {
         }
     }
 
-    @SuppressWarnings("PMD.CloseResource")
     private void sendCommand(byte[] command) throws IOException {
-        OutputStream output = socket.getOutputStream();
-        output.write(command);
-        output.flush();
+        writeFully(ByteBuffer.wrap(command));
+        lastCommandID++;
     }
 
     @Override
     public void close() throws IOException {
-        socket.close();
+        if (isReusable()) {
+            try {
+                sendCommand(END_COMMAND);
+            } catch (IOException exception) {
+                log.debug("Unable to end the clamd session", exception);
+            }
+        }
+        closeQuietly(selector);
+        channel.close();
+    }
+
+    /**
+     * Thrown when the scanned content cannot be read, so that the failure isn't caused by the ClamAV daemon (clamd).
+     */
+    private static final class UnreadableContentException extends IOException {
+
+        private UnreadableContentException(IOException cause) {
+            super(cause);
+        }
     }
 }
@@ -0,0 +1,246 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Single ClamAV daemon (clamd) among those used by a {@link ClamAV}, together with its {@link ClamdPool} and its
+ * circuit breaker.
+ * <p>
+ * The circuit breaker is closed as long as commands are exchanged with the ClamAV daemon (clamd) successfully. An
+ * exchange fails if it throws an {@link IOException} or if its result is recognized as a failure of the ClamAV daemon
+ * (clamd), e.g. a {@link Failed} {@link ScanResult} due to a broken connection or an error reply, or an unsuccessful
+ * {@code PING}. {@link Failed} {@link ScanResult}s caused by the scanned content, e.g. by content that cannot be read
+ * or exceeds the maximum allowed content size, aren't failures of the ClamAV daemon (clamd). After the configured
+ * number of consecutive failed exchanges, the circuit breaker opens and the {@link ClamdEndpoint} isn't used anymore.
+ * Once the configured open duration elapses, the circuit breaker becomes half-open: the ClamAV daemon (clamd) is
+ * probed with a {@code PING} command by a single caller, and the circuit breaker is closed again if the probe succeeds
+ * or reopened otherwise.
+ */
+@Slf4j
+@ToString
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+final class ClamdEndpoint implements AutoCloseable {
+
+    private final SocketAddress address;
+    @ToString.Exclude
+    private final ClamdPool pool;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final AtomicInteger outstandingExchanges;
+    @ToString.Exclude
+    private final LongAdder exchanges;
+    @ToString.Exclude
+    private final LongAdder failedExchanges;
+    private CircuitState circuitState;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param config  {@link ClamAVConfig} that describes how to connect to the ClamAV daemon (clamd) and how the
+     *                circuit breaker of the constructed {@link ClamdEndpoint} should behave
+     * @param address address of the ClamAV daemon (clamd) represented by the constructed {@link ClamdEndpoint}
+     */
+    ClamdEndpoint(ClamAVConfig config, SocketAddress address) {
+        this.address = address;
+        this.pool = new ClamdPool(config, address);
+        this.failureThreshold = Math.max(NumberUtils.INTEGER_ONE, config.clamav_circuit_failure$_$threshold());
+        this.openDuration = Duration.ofMillis(Math.max(NumberUtils.LONG_ZERO, config.clamav_circuit_open$_$duration()));
+        this.outstandingExchanges = new AtomicInteger();
+        this.exchanges = new LongAdder();
+        this.failedExchanges = new LongAdder();
+        this.circuitState = CircuitState.CLOSED;
+        this.consecutiveFailures = NumberUtils.INTEGER_ZERO;
+        this.openedAtNanos = NumberUtils.LONG_ZERO;
+    }
+
+    /**
+     * Circuit breaker state of a {@link ClamdEndpoint}.
+     */
+    enum CircuitState {
+
+        /**
+         * The {@link ClamdEndpoint} is used.
+         */
+        CLOSED,
+
+        /**
+         * The {@link ClamdEndpoint} isn't used due to consecutive failures.
+         */
+        OPEN,
+
+        /**
+         * The {@link ClamdEndpoint} is being probed before it's used again.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Performs the passed {@link ClamdPool.Exchange} over the {@link ClamdPool} of this {@link ClamdEndpoint} and
+     * records its outcome in the circuit breaker.
+     *
+     * @param exchange {@link ClamdPool.Exchange} to perform
+     * @param <T>      type of the result of the {@link ClamdPool.Exchange}
+     * @return result of the {@link ClamdPool.Exchange}
+     * @throws ClamdUnavailableException if no connection with the ClamAV daemon (clamd) can be established, so that the
+     *                                   {@link ClamdPool.Exchange} hasn't been started
+     * @throws IOException               if the {@link ClamdPool.Exchange} fails
+     */
+    <T> T exchange(ClamdPool.Exchange<T> exchange) throws IOException {
+        return exchange(exchange, result -> false);
+    }
+
+    /**
+     * Performs the passed {@link ClamdPool.Exchange} over the {@link ClamdPool} of this {@link ClamdEndpoint} and
+     * records its outcome in the circuit breaker, where results recognized by the passed {@link Predicate} are recorded
+     * as failures, although they are still returned.
+     *
+     * @param exchange  {@link ClamdPool.Exchange} to perform
+     * @param isFailure {@link Predicate} that recognizes results of failed exchanges
+     * @param <T>       type of the result of the {@link ClamdPool.Exchange}
+     * @return result of the {@link ClamdPool.Exchange}
+     * @throws ClamdUnavailableException if no connection with the ClamAV daemon (clamd) can be established, so that the
+     *                                   {@link ClamdPool.Exchange} hasn't been started
+     * @throws IOException               if the {@link ClamdPool.Exchange} fails
+     */
+    <T> T exchange(ClamdPool.Exchange<T> exchange, Predicate<? super T> isFailure) throws IOException {
+        outstandingExchanges.incrementAndGet();
+        exchanges.increment();
+        try {
+            T result = pool.exchange(exchange);
+            if (isFailure.test(result)) {
+                failedExchanges.increment();
+                onFailure();
+            } else {
+                onSuccess();
+            }
+            return result;
+        } catch (IOException exception) {
+            failedExchanges.increment();
+            onFailure();
+            throw exception;
+        } finally {
+            outstandingExchanges.decrementAndGet();
+        }
+    }
+
+    /**
+     * Tells whether this {@link ClamdEndpoint} can be used. If the circuit breaker is open and its open duration has
+     * elapsed, the ClamAV daemon (clamd) is probed with a {@code PING} command by the calling thread, unless another
+     * thread is already probing it.
+     *
+     * @return {@code true} if this {@link ClamdEndpoint} can be used; {@code false} otherwise
+     */
+    boolean isAvailable() {
+        return switch (acquireState()) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> probe();
+        };
+    }
+
+    private synchronized CircuitState acquireState() {
+        if (circuitState == CircuitState.OPEN && System.nanoTime() - openedAtNanos >= openDuration.toNanos()) {
+            circuitState = CircuitState.HALF_OPEN;
+            return CircuitState.HALF_OPEN;
+        }
+        return circuitState == CircuitState.HALF_OPEN ? CircuitState.OPEN : circuitState;
+    }
+
+    private boolean probe() {
+        log.debug("Probing {}", this);
+        try {
+            boolean isReachable = pool.exchange(ClamdConnection::ping);
+            if (isReachable) {
+                onSuccess();
+            } else {
+                onFailure();
+            }
+            return isReachable;
+        } catch (IOException exception) {
+            log.debug("Probing {} failed", this, exception);
+            onFailure();
+            return false;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (circuitState != CircuitState.CLOSED) {
+            log.info("Closing the circuit breaker of {}", this);
+        }
+        circuitState = CircuitState.CLOSED;
+        consecutiveFailures = NumberUtils.INTEGER_ZERO;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        boolean isOpening = circuitState == CircuitState.HALF_OPEN
+            || (circuitState == CircuitState.CLOSED && consecutiveFailures >= failureThreshold);
+        if (isOpening) {
+            circuitState = CircuitState.OPEN;
+            openedAtNanos = System.nanoTime();
+            log.warn("Opened the circuit breaker of {} for {}", this, openDuration);
+        }
+    }
+
+    /**
+     * {@link ClamdPool} of this {@link ClamdEndpoint}.
+     *
+     * @return {@link ClamdPool} of this {@link ClamdEndpoint}
+     */
+    @JsonProperty("connectionPool")
+    ClamdPool pool() {
+        return pool;
+    }
+
+    @JsonProperty
+    String address() {
+        return address.toString();
+    }
+
+    @JsonProperty
+    synchronized CircuitState circuitState() {
+        return circuitState;
+    }
+
+    @JsonProperty
+    synchronized int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    @JsonProperty
+    int outstanding() {
+        return outstandingExchanges.get();
+    }
+
+    @JsonProperty
+    long exchanges() {
+        return exchanges.sum();
+    }
+
+    @JsonProperty
+    long failedExchanges() {
+        return failedExchanges.sum();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
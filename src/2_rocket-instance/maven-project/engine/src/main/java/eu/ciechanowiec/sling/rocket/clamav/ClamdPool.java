@@ -0,0 +1,321 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of persistent {@link ClamdConnection}s to a ClamAV daemon (clamd), each of them in the {@code IDSESSION} mode
+ * of the clamd protocol, so that subsequent commands are exchanged over already established connections instead of
+ * opening a new TCP connection for every single command.
+ * <p>
+ * If no idle {@link ClamdConnection} is available, a new one is established, but the number of open {@link
+ * ClamdConnection}s, both borrowed and idle, never exceeds {@link ClamAVConfig#clamav_pool_max$_$connections()}: once
+ * it's reached, a borrower waits for a {@link ClamdConnection} to be closed for at most {@link
+ * ClamAVConfig#clamav_connect$_$timeout()}. Upon release, a {@link ClamdConnection} is kept idle only if it is still
+ * reusable, no borrower is waiting and the number of idle {@link ClamdConnection}s doesn't exceed the configured pool
+ * size; otherwise it is closed, so that a waiting borrower can establish a new one. Idle {@link ClamdConnection}s are
+ * closed once they exceed the configured maximum idle time, so that they are never closed by the ClamAV daemon (clamd)
+ * itself due to its {@code IdleTimeout}, and are validated with a {@code PING} command before being reused.
+ */
+@Slf4j
+@ToString
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+final class ClamdPool implements AutoCloseable {
+
+    private static final Duration VALIDATION_THRESHOLD = Duration.ofSeconds(1);
+
+    @ToString.Exclude
+    private final ClamAVConfig config;
+    private final SocketAddress address;
+    @ToString.Exclude
+    private final Deque<IdleConnection> idleConnections;
+    private final AtomicInteger borrowedConnections;
+    /**
+     * One permit per open {@link ClamdConnection}, acquired before it's established and released when it's closed.
+     */
+    @ToString.Exclude
+    private final Semaphore connectionPermits;
+    private final LongAdder timedOutBorrowings;
+    private final LongAdder createdConnections;
+    private final LongAdder reusedConnections;
+    private final LongAdder failedValidations;
+    private final LongAdder discardedConnections;
+    private boolean isClosed;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param config  {@link ClamAVConfig} that describes how to connect to the ClamAV daemon (clamd) and how big the
+     *                constructed pool should be
+     * @param address address of the ClamAV daemon (clamd) to connect to
+     */
+    ClamdPool(ClamAVConfig config, SocketAddress address) {
+        this.config = config;
+        this.address = address;
+        this.idleConnections = new ArrayDeque<>();
+        this.borrowedConnections = new AtomicInteger();
+        this.connectionPermits = new Semaphore(
+            Math.max(NumberUtils.INTEGER_ONE, config.clamav_pool_max$_$connections()), true
+        );
+        this.timedOutBorrowings = new LongAdder();
+        this.createdConnections = new LongAdder();
+        this.reusedConnections = new LongAdder();
+        this.failedValidations = new LongAdder();
+        this.discardedConnections = new LongAdder();
+        this.isClosed = false;
+    }
+
+    /**
+     * Exchange of commands with a ClamAV daemon (clamd) over a {@link ClamdConnection}.
+     *
+     * @param <T> type of the result of the exchange
+     */
+    @FunctionalInterface
+    interface Exchange<T> {
+
+        /**
+         * Exchanges commands with a ClamAV daemon (clamd) over the passed {@link ClamdConnection}.
+         *
+         * @param connection {@link ClamdConnection} over which the commands should be exchanged
+         * @return result of the exchange
+         * @throws IOException if the exchange fails
+         */
+        T exchange(ClamdConnection connection) throws IOException;
+    }
+
+    /**
+     * Performs the passed {@link Exchange} over a {@link ClamdConnection} borrowed from this pool. After the
+     * {@link Exchange} is completed, the {@link ClamdConnection} is returned to this pool or closed if it isn't
+     * reusable anymore.
+     *
+     * @param exchange {@link Exchange} to perform
+     * @param <T>      type of the result of the {@link Exchange}
+     * @return result of the {@link Exchange}
+     * @throws ClamdUnavailableException if a {@link ClamdConnection} cannot be established or no
+     *                                   {@link ClamdConnection} becomes available in time, so that the
+     *                                   {@link Exchange} hasn't been started
+     * @throws IOException               if the {@link Exchange} fails
+     */
+    <T> T exchange(Exchange<T> exchange) throws IOException {
+        ClamdConnection connection = borrow();
+        borrowedConnections.incrementAndGet();
+        boolean isExchanged = false;
+        try {
+            T result = exchange.exchange(connection);
+            isExchanged = true;
+            return result;
+        } finally {
+            borrowedConnections.decrementAndGet();
+            if (isExchanged) {
+                release(connection);
+            } else {
+                discard(connection);
+            }
+        }
+    }
+
+    private ClamdConnection borrow() throws IOException {
+        Optional<IdleConnection> idleConnection = pollIdle();
+        while (idleConnection.isPresent()) {
+            IdleConnection candidate = idleConnection.get();
+            if (isValid(candidate)) {
+                reusedConnections.increment();
+                return candidate.connection();
+            }
+            discard(candidate.connection());
+            idleConnection = pollIdle();
+        }
+        acquirePermit();
+        try {
+            return create();
+        } catch (IOException exception) {
+            connectionPermits.release();
+            throw new ClamdUnavailableException("Unable to connect to clamd at %s".formatted(address), exception);
+        }
+    }
+
+    private void acquirePermit() throws ClamdUnavailableException {
+        int timeout = config.clamav_connect$_$timeout();
+        try {
+            if (!connectionPermits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                timedOutBorrowings.increment();
+                throw new ClamdUnavailableException(
+                    "No connection with clamd at %s became available within %d ms".formatted(address, timeout)
+                );
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ClamdUnavailableException(
+                "Interrupted while waiting for a connection with clamd at %s".formatted(address), exception
+            );
+        }
+    }
+
+    private boolean isValid(IdleConnection idleConnection) {
+        if (idleConnection.idleTime().compareTo(VALIDATION_THRESHOLD) <= 0) {
+            return true;
+        }
+        try {
+            boolean isValid = idleConnection.connection().ping() && idleConnection.connection().isReusable();
+            if (!isValid) {
+                failedValidations.increment();
+            }
+            return isValid;
+        } catch (IOException exception) {
+            log.debug("Validation of an idle clamd connection failed", exception);
+            failedValidations.increment();
+            return false;
+        }
+    }
+
+    private ClamdConnection create() throws IOException {
+        ClamdConnection connection = new ClamdConnection(
+            resolved(address), config.clamav_connect$_$timeout(), config.clamav_read$_$timeout()
+        );
+        try {
+            connection.startSession();
+        } catch (IOException exception) {
+            connection.close();
+            throw exception;
+        }
+        createdConnections.increment();
+        return connection;
+    }
+
+    private SocketAddress resolved(SocketAddress address) {
+        return address instanceof InetSocketAddress inetSocketAddress && inetSocketAddress.isUnresolved()
+            ? new InetSocketAddress(inetSocketAddress.getHostString(), inetSocketAddress.getPort())
+            : address;
+    }
+
+    private Optional<IdleConnection> pollIdle() {
+        List<ClamdConnection> expired;
+        Optional<IdleConnection> polled;
+        synchronized (this) {
+            expired = evictExpired();
+            polled = Optional.ofNullable(idleConnections.pollFirst());
+        }
+        expired.forEach(this::discard);
+        return polled;
+    }
+
+    private void release(ClamdConnection connection) {
+        boolean isKept = connection.isReusable() && !connectionPermits.hasQueuedThreads() && offerIdle(connection);
+        if (!isKept) {
+            discard(connection);
+        }
+    }
+
+    private synchronized boolean offerIdle(ClamdConnection connection) {
+        if (isClosed || idleConnections.size() >= config.clamav_pool_size()) {
+            return false;
+        }
+        idleConnections.offerFirst(new IdleConnection(connection, System.nanoTime()));
+        return true;
+    }
+
+    private List<ClamdConnection> evictExpired() {
+        Duration maxIdleTime = Duration.ofMillis(config.clamav_pool_max$_$idle());
+        List<ClamdConnection> expired = new ArrayList<>();
+        while (!idleConnections.isEmpty() && idleConnections.peekLast().idleTime().compareTo(maxIdleTime) > 0) {
+            expired.add(idleConnections.pollLast().connection());
+        }
+        return expired;
+    }
+
+    private void discard(ClamdConnection connection) {
+        discardedConnections.increment();
+        try {
+            connection.close();
+        } catch (IOException exception) {
+            log.debug("Unable to close a clamd connection", exception);
+        } finally {
+            connectionPermits.release();
+        }
+    }
+
+    @JsonProperty
+    int size() {
+        return config.clamav_pool_size();
+    }
+
+    @JsonProperty
+    int maxConnections() {
+        return Math.max(NumberUtils.INTEGER_ONE, config.clamav_pool_max$_$connections());
+    }
+
+    @JsonProperty
+    synchronized int idle() {
+        return idleConnections.size();
+    }
+
+    @JsonProperty
+    int borrowed() {
+        return borrowedConnections.get();
+    }
+
+    @JsonProperty
+    long created() {
+        return createdConnections.sum();
+    }
+
+    @JsonProperty
+    long reused() {
+        return reusedConnections.sum();
+    }
+
+    @JsonProperty
+    long failedValidations() {
+        return failedValidations.sum();
+    }
+
+    @JsonProperty
+    long discarded() {
+        return discardedConnections.sum();
+    }
+
+    @JsonProperty
+    long timedOutBorrowings() {
+        return timedOutBorrowings.sum();
+    }
+
+    @Override
+    public void close() {
+        List<ClamdConnection> toClose = new ArrayList<>();
+        synchronized (this) {
+            isClosed = true;
+            idleConnections.forEach(idleConnection -> toClose.add(idleConnection.connection()));
+            idleConnections.clear();
+        }
+        toClose.forEach(this::discard);
+        log.debug("Closed {}", this);
+    }
+
+    private record IdleConnection(ClamdConnection connection, long idleSinceNanos) {
+
+        private Duration idleTime() {
+            return Duration.ofNanos(System.nanoTime() - idleSinceNanos);
+        }
+    }
+}
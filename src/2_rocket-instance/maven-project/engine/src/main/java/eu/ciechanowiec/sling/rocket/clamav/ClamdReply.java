@@ -10,6 +10,7 @@ final class ClamdReply {
     private static final String CLEAN_REPLY = "stream: OK";
     private static final String FOUND_SUFFIX = " FOUND";
     private static final String STREAM_PREFIX = "stream: ";
+    private static final String SIZE_LIMIT_EXCEEDED = "size limit exceeded";
 
     private ClamdReply() {
         // No instances allowed
@@ -32,6 +33,19 @@ final class ClamdReply {
             : new Failed(failureDetails(reply));
     }
 
+    /**
+     * Tells whether the passed raw reply of a ClamAV daemon (clamd) to an {@code INSTREAM} command reports that the
+     * scanned content was rejected, e.g. due to exceeding the maximum allowed content size, rather than that the ClamAV
+     * daemon (clamd) itself failed.
+     *
+     * @param rawReply raw reply of a ClamAV daemon (clamd) to an {@code INSTREAM} command
+     * @return {@code true} if the passed raw reply reports that the scanned content was rejected; {@code false}
+     * otherwise
+     */
+    static boolean isContentRejection(String rawReply) {
+        return Strings.CI.contains(rawReply, SIZE_LIMIT_EXCEEDED);
+    }
+
     private static String signatureName(String reply) {
         String withoutSuffix = Strings.CS.removeEnd(reply, FOUND_SUFFIX);
         return Strings.CS.removeStart(withoutSuffix, STREAM_PREFIX).strip();
@@ -0,0 +1,17 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import java.io.IOException;
+
+/**
+ * Thrown when no connection with a ClamAV daemon (clamd) can be acquired, so that no command has been sent to it yet.
+ */
+class ClamdUnavailableException extends IOException {
+
+    ClamdUnavailableException(String message) {
+        super(message);
+    }
+
+    ClamdUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
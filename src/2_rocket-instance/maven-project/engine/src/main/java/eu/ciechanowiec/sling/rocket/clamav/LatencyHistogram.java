@@ -0,0 +1,155 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of {@link Duration}s recorded with a microsecond resolution.
+ * <p>
+ * Similarly to an HdrHistogram, the recorded values are counted in log-linear buckets: every power of two is split
+ * into 8 equally wide sub-buckets, so that percentiles are reported with a relative precision of 12.5% regardless of
+ * the magnitude of the recorded values, while the memory footprint of the histogram stays fixed. Recording a value
+ * never blocks, so the histogram can be written to by many threads at once. Values read while values are being
+ * recorded might not reflect the most recent recordings yet.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int NUM_OF_SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_OF_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * NUM_OF_SUB_BUCKETS;
+    private static final double MICROS_PER_MILLI = 1_000D;
+    private static final double PERCENT = 100D;
+
+    private final AtomicLongArray bucketCounts;
+    private final LongAdder totalCount;
+    private final LongAdder totalMicros;
+    private final LongAccumulator maxMicros;
+
+    /**
+     * Constructs an empty instance of this class.
+     */
+    LatencyHistogram() {
+        this.bucketCounts = new AtomicLongArray(NUM_OF_BUCKETS);
+        this.totalCount = new LongAdder();
+        this.totalMicros = new LongAdder();
+        this.maxMicros = new LongAccumulator(Math::max, 0L);
+    }
+
+    /**
+     * Records the passed {@link Duration}. Negative {@link Duration}s are recorded as zero.
+     *
+     * @param duration {@link Duration} to record
+     */
+    void record(Duration duration) {
+        long micros = Math.max(0L, duration.toNanos() / Duration.ofMicros(1).toNanos());
+        bucketCounts.incrementAndGet(bucketIndex(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < NUM_OF_SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (NUM_OF_SUB_BUCKETS - 1);
+        return (shift + 1) * NUM_OF_SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueInBucket(int bucketIndex) {
+        if (bucketIndex < NUM_OF_SUB_BUCKETS) {
+            return bucketIndex;
+        }
+        int shift = bucketIndex / NUM_OF_SUB_BUCKETS - 1;
+        int subBucket = bucketIndex % NUM_OF_SUB_BUCKETS;
+        long lowestValueInNextBucket = (long) (NUM_OF_SUB_BUCKETS + subBucket + 1) << shift;
+        return lowestValueInNextBucket > 0 ? lowestValueInNextBucket - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the value in microseconds below which the passed percentage of the recorded values falls.
+     *
+     * @param percentile percentage of the recorded values, between 0 and 100
+     * @return value in microseconds below which the passed percentage of the recorded values falls; zero is returned if
+     * no values have been recorded
+     */
+    long percentileMicros(double percentile) {
+        long count = count();
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(Math.clamp(percentile, 0D, PERCENT) / PERCENT * count));
+        long cumulativeCount = 0L;
+        for (int bucketIndex = 0; bucketIndex < NUM_OF_BUCKETS; bucketIndex++) {
+            cumulativeCount += bucketCounts.get(bucketIndex);
+            if (cumulativeCount >= rank) {
+                return Math.min(highestValueInBucket(bucketIndex), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    @ToString.Include
+    @JsonProperty
+    long count() {
+        return totalCount.sum();
+    }
+
+    @JsonProperty
+    double meanMillis() {
+        long count = count();
+        return count == 0 ? 0D : totalMicros.sum() / MICROS_PER_MILLI / count;
+    }
+
+    @JsonProperty
+    @SuppressWarnings("MagicNumber")
+    double p50Millis() {
+        return percentileMicros(50) / MICROS_PER_MILLI;
+    }
+
+    @JsonProperty
+    @SuppressWarnings("MagicNumber")
+    double p90Millis() {
+        return percentileMicros(90) / MICROS_PER_MILLI;
+    }
+
+    @JsonProperty
+    @SuppressWarnings("MagicNumber")
+    double p99Millis() {
+        return percentileMicros(99) / MICROS_PER_MILLI;
+    }
+
+    @JsonProperty
+    @SuppressWarnings("MagicNumber")
+    double p999Millis() {
+        return percentileMicros(99.9) / MICROS_PER_MILLI;
+    }
+
+    @ToString.Include
+    @JsonProperty
+    double maxMillis() {
+        return maxMicros.get() / MICROS_PER_MILLI;
+    }
+
+    /**
+     * Total of all recorded {@link Duration}s.
+     *
+     * @return total of all recorded {@link Duration}s
+     */
+    Duration total() {
+        return Duration.ofNanos(totalMicros.sum() * Duration.ofMicros(1).toNanos());
+    }
+}
@@ -0,0 +1,155 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and throughput metrics of scans performed by a {@link ClamAV}.
+ * <p>
+ * Every scan is split into three phases, each recorded in a separate {@link LatencyHistogram}:
+ * <ol>
+ *     <li><i>connect</i>: acquiring a connection with the ClamAV daemon (clamd), i.e. either reusing a pooled
+ *     connection or establishing a new one;</li>
+ *     <li><i>stream</i>: streaming the scanned content to the ClamAV daemon (clamd);</li>
+ *     <li><i>verdict</i>: waiting for the verdict of the ClamAV daemon (clamd) after the scanned content has been
+ *     streamed.</li>
+ * </ol>
+ * The total time of every scan is additionally recorded in a {@link LatencyHistogram} dedicated to the size class of
+ * the scanned content, so that it can be told how the scan time grows with the size of the scanned content. Only scans
+ * that produced a verdict, i.e. a {@link Clean} or an {@link Infected} {@link ScanResult}, are recorded.
+ */
+@ToString
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+final class ScanMetrics {
+
+    private final LatencyHistogram scanTime;
+    @ToString.Exclude
+    private final LatencyHistogram connectTime;
+    @ToString.Exclude
+    private final LatencyHistogram streamTime;
+    @ToString.Exclude
+    private final LatencyHistogram verdictTime;
+    @ToString.Exclude
+    private final Map<SizeClass, LatencyHistogram> scanTimeBySize;
+    private final LongAdder scannedBytes;
+
+    /**
+     * Constructs an empty instance of this class.
+     */
+    ScanMetrics() {
+        this.scanTime = new LatencyHistogram();
+        this.connectTime = new LatencyHistogram();
+        this.streamTime = new LatencyHistogram();
+        this.verdictTime = new LatencyHistogram();
+        Map<SizeClass, LatencyHistogram> histogramsBySize = new EnumMap<>(SizeClass.class);
+        Arrays.stream(SizeClass.values()).forEach(sizeClass -> histogramsBySize.put(sizeClass, new LatencyHistogram()));
+        this.scanTimeBySize = Collections.unmodifiableMap(histogramsBySize);
+        this.scannedBytes = new LongAdder();
+    }
+
+    /**
+     * Records a single scan.
+     *
+     * @param connectTime time spent on acquiring a connection with the ClamAV daemon (clamd) for the scan
+     * @param scanTrace   {@link ScanTrace} of the scan
+     * @param scanTime    total time of the scan
+     */
+    void record(Duration connectTime, ScanTrace scanTrace, Duration scanTime) {
+        this.scanTime.record(scanTime);
+        this.connectTime.record(connectTime);
+        this.streamTime.record(scanTrace.streamTime());
+        this.verdictTime.record(scanTrace.verdictTime());
+        scanTimeBySize.get(SizeClass.of(scanTrace.scannedBytes())).record(scanTime);
+        scannedBytes.add(scanTrace.scannedBytes());
+    }
+
+    @JsonProperty
+    LatencyHistogram scanTime() {
+        return scanTime;
+    }
+
+    @JsonProperty
+    LatencyHistogram connectTime() {
+        return connectTime;
+    }
+
+    @JsonProperty
+    LatencyHistogram streamTime() {
+        return streamTime;
+    }
+
+    @JsonProperty
+    LatencyHistogram verdictTime() {
+        return verdictTime;
+    }
+
+    @JsonProperty
+    Map<String, LatencyHistogram> scanTimeBySize() {
+        Map<String, LatencyHistogram> histogramsByLabel = new LinkedHashMap<>();
+        scanTimeBySize.forEach((sizeClass, histogram) -> histogramsByLabel.put(sizeClass.label(), histogram));
+        return histogramsByLabel;
+    }
+
+    @JsonProperty
+    long scannedBytes() {
+        return scannedBytes.sum();
+    }
+
+    /**
+     * Average number of bytes per second streamed and scanned by the ClamAV daemon (clamd), computed over the total
+     * time of all recorded scans.
+     *
+     * @return average number of bytes per second streamed and scanned by the ClamAV daemon (clamd)
+     */
+    @JsonProperty
+    @SuppressWarnings("MagicNumber")
+    double throughputBytesPerSecond() {
+        long totalScanNanos = scanTime.total().toNanos();
+        return totalScanNanos == 0 ? 0D : scannedBytes() * 1_000_000_000D / totalScanNanos;
+    }
+
+    /**
+     * Size class of the scanned content.
+     */
+    @SuppressWarnings("MagicNumber")
+    enum SizeClass {
+
+        UP_TO_64_KIB("upTo64KiB", 64L << 10),
+        UP_TO_1_MIB("upTo1MiB", 1L << 20),
+        UP_TO_16_MIB("upTo16MiB", 16L << 20),
+        UP_TO_128_MIB("upTo128MiB", 128L << 20),
+        OVER_128_MIB("over128MiB", Long.MAX_VALUE);
+
+        private final String label;
+        private final long maxBytes;
+
+        SizeClass(String label, long maxBytes) {
+            this.label = label;
+            this.maxBytes = maxBytes;
+        }
+
+        String label() {
+            return label;
+        }
+
+        static SizeClass of(long bytes) {
+            return Arrays.stream(values())
+                .filter(sizeClass -> bytes <= sizeClass.maxBytes)
+                .findFirst()
+                .orElse(OVER_128_MIB);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * In-memory cache of {@link ScanResult}s keyed by the SHA-256 digest of the scanned content and by the version of the
+ * virus definitions database of the ClamAV daemon (clamd) that produced them.
+ * <p>
+ * The version is retrieved from the ClamAV daemon (clamd) at most once per the configured version check interval.
+ * Cached {@link ScanResult}s are valid only as long as that version is unchanged: once a new version is detected, all
+ * cached {@link ScanResult}s are discarded. Nothing is cached if the version is unknown. Only {@link Clean}
+ * {@link ScanResult}s are cached, unless caching of {@link Infected} {@link ScanResult}s is enabled as well.
+ * {@link Failed} {@link ScanResult}s are never cached.
+ */
+@Slf4j
+@ToString
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    fieldVisibility = JsonAutoDetect.Visibility.NONE
+)
+final class ScanResultCache {
+
+    @ToString.Exclude
+    private final Cache<CacheKey, ScanResult> scanResults;
+    @ToString.Exclude
+    private final Supplier<Optional<String>> versionSupplier;
+    private final Duration versionCheckInterval;
+    private final boolean isCachingInfected;
+    private final AtomicReference<Optional<CheckedVersion>> lastCheckedVersion;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param config          {@link ClamAVConfig} that describes the size and behavior of the constructed cache
+     * @param versionSupplier {@link Supplier} of the current version of the ClamAV daemon (clamd) and of its virus
+     *                        definitions database
+     */
+    ScanResultCache(ClamAVConfig config, Supplier<Optional<String>> versionSupplier) {
+        this.scanResults = Caffeine.newBuilder()
+            .maximumSize(Math.max(0, config.clamav_cache_size()))
+            .recordStats()
+            .build();
+        this.versionSupplier = versionSupplier;
+        this.versionCheckInterval = Duration.ofMillis(config.clamav_cache_version$_$check$_$interval());
+        this.isCachingInfected = config.clamav_cache_infected();
+        this.lastCheckedVersion = new AtomicReference<>(Optional.empty());
+    }
+
+    /**
+     * Returns the cached {@link ScanResult} of the content with the passed SHA-256 digest.
+     *
+     * @param sha256 SHA-256 digest of the content whose {@link ScanResult} is requested
+     * @return {@link Optional} containing the cached {@link ScanResult} of the content with the passed SHA-256 digest;
+     * an empty {@link Optional} is returned if no valid {@link ScanResult} is cached for that content
+     */
+    Optional<ScanResult> get(String sha256) {
+        return currentVersion().map(version -> scanResults.getIfPresent(new CacheKey(normalized(sha256), version)));
+    }
+
+    /**
+     * Caches the passed {@link ScanResult} of the content with the passed SHA-256 digest, if the {@link ScanResult} is
+     * cacheable.
+     *
+     * @param sha256     SHA-256 digest of the content whose {@link ScanResult} is passed
+     * @param scanResult {@link ScanResult} of the content with the passed SHA-256 digest
+     */
+    void put(String sha256, ScanResult scanResult) {
+        boolean isCacheable = switch (scanResult) {
+            case Clean _ -> true;
+            case Infected _ -> isCachingInfected;
+            case Failed _ -> false;
+        };
+        if (isCacheable) {
+            currentVersion().ifPresent(
+                version -> scanResults.put(new CacheKey(normalized(sha256), version), scanResult)
+            );
+        }
+    }
+
+    private String normalized(String sha256) {
+        return sha256.toLowerCase(Locale.ROOT);
+    }
+
+    private Optional<String> currentVersion() {
+        long now = System.nanoTime();
+        Optional<CheckedVersion> checkedVersion = lastCheckedVersion.get()
+            .filter(lastChecked -> now - lastChecked.checkedAtNanos() <= versionCheckInterval.toNanos());
+        if (checkedVersion.isPresent()) {
+            return checkedVersion.get().version();
+        }
+        Optional<String> version = versionSupplier.get();
+        Optional<String> previousVersion = lastCheckedVersion.getAndSet(Optional.of(new CheckedVersion(version, now)))
+            .flatMap(CheckedVersion::version);
+        if (previousVersion.isPresent() && !previousVersion.equals(version)) {
+            log.info("clamd version changed from {} to {}. Discarding cached scan results", previousVersion, version);
+            scanResults.invalidateAll();
+        }
+        return version;
+    }
+
+    @JsonProperty
+    long hits() {
+        return scanResults.stats().hitCount();
+    }
+
+    @JsonProperty
+    long misses() {
+        return scanResults.stats().missCount();
+    }
+
+    @JsonProperty
+    double hitRate() {
+        return scanResults.stats().hitRate();
+    }
+
+    @JsonProperty
+    long size() {
+        return scanResults.estimatedSize();
+    }
+
+    private record CacheKey(String sha256, String version) {
+    }
+
+    private record CheckedVersion(Optional<String> version, long checkedAtNanos) {
+    }
+}
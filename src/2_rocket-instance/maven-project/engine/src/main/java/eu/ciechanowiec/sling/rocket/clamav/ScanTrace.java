@@ -0,0 +1,14 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import java.time.Duration;
+
+/**
+ * Trace of a single scan performed over a {@link ClamdConnection}.
+ *
+ * @param scannedBytes number of bytes of the scanned content streamed to the ClamAV daemon (clamd)
+ * @param streamTime   time spent on streaming the scanned content to the ClamAV daemon (clamd)
+ * @param verdictTime  time spent on waiting for the verdict of the ClamAV daemon (clamd) after the scanned content has
+ *                     been streamed
+ */
+record ScanTrace(long scannedBytes, Duration streamTime, Duration verdictTime) {
+}
@@ -5,6 +5,7 @@ import eu.ciechanowiec.sling.rocket.asset.AssetFile;
 
 import java.io.InputStream;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Scans content for viruses with an antivirus engine.
@@ -42,6 +43,40 @@ public interface VirusScanner {
      */
     ScanResult scan(AssetFile assetFile);
 
+    /**
+     * Asynchronously scans for viruses the {@link AssetFile} of the passed {@link Asset}, provided by
+     * {@link Asset#assetFile()}.
+     * <p>
+     * The returned {@link CompletableFuture} is never completed exceptionally: if the scan cannot be performed or
+     * cannot even be admitted for execution, the {@link CompletableFuture} is completed with a {@link Failed}
+     * {@link ScanResult}. By default, the scan is performed synchronously in the calling thread and an already
+     * completed {@link CompletableFuture} is returned.
+     *
+     * @param asset {@link Asset} whose {@link AssetFile} should be scanned
+     * @return {@link CompletableFuture} of the {@link ScanResult} of scanning the {@link AssetFile} of the passed
+     * {@link Asset}
+     */
+    default CompletableFuture<ScanResult> scanAsync(Asset asset) {
+        return scanAsync(asset.assetFile());
+    }
+
+    /**
+     * Asynchronously scans for viruses the content of the passed {@link AssetFile}, retrieved via
+     * {@link AssetFile#retrieve()}.
+     * <p>
+     * The returned {@link CompletableFuture} is never completed exceptionally: if the scan cannot be performed or
+     * cannot even be admitted for execution, the {@link CompletableFuture} is completed with a {@link Failed}
+     * {@link ScanResult}. By default, the scan is performed synchronously in the calling thread and an already
+     * completed {@link CompletableFuture} is returned.
+     *
+     * @param assetFile {@link AssetFile} whose content should be scanned
+     * @return {@link CompletableFuture} of the {@link ScanResult} of scanning the content of the passed
+     * {@link AssetFile}
+     */
+    default CompletableFuture<ScanResult> scanAsync(AssetFile assetFile) {
+        return CompletableFuture.completedFuture(scan(assetFile));
+    }
+
     /**
      * Checks whether the antivirus engine is reachable and responsive.
      *
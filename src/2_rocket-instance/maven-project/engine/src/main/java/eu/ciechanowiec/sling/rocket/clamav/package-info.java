@@ -2,7 +2,7 @@
  * ClamAV antivirus utilities.
  */
 @Export
-@Version("1.0.0")
+@Version("1.1.0")
 package eu.ciechanowiec.sling.rocket.clamav;
 
 import org.osgi.annotation.bundle.Export;
@@ -1,14 +1,39 @@
 package eu.ciechanowiec.sling.rocket.commons;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Optional;
 
 /**
  * A {@link File} with its original name. The original name is the name that was given to the {@link File} in the source
  * system from which this {@link File} was obtained, e.g. from the user's file system.
  *
- * @param file         {@link File} that is represented by this object
- * @param originalName original name of the {@link File}
+ * @param file                 {@link File} that is represented by this object
+ * @param originalName         original name of the {@link File}
+ * @param sha256DigestNullable SHA-256 digest of the binary content of the {@link File}, represented as a lowercase
+ *                             hexadecimal {@link String}, if it was calculated while the {@link File} was being
+ *                             written; {@code null} otherwise
  */
-public record FileWithOriginalName(File file, String originalName) {
+public record FileWithOriginalName(File file, String originalName, @Nullable String sha256DigestNullable) {
 
+    /**
+     * Constructs an instance of this class without a known SHA-256 digest.
+     *
+     * @param file         {@link File} that is represented by this object
+     * @param originalName original name of the {@link File}
+     */
+    public FileWithOriginalName(File file, String originalName) {
+        this(file, originalName, null);
+    }
+
+    /**
+     * SHA-256 digest of the binary content of the {@link File}, if it was calculated while the {@link File} was being
+     * written.
+     *
+     * @return {@link Optional} containing the SHA-256 digest of the binary content of the {@link File}, represented as
+     * a lowercase hexadecimal {@link String}; empty {@link Optional} is returned if the digest isn't known
+     */
+    public Optional<String> sha256Digest() {
+        return Optional.ofNullable(sha256DigestNullable);
+    }
 }
@@ -0,0 +1,88 @@
+package eu.ciechanowiec.sling.rocket.commons;
+
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.wrappers.ResourceResolverWrapper;
+
+/**
+ * {@link ResourceAccess} bound to a single {@link ResourceResolver}.
+ * <p>
+ * The underlying {@link ResourceResolver} is acquired lazily from the delegate {@link ResourceAccess} upon the first
+ * call to {@link ScopedResourceAccess#acquireAccess()}. All subsequent calls return the same {@link ResourceResolver},
+ * so objects that acquire a {@link ResourceResolver} for every single operation, e.g. the ones backing an
+ * {@link eu.ciechanowiec.sling.rocket.asset.Asset}, share one {@link ResourceResolver} within the scope of this
+ * object. The returned {@link ResourceResolver} ignores calls to {@link ResourceResolver#close()}; the underlying
+ * {@link ResourceResolver} is closed only when this {@link ScopedResourceAccess} is closed.
+ * <p>
+ * This class is intended to be used within a single request or a single unit of work and must be closed afterward.
+ * Since a {@link ResourceResolver} isn't thread-safe, this class is confined to the thread that constructed it: the
+ * {@link ResourceResolver} is handed out exclusively to that thread and an attempt to acquire it from any other
+ * thread, e.g. from a lambda passed to a parallel stream or an asynchronous task, fails with an
+ * {@link IllegalStateException}. Objects that use this {@link ScopedResourceAccess} must therefore not be passed to
+ * other threads.
+ */
+@Slf4j
+@ToString
+public class ScopedResourceAccess implements ResourceAccess, AutoCloseable {
+
+    private final ResourceAccess delegate;
+    @ToString.Exclude
+    private final MemoizingSupplier<ResourceResolver> resourceResolver;
+    @ToString.Exclude
+    private final Thread ownerThread;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param delegate {@link ResourceAccess} from which the underlying {@link ResourceResolver} will be acquired
+     */
+    public ScopedResourceAccess(ResourceAccess delegate) {
+        this.delegate = delegate;
+        this.resourceResolver = new MemoizingSupplier<>(delegate::acquireAccess);
+        this.ownerThread = Thread.currentThread();
+        log.trace("Initialized {}", this);
+    }
+
+    /**
+     * Returns the {@link ResourceResolver} bound to this {@link ScopedResourceAccess}.
+     *
+     * @return the {@link ResourceResolver} bound to this {@link ScopedResourceAccess}
+     * @throws IllegalStateException if called from a thread other than the one that constructed this object
+     */
+    @Override
+    public ResourceResolver acquireAccess() {
+        Thread currentThread = Thread.currentThread();
+        if (currentThread != ownerThread) {
+            throw new IllegalStateException(
+                "%s is confined to thread '%s', but was accessed from thread '%s'".formatted(
+                    this, ownerThread.getName(), currentThread.getName()
+                )
+            );
+        }
+        return new UnclosableResourceResolver(resourceResolver.get());
+    }
+
+    /**
+     * Closes the underlying {@link ResourceResolver} if it has been acquired.
+     */
+    @Override
+    public void close() {
+        if (resourceResolver.wasComputed()) {
+            log.trace("Closing the resource resolver of {}", this);
+            resourceResolver.get().close();
+        }
+    }
+
+    private static final class UnclosableResourceResolver extends ResourceResolverWrapper {
+
+        private UnclosableResourceResolver(ResourceResolver resourceResolver) {
+            super(resourceResolver);
+        }
+
+        @Override
+        public void close() {
+            log.trace("Ignoring the request to close a scoped resource resolver");
+        }
+    }
+}
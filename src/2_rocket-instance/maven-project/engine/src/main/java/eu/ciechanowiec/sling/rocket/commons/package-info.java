@@ -2,7 +2,7 @@
  * Common utilities used by Sling Rocket.
  */
 @Export
-@Version("15.2.0")
+@Version("15.3.0")
 package eu.ciechanowiec.sling.rocket.commons;
 
 import org.osgi.annotation.bundle.Export;
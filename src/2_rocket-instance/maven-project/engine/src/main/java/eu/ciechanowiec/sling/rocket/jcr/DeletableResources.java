@@ -0,0 +1,169 @@
+package eu.ciechanowiec.sling.rocket.jcr;
+
+import eu.ciechanowiec.conditional.Conditional;
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.privilege.RequiresPrivilege;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+
+import javax.jcr.Repository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Represents multiple {@link Resource}s that can be deleted from the {@link Repository} in chunks, i.e. with a single
+ * commit per chunk instead of a single commit per {@link Resource}.
+ * <p>
+ * If the commit of a chunk fails, the changes of that chunk are reverted and the {@link Resource}s from that chunk are
+ * deleted one by one, each with a separate commit, so that the failure of a single {@link Resource} doesn't prevent
+ * the deletion of the others.
+ * <p>
+ * {@link Resource}s located below another {@link Resource} that is also to be deleted aren't deleted on their own,
+ * but together with that {@link Resource}, and are considered deleted if they existed and that {@link Resource} was
+ * deleted.
+ */
+@SuppressWarnings("WeakerAccess")
+@Slf4j
+@ToString
+public class DeletableResources implements RequiresPrivilege {
+
+    /**
+     * Default maximum number of {@link Resource}s deleted within a single commit.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final List<JCRPath> jcrPaths;
+    @ToString.Exclude
+    private final ResourceAccess resourceAccess;
+    private final int chunkSize;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param jcrPaths       {@link JCRPath}s to the {@link Resource}s to be deleted from the {@link Repository}
+     * @param resourceAccess {@link ResourceAccess} that will be used by the constructed object to acquire access to
+     *                       resources
+     * @param chunkSize      maximum number of {@link Resource}s deleted within a single commit; must be positive
+     * @throws IllegalArgumentException if the specified chunk size isn't positive
+     */
+    public DeletableResources(List<JCRPath> jcrPaths, ResourceAccess resourceAccess, int chunkSize) {
+        Conditional.isTrueOrThrow(
+            chunkSize > 0, new IllegalArgumentException("Chunk size must be positive: %d".formatted(chunkSize))
+        );
+        this.jcrPaths = List.copyOf(jcrPaths);
+        this.resourceAccess = resourceAccess;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Constructs an instance of this class with the {@link DeletableResources#DEFAULT_CHUNK_SIZE}.
+     *
+     * @param jcrPaths       {@link JCRPath}s to the {@link Resource}s to be deleted from the {@link Repository}
+     * @param resourceAccess {@link ResourceAccess} that will be used by the constructed object to acquire access to
+     *                       resources
+     */
+    public DeletableResources(List<JCRPath> jcrPaths, ResourceAccess resourceAccess) {
+        this(jcrPaths, resourceAccess, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Deletes the wrapped {@link Resource}s from the {@link Repository}.
+     *
+     * @return {@link Set} of {@link JCRPath}s of the {@link Resource}s that were deleted; {@link Resource}s that were
+     * not found or whose deletion didn't succeed due to {@link PersistenceException} aren't included
+     */
+    public Set<JCRPath> delete() {
+        log.trace("Deleting {}", this);
+        Map<String, JCRPath> requestedPaths = new HashMap<>();
+        jcrPaths.forEach(jcrPath -> requestedPaths.putIfAbsent(jcrPath.get(), jcrPath));
+        List<JCRPath> topmostPaths = new ArrayList<>();
+        Map<JCRPath, JCRPath> ancestorsOfNestedPaths = new HashMap<>();
+        jcrPaths.forEach(
+            jcrPath -> topmostRequestedAncestor(jcrPath, requestedPaths).ifPresentOrElse(
+                ancestor -> ancestorsOfNestedPaths.put(jcrPath, ancestor), () -> topmostPaths.add(jcrPath)
+            )
+        );
+        Set<JCRPath> deleted = new HashSet<>();
+        try (ResourceResolver resourceResolver = resourceAccess.acquireAccess()) {
+            List<JCRPath> existingNestedPaths = ancestorsOfNestedPaths.keySet()
+                .stream()
+                .filter(nestedPath -> resourceResolver.getResource(nestedPath.get()) != null)
+                .toList();
+            for (int chunkStart = 0; chunkStart < topmostPaths.size(); chunkStart += chunkSize) {
+                List<JCRPath> chunk = topmostPaths.subList(
+                    chunkStart, Math.min(chunkStart + chunkSize, topmostPaths.size())
+                );
+                deleted.addAll(deleteChunk(chunk, resourceResolver));
+            }
+            existingNestedPaths.stream()
+                .filter(nestedPath -> deleted.contains(ancestorsOfNestedPaths.get(nestedPath)))
+                .toList()
+                .forEach(deleted::add);
+        }
+        log.debug("Deleted {} out of {} resource(s)", deleted.size(), jcrPaths.size());
+        return Set.copyOf(deleted);
+    }
+
+    private Optional<JCRPath> topmostRequestedAncestor(JCRPath jcrPath, Map<String, JCRPath> requestedPaths) {
+        String rawPath = jcrPath.get();
+        int separatorIndex = rawPath.indexOf('/', 1);
+        while (separatorIndex > 0) {
+            Optional<JCRPath> ancestor = Optional.ofNullable(requestedPaths.get(rawPath.substring(0, separatorIndex)));
+            if (ancestor.isPresent()) {
+                return ancestor;
+            }
+            separatorIndex = rawPath.indexOf('/', separatorIndex + 1);
+        }
+        return Optional.empty();
+    }
+
+    private Set<JCRPath> deleteChunk(List<JCRPath> chunk, ResourceResolver resourceResolver) {
+        Set<JCRPath> deletedInChunk = new HashSet<>();
+        try {
+            for (JCRPath jcrPath : chunk) {
+                if (markDeleted(jcrPath, resourceResolver)) {
+                    deletedInChunk.add(jcrPath);
+                }
+            }
+            resourceResolver.commit();
+            log.trace("Committed deletion of {} resource(s)", deletedInChunk.size());
+            return deletedInChunk;
+        } catch (PersistenceException exception) {
+            log.warn("Unable to delete a chunk of {} resource(s). Deleting one by one", chunk.size(), exception);
+            resourceResolver.revert();
+            Set<JCRPath> deletedOneByOne = new HashSet<>();
+            chunk.stream()
+                .map(jcrPath -> new DeletableResource(jcrPath, resourceAccess))
+                .map(DeletableResource::delete)
+                .flatMap(Optional::stream)
+                .forEach(deletedOneByOne::add);
+            resourceResolver.refresh();
+            return deletedOneByOne;
+        }
+    }
+
+    private boolean markDeleted(JCRPath jcrPath, ResourceResolver resourceResolver) throws PersistenceException {
+        Optional<Resource> resourceNullable = Optional.ofNullable(resourceResolver.getResource(jcrPath.get()));
+        if (resourceNullable.isPresent()) {
+            resourceResolver.delete(resourceNullable.get());
+            return true;
+        }
+        log.trace("Resource at {} not found and won't be deleted", jcrPath);
+        return false;
+    }
+
+    @Override
+    public List<String> requiredPrivileges() {
+        return new DeletableResource(new TargetJCRPath("/"), resourceAccess).requiredPrivileges();
+    }
+}
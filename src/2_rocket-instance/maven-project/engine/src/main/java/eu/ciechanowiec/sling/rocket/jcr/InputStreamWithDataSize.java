@@ -1,18 +1,17 @@
 package eu.ciechanowiec.sling.rocket.jcr;
 
-import eu.ciechanowiec.sling.rocket.commons.MemoizingSupplier;
 import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
 import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
 import eu.ciechanowiec.sling.rocket.unit.DataSize;
 import eu.ciechanowiec.sling.rocket.unit.DataUnit;
 import eu.ciechanowiec.sling.rocket.unit.WithDataSize;
-import eu.ciechanowiec.sneakyfun.SneakyConsumer;
 import eu.ciechanowiec.sneakyfun.SneakyFunction;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.sling.api.resource.ResourceResolver;
 
+import javax.annotation.Nullable;
 import javax.jcr.*;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -21,6 +20,12 @@ import java.util.function.Supplier;
 
 /**
  * An {@link InputStream} that has a known {@link DataSize}.
+ * <p>
+ * The underlying {@link Binary} and its {@link InputStream} are resolved lazily, only once, upon the first call that
+ * needs them. After that, all reading methods delegate directly to the resolved {@link InputStream} without any
+ * additional allocations. If the {@link Binary} doesn't exist, the resolved {@link InputStream} is an empty one.
+ * <p>
+ * Like most {@link InputStream}s, this class isn't thread-safe.
  */
 @Slf4j
 @SuppressWarnings({"StandardVariableNames", "PMD.ShortVariable"})
@@ -28,10 +33,16 @@ public class InputStreamWithDataSize extends InputStream implements WithDataSize
 
     @SuppressWarnings("PMD.LongVariable")
     private final JCRPath jcrPathToNodeWithBinaryProperty;
-    private final MemoizingSupplier<ResourceResolver> resourceResolverSupplier;
-    private final MemoizingSupplier<Optional<Binary>> binarySupplier;
-    private final MemoizingSupplier<Optional<InputStream>> inputStreamSupplier;
+    private final String binaryPropertyName;
+    private final Supplier<ResourceResolver> resolverSupplier;
     private final boolean externalResourceResolver;
+    @Nullable
+    private ResourceResolver resourceResolver;
+    @SuppressWarnings({"OptionalUsedAsFieldOrParameterType", "squid:S3553"})
+    @Nullable
+    private Optional<Binary> binaryNullable;
+    @Nullable
+    private InputStream delegate;
 
     private InputStreamWithDataSize(
         @SuppressWarnings("PMD.LongVariable")
@@ -39,13 +50,8 @@ public class InputStreamWithDataSize extends InputStream implements WithDataSize
         String binaryPropertyName, Supplier<ResourceResolver> resolverSupplier, boolean externalResourceResolver
     ) {
         this.jcrPathToNodeWithBinaryProperty = jcrPathToNodeWithBinaryProperty;
-        this.resourceResolverSupplier = new MemoizingSupplier<>(resolverSupplier);
-        this.binarySupplier = new MemoizingSupplier<>(
-            () -> binary(jcrPathToNodeWithBinaryProperty, binaryPropertyName, resourceResolverSupplier)
-        );
-        this.inputStreamSupplier = new MemoizingSupplier<>(
-            () -> binarySupplier.get().map(SneakyFunction.sneaky(Binary::getStream))
-        );
+        this.binaryPropertyName = binaryPropertyName;
+        this.resolverSupplier = resolverSupplier;
         this.externalResourceResolver = externalResourceResolver;
     }
 
@@ -65,55 +71,70 @@ public class InputStreamWithDataSize extends InputStream implements WithDataSize
         this(jcrPathToNodeWithBinaryProperty, binaryPropertyName, () -> resourceResolver, true);
     }
 
-    @SuppressWarnings("PMD.CloseResource")
-    private Optional<Binary> binary(
-        @SuppressWarnings("PMD.LongVariable")
-        JCRPath jcrPathToNodeWithBinaryProperty, String binaryPropertyName,
-        MemoizingSupplier<ResourceResolver> resourceResolverSupplier
-    ) {
-        ResourceResolver resourceResolver = resourceResolverSupplier.get();
-        String jcrPathRaw = jcrPathToNodeWithBinaryProperty.get();
-        return Optional.ofNullable(resourceResolver.getResource(jcrPathRaw))
-            .flatMap(resource -> Optional.ofNullable(resource.adaptTo(Node.class)))
-            .flatMap(node -> new ConditionalProperty(binaryPropertyName).retrieveFrom(node))
-            .map(SneakyFunction.sneaky(Property::getValue))
-            .flatMap(this::asBinary);
+    @SuppressWarnings({"OptionalAssignedToNull", "PMD.CloseResource"})
+    private Optional<Binary> binary() {
+        Optional<Binary> resolvedBinary = binaryNullable;
+        if (resolvedBinary == null) {
+            ResourceResolver acquiredResourceResolver = resolverSupplier.get();
+            resourceResolver = acquiredResourceResolver;
+            resolvedBinary = Optional.ofNullable(
+                    acquiredResourceResolver.getResource(jcrPathToNodeWithBinaryProperty.get())
+                )
+                .flatMap(resource -> Optional.ofNullable(resource.adaptTo(Node.class)))
+                .flatMap(node -> new ConditionalProperty(binaryPropertyName).retrieveFrom(node))
+                .map(SneakyFunction.sneaky(Property::getValue))
+                .flatMap(this::asBinary);
+            binaryNullable = resolvedBinary;
+        }
+        return resolvedBinary;
+    }
+
+    private InputStream delegate() {
+        InputStream resolvedDelegate = delegate;
+        if (resolvedDelegate == null) {
+            resolvedDelegate = binary().map(SneakyFunction.sneaky(Binary::getStream))
+                .orElseGet(InputStream::nullInputStream);
+            delegate = resolvedDelegate;
+        }
+        return resolvedDelegate;
     }
 
     @Override
+    @SneakyThrows
+    @SuppressWarnings("OptionalAssignedToNull")
     public void close() {
-        inputStreamSupplier.get().ifPresent(SneakyConsumer.sneaky(InputStream::close));
-        binarySupplier.get().ifPresent(SneakyConsumer.sneaky(Binary::dispose));
-        if (!externalResourceResolver) {
-            resourceResolverSupplier.get().close();
+        if (delegate != null) {
+            delegate.close();
+        }
+        if (binaryNullable != null) {
+            binaryNullable.ifPresent(Binary::dispose);
+        }
+        if (resourceResolver != null && !externalResourceResolver) {
+            resourceResolver.close();
         }
     }
 
     @Override
     @SuppressWarnings("SpellCheckingInspection")
     public void mark(int readlimit) {
-        inputStreamSupplier.get()
-            .ifPresent(inputStream -> inputStream.mark(readlimit));
+        delegate().mark(readlimit);
     }
 
     @Override
+    @SneakyThrows
     public void reset() {
-        inputStreamSupplier.get()
-            .ifPresent(SneakyConsumer.sneaky(InputStream::reset));
+        delegate().reset();
     }
 
     @Override
     public boolean markSupported() {
-        return inputStreamSupplier.get()
-            .map(InputStream::markSupported)
-            .orElse(false);
+        return delegate().markSupported();
     }
 
     @Override
+    @SneakyThrows
     public long transferTo(OutputStream out) {
-        return inputStreamSupplier.get()
-            .map(SneakyFunction.sneaky(inputStream -> inputStream.transferTo(out)))
-            .orElse(0L);
+        return delegate().transferTo(out);
     }
 
     @SneakyThrows
@@ -129,75 +150,66 @@ public class InputStreamWithDataSize extends InputStream implements WithDataSize
     }
 
     @Override
+    @SneakyThrows
     @SuppressWarnings("NullableProblems")
     public byte[] readNBytes(int len) {
-        return inputStreamSupplier.get()
-            .map(SneakyFunction.sneaky(inputStream -> inputStream.readNBytes(len)))
-            .orElse(new byte[0]);
+        return delegate().readNBytes(len);
     }
 
     @Override
+    @SneakyThrows
     public int readNBytes(byte[] b, int off, int len) {
-        return inputStreamSupplier.get()
-            .map(SneakyFunction.sneaky(inputStream -> inputStream.readNBytes(b, off, len)))
-            .orElse(-1);
+        return delegate().readNBytes(b, off, len);
     }
 
     @Override
+    @SneakyThrows
     public long skip(long n) {
-        return inputStreamSupplier.get()
-            .map(SneakyFunction.sneaky(inputStream -> inputStream.skip(n)))
-            .orElse(0L);
+        return delegate().skip(n);
     }
 
     @Override
+    @SneakyThrows
     public void skipNBytes(long n) {
-        inputStreamSupplier.get()
-            .ifPresent(SneakyConsumer.sneaky(inputStream -> inputStream.skipNBytes(n)));
+        delegate().skipNBytes(n);
     }
 
     @Override
+    @SneakyThrows
     public int available() {
-        return inputStreamSupplier.get()
-            .map(SneakyFunction.sneaky(InputStream::available))
-            .orElse(0);
+        return delegate().available();
     }
 
     @Override
+    @SneakyThrows
     @SuppressWarnings("NullableProblems")
     public byte[] readAllBytes() {
-        return inputStreamSupplier.get()
-            .map(SneakyFunction.sneaky(InputStream::readAllBytes))
-            .orElse(new byte[0]);
+        return delegate().readAllBytes();
     }
 
     @Override
+    @SneakyThrows
     public int read() {
-        return inputStreamSupplier.get()
-            .map(SneakyFunction.sneaky(InputStream::read))
-            .orElse(-1);
+        return delegate().read();
     }
 
     @Override
+    @SneakyThrows
     @SuppressWarnings("NullableProblems")
     public int read(byte[] b) {
-        return inputStreamSupplier.get()
-            .map(SneakyFunction.sneaky(inputStream -> inputStream.read(b)))
-            .orElse(-1);
+        return delegate().read(b);
     }
 
     @Override
+    @SneakyThrows
     @SuppressWarnings("NullableProblems")
     public int read(byte[] b, int off, int len) {
-        return inputStreamSupplier.get()
-            .map(SneakyFunction.sneaky(inputStream -> inputStream.read(b, off, len)))
-            .orElse(-1);
+        return delegate().read(b, off, len);
     }
 
     @Override
     public DataSize dataSize() {
-        return binarySupplier.get()
-            .flatMap(
+        return binary().flatMap(
                 binary -> {
                     try {
                         return Optional.of(binary.getSize());
@@ -2,7 +2,7 @@
  * {@link javax.jcr.Repository} utilities.
  */
 @Export
-@Version("16.0.0")
+@Version("16.1.0")
 package eu.ciechanowiec.sling.rocket.jcr;
 
 import org.osgi.annotation.bundle.Export;
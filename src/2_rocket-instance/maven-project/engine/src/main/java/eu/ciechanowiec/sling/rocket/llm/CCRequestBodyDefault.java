@@ -3,6 +3,7 @@ package eu.ciechanowiec.sling.rocket.llm;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.SneakyThrows;
@@ -20,6 +21,8 @@ import java.util.function.Supplier;
 @ToString
 public class CCRequestBodyDefault implements ChatCompletionRequestBody {
 
+    private static final ObjectWriter WRITER = new ObjectMapper().registerModule(new Jdk8Module()).writer();
+
     private final String model;
     private final List<ChatMessage> messages;
     @ToString.Exclude
@@ -130,7 +133,6 @@ public class CCRequestBodyDefault implements ChatCompletionRequestBody {
     @SneakyThrows
     @Override
     public String asJSON() {
-        ObjectMapper objectMapper = new ObjectMapper().registerModule(new Jdk8Module());
-        return objectMapper.writeValueAsString(this);
+        return WRITER.writeValueAsString(this);
     }
 }
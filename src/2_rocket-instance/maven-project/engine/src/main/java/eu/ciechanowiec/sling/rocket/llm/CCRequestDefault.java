@@ -1,16 +1,20 @@
 package eu.ciechanowiec.sling.rocket.llm;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import lombok.SneakyThrows;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
 
 /**
  * Default implementation of {@link ChatCompletionRequest}.
@@ -20,13 +24,21 @@ import java.net.http.HttpResponse;
 @Slf4j
 public class CCRequestDefault implements ChatCompletionRequest {
 
+    private static final ObjectReader CHAT_COMPLETION_READER = new ObjectMapper().readerFor(ChatCompletion.class);
+
     private final URI llmAPIuri;
     @ToString.Exclude
     private final String llmAPIBearerToken;
     private final ChatCompletionRequestBody chatCompletionRequestBody;
+    @ToString.Exclude
+    @Nullable
+    private final HttpClient httpClientNullable;
+    @Nullable
+    private final Duration requestTimeoutNullable;
 
     /**
-     * Constructs an instance of this class.
+     * Constructs an instance of this class. The constructed {@link ChatCompletionRequest} is executed over a dedicated
+     * {@link HttpClient} that is closed right after the execution.
      *
      * @param llmAPIuri                 {@link LLMConfig#llm_api_url()}
      * @param llmAPIBearerToken         {@link LLMConfig#llm_api_bearer_token()}
@@ -38,6 +50,34 @@ public class CCRequestDefault implements ChatCompletionRequest {
         this.llmAPIuri = llmAPIuri;
         this.llmAPIBearerToken = llmAPIBearerToken;
         this.chatCompletionRequestBody = chatCompletionRequestBody;
+        this.httpClientNullable = null;
+        this.requestTimeoutNullable = null;
+        log.trace("Initialized {}", this);
+    }
+
+    /**
+     * Constructs an instance of this class. The constructed {@link ChatCompletionRequest} is executed over the passed
+     * {@link HttpClient}, which isn't closed after the execution, so that its connections can be reused by subsequent
+     * {@link ChatCompletionRequest}s.
+     *
+     * @param llmAPIuri                 {@link LLMConfig#llm_api_url()}
+     * @param llmAPIBearerToken         {@link LLMConfig#llm_api_bearer_token()}
+     * @param chatCompletionRequestBody {@link ChatCompletionRequestBody} of this {@link ChatCompletionRequest}
+     * @param httpClient                shared {@link HttpClient} to execute this {@link ChatCompletionRequest} over
+     * @param requestTimeout            {@link LLMConfig#llm_request$_$timeout()}
+     */
+    public CCRequestDefault(
+        URI llmAPIuri,
+        String llmAPIBearerToken,
+        ChatCompletionRequestBody chatCompletionRequestBody,
+        HttpClient httpClient,
+        Duration requestTimeout
+    ) {
+        this.llmAPIuri = llmAPIuri;
+        this.llmAPIBearerToken = llmAPIBearerToken;
+        this.chatCompletionRequestBody = chatCompletionRequestBody;
+        this.httpClientNullable = httpClient;
+        this.requestTimeoutNullable = requestTimeout;
         log.trace("Initialized {}", this);
     }
 
@@ -46,21 +86,29 @@ public class CCRequestDefault implements ChatCompletionRequest {
     public ChatCompletion execute() {
         String requestBodyJSON = chatCompletionRequestBody.asJSON();
         log.trace("Executing {}. JSON body: '{}'", this, requestBodyJSON);
-        HttpRequest request = HttpRequest.newBuilder()
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
             .uri(llmAPIuri)
             .header(HttpHeaders.AUTHORIZATION, "Bearer %s".formatted(llmAPIBearerToken))
             .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
-            .POST(HttpRequest.BodyPublishers.ofString(requestBodyJSON))
-            .build();
+            .POST(HttpRequest.BodyPublishers.ofString(requestBodyJSON));
+        Optional.ofNullable(requestTimeoutNullable).ifPresent(requestBuilder::timeout);
+        HttpRequest request = requestBuilder.build();
+        HttpResponse<String> response = send(request);
+        String responseBodyJSON = response.body();
+        log.trace(
+            "Executed {} with this body: '{}'. Response JSON body: '{}'",
+            this, requestBodyJSON, responseBodyJSON
+        );
+        return CHAT_COMPLETION_READER.readValue(responseBodyJSON);
+    }
+
+    @SneakyThrows
+    private HttpResponse<String> send(HttpRequest request) {
+        if (httpClientNullable != null) {
+            return httpClientNullable.send(request, HttpResponse.BodyHandlers.ofString());
+        }
         try (HttpClient httpClient = HttpClient.newHttpClient()) {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            ObjectMapper objectMapper = new ObjectMapper();
-            String responseBodyJSON = response.body();
-            log.trace(
-                "Executed {} with this body: '{}'. Response JSON body: '{}'",
-                this, requestBodyJSON, responseBodyJSON
-            );
-            return objectMapper.readValue(responseBodyJSON, ChatCompletion.class);
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
         }
     }
 }
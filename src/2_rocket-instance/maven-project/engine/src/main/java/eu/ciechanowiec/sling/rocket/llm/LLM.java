@@ -12,12 +12,17 @@ import org.osgi.service.component.annotations.*;
 import org.osgi.service.component.propertytypes.ServiceDescription;
 import org.osgi.service.metatype.annotations.Designate;
 
+import java.net.http.HttpClient;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Large language model.
+ * <p>
+ * All {@link ChatCompletionRequest}s of a given {@link LLM} are executed over a single shared {@link HttpClient} that
+ * prefers HTTP/2 and keeps connections with the {@link LLM} API alive, so that subsequent
+ * {@link ChatCompletionRequest}s don't pay for a new connection and TLS handshake.
  */
 @Component(
     service = LLM.class,
@@ -33,6 +38,8 @@ public class LLM implements WithJCRPath {
     private final AtomicReference<LLMConfigObfuscated> config;
     private final LLMStats llmStats;
     private final FullResourceAccess fullResourceAccess;
+    @ToString.Exclude
+    private final AtomicReference<HttpClient> httpClient;
 
     /**
      * Constructs an instance of this class.
@@ -49,6 +56,7 @@ public class LLM implements WithJCRPath {
         FullResourceAccess fullResourceAccess
     ) {
         this.config = new AtomicReference<>(new LLMConfigObfuscated(config));
+        this.httpClient = new AtomicReference<>(newHttpClient(this.config.get()));
         this.fullResourceAccess = fullResourceAccess;
         this.llmStats = new LLMStats(this, fullResourceAccess);
         new SimpleNode(
@@ -67,12 +75,26 @@ public class LLM implements WithJCRPath {
     void configure(LLMConfig config) {
         log.info("Configuring {}", config);
         this.config.set(new LLMConfigObfuscated(config));
+        httpClient.getAndSet(newHttpClient(this.config.get())).shutdown();
         new SimpleNode(
             this.config.get().jcrHome(), fullResourceAccess, JcrResourceConstants.NT_SLING_ORDERED_FOLDER
         ).ensureNodeExists();
         log.info("Configured {}", config);
     }
 
+    @Deactivate
+    void deactivate() {
+        log.info("Deactivating {}", this);
+        httpClient.get().shutdown();
+    }
+
+    private HttpClient newHttpClient(LLMConfigObfuscated llmConfigObfuscated) {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(llmConfigObfuscated.connectTimeout())
+            .build();
+    }
+
     /**
      * Generates a {@link ChatCompletion} for a given {@link Chat} out of the passed {@link ChatMessage}-s from that
      * {@link Chat}.
@@ -96,7 +118,9 @@ public class LLM implements WithJCRPath {
         ChatCompletionRequest chatCompletionRequest = new CCRequestDefault(
             llmConfigObfuscated.llmAPIurl(),
             llmConfigObfuscated.llmAPIBearerToken(),
-            chatCompletionRequestBody
+            chatCompletionRequestBody,
+            httpClient.get(),
+            llmConfigObfuscated.requestTimeout()
         );
         ChatCompletion chatCompletion = chatCompletionRequest.execute();
         log.trace("{} completed chat for {} with {}", this, chatMessages, chatCompletion);
@@ -182,6 +182,35 @@ public @interface LLMConfig {
     )
     int llm_context$_$window_size() default 100_000;
 
+    /**
+     * Maximum time in milliseconds to wait for a connection with the {@link LLM} API to be established.
+     *
+     * @return maximum time in milliseconds to wait for a connection with the {@link LLM} API to be established
+     */
+    @SuppressWarnings("MagicNumber") @AttributeDefinition(
+        name = "Connect Timeout (millis)",
+        description = "Maximum time in milliseconds to wait for a connection with the LLM API to be established. "
+            + "Established connections are kept alive and reused by subsequent requests.",
+        defaultValue = "10000",
+        type = AttributeType.INTEGER,
+        min = "1"
+    )
+    int llm_connect$_$timeout() default 10_000;
+
+    /**
+     * Maximum time in milliseconds to wait for a response to a {@link ChatCompletionRequest}.
+     *
+     * @return maximum time in milliseconds to wait for a response to a {@link ChatCompletionRequest}
+     */
+    @SuppressWarnings("MagicNumber") @AttributeDefinition(
+        name = "Request Timeout (millis)",
+        description = "Maximum time in milliseconds to wait for a response to a chat completion request.",
+        defaultValue = "300000",
+        type = AttributeType.INTEGER,
+        min = "1"
+    )
+    int llm_request$_$timeout() default 300_000;
+
     /**
      * {@link JCRPath} where persistent data related to this LLM is stored.
      *
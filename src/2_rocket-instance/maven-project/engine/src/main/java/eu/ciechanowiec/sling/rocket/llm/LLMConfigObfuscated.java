@@ -9,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.math.NumberUtils;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Optional;
 
 @ToString
@@ -30,6 +31,10 @@ class LLMConfigObfuscated {
     private final float llmFrequencyPenalty;
     private final float llmTopP;
     private final int contextWindowSize;
+    @Getter(AccessLevel.NONE)
+    private final int connectTimeout;
+    @Getter(AccessLevel.NONE)
+    private final int requestTimeout;
     private final JCRPath jcrHome;
 
     LLMConfigObfuscated(LLMConfig llmConfig) {
@@ -43,6 +48,8 @@ class LLMConfigObfuscated {
         this.llmTopP = llmConfig.llm_top__p();
         this.jcrHome = new TargetJCRPath(llmConfig.jcr_home());
         this.contextWindowSize = llmConfig.llm_context$_$window_size();
+        this.connectTimeout = llmConfig.llm_connect$_$timeout();
+        this.requestTimeout = llmConfig.llm_request$_$timeout();
         log.info("Initialized {}", this);
     }
 
@@ -50,6 +57,14 @@ class LLMConfigObfuscated {
         return URI.create(llmAPIurl);
     }
 
+    Duration connectTimeout() {
+        return Duration.ofMillis(Math.max(NumberUtils.INTEGER_ONE, connectTimeout));
+    }
+
+    Duration requestTimeout() {
+        return Duration.ofMillis(Math.max(NumberUtils.INTEGER_ONE, requestTimeout));
+    }
+
     Optional<Integer> llmMaxTokens() {
         return llmMaxTokens == NumberUtils.INTEGER_ZERO ? Optional.empty() : Optional.of(llmMaxTokens);
     }
@@ -2,7 +2,7 @@
  * Large language models utilities.
  */
 @Export
-@Version("14.0.1")
+@Version("14.1.0")
 package eu.ciechanowiec.sling.rocket.llm;
 
 import org.osgi.annotation.bundle.Export;
@@ -13,4 +13,8 @@ class AlreadySentException extends RuntimeException {
     AlreadySentException(ResponseWithHTML response) {
         super("Response has already been sent: " + response);
     }
+
+    AlreadySentException(ResponseWithZippedAssets response) {
+        super("Response has already been sent: " + response);
+    }
 }
@@ -2,6 +2,7 @@ package eu.ciechanowiec.sling.rocket.network;
 
 import eu.ciechanowiec.conditional.Conditional;
 import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetFile;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.ws.rs.core.HttpHeaders;
@@ -24,6 +25,8 @@ public class ResponseWithAsset {
 
     private final HttpServletResponse wrappedResponse;
     private final Asset assetToSend;
+    @ToString.Exclude
+    private final AssetFile assetFileToSend;
     private final AtomicBoolean wasSent;
 
     /**
@@ -33,8 +36,21 @@ public class ResponseWithAsset {
      * @param assetToSend     {@link Asset} that will be sent with this {@link ResponseWithAsset}
      */
     public ResponseWithAsset(HttpServletResponse wrappedResponse, Asset assetToSend) {
+        this(wrappedResponse, assetToSend, assetToSend.assetFile());
+    }
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param wrappedResponse {@link HttpServletResponse} which will be used to send this {@link ResponseWithAsset}
+     * @param assetToSend     {@link Asset} that will be sent with this {@link ResponseWithAsset}
+     * @param assetFileToSend {@link AssetFile} with the binary content of the {@link Asset} that will be sent, e.g. a
+     *                        copy of the {@link Asset#assetFile()} already loaded into memory
+     */
+    public ResponseWithAsset(HttpServletResponse wrappedResponse, Asset assetToSend, AssetFile assetFileToSend) {
         this.wrappedResponse = wrappedResponse;
         this.assetToSend = assetToSend;
+        this.assetFileToSend = assetFileToSend;
         this.wasSent = new AtomicBoolean(false);
     }
 
@@ -53,11 +69,11 @@ public class ResponseWithAsset {
         boolean isAllowed = !wasSent.get() && !wrappedResponse.isCommitted();
         Conditional.isTrueOrThrow(isAllowed, new AlreadySentException(this));
         log.trace("Sending {}", assetToSend);
-        int length = (int) assetToSend.assetFile().size().bytes();
+        int length = (int) assetFileToSend.size().bytes();
         wrappedResponse.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         wrappedResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDispositionHeader.value(assetToSend));
         wrappedResponse.setContentLength(length);
-        try (InputStream inputStream = assetToSend.assetFile().retrieve()) {
+        try (InputStream inputStream = assetFileToSend.retrieve()) {
             IOUtils.copy(inputStream, wrappedResponse.getOutputStream());
         }
         wrappedResponse.flushBuffer();
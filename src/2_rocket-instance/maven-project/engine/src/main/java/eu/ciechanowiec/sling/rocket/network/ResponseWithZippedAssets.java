@@ -0,0 +1,121 @@
+package eu.ciechanowiec.sling.rocket.network;
+
+import eu.ciechanowiec.conditional.Conditional;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * HTTP response with a ZIP archive of multiple {@link Asset}s, streamed directly to the client without any temporary
+ * files.
+ * <p>
+ * Every {@link Asset} is stored in the archive under the same name as the one used by
+ * {@link ContentDispositionHeader#ATTACHMENT}, i.e. its JCR UUID followed by the filename extension. All entries use
+ * the {@link ZipEntry#DEFLATED} method, so that every binary is read only once, but {@link Asset}s of already
+ * compressed mime types are written with {@link Deflater#NO_COMPRESSION}, so that no CPU is spent on compressing
+ * them again.
+ */
+@SuppressWarnings("WeakerAccess")
+@Slf4j
+@ToString
+public class ResponseWithZippedAssets {
+
+    /**
+     * Content type of the {@link ResponseWithZippedAssets}.
+     */
+    public static final String CONTENT_TYPE = "application/zip";
+
+    /**
+     * Name of the ZIP archive sent with the {@link ResponseWithZippedAssets}.
+     */
+    public static final String FILE_NAME = "assets.zip";
+
+    private static final Set<String> COMPRESSED_MIME_TYPES = Set.of(
+        "image/jpeg", "image/png", "image/gif", "image/webp", "image/avif", "image/heic", "image/heif",
+        "audio/mpeg", "audio/aac", "audio/ogg", "audio/opus", "audio/mp4", "audio/flac",
+        "application/zip", "application/gzip", "application/x-gzip", "application/x-bzip2", "application/x-xz",
+        "application/zstd", "application/x-7z-compressed", "application/x-rar-compressed", "application/vnd.rar",
+        "application/java-archive", "application/epub+zip"
+    );
+    private static final Set<String> COMPRESSED_MIME_TYPE_PREFIXES = Set.of(
+        "video/", "application/vnd.openxmlformats-officedocument.", "application/vnd.oasis.opendocument."
+    );
+
+    private final HttpServletResponse wrappedResponse;
+    private final List<Asset> assetsToSend;
+    private final AtomicBoolean wasSent;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param wrappedResponse {@link HttpServletResponse} which will be used to send this
+     *                        {@link ResponseWithZippedAssets}
+     * @param assetsToSend    {@link Asset}s that will be sent within a ZIP archive with this
+     *                        {@link ResponseWithZippedAssets}, in the specified order
+     */
+    public ResponseWithZippedAssets(HttpServletResponse wrappedResponse, List<Asset> assetsToSend) {
+        this.wrappedResponse = wrappedResponse;
+        this.assetsToSend = List.copyOf(assetsToSend);
+        this.wasSent = new AtomicBoolean(false);
+    }
+
+    /**
+     * Respond the client to an HTTP request via sending this HTTP {@link ResponseWithZippedAssets}.
+     * <p>
+     * This method can be called only once for a given object. If called more than once or the response has been already
+     * committed as specified by {@link ServletResponse#isCommitted()}, an {@link AlreadySentException} is thrown.
+     *
+     * @throws AlreadySentException if this {@link ResponseWithZippedAssets} has already been sent or the response has
+     *                              been already committed as specified by {@link ServletResponse#isCommitted()}
+     */
+    @SneakyThrows
+    public void send() {
+        boolean isAllowed = !wasSent.get() && !wrappedResponse.isCommitted();
+        Conditional.isTrueOrThrow(isAllowed, new AlreadySentException(this));
+        log.trace("Sending {} asset(s) as a ZIP archive", assetsToSend.size());
+        wrappedResponse.setContentType(CONTENT_TYPE);
+        wrappedResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=\"%s\"".formatted(FILE_NAME));
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(wrappedResponse.getOutputStream())) {
+            for (Asset asset : assetsToSend) {
+                write(asset, zipOutputStream);
+            }
+            zipOutputStream.finish();
+        }
+        wrappedResponse.flushBuffer();
+        wasSent.set(true);
+        log.trace("Sent {}", this);
+    }
+
+    @SneakyThrows
+    private void write(Asset asset, ZipOutputStream zipOutputStream) {
+        ZipEntry zipEntry = new ZipEntry(new AssetReadableName(asset).get());
+        String mimeType = asset.assetMetadata().mimeType();
+        zipOutputStream.setLevel(isCompressed(mimeType) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+        log.trace("Writing {} of type '{}' as {}", asset, mimeType, zipEntry);
+        zipOutputStream.putNextEntry(zipEntry);
+        try (InputStream inputStream = asset.assetFile().retrieve()) {
+            inputStream.transferTo(zipOutputStream);
+        }
+        zipOutputStream.closeEntry();
+    }
+
+    private boolean isCompressed(String mimeType) {
+        String essence = StringUtils.substringBefore(mimeType, ";").strip().toLowerCase(Locale.ROOT);
+        return COMPRESSED_MIME_TYPES.contains(essence)
+            || COMPRESSED_MIME_TYPE_PREFIXES.stream().anyMatch(essence::startsWith);
+    }
+}
@@ -3,6 +3,7 @@ package eu.ciechanowiec.sling.rocket.network;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import eu.ciechanowiec.sling.rocket.asset.SHA256Digest;
 import eu.ciechanowiec.sling.rocket.commons.FileWithOriginalName;
 import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
 import lombok.SneakyThrows;
@@ -20,6 +21,8 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.stream.Stream;
 
@@ -221,12 +224,18 @@ public class SlingRequest implements WrappedSlingRequest {
                 .filter(inputStream -> Objects.nonNull(requestParameter.getFileName()))
                 .map(inputStream -> {
                     String fileName = Objects.requireNonNull(requestParameter.getFileName());
-                    File tempFile = asTempFile(inputStream, fileName);
-                    return new FileWithOriginalName(tempFile, fileName);
+                    MessageDigest messageDigest = sha256MessageDigest();
+                    File tempFile = asTempFile(new DigestInputStream(inputStream, messageDigest), fileName);
+                    return new FileWithOriginalName(tempFile, fileName, new SHA256Digest(messageDigest).get());
                 });
         }
     }
 
+    @SneakyThrows
+    private MessageDigest sha256MessageDigest() {
+        return MessageDigest.getInstance(SHA256Digest.ALGORITHM);
+    }
+
     @SneakyThrows
     private File asTempFile(InputStream inputStream, String fileNamePrefix) {
         File tempFile = File.createTempFile(fileNamePrefix, ".tmp");
@@ -236,6 +245,24 @@ public class SlingRequest implements WrappedSlingRequest {
         return tempFile;
     }
 
+    /**
+     * Returns values of all simple form field parameters of the wrapped {@link SlingJakartaHttpServletRequest} that
+     * have the specified name, in the order they were sent. If there are no such parameters, an empty {@link List}
+     * is returned.
+     *
+     * @param parameterName name of the request parameters whose values should be returned
+     * @return values of all simple form field parameters of the wrapped {@link SlingJakartaHttpServletRequest} that
+     * have the specified name, in the order they were sent
+     */
+    public List<String> parameterValues(String parameterName) {
+        return Optional.ofNullable(wrappedSlingRequest.getRequestParameters(parameterName))
+            .stream()
+            .flatMap(Stream::of)
+            .filter(RequestParameter::isFormField)
+            .map(RequestParameter::getString)
+            .toList();
+    }
+
     @SneakyThrows
     @Override
     public String asJSON() {
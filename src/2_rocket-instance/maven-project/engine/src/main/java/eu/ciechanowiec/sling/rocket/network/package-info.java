@@ -2,7 +2,7 @@
  * Network utilities.
  */
 @Export
-@Version("17.0.0")
+@Version("17.1.0")
 package eu.ciechanowiec.sling.rocket.network;
 
 import org.osgi.annotation.bundle.Export;
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.ciechanowiec.sling.rocket.asset.Asset;
 import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationCounter;
 import eu.ciechanowiec.sling.rocket.commons.JSON;
 import eu.ciechanowiec.sling.rocket.commons.MemoizingSupplier;
 import eu.ciechanowiec.sling.rocket.unit.DataSize;
@@ -16,14 +17,18 @@ import java.util.Optional;
 
 class AssetsCalculation implements JSON {
 
-    private final MemoizingSupplier<List<Asset>> allAssets;
+    private final MemoizingSupplier<List<Asset>> biggestAssets;
     private final MemoizingSupplier<Long> numberOfAllAssets;
     private final MemoizingSupplier<DataSize> dataSizeOfAllAssets;
+    private final DeduplicationCounter deduplicationCounter;
 
-    AssetsCalculation(AssetsRepository assetsRepository) {
-        this.allAssets = new MemoizingSupplier<>(assetsRepository::all);
-        this.numberOfAllAssets = new MemoizingSupplier<>(() -> Long.valueOf(this.allAssets.get().size()));
+    AssetsCalculation(
+        AssetsRepository assetsRepository, DeduplicationCounter deduplicationCounter, int biggestAssetsLimit
+    ) {
+        this.biggestAssets = new MemoizingSupplier<>(() -> assetsRepository.biggest(biggestAssetsLimit));
+        this.numberOfAllAssets = new MemoizingSupplier<>(assetsRepository::count);
         this.dataSizeOfAllAssets = new MemoizingSupplier<>(assetsRepository::size);
+        this.deduplicationCounter = deduplicationCounter;
     }
 
     @JsonProperty
@@ -61,14 +66,37 @@ class AssetsCalculation implements JSON {
 
     @JsonProperty
     List<String> biggestAssets() {
-        return allAssets.get()
+        return biggestAssets.get()
             .stream()
-            .sorted((assetOne, assetTwo) -> assetTwo.assetFile().size().compareTo(assetOne.assetFile().size()))
-            .limit(100)
             .map(asset -> String.format("'%s' - %s", asset.jcrPath().get(), asset.assetFile().size()))
             .toList();
     }
 
+    @JsonProperty
+    long deduplicationLookups() {
+        return deduplicationCounter.lookups();
+    }
+
+    @JsonProperty
+    long deduplicationHits() {
+        return deduplicationCounter.hits();
+    }
+
+    @JsonProperty
+    double deduplicationHitRatio() {
+        return deduplicationCounter.hitRatio();
+    }
+
+    @JsonProperty
+    long deduplicationBytesSaved() {
+        return deduplicationCounter.bytesSaved().bytes();
+    }
+
+    @JsonProperty
+    String deduplicationBytesSavedReadable() {
+        return deduplicationCounter.bytesSaved().toString();
+    }
+
     @SneakyThrows
     @Override
     public String asJSON() {
@@ -4,46 +4,84 @@ import com.fasterxml.jackson.annotation.JsonValue;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.ciechanowiec.sling.rocket.asset.Asset;
 import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
+import eu.ciechanowiec.sling.rocket.asset.AssetsTotals;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationCounter;
 import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.component.propertytypes.ServiceDescription;
+import org.osgi.service.metatype.annotations.Designate;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
 
 /**
  * Statistics on the {@link Asset}s stored in the system.
  */
 @Component(
     service = {RocketStats.class, AssetsStats.class},
-    immediate = true
+    immediate = true,
+    configurationPolicy = ConfigurationPolicy.OPTIONAL
 )
+@Designate(ocd = AssetsStatsConfig.class)
 @Slf4j
 @ServiceDescription("Statistics on the Assets stored in the system")
 public class AssetsStats implements RocketStats {
 
     private final AssetsRepository assetsRepository;
+    private final DeduplicationCounter deduplicationCounter;
+    private AssetsStatsConfig config;
 
     /**
      * Constructs an instance of this class.
      *
-     * @param fullResourceAccess {@link FullResourceAccess} that will be used by the constructed object to acquire
-     *                           access to resources
+     * @param fullResourceAccess   {@link FullResourceAccess} that will be used by the constructed object to acquire
+     *                             access to resources
+     * @param deduplicationCounter {@link DeduplicationCounter} from which statistics on the deduplication of
+     *                             {@link Asset}s will be retrieved
+     * @param assetsTotals         {@link AssetsTotals} that, if available, will be used to count the {@link Asset}s
+     *                             and calculate their size without scanning the repository
+     * @param config               {@link AssetsStatsConfig} that will be used by the constructed object
      */
     @Activate
     public AssetsStats(
         @Reference(cardinality = ReferenceCardinality.MANDATORY)
-        FullResourceAccess fullResourceAccess
+        FullResourceAccess fullResourceAccess,
+        @Reference(cardinality = ReferenceCardinality.MANDATORY)
+        DeduplicationCounter deduplicationCounter,
+        @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.STATIC,
+            policyOption = ReferencePolicyOption.GREEDY
+        )
+        @Nullable
+        AssetsTotals assetsTotals,
+        AssetsStatsConfig config
     ) {
-        this.assetsRepository = new AssetsRepository(fullResourceAccess);
+        this.assetsRepository = Optional.ofNullable(assetsTotals)
+            .map(totals -> new AssetsRepository(fullResourceAccess, totals))
+            .orElseGet(() -> new AssetsRepository(fullResourceAccess));
+        this.deduplicationCounter = deduplicationCounter;
+        this.config = config;
+    }
+
+    @Modified
+    void configure(AssetsStatsConfig config) {
+        this.config = config;
     }
 
     @JsonValue
     AssetsCalculation calculate() {
         log.info("Calculating assets stats");
-        return new AssetsCalculation(assetsRepository);
+        return new AssetsCalculation(assetsRepository, deduplicationCounter, config.biggest$_$assets_limit());
     }
 
     @Override
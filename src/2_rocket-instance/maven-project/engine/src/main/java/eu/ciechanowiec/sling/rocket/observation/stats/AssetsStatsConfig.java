@@ -0,0 +1,30 @@
+package eu.ciechanowiec.sling.rocket.observation.stats;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Configuration for {@link AssetsStats}.
+ */
+@ObjectClassDefinition
+public @interface AssetsStatsConfig {
+
+    /**
+     * Maximum number of the biggest {@link Asset}s listed in the statistics. {@link Asset}s linking to the listed ones
+     * are listed in addition and don't count towards the limit.
+     *
+     * @return maximum number of the biggest {@link Asset}s listed in the statistics
+     */
+    @SuppressWarnings("MagicNumber")
+    @AttributeDefinition(
+        name = "Biggest Assets limit",
+        description = "Maximum number of the biggest Assets listed in the statistics. "
+            + "Assets linking to the listed ones are listed in addition and don't count towards the limit",
+        defaultValue = "100",
+        type = AttributeType.INTEGER,
+        min = "0"
+    )
+    int biggest$_$assets_limit() default 100;
+}
@@ -0,0 +1,186 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
+import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.privilege.PrivilegeAdmin;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import lombok.SneakyThrows;
+import org.apache.jackrabbit.oak.spi.security.privilege.PrivilegeConstants;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class AssetLinkTargetsTest extends TestEnvironment {
+
+    private Asset realAsset;
+    private AssetLinkTargetsInvalidation assetLinkTargetsInvalidation;
+
+    AssetLinkTargetsTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        File fileJPGOne = loadResourceIntoFile("1.jpeg");
+        realAsset = new StagedAssetReal(
+            new UsualFileAsAssetFile(fileJPGOne), new FileMetadata(fileJPGOne), fullResourceAccess
+        ).save(new TargetJCRPath("/content/real"));
+        assetLinkTargetsInvalidation = context.registerInjectActivateService(AssetLinkTargetsInvalidation.class);
+    }
+
+    @Test
+    void mustResolveChainOfLinks() {
+        Asset firstLink = new StagedAssetLink(realAsset, fullResourceAccess).save(new TargetJCRPath("/content/one"));
+        Asset secondLink = new StagedAssetLink(firstLink, fullResourceAccess).save(new TargetJCRPath("/content/two"));
+        AssetLinkTargets assetLinkTargets = new AssetLinkTargets();
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            assertAll(
+                () -> assertEquals(
+                    "/content/real", assetLinkTargets.target("/content/two", resourceResolver).getPath()
+                ),
+                () -> assertEquals(
+                    "/content/real", assetLinkTargets.target("/content/two", resourceResolver).getPath()
+                ),
+                () -> assertEquals(
+                    "/content/real", assetLinkTargets.target("/content/one", resourceResolver).getPath()
+                )
+            );
+        }
+        assertAll(
+            () -> assertEquals(realAsset.assetFile().size(), secondLink.assetFile().size()),
+            () -> assertEquals(realAsset.assetMetadata().all(), secondLink.assetMetadata().all())
+        );
+    }
+
+    @Test
+    void mustDetectCycleAfterInvalidation() {
+        Asset firstLink = new StagedAssetLink(realAsset, fullResourceAccess).save(new TargetJCRPath("/content/one"));
+        Asset secondLink = new StagedAssetLink(firstLink, fullResourceAccess).save(new TargetJCRPath("/content/two"));
+        AssetLinkTargets assetLinkTargets = new AssetLinkTargets();
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            assertEquals("/content/real", assetLinkTargets.target("/content/two", resourceResolver).getPath());
+        }
+        relink("/content/one", secondLink.jcrUUID());
+        assetLinkTargetsInvalidation.onChange(
+            List.of(new ResourceChange(ResourceChange.ChangeType.CHANGED, "/content/one", false))
+        );
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            assertThrows(
+                IllegalStateException.class, () -> assetLinkTargets.target("/content/two", resourceResolver)
+            );
+        }
+    }
+
+    @Test
+    void mustNotUseCachedTargetOfRetargetedLink() {
+        File fileJPGTwo = loadResourceIntoFile("2.jpeg");
+        Asset otherRealAsset = new StagedAssetReal(
+            new UsualFileAsAssetFile(fileJPGTwo), new FileMetadata(fileJPGTwo), fullResourceAccess
+        ).save(new TargetJCRPath("/content/otherReal"));
+        new StagedAssetLink(realAsset, fullResourceAccess).save(new TargetJCRPath("/content/one"));
+        AssetLinkTargets assetLinkTargets = new AssetLinkTargets();
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            assertEquals("/content/real", assetLinkTargets.target("/content/one", resourceResolver).getPath());
+        }
+        relink("/content/one", otherRealAsset.jcrUUID());
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            assertEquals("/content/otherReal", assetLinkTargets.target("/content/one", resourceResolver).getPath());
+        }
+    }
+
+    @Test
+    void mustNotUseCachedTargetBehindUnreadableLink() {
+        AuthIDUser testUser = createOrGetUser(new AuthIDUser("test-user"));
+        Asset firstLink = new StagedAssetLink(realAsset, fullResourceAccess).save(
+            new TargetJCRPath("/content/hidden/one")
+        );
+        new StagedAssetLink(firstLink, fullResourceAccess).save(new TargetJCRPath("/content/visible/two"));
+        PrivilegeAdmin privilegeAdmin = new PrivilegeAdmin(fullResourceAccess);
+        privilegeAdmin.allow(new TargetJCRPath("/content/real"), testUser, PrivilegeConstants.JCR_READ);
+        privilegeAdmin.allow(new TargetJCRPath("/content/visible"), testUser, PrivilegeConstants.JCR_READ);
+        AssetLinkTargets assetLinkTargets = new AssetLinkTargets();
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            assertEquals("/content/real", assetLinkTargets.target("/content/visible/two", resourceResolver).getPath());
+        }
+        UserResourceAccess userResourceAccess = new UserResourceAccess(testUser, fullResourceAccess);
+        try (ResourceResolver resourceResolver = userResourceAccess.acquireAccess()) {
+            assertAll(
+                () -> assertTrue(assetLinkTargets.isCached("/content/visible/two")),
+                () -> assertThrows(
+                    IllegalStateException.class,
+                    () -> assetLinkTargets.target("/content/visible/two", resourceResolver)
+                )
+            );
+        }
+    }
+
+    @Test
+    void mustInvalidateOnlyChainsBelowRemovedPath() {
+        new StagedAssetLink(realAsset, fullResourceAccess).save(new TargetJCRPath("/content/one"));
+        File fileJPGTwo = loadResourceIntoFile("2.jpeg");
+        Asset otherRealAsset = new StagedAssetReal(
+            new UsualFileAsAssetFile(fileJPGTwo), new FileMetadata(fileJPGTwo), fullResourceAccess
+        ).save(new TargetJCRPath("/content/other/real"));
+        new StagedAssetLink(otherRealAsset, fullResourceAccess).save(new TargetJCRPath("/content/two"));
+        AssetLinkTargets assetLinkTargets = new AssetLinkTargets();
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            assetLinkTargets.target("/content/one", resourceResolver);
+            assetLinkTargets.target("/content/two", resourceResolver);
+        }
+        boolean isFirstCachedBeforeRemoval = assetLinkTargets.isCached("/content/one");
+        boolean isSecondCachedBeforeRemoval = assetLinkTargets.isCached("/content/two");
+        assetLinkTargetsInvalidation.onChange(
+            List.of(new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/other", false))
+        );
+        assertAll(
+            () -> assertTrue(isFirstCachedBeforeRemoval),
+            () -> assertTrue(isSecondCachedBeforeRemoval),
+            () -> assertTrue(assetLinkTargets.isCached("/content/one")),
+            () -> assertFalse(assetLinkTargets.isCached("/content/two"))
+        );
+    }
+
+    @Test
+    void mustRejectTooLongChain() {
+        Asset previous = realAsset;
+        for (int linkIndex = 0; linkIndex <= AssetLinkTargets.MAX_LINK_DEPTH; linkIndex++) {
+            previous = new StagedAssetLink(previous, fullResourceAccess).save(
+                new TargetJCRPath("/content/link-%d".formatted(linkIndex))
+            );
+        }
+        AssetLinkTargets assetLinkTargets = new AssetLinkTargets();
+        String lastLinkPath = previous.jcrPath().get();
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            assertAll(
+                () -> assertThrows(
+                    IllegalStateException.class, () -> assetLinkTargets.target(lastLinkPath, resourceResolver)
+                ),
+                () -> assertEquals(
+                    "/content/real", assetLinkTargets.target("/content/link-1", resourceResolver).getPath()
+                )
+            );
+        }
+    }
+
+    @SneakyThrows
+    private void relink(String linkPath, String linkedJCRUUID) {
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            Optional.ofNullable(resourceResolver.getResource(linkPath))
+                .map(resource -> resource.adaptTo(ModifiableValueMap.class))
+                .orElseThrow()
+                .put(Asset.PN_LINKED_ASSET, linkedJCRUUID);
+            resourceResolver.commit();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.commons.ResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class AssetsRepositoryTest extends TestEnvironment {
+
+    private static final int NUMBER_OF_ASSETS = 7;
+
+    private AtomicInteger acquiredResolvers;
+    private ResourceAccess countingResourceAccess;
+
+    AssetsRepositoryTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        File fileJPG = loadResourceIntoFile("1.jpeg");
+        Asset assetReal = new StagedAssetReal(
+            new UsualFileAsAssetFile(fileJPG), new FileMetadata(fileJPG), fullResourceAccess
+        ).save(new TargetJCRPath("/content/assets/asset-0"));
+        IntStream.range(1, NUMBER_OF_ASSETS - 1).forEach(
+            index -> new StagedAssetReal(
+                new UsualFileAsAssetFile(fileJPG), new FileMetadata(fileJPG), fullResourceAccess
+            ).save(new TargetJCRPath("/content/assets/asset-" + index))
+        );
+        new StagedAssetLink(assetReal, fullResourceAccess).save(new TargetJCRPath("/content/assets/link"));
+        acquiredResolvers = new AtomicInteger();
+        countingResourceAccess = () -> {
+            acquiredResolvers.incrementAndGet();
+            return fullResourceAccess.acquireAccess();
+        };
+    }
+
+    @Test
+    void mustPaginate() {
+        AssetsRepository assetsRepository = new AssetsRepository(countingResourceAccess);
+        JCRPath searchedPath = new TargetJCRPath("/content/assets");
+        AssetsPage firstPage = new AssetsPage(searchedPath, 0, 3, AssetsOrder.PATH);
+        List<Asset> firstAssets = assetsRepository.find(firstPage);
+        List<Asset> secondAssets = assetsRepository.find(firstPage.next());
+        List<Asset> thirdAssets = assetsRepository.find(firstPage.next().next());
+        List<Asset> fourthAssets = assetsRepository.find(firstPage.next().next().next());
+        int resolversForPages = acquiredResolvers.get();
+        List<String> pagedPaths = new ArrayList<>();
+        List.of(firstAssets, secondAssets, thirdAssets).forEach(
+            assets -> assets.forEach(asset -> pagedPaths.add(asset.jcrPath().get()))
+        );
+        List<String> expectedPaths = new AssetsRepository(fullResourceAccess).find(searchedPath)
+            .stream()
+            .map(asset -> asset.jcrPath().get())
+            .sorted()
+            .toList();
+        assertAll(
+            () -> assertEquals(4, resolversForPages),
+            () -> assertEquals(3, firstAssets.size()),
+            () -> assertEquals(3, secondAssets.size()),
+            () -> assertEquals(1, thirdAssets.size()),
+            () -> assertTrue(fourthAssets.isEmpty()),
+            () -> assertEquals(NUMBER_OF_ASSETS, expectedPaths.size()),
+            () -> assertEquals(expectedPaths, pagedPaths)
+        );
+    }
+
+    @Test
+    void mustNotDuplicateAssetsWhenSearchingAtAssetPath() {
+        AssetsRepository assetsRepository = new AssetsRepository(fullResourceAccess);
+        JCRPath assetPath = new TargetJCRPath("/content/assets/asset-0");
+        List<Asset> foundInAsset = assetsRepository.find(new AssetsPage(assetPath, 0, 10, AssetsOrder.PATH));
+        List<Asset> foundInFile = assetsRepository.find(
+            new TargetJCRPath("/content/assets/asset-0/" + Asset.FILE_NODE_NAME)
+        );
+        assertAll(
+            () -> assertEquals(1, foundInAsset.size()),
+            () -> assertEquals(1, foundInFile.size()),
+            () -> assertEquals(NUMBER_OF_ASSETS, assetsRepository.find(new TargetJCRPath("/content/assets")).size())
+        );
+    }
+
+    @Test
+    void mustStreamWithSingleResolver() {
+        AssetsRepository assetsRepository = new AssetsRepository(countingResourceAccess);
+        List<Asset> streamedAssets = new ArrayList<>();
+        assetsRepository.forEach(new TargetJCRPath("/"), AssetsOrder.UNORDERED, streamedAssets::add);
+        int resolversForStreaming = acquiredResolvers.get();
+        assertAll(
+            () -> assertEquals(1, resolversForStreaming),
+            () -> assertEquals(NUMBER_OF_ASSETS, streamedAssets.size()),
+            () -> assertEquals(NUMBER_OF_ASSETS, streamedAssets.stream().distinct().count()),
+            () -> assertEquals(NUMBER_OF_ASSETS, assetsRepository.all().size())
+        );
+    }
+
+    @Test
+    void mustFindBiggest() {
+        File fileJPGTwo = loadResourceIntoFile("2.jpeg");
+        File fileMP3 = loadResourceIntoFile("time-forward.mp3");
+        List.of(fileJPGTwo, fileMP3).forEach(
+            file -> new StagedAssetReal(
+                new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess
+            ).save(new TargetJCRPath("/content/other/" + file.getName()))
+        );
+        AssetsRepository assetsRepository = new AssetsRepository(fullResourceAccess);
+        List<DataSize> biggestSizes = assetsRepository.biggest(3)
+            .stream()
+            .filter(asset -> new NodeProperties(asset, fullResourceAccess).isPrimaryType(Asset.NT_ASSET_REAL))
+            .map(asset -> asset.assetFile().size())
+            .toList();
+        DataSize expectedBiggestSize = assetsRepository.all()
+            .stream()
+            .map(asset -> asset.assetFile().size())
+            .max(DataSize::compareTo)
+            .orElseThrow();
+        int numberOfAll = NUMBER_OF_ASSETS + 2;
+        assertAll(
+            () -> assertEquals(3, biggestSizes.size()),
+            () -> assertEquals(expectedBiggestSize, biggestSizes.getFirst()),
+            () -> assertTrue(biggestSizes.get(0).compareTo(biggestSizes.get(1)) >= 0),
+            () -> assertTrue(biggestSizes.get(1).compareTo(biggestSizes.get(2)) >= 0),
+            () -> assertEquals(numberOfAll, assetsRepository.biggest(100).size()),
+            () -> assertTrue(assetsRepository.biggest(0).isEmpty())
+        );
+    }
+
+    @Test
+    void mustNotCountLinksTowardsBiggestLimit() {
+        AssetsRepository assetsRepository = new AssetsRepository(fullResourceAccess);
+        List<Asset> biggest = assetsRepository.biggest(NUMBER_OF_ASSETS - 1);
+        assertAll(
+            () -> assertEquals(NUMBER_OF_ASSETS, biggest.size()),
+            () -> assertEquals(
+                1L, biggest.stream()
+                    .filter(asset -> new NodeProperties(asset, fullResourceAccess).isPrimaryType(Asset.NT_ASSET_LINK))
+                    .count()
+            )
+        );
+    }
+
+    @Test
+    void mustFindAfterJCRUUID() {
+        AssetsRepository assetsRepository = new AssetsRepository(fullResourceAccess);
+        List<Asset> firstAssets = assetsRepository.findAfter(StringUtils.EMPTY, 4);
+        List<Asset> secondAssets = assetsRepository.findAfter(firstAssets.getLast().jcrUUID(), 4);
+        List<Asset> thirdAssets = assetsRepository.findAfter(secondAssets.getLast().jcrUUID(), 4);
+        List<String> pagedUUIDs = Stream.concat(firstAssets.stream(), secondAssets.stream())
+            .map(Asset::jcrUUID)
+            .toList();
+        List<String> expectedUUIDs = assetsRepository.all()
+            .stream()
+            .filter(asset -> new NodeProperties(asset, fullResourceAccess).isPrimaryType(Asset.NT_ASSET_REAL))
+            .map(Asset::jcrUUID)
+            .sorted()
+            .toList();
+        assertAll(
+            () -> assertEquals(4, firstAssets.size()),
+            () -> assertEquals(2, secondAssets.size()),
+            () -> assertTrue(thirdAssets.isEmpty()),
+            () -> assertEquals(NUMBER_OF_ASSETS - 1, expectedUUIDs.size()),
+            () -> assertEquals(expectedUUIDs, pagedUUIDs)
+        );
+    }
+
+    @Test
+    void mustRejectIllegalPage() {
+        JCRPath searchedPath = new TargetJCRPath("/");
+        assertAll(
+            () -> assertThrows(
+                IllegalArgumentException.class, () -> new AssetsPage(searchedPath, -1, 1, AssetsOrder.PATH)
+            ),
+            () -> assertThrows(
+                IllegalArgumentException.class, () -> new AssetsPage(searchedPath, 0, 0, AssetsOrder.PATH)
+            )
+        );
+    }
+}
@@ -0,0 +1,101 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AssetsSizeBackfillTest extends TestEnvironment {
+
+    AssetsSizeBackfillTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @Test
+    void mustBackfillSize() throws PersistenceException {
+        JobManager jobManager = mock(JobManager.class);
+        context.registerService(JobManager.class, jobManager);
+        AssetsSizeBackfill assetsSizeBackfill = context.registerInjectActivateService(AssetsSizeBackfill.class);
+        verify(jobManager, never()).addJob(AssetsSizeBackfill.JOB_TOPIC, Map.of());
+        File fileJPG = loadResourceIntoFile("1.jpeg");
+        Asset asset = new StagedAssetReal(
+            new UsualFileAsAssetFile(fileJPG), new FileMetadata(fileJPG), fullResourceAccess
+        ).save(new TargetJCRPath("/content/assets/old"));
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            Objects.requireNonNull(
+                resourceResolver.getResource(asset.jcrPath().get() + "/" + Asset.METADATA_NODE_NAME)
+            ).adaptTo(ModifiableValueMap.class).remove(AssetMetadata.PN_SIZE_BYTES);
+            resourceResolver.commit();
+        }
+        new AssetsSizeBackfill(fullResourceAccess, jobManager);
+        AssetsRepository assetsRepository = new AssetsRepository(fullResourceAccess);
+        List<Asset> biggestBeforeBackfill = assetsRepository.biggest(10);
+        JobConsumer.JobResult jobResult = assetsSizeBackfill.process(mock(Job.class));
+        List<Asset> biggestAfterBackfill = assetsRepository.biggest(10);
+        assertAll(
+            () -> verify(jobManager, times(1)).addJob(AssetsSizeBackfill.JOB_TOPIC, Map.of()),
+            () -> assertEquals(JobConsumer.JobResult.OK, jobResult),
+            () -> assertTrue(biggestBeforeBackfill.isEmpty()),
+            () -> assertEquals(1, biggestAfterBackfill.size()),
+            () -> assertEquals(new DataSize(fileJPG), biggestAfterBackfill.getFirst().assetFile().size()),
+            () -> assertEquals(0L, assetsSizeBackfill.backfill())
+        );
+    }
+
+    @Test
+    void mustBackfillInBatches() throws PersistenceException {
+        int numOfAssets = AssetsSizeBackfill.BATCH_SIZE + 2;
+        File fileJPG = loadResourceIntoFile("1.jpeg");
+        Asset asset = new StagedAssetReal(
+            new UsualFileAsAssetFile(fileJPG), new FileMetadata(fileJPG), fullResourceAccess
+        ).save(new TargetJCRPath("/content/assets/old"));
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            Resource assetResource = Objects.requireNonNull(resourceResolver.getResource(asset.jcrPath().get()));
+            Objects.requireNonNull(assetResource.getChild(Asset.METADATA_NODE_NAME))
+                .adaptTo(ModifiableValueMap.class).remove(AssetMetadata.PN_SIZE_BYTES);
+            resourceResolver.commit();
+            for (int index = 1; index < numOfAssets; index++) {
+                resourceResolver.copy(assetResource.getPath(), "/content/assets/old-" + index);
+            }
+            resourceResolver.commit();
+        }
+        FullResourceAccess spiedAccess = spy(fullResourceAccess);
+        AtomicInteger commits = new AtomicInteger();
+        doAnswer(
+            invocation -> {
+                ResourceResolver resourceResolver = spy((ResourceResolver) invocation.callRealMethod());
+                doAnswer(
+                    commit -> {
+                        commits.incrementAndGet();
+                        return commit.callRealMethod();
+                    }
+                ).when(resourceResolver).commit();
+                return resourceResolver;
+            }
+        ).when(spiedAccess).acquireAccess();
+        long numOfBackfilled = new AssetsSizeBackfill(spiedAccess, mock(JobManager.class)).backfill();
+        assertAll(
+            () -> assertEquals(numOfAssets, numOfBackfilled),
+            () -> assertEquals(2, commits.get()),
+            () -> assertEquals(0L, new AssetsSizeBackfill(fullResourceAccess, mock(JobManager.class)).backfill())
+        );
+    }
+}
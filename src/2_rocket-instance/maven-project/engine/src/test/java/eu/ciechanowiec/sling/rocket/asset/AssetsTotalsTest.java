@@ -0,0 +1,191 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import eu.ciechanowiec.sling.rocket.unit.DataUnit;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class AssetsTotalsTest extends TestEnvironment {
+
+    private File fileJPGOne;
+    private File fileJPGTwo;
+    private JobManager jobManager;
+    private AssetsTotals assetsTotals;
+
+    AssetsTotalsTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        fileJPGOne = loadResourceIntoFile("1.jpeg");
+        fileJPGTwo = loadResourceIntoFile("2.jpeg");
+        jobManager = mock(JobManager.class);
+        context.registerService(JobManager.class, jobManager);
+        assetsTotals = context.registerInjectActivateService(AssetsTotals.class);
+    }
+
+    @Test
+    void mustRequestFirstReconciliationOnDemand() {
+        TargetJCRPath root = new TargetJCRPath("/");
+        verify(jobManager, never()).addJob(AssetsTotals.JOB_TOPIC, Map.of());
+        assertAll(
+            () -> assertTrue(assetsTotals.count(root).isEmpty()),
+            () -> assertTrue(assetsTotals.size(root).isEmpty()),
+            () -> verify(jobManager, times(1)).addJob(AssetsTotals.JOB_TOPIC, Map.of())
+        );
+    }
+
+    @Test
+    void mustSkipDescendantsOfCountedAssets() {
+        assetsTotals.process(mock(Job.class));
+        Asset asset = stagedAssetReal(fileJPGOne).save(new TargetJCRPath("/content/standalone"));
+        String assetPath = asset.jcrPath().get();
+        assetsTotals.onChange(
+            List.of(
+                added(assetPath),
+                added(assetPath + "/" + Asset.FILE_NODE_NAME),
+                added(assetPath + "/" + Asset.FILE_NODE_NAME + "/" + JcrConstants.JCR_CONTENT)
+            )
+        );
+        assertAll(
+            () -> assertEquals(1L, assetsTotals.count(new TargetJCRPath("/")).orElseThrow()),
+            () -> assertEquals(new DataSize(fileJPGOne), assetsTotals.size(new TargetJCRPath("/")).orElseThrow())
+        );
+    }
+
+    @Test
+    void mustReconcile() {
+        Assets assets = new StagedAssets(
+            List.of(stagedAssetReal(fileJPGOne), stagedAssetReal(fileJPGTwo)), fullResourceAccess
+        ).save(new TargetJCRPath("/content/assets"));
+        stagedAssetReal(fileJPGOne).save(new TargetJCRPath("/content/standalone"));
+        JobConsumer.JobResult jobResult = assetsTotals.process(mock(Job.class));
+        TargetJCRPath root = new TargetJCRPath("/");
+        TargetJCRPath folder = new TargetJCRPath("/content/assets");
+        DataSize jpgOneSize = new DataSize(fileJPGOne);
+        DataSize jpgTwoSize = new DataSize(fileJPGTwo);
+        AssetsRepository scanningRepository = new AssetsRepository(fullResourceAccess);
+        AssetsRepository totalsRepository = new AssetsRepository(fullResourceAccess, assetsTotals);
+        assertAll(
+            () -> assertEquals(JobConsumer.JobResult.OK, jobResult),
+            () -> assertEquals(2, assets.get().size()),
+            () -> assertEquals(3L, assetsTotals.count(root).orElseThrow()),
+            () -> assertEquals(2L, assetsTotals.count(folder).orElseThrow()),
+            () -> assertEquals(1L, assetsTotals.count(new TargetJCRPath("/content/standalone")).orElseThrow()),
+            () -> assertEquals(
+                new DataSize(jpgOneSize.bytes() + jpgTwoSize.bytes(), DataUnit.BYTES),
+                assetsTotals.size(folder).orElseThrow()
+            ),
+            () -> assertEquals(scanningRepository.size(), totalsRepository.size()),
+            () -> assertEquals(scanningRepository.count(), totalsRepository.count()),
+            () -> assertEquals(scanningRepository.size(folder), totalsRepository.size(folder))
+        );
+    }
+
+    @Test
+    void mustKeepChangesReceivedDuringReconciliation() {
+        stagedAssetReal(fileJPGOne).save(new TargetJCRPath("/content/existing"));
+        FullResourceAccess spiedAccess = spy(fullResourceAccess);
+        AssetsTotals reconciledTotals = new AssetsTotals(spiedAccess, jobManager);
+        AtomicInteger acquisitions = new AtomicInteger();
+        doAnswer(
+            invocation -> {
+                // The third acquisition happens inside the scan, after the scanning query has been executed:
+                if (acquisitions.incrementAndGet() == 3) {
+                    Asset added = CompletableFuture.supplyAsync(
+                        () -> stagedAssetReal(fileJPGTwo).save(new TargetJCRPath("/content/added"))
+                    ).join();
+                    reconciledTotals.onChange(List.of(added(added.jcrPath().get())));
+                }
+                return invocation.callRealMethod();
+            }
+        ).when(spiedAccess).acquireAccess();
+        reconciledTotals.reconcile();
+        TargetJCRPath root = new TargetJCRPath("/");
+        DataSize jpgOneSize = new DataSize(fileJPGOne);
+        DataSize jpgTwoSize = new DataSize(fileJPGTwo);
+        assertAll(
+            () -> assertTrue(acquisitions.get() > 3),
+            () -> assertEquals(2L, reconciledTotals.count(root).orElseThrow()),
+            () -> assertEquals(1L, reconciledTotals.count(new TargetJCRPath("/content/added")).orElseThrow()),
+            () -> assertEquals(
+                new DataSize(jpgOneSize.bytes() + jpgTwoSize.bytes(), DataUnit.BYTES),
+                reconciledTotals.size(new TargetJCRPath("/content")).orElseThrow()
+            )
+        );
+    }
+
+    @Test
+    void mustTrackChanges() throws PersistenceException {
+        assetsTotals.process(mock(Job.class));
+        TargetJCRPath root = new TargetJCRPath("/");
+        assertEquals(0L, assetsTotals.count(root).orElseThrow());
+        Assets assets = new StagedAssets(
+            List.of(stagedAssetReal(fileJPGOne), stagedAssetReal(fileJPGTwo)), fullResourceAccess
+        ).save(new TargetJCRPath("/content/assets"));
+        Asset standalone = stagedAssetReal(fileJPGOne).save(new TargetJCRPath("/content/standalone"));
+        assets.get().forEach(asset -> assetsTotals.onChange(List.of(added(asset.jcrPath().get()))));
+        assetsTotals.onChange(
+            List.of(
+                added(standalone.jcrPath().get()),
+                added(standalone.jcrPath().get() + "/" + Asset.FILE_NODE_NAME),
+                added("/content")
+            )
+        );
+        long countAfterAdding = assetsTotals.count(root).orElseThrow();
+        DataSize sizeAfterAdding = assetsTotals.size(root).orElseThrow();
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            resourceResolver.delete(resourceResolver.getResource("/content/assets"));
+            resourceResolver.commit();
+        }
+        assetsTotals.onChange(List.of(removed("/content/assets")));
+        assertAll(
+            () -> assertEquals(3L, countAfterAdding),
+            () -> assertEquals(new AssetsRepository(fullResourceAccess).size(), assetsTotals.size(root).orElseThrow()),
+            () -> assertTrue(sizeAfterAdding.compareTo(assetsTotals.size(root).orElseThrow()) > 0),
+            () -> assertEquals(1L, assetsTotals.count(root).orElseThrow()),
+            () -> assertEquals(0L, assetsTotals.count(new TargetJCRPath("/content/assets")).orElseThrow())
+        );
+    }
+
+    private ResourceChange added(String path) {
+        return change(path, ResourceChange.ChangeType.ADDED);
+    }
+
+    private ResourceChange removed(String path) {
+        return change(path, ResourceChange.ChangeType.REMOVED);
+    }
+
+    private ResourceChange change(String path, ResourceChange.ChangeType changeType) {
+        ResourceChange resourceChange = mock(ResourceChange.class);
+        when(resourceChange.getPath()).thenReturn(path);
+        when(resourceChange.getType()).thenReturn(changeType);
+        return resourceChange;
+    }
+
+    private StagedAssetReal stagedAssetReal(File file) {
+        return new StagedAssetReal(new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess);
+    }
+}
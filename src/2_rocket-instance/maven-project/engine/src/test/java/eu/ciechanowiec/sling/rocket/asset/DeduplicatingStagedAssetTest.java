@@ -0,0 +1,147 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.jcr.DefaultProperties;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class DeduplicatingStagedAssetTest extends TestEnvironment {
+
+    private File fileJPGOne;
+    private File fileJPGTwo;
+    private DeduplicationCounter deduplicationCounter;
+
+    DeduplicatingStagedAssetTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        fileJPGOne = loadResourceIntoFile("1.jpeg");
+        fileJPGTwo = loadResourceIntoFile("2.jpeg");
+        deduplicationCounter = context.registerInjectActivateService(DeduplicationCounter.class);
+    }
+
+    @Test
+    void mustStoreDigest() {
+        Asset asset = stagedAssetReal(fileJPGOne).save(new TargetJCRPath("/content/jpgOne"));
+        String expectedDigest = new SHA256Digest(new UsualFileAsAssetFile(fileJPGOne)).get();
+        String storedDigest = asset.assetMetadata()
+            .properties()
+            .flatMap(
+                nodeProperties -> nodeProperties.propertyValue(AssetMetadata.PN_SHA256, DefaultProperties.STRING_CLASS)
+            )
+            .orElseThrow();
+        AssetsRepository assetsRepository = new AssetsRepository(fullResourceAccess);
+        assertAll(
+            () -> assertEquals(64, expectedDigest.length()),
+            () -> assertEquals(expectedDigest, storedDigest),
+            () -> assertEquals(
+                asset, assetsRepository.find(new SHA256Digest(new UsualFileAsAssetFile(fileJPGOne))).orElseThrow()
+            ),
+            () -> assertTrue(
+                assetsRepository.find(new SHA256Digest(new UsualFileAsAssetFile(fileJPGTwo))).isEmpty()
+            )
+        );
+    }
+
+    @Test
+    void mustReuseExistingAsset() {
+        Asset original = new DeduplicatingStagedAsset(
+            stagedAssetReal(fileJPGOne), DeduplicationMode.REUSE, deduplicationCounter
+        ).save(new TargetJCRPath("/content/jpgOne"));
+        Asset reused = new DeduplicatingStagedAsset(
+            stagedAssetReal(fileJPGOne), DeduplicationMode.REUSE, deduplicationCounter
+        ).save(new TargetJCRPath("/content/jpgOneDuplicate"));
+        Asset other = new DeduplicatingStagedAsset(
+            stagedAssetReal(fileJPGTwo), DeduplicationMode.REUSE, deduplicationCounter
+        ).save(new TargetJCRPath("/content/jpgTwo"));
+        assertAll(
+            () -> assertEquals(original.jcrPath(), reused.jcrPath()),
+            () -> assertNotEquals(original.jcrPath(), other.jcrPath()),
+            () -> assertNull(context.resourceResolver().getResource("/content/jpgOneDuplicate")),
+            () -> assertEquals(2, new AssetsRepository(fullResourceAccess).all().size()),
+            () -> assertEquals(3, deduplicationCounter.lookups()),
+            () -> assertEquals(1, deduplicationCounter.hits()),
+            () -> assertEquals(new DataSize(fileJPGOne), deduplicationCounter.bytesSaved())
+        );
+    }
+
+    @Test
+    void mustLinkExistingAsset() {
+        Asset original = new DeduplicatingStagedAsset(
+            stagedAssetReal(fileJPGOne), DeduplicationMode.LINK, deduplicationCounter
+        ).save(new TargetJCRPath("/content/jpgOne"));
+        Asset linked = new DeduplicatingStagedAsset(
+            stagedAssetReal(fileJPGOne), DeduplicationMode.LINK, deduplicationCounter
+        ).save(new TargetJCRPath("/content/jpgOneDuplicate"));
+        assertAll(
+            () -> assertEquals("/content/jpgOneDuplicate", linked.jcrPath().get()),
+            () -> assertTrue(
+                new NodeProperties(linked.jcrPath(), fullResourceAccess).isPrimaryType(Asset.NT_ASSET_LINK)
+            ),
+            () -> assertNotEquals(original, linked),
+            () -> assertEquals(original.assetFile().size(), linked.assetFile().size()),
+            () -> assertEquals(0.5, deduplicationCounter.hitRatio())
+        );
+    }
+
+    @Test
+    void mustUseDigestKnownUpfront() {
+        String digestOfJPGOne = new SHA256Digest(new UsualFileAsAssetFile(fileJPGOne)).get();
+        Asset original = new DeduplicatingStagedAsset(
+            stagedAssetReal(fileJPGOne), DeduplicationMode.REUSE, deduplicationCounter
+        ).save(new TargetJCRPath("/content/jpgOne"));
+        AssetFile withKnownDigest = spy(
+            new UsualFileAsAssetFile(fileJPGOne, new SHA256Digest(digestOfJPGOne.toUpperCase(Locale.ROOT)))
+        );
+        Asset reused = new DeduplicatingStagedAsset(
+            new StagedAssetReal(withKnownDigest, new FileMetadata(fileJPGOne), fullResourceAccess),
+            DeduplicationMode.REUSE, deduplicationCounter
+        ).save(new TargetJCRPath("/content/jpgOneDuplicate"));
+        verify(withKnownDigest, never()).retrieve();
+        String storedDigest = new StagedAssetReal(withKnownDigest, new FileMetadata(fileJPGOne), fullResourceAccess)
+            .save(new TargetJCRPath("/content/jpgOneStored"))
+            .assetMetadata()
+            .properties()
+            .flatMap(
+                nodeProperties -> nodeProperties.propertyValue(AssetMetadata.PN_SHA256, DefaultProperties.STRING_CLASS)
+            )
+            .orElseThrow();
+        assertAll(
+            () -> assertEquals(original, reused),
+            () -> assertEquals(digestOfJPGOne, storedDigest),
+            () -> verify(withKnownDigest, times(1)).retrieve()
+        );
+    }
+
+    @Test
+    void mustNotDeduplicateWhenDisabled() {
+        new DeduplicatingStagedAsset(
+            stagedAssetReal(fileJPGOne), DeduplicationMode.DISABLED, deduplicationCounter
+        ).save(new TargetJCRPath("/content/jpgOne"));
+        new DeduplicatingStagedAsset(
+            stagedAssetReal(fileJPGOne), DeduplicationMode.DISABLED, deduplicationCounter
+        ).save(new TargetJCRPath("/content/jpgOneDuplicate"));
+        assertAll(
+            () -> assertEquals(2, new AssetsRepository(fullResourceAccess).all().size()),
+            () -> assertEquals(0, deduplicationCounter.lookups()),
+            () -> assertEquals(0.0, deduplicationCounter.hitRatio())
+        );
+    }
+
+    private StagedAssetReal stagedAssetReal(File file) {
+        return new StagedAssetReal(new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess);
+    }
+}
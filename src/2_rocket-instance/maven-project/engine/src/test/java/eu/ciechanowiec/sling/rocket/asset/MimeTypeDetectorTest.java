@@ -0,0 +1,40 @@
+package eu.ciechanowiec.sling.rocket.asset;
+
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import lombok.SneakyThrows;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MimeTypeDetectorTest extends TestEnvironment {
+
+    MimeTypeDetectorTest() {
+        super(ResourceResolverType.RESOURCERESOLVER_MOCK);
+    }
+
+    @Test
+    @SneakyThrows
+    void mustDetectFromBoundedPrefix() {
+        File fileJPG = loadResourceIntoFile("1.jpeg");
+        MimeTypeDetector mimeTypeDetector = new MimeTypeDetector();
+        try (InputStream inputStream = Files.newInputStream(fileJPG.toPath())) {
+            String detectedMimeType = mimeTypeDetector.detect(inputStream, "no-extension");
+            byte[] remainingBytes = inputStream.readAllBytes();
+            assertAll(
+                () -> assertEquals("image/jpeg", detectedMimeType),
+                () -> assertEquals(fileJPG.length() - MimeTypeDetector.PREFIX_SIZE_BYTES, remainingBytes.length)
+            );
+        }
+        assertAll(
+            () -> assertEquals("image/jpeg", mimeTypeDetector.detect(fileJPG)),
+            () -> assertEquals(".jpg", mimeTypeDetector.extension("image/jpeg").orElseThrow()),
+            () -> assertEquals(".jpg", mimeTypeDetector.extension("image/jpeg").orElseThrow()),
+            () -> assertTrue(mimeTypeDetector.extension("non-existent-mime-type").isEmpty())
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package eu.ciechanowiec.sling.rocket.asset.api;
 
 import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
 import eu.ciechanowiec.sling.rocket.asset.FileMetadata;
 import eu.ciechanowiec.sling.rocket.asset.StagedAssetReal;
 import eu.ciechanowiec.sling.rocket.asset.UsualFileAsAssetFile;
@@ -52,4 +53,17 @@ class AssetDescriptorTest extends TestEnvironment {
         assertNotEquals(assetDescriptorOne, assetDescriptorTwoA);
         assertEquals(assetDescriptorTwoA, assetDescriptorTwoB);
     }
+
+    @Test
+    void mustUseExtensionStoredUponSaving() {
+        Asset asset = new StagedAssetReal(
+            new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess
+        ).save(new TargetJCRPath("/content/images/stored-extension"));
+        String storedExtension = asset.assetMetadata()
+            .properties()
+            .flatMap(nodeProperties -> nodeProperties.propertyValue(AssetMetadata.PN_FILENAME_EXTENSION, String.class))
+            .orElseThrow();
+        assertEquals(".jpg", storedExtension);
+        assertEquals(asset.jcrUUID() + ".jpg", new AssetDescriptor(asset).toString());
+    }
 }
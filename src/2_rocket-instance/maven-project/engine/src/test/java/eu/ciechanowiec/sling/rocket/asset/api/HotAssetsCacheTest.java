@@ -0,0 +1,151 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.*;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import lombok.SneakyThrows;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.testing.mock.jcr.MockJcr;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.servlet.MockRequestPathInfo;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class HotAssetsCacheTest extends TestEnvironment {
+
+    private File file;
+    private Asset asset;
+
+    HotAssetsCacheTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        context.registerInjectActivateService(AssetsAPI.class);
+        file = loadResourceIntoFile("1.jpeg");
+        asset = new StagedAssetReal(
+            new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess
+        ).save(new TargetJCRPath("/content/images/logo"));
+    }
+
+    @Test
+    @SneakyThrows
+    void mustServeSmallAssetsFromCache() {
+        HotAssetsCache hotAssetsCache = context.registerInjectActivateService(
+            HotAssetsCache.class, Map.of("max-asset-size.bytes", file.length())
+        );
+        ServletDownload servletDownload = context.registerInjectActivateService(ServletDownload.class);
+        MockSlingJakartaHttpServletResponse firstResponse = context.jakartaResponse();
+        servletDownload.doGet(request(), firstResponse);
+        MockSlingJakartaHttpServletResponse secondResponse = context.jakartaResponse();
+        servletDownload.doGet(request(), secondResponse);
+        byte[] expectedContent = Files.readAllBytes(file.toPath());
+        assertAll(
+            () -> assertArrayEquals(expectedContent, firstResponse.getOutput()),
+            () -> assertArrayEquals(expectedContent, secondResponse.getOutput()),
+            () -> assertEquals(1, hotAssetsCache.hits()),
+            () -> assertEquals(1, hotAssetsCache.misses()),
+            () -> assertEquals(file.length(), hotAssetsCache.cachedBytes())
+        );
+        hotAssetsCache.onChange(
+            List.of(new ResourceChange(ResourceChange.ChangeType.CHANGED, "/content/images/logo/file", false))
+        );
+        assertEquals(0, hotAssetsCache.cachedBinaries());
+    }
+
+    @Test
+    void mustInvalidateUponRemovalOfAncestor() {
+        HotAssetsCache hotAssetsCache = context.registerInjectActivateService(
+            HotAssetsCache.class, Map.of("max-asset-size.bytes", file.length())
+        );
+        hotAssetsCache.assetFile(asset);
+        hotAssetsCache.onChange(
+            List.of(new ResourceChange(ResourceChange.ChangeType.CHANGED, "/content/images", false))
+        );
+        long cachedAfterAncestorChange = hotAssetsCache.cachedBinaries();
+        hotAssetsCache.onChange(
+            List.of(new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/images", false))
+        );
+        assertAll(
+            () -> assertEquals(1, cachedAfterAncestorChange),
+            () -> assertEquals(0, hotAssetsCache.cachedBinaries())
+        );
+    }
+
+    @Test
+    void mustNotInvalidateUponRenditionChange() {
+        HotAssetsCache hotAssetsCache = context.registerInjectActivateService(
+            HotAssetsCache.class, Map.of("max-asset-size.bytes", file.length())
+        );
+        hotAssetsCache.assetFile(asset);
+        hotAssetsCache.onChange(
+            List.of(
+                new ResourceChange(
+                    ResourceChange.ChangeType.ADDED, "/content/images/logo/renditions/100x100", false
+                ),
+                new ResourceChange(ResourceChange.ChangeType.CHANGED, "/content/images/logo/renditions", false),
+                new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/images/logo/renditions", false)
+            )
+        );
+        assertEquals(1, hotAssetsCache.cachedBinaries());
+    }
+
+    @Test
+    void mustNotOpenBinaryUponHit() {
+        HotAssetsCache hotAssetsCache = context.registerInjectActivateService(
+            HotAssetsCache.class, Map.of("max-asset-size.bytes", file.length())
+        );
+        AssetFile assetFile = spy(asset.assetFile());
+        Asset spiedAsset = spy(asset);
+        doReturn(assetFile).when(spiedAsset).assetFile();
+        hotAssetsCache.assetFile(spiedAsset);
+        hotAssetsCache.assetFile(spiedAsset);
+        assertAll(
+            () -> verify(assetFile, times(1)).retrieve(),
+            () -> verify(assetFile, never()).size(),
+            () -> assertEquals(1, hotAssetsCache.hits())
+        );
+    }
+
+    @Test
+    void mustNotCacheBigAssets() {
+        HotAssetsCache hotAssetsCache = context.registerInjectActivateService(
+            HotAssetsCache.class, Map.of("max-asset-size.bytes", file.length() - 1)
+        );
+        AssetFile assetFile = hotAssetsCache.assetFile(asset);
+        assertAll(
+            () -> assertEquals(file.length(), assetFile.size().bytes()),
+            () -> assertEquals(0, hotAssetsCache.misses()),
+            () -> assertEquals(0, hotAssetsCache.cachedBinaries()),
+            () -> assertTrue(hotAssetsCache.asJSON().contains("\"evictions\":0"))
+        );
+    }
+
+    private MockSlingJakartaHttpServletRequest request() {
+        MockSlingJakartaHttpServletRequest request = spy(context.jakartaRequest());
+        MockRequestPathInfo mockRequestPathInfo = new MockRequestPathInfo(context.resourceResolver());
+        mockRequestPathInfo.setResourcePath(AssetsAPI.ASSETS_API_PATH);
+        mockRequestPathInfo.setSelectorString("%s.%s".formatted(ServletDownload.SELECTOR, asset.jcrUUID()));
+        mockRequestPathInfo.setExtension(
+            asset.assetMetadata().filenameExtension().orElseThrow().replaceFirst("\\.", StringUtils.EMPTY)
+        );
+        lenient().when(request.getRequestPathInfo()).thenReturn(mockRequestPathInfo);
+        request.setRemoteUser(MockJcr.DEFAULT_USER_ID);
+        request.setMethod(HttpConstants.METHOD_GET);
+        return request;
+    }
+}
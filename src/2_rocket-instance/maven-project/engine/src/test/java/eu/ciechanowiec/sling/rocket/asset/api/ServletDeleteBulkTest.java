@@ -0,0 +1,220 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.*;
+import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.testing.mock.jcr.MockJcr;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.servlet.MockRequestPathInfo;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class ServletDeleteBulkTest extends TestEnvironment {
+
+    private List<Asset> assets;
+
+    ServletDeleteBulkTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        context.registerInjectActivateService(AssetsAPI.class);
+        File file = loadResourceIntoFile("1.jpeg");
+        assets = IntStream.range(0, 5)
+            .mapToObj(
+                index -> new StagedAssetReal(
+                    new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess
+                ).save(new TargetJCRPath("/content/asset-%d".formatted(index)))
+            ).toList();
+    }
+
+    @Test
+    void mustDeleteInChunks() {
+        ServletDeleteBulk servletDeleteBulk = context.registerInjectActivateService(
+            ServletDeleteBulk.class, Map.of("chunk.size", 2)
+        );
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        List<String> descriptors = assets.stream().limit(4).map(this::descriptor).toList();
+        AtomicInteger commits = new AtomicInteger();
+        List<ResourceResolver> acquiredResolvers = countCommits(commits, false);
+        servletDeleteBulk.doPost(request(descriptors), response);
+        assertAll(
+            () -> assertEquals(
+                "{\"status\":{\"code\":200,\"message\":\"Assets deleted\"},\"affected\":[%s]}".formatted(
+                    deletedResults(descriptors)
+                ),
+                response.getOutputAsString()
+            ),
+            () -> assertEquals(1, new AssetsRepository(fullResourceAccess).all().size()),
+            () -> assertNotNull(context.resourceResolver().getResource("/content/asset-4")),
+            () -> assertEquals(1, acquiredResolvers.size()),
+            () -> assertEquals(2, commits.get()),
+            () -> verify(acquiredResolvers.getFirst(), never()).revert()
+        );
+    }
+
+    @Test
+    void mustDeleteOneByOneAfterFailedChunk() {
+        ServletDeleteBulk servletDeleteBulk = context.registerInjectActivateService(
+            ServletDeleteBulk.class, Map.of("chunk.size", 2)
+        );
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        List<String> descriptors = assets.stream().limit(4).map(this::descriptor).toList();
+        AtomicInteger commits = new AtomicInteger();
+        List<ResourceResolver> acquiredResolvers = countCommits(commits, true);
+        servletDeleteBulk.doPost(request(descriptors), response);
+        assertAll(
+            () -> assertEquals(
+                "{\"status\":{\"code\":200,\"message\":\"Assets deleted\"},\"affected\":[%s]}".formatted(
+                    deletedResults(descriptors)
+                ),
+                response.getOutputAsString()
+            ),
+            () -> assertEquals(1, new AssetsRepository(fullResourceAccess).all().size()),
+            () -> assertEquals(1, acquiredResolvers.size()),
+            // The failed commit of the first chunk, two separate commits of its assets and the commit of the second:
+            () -> assertEquals(4, commits.get()),
+            () -> verify(acquiredResolvers.getFirst(), times(1)).revert()
+        );
+    }
+
+    @Test
+    void mustRejectTooManyAssets() {
+        ServletDeleteBulk servletDeleteBulk = context.registerInjectActivateService(
+            ServletDeleteBulk.class, Map.of("max.assets", 2)
+        );
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        List<String> descriptors = assets.stream().limit(3).map(this::descriptor).toList();
+        servletDeleteBulk.doPost(request(descriptors), response);
+        assertAll(
+            () -> assertEquals(
+                "{\"status\":{\"code\":413,\"message\":\"Requested assets exceed the limit of 2 assets\"},"
+                    + "\"affected\":[]}",
+                response.getOutputAsString()
+            ),
+            () -> assertEquals(5, new AssetsRepository(fullResourceAccess).all().size())
+        );
+    }
+
+    @Test
+    void mustReportNotFoundIfNoAssetIsFound() {
+        ServletDeleteBulk servletDeleteBulk = context.registerInjectActivateService(ServletDeleteBulk.class);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        String missingDescriptor = "5f1ed4e2-4ae8-4d8a-9a1f-3f4d2e1f9c0b.jpg";
+        servletDeleteBulk.doPost(request(List.of(missingDescriptor)), response);
+        assertAll(
+            () -> assertEquals(
+                ("{\"status\":{\"code\":404,\"message\":\"Assets not found\"},\"affected\":["
+                    + "{\"assetDescriptor\":\"%s\",\"outcome\":\"NOT_FOUND\"}]}"
+                ).formatted(missingDescriptor),
+                response.getOutputAsString()
+            ),
+            () -> assertEquals(5, new AssetsRepository(fullResourceAccess).all().size())
+        );
+    }
+
+    @Test
+    void mustReportMissingAssets() {
+        ServletDeleteBulk servletDeleteBulk = context.registerInjectActivateService(ServletDeleteBulk.class);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        String existingDescriptor = descriptor(assets.getFirst());
+        String missingDescriptor = "5f1ed4e2-4ae8-4d8a-9a1f-3f4d2e1f9c0b.jpg";
+        servletDeleteBulk.doPost(request(List.of(existingDescriptor, missingDescriptor)), response);
+        assertAll(
+            () -> assertEquals(
+                ("{\"status\":{\"code\":400,\"message\":\"Not all assets deleted\"},\"affected\":["
+                    + "{\"assetDescriptor\":\"%s\",\"outcome\":\"DELETED\"},"
+                    + "{\"assetDescriptor\":\"%s\",\"outcome\":\"NOT_FOUND\"}]}"
+                ).formatted(existingDescriptor, missingDescriptor),
+                response.getOutputAsString()
+            ),
+            () -> assertEquals(4, new AssetsRepository(fullResourceAccess).all().size())
+        );
+    }
+
+    @Test
+    void mustNotDeleteAnythingForInvalidStructure() {
+        ServletDeleteBulk servletDeleteBulk = context.registerInjectActivateService(ServletDeleteBulk.class);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servletDeleteBulk.doPost(request(List.of(descriptor(assets.getFirst()), "invalid")), response);
+        assertAll(
+            () -> assertEquals(
+                "{\"status\":{\"code\":400,\"message\":\"Invalid request structure\"},\"affected\":[]}",
+                response.getOutputAsString()
+            ),
+            () -> assertEquals(5, new AssetsRepository(fullResourceAccess).all().size())
+        );
+    }
+
+    private MockSlingJakartaHttpServletRequest request(List<String> rawAssetDescriptors) {
+        MockSlingJakartaHttpServletRequest request = spy(context.jakartaRequest());
+        MockRequestPathInfo mockRequestPathInfo = new MockRequestPathInfo(context.resourceResolver());
+        mockRequestPathInfo.setResourcePath(AssetsAPI.ASSETS_API_PATH);
+        mockRequestPathInfo.setSelectorString(ServletDeleteBulk.SELECTOR);
+        mockRequestPathInfo.setExtension(ServletDeleteBulk.EXTENSION);
+        lenient().when(request.getRequestPathInfo()).thenReturn(mockRequestPathInfo);
+        request.setParameterMap(
+            Map.of(ServletDeleteBulk.PARAMETER_ASSET_DESCRIPTOR, rawAssetDescriptors.toArray(String[]::new))
+        );
+        request.setRemoteUser(MockJcr.DEFAULT_USER_ID);
+        request.setMethod(HttpConstants.METHOD_POST);
+        return request;
+    }
+
+    /**
+     * Makes the user resource resolvers count their commits and optionally fail the first commit.
+     */
+    private List<ResourceResolver> countCommits(AtomicInteger commits, boolean mustFailFirstCommit) {
+        List<ResourceResolver> acquiredResolvers = new CopyOnWriteArrayList<>();
+        doAnswer(
+            invocation -> {
+                ResourceResolver realResolver = fullResourceAccess.acquireAccess();
+                ResourceResolver countingResolver = mock(
+                    ResourceResolver.class, AdditionalAnswers.delegatesTo(realResolver)
+                );
+                doAnswer(
+                    commit -> {
+                        if (commits.incrementAndGet() == 1 && mustFailFirstCommit) {
+                            throw new PersistenceException("Simulated failure of the first commit");
+                        }
+                        realResolver.commit();
+                        return null;
+                    }
+                ).when(countingResolver).commit();
+                acquiredResolvers.add(countingResolver);
+                return countingResolver;
+            }
+        ).when(fullResourceAccess).acquireAccess(any(AuthIDUser.class));
+        return acquiredResolvers;
+    }
+
+    private String deletedResults(List<String> descriptors) {
+        return descriptors.stream()
+            .map("{\"assetDescriptor\":\"%s\",\"outcome\":\"DELETED\"}"::formatted)
+            .reduce((first, second) -> first + "," + second)
+            .orElseThrow();
+    }
+
+    private String descriptor(Asset asset) {
+        return new AssetDescriptor(asset).toString();
+    }
+}
@@ -0,0 +1,152 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import eu.ciechanowiec.sling.rocket.asset.*;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.network.ResponseWithZippedAssets;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import lombok.SneakyThrows;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.testing.mock.jcr.MockJcr;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.servlet.MockRequestPathInfo;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class ServletDownloadBulkTest extends TestEnvironment {
+
+    private File fileJPG;
+    private File fileMP3;
+    private Asset assetJPG;
+    private Asset assetMP3;
+
+    ServletDownloadBulkTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        context.registerInjectActivateService(AssetsAPI.class);
+        fileJPG = loadResourceIntoFile("1.jpeg");
+        fileMP3 = loadResourceIntoFile("time-forward.mp3");
+        assetJPG = new StagedAssetReal(
+            new UsualFileAsAssetFile(fileJPG), new FileMetadata(fileJPG), fullResourceAccess
+        ).save(new TargetJCRPath("/content/jpg"));
+        assetMP3 = new StagedAssetReal(
+            new UsualFileAsAssetFile(fileMP3), new FileMetadata(fileMP3), fullResourceAccess
+        ).save(new TargetJCRPath("/content/mp3"));
+    }
+
+    @Test
+    @SneakyThrows
+    void mustStreamZipArchive() {
+        ServletDownloadBulk servletDownloadBulk = context.registerInjectActivateService(ServletDownloadBulk.class);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servletDownloadBulk.doGet(
+            request(List.of(descriptor(assetJPG), descriptor(assetMP3), descriptor(assetJPG))), response
+        );
+        Map<String, ZipEntry> entries = new HashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(response.getOutput()))) {
+            ZipEntry zipEntry = zipInputStream.getNextEntry();
+            while (zipEntry != null) {
+                entries.put(zipEntry.getName(), zipEntry);
+                contents.put(zipEntry.getName(), zipInputStream.readAllBytes());
+                zipEntry = zipInputStream.getNextEntry();
+            }
+        }
+        assertAll(
+            () -> assertEquals(ResponseWithZippedAssets.CONTENT_TYPE, response.getContentType()),
+            () -> assertEquals(2, entries.size()),
+            () -> assertEquals(ZipEntry.DEFLATED, entries.get(descriptor(assetJPG)).getMethod()),
+            () -> assertTrue(entries.get(descriptor(assetJPG)).getCompressedSize() >= fileJPG.length()),
+            () -> assertArrayEquals(Files.readAllBytes(fileJPG.toPath()), contents.get(descriptor(assetJPG))),
+            () -> assertArrayEquals(Files.readAllBytes(fileMP3.toPath()), contents.get(descriptor(assetMP3)))
+        );
+    }
+
+    @Test
+    void mustRejectMissingAssets() {
+        ServletDownloadBulk servletDownloadBulk = context.registerInjectActivateService(ServletDownloadBulk.class);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        String missingDescriptor = "5f1ed4e2-4ae8-4d8a-9a1f-3f4d2e1f9c0b.jpg";
+        servletDownloadBulk.doGet(request(List.of(descriptor(assetJPG), missingDescriptor)), response);
+        assertEquals(
+            "{\"status\":{\"code\":404,\"message\":\"Not all assets found\"},"
+                + "\"affected\":[{\"assetDescriptor\":\"%s\"}]}".formatted(missingDescriptor),
+            response.getOutputAsString()
+        );
+    }
+
+    @Test
+    void mustRejectTooBigAssets() {
+        ServletDownloadBulk servletDownloadBulk = context.registerInjectActivateService(
+            ServletDownloadBulk.class, Map.of("max-total-size.bytes", fileJPG.length() + NumberUtils.LONG_ONE)
+        );
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servletDownloadBulk.doGet(request(List.of(descriptor(assetJPG), descriptor(assetMP3))), response);
+        assertTrue(response.getOutputAsString().contains("\"code\":413"));
+    }
+
+    @Test
+    void mustRejectTooManyAssets() {
+        ServletDownloadBulk servletDownloadBulk = context.registerInjectActivateService(
+            ServletDownloadBulk.class, Map.of("max.assets", NumberUtils.INTEGER_ONE)
+        );
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servletDownloadBulk.doGet(request(List.of(descriptor(assetJPG), descriptor(assetMP3))), response);
+        assertEquals(
+            "{\"status\":{\"code\":413,\"message\":\"Requested assets exceed the limit of 1 assets\"},"
+                + "\"affected\":[]}",
+            response.getOutputAsString()
+        );
+    }
+
+    @Test
+    void mustRejectInvalidStructure() {
+        ServletDownloadBulk servletDownloadBulk = context.registerInjectActivateService(ServletDownloadBulk.class);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servletDownloadBulk.doGet(request(List.of("not-a-descriptor")), response);
+        MockSlingJakartaHttpServletResponse emptyResponse = context.jakartaResponse();
+        servletDownloadBulk.doGet(request(List.of()), emptyResponse);
+        String expected = "{\"status\":{\"code\":400,\"message\":\"Invalid request structure\"},\"affected\":[]}";
+        assertAll(
+            () -> assertEquals(expected, response.getOutputAsString()),
+            () -> assertEquals(expected, emptyResponse.getOutputAsString())
+        );
+    }
+
+    private MockSlingJakartaHttpServletRequest request(List<String> rawAssetDescriptors) {
+        MockSlingJakartaHttpServletRequest request = spy(context.jakartaRequest());
+        MockRequestPathInfo mockRequestPathInfo = new MockRequestPathInfo(context.resourceResolver());
+        mockRequestPathInfo.setResourcePath(AssetsAPI.ASSETS_API_PATH);
+        mockRequestPathInfo.setSelectorString(ServletDownloadBulk.SELECTOR);
+        mockRequestPathInfo.setExtension(ServletDownloadBulk.EXTENSION);
+        lenient().when(request.getRequestPathInfo()).thenReturn(mockRequestPathInfo);
+        request.setParameterMap(
+            Map.of(ServletDownloadBulk.PARAMETER_ASSET_DESCRIPTOR, rawAssetDescriptors.toArray(String[]::new))
+        );
+        request.setRemoteUser(MockJcr.DEFAULT_USER_ID);
+        request.setMethod(HttpConstants.METHOD_GET);
+        return request;
+    }
+
+    private String descriptor(Asset asset) {
+        return new AssetDescriptor(asset).toString();
+    }
+}
@@ -1,12 +1,16 @@
 package eu.ciechanowiec.sling.rocket.asset.api;
 
 import eu.ciechanowiec.sling.rocket.asset.*;
+import eu.ciechanowiec.sling.rocket.asset.rendition.Renditions;
 import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
 import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
 import eu.ciechanowiec.sling.rocket.jcr.path.ParentJCRPath;
 import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.network.ContentDispositionHeader;
+import eu.ciechanowiec.sling.rocket.network.ResponseWithAsset;
 import eu.ciechanowiec.sling.rocket.privilege.PrivilegeAdmin;
 import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import jakarta.ws.rs.core.HttpHeaders;
 import lombok.SneakyThrows;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
@@ -22,6 +26,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -201,4 +206,83 @@ class ServletDownloadTest extends TestEnvironment {
             assertTrue(is.readAllBytes().length > NumberUtils.INTEGER_ZERO);
         }
     }
+
+    @SuppressWarnings("VariableDeclarationUsageDistance")
+    @SneakyThrows
+    @Test
+    void mustAcquireSingleResolverPerRequest() {
+        TargetJCRPath assetPath = new TargetJCRPath(
+            new ParentJCRPath(new TargetJCRPath("/content/images")), UUID.randomUUID()
+        );
+        Asset asset = new StagedAssetReal(
+            new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess).save(
+            assetPath
+        );
+        UserResourceAccess unscopedResourceAccess = new UserResourceAccess(
+            new AuthIDUser(MockJcr.DEFAULT_USER_ID), fullResourceAccess
+        );
+        clearInvocations(fullResourceAccess);
+        Asset unscopedAsset = new AssetsRepository(unscopedResourceAccess).find(asset).orElseThrow();
+        assertNotNull(new AssetDescriptor(unscopedAsset).toString());
+        new ResponseWithAsset(context.jakartaResponse(), unscopedAsset).send(ContentDispositionHeader.ATTACHMENT);
+        long unscopedResolvers = acquiredResolvers();
+        Resource currentResource = Objects.requireNonNull(context.currentResource(AssetsAPI.ASSETS_API_PATH));
+        MockSlingJakartaHttpServletRequest request = spy(context.jakartaRequest());
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        MockRequestPathInfo mockRequestPathInfo = new MockRequestPathInfo(context.resourceResolver());
+        mockRequestPathInfo.setResourcePath(AssetsAPI.ASSETS_API_PATH);
+        mockRequestPathInfo.setSelectorString("%s.%s".formatted(ServletDownload.SELECTOR, asset.jcrUUID()));
+        mockRequestPathInfo.setExtension(
+            asset.assetMetadata().filenameExtension().orElseThrow().replaceFirst("\\.", StringUtils.EMPTY)
+        );
+        lenient().when(request.getRequestPathInfo()).thenReturn(mockRequestPathInfo);
+        request.setPathInfo(currentResource.getPath());
+        request.setRemoteUser(MockJcr.DEFAULT_USER_ID);
+        request.setMethod(HttpConstants.METHOD_GET);
+        clearInvocations(fullResourceAccess);
+        servletDownload.doGet(request, response);
+        long scopedResolvers = acquiredResolvers();
+        assertAll(
+            () -> assertEquals(asset.assetFile().size().bytes(), response.getContentLength()),
+            () -> assertEquals(NumberUtils.LONG_ONE, scopedResolvers),
+            () -> assertTrue(unscopedResolvers > scopedResolvers)
+        );
+    }
+
+    @SneakyThrows
+    @Test
+    void mustServeRenditions() {
+        context.registerInjectActivateService(Renditions.class, Map.of("allowed.sizes", new String[]{"40x30"}));
+        ServletDownload servletWithRenditions = context.registerInjectActivateService(ServletDownload.class);
+        Asset asset = new StagedAssetReal(
+            new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess
+        ).save(new TargetJCRPath("/content/images/logo"));
+        MockSlingJakartaHttpServletRequest request = spy(context.jakartaRequest());
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        MockRequestPathInfo mockRequestPathInfo = new MockRequestPathInfo(context.resourceResolver());
+        mockRequestPathInfo.setResourcePath(AssetsAPI.ASSETS_API_PATH);
+        mockRequestPathInfo.setSelectorString("%s.%s.40x30".formatted(ServletDownload.SELECTOR, asset.jcrUUID()));
+        mockRequestPathInfo.setExtension(
+            asset.assetMetadata().filenameExtension().orElseThrow().replaceFirst("\\.", StringUtils.EMPTY)
+        );
+        lenient().when(request.getRequestPathInfo()).thenReturn(mockRequestPathInfo);
+        request.setRemoteUser(MockJcr.DEFAULT_USER_ID);
+        request.setMethod(HttpConstants.METHOD_GET);
+        servletWithRenditions.doGet(request, response);
+        assertAll(
+            () -> assertTrue(response.getOutput().length > NumberUtils.INTEGER_ZERO),
+            () -> assertTrue(response.getOutput().length < file.length()),
+            () -> assertEquals(response.getOutput().length, response.getContentLength()),
+            () -> assertEquals(
+                ContentDispositionHeader.ATTACHMENT.value(asset), response.getHeader(HttpHeaders.CONTENT_DISPOSITION)
+            )
+        );
+    }
+
+    private long acquiredResolvers() {
+        return mockingDetails(fullResourceAccess).getInvocations()
+            .stream()
+            .filter(invocation -> "acquireAccess".equals(invocation.getMethod().getName()))
+            .count();
+    }
 }
@@ -0,0 +1,139 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.FileMetadata;
+import eu.ciechanowiec.sling.rocket.asset.StagedAssetReal;
+import eu.ciechanowiec.sling.rocket.asset.UsualFileAsAssetFile;
+import eu.ciechanowiec.sling.rocket.asset.image.SimilarAssets;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import lombok.SneakyThrows;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.testing.mock.jcr.MockJcr;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.servlet.MockRequestPathInfo;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class ServletSimilarTest extends TestEnvironment {
+
+    private Asset firstAsset;
+    private Asset secondAsset;
+
+    ServletSimilarTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        context.registerInjectActivateService(AssetsAPI.class);
+        firstAsset = save("1.jpeg", "/content/images/first");
+        secondAsset = save("2.jpeg", "/content/images/second");
+    }
+
+    @Test
+    void mustFindSimilarAssets() {
+        SimilarAssets similarAssets = mock(SimilarAssets.class);
+        when(similarAssets.similarAssetUUIDs(any(), anyDouble())).thenReturn(List.of(secondAsset.jcrUUID()));
+        context.registerService(SimilarAssets.class, similarAssets);
+        ServletSimilar servlet = context.registerInjectActivateService(ServletSimilar.class);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doGet(request(firstAsset.jcrUUID(), "0.2"), response);
+        assertAll(
+            () -> assertEquals(200, code(response)),
+            () -> assertTrue(response.getOutputAsString().contains(secondAsset.jcrUUID())),
+            () -> verify(similarAssets).similarAssetUUIDs(any(), eq(0.2))
+        );
+    }
+
+    @Test
+    void mustLimitSimilarAssets() {
+        SimilarAssets similarAssets = mock(SimilarAssets.class);
+        when(similarAssets.similarAssetUUIDs(any(), anyDouble())).thenReturn(
+            List.of("c0a8d1c4-4f4e-4c4b-9a1a-2f3e4d5c6b7a", secondAsset.jcrUUID(), firstAsset.jcrUUID())
+        );
+        context.registerService(SimilarAssets.class, similarAssets);
+        ServletSimilar servlet = context.registerInjectActivateService(ServletSimilar.class);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doGet(request(firstAsset.jcrUUID(), "0.1", "1"), response);
+        MockSlingJakartaHttpServletResponse invalidLimitResponse = context.jakartaResponse();
+        servlet.doGet(request(firstAsset.jcrUUID(), "0.1", "0"), invalidLimitResponse);
+        assertAll(
+            () -> assertEquals(200, code(response)),
+            () -> assertTrue(response.getOutputAsString().contains(secondAsset.jcrUUID())),
+            () -> assertFalse(response.getOutputAsString().contains(firstAsset.jcrUUID())),
+            () -> assertEquals(400, code(invalidLimitResponse))
+        );
+    }
+
+    @Test
+    void mustRejectInvalidRequests() {
+        context.registerService(SimilarAssets.class, mock(SimilarAssets.class));
+        ServletSimilar servlet = context.registerInjectActivateService(ServletSimilar.class);
+        MockSlingJakartaHttpServletResponse invalidDistanceResponse = context.jakartaResponse();
+        servlet.doGet(request(firstAsset.jcrUUID(), "1.5"), invalidDistanceResponse);
+        MockSlingJakartaHttpServletResponse unknownAssetResponse = context.jakartaResponse();
+        servlet.doGet(request("c0a8d1c4-4f4e-4c4b-9a1a-2f3e4d5c6b7a", "0.1"), unknownAssetResponse);
+        assertAll(
+            () -> assertEquals(400, code(invalidDistanceResponse)),
+            () -> assertEquals(404, code(unknownAssetResponse))
+        );
+    }
+
+    @Test
+    void mustBeUnavailableWithoutSimilarAssets() {
+        ServletSimilar servlet = context.registerInjectActivateService(ServletSimilar.class);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doGet(request(firstAsset.jcrUUID(), "0.1"), response);
+        assertEquals(503, code(response));
+    }
+
+    private Asset save(String resourceName, String jcrPath) {
+        File file = loadResourceIntoFile(resourceName);
+        return new StagedAssetReal(
+            new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess
+        ).save(new TargetJCRPath(jcrPath));
+    }
+
+    private MockSlingJakartaHttpServletRequest request(String assetUUID, String maxDistance, String limit) {
+        MockSlingJakartaHttpServletRequest request = request(assetUUID, maxDistance);
+        request.setParameterMap(
+            Map.of(
+                ServletSimilar.PARAMETER_MAX_DISTANCE, new String[]{maxDistance},
+                ServletSimilar.PARAMETER_LIMIT, new String[]{limit}
+            )
+        );
+        return request;
+    }
+
+    private MockSlingJakartaHttpServletRequest request(String assetUUID, String maxDistance) {
+        MockSlingJakartaHttpServletRequest request = spy(context.jakartaRequest());
+        MockRequestPathInfo mockRequestPathInfo = new MockRequestPathInfo(context.resourceResolver());
+        mockRequestPathInfo.setResourcePath(AssetsAPI.ASSETS_API_PATH);
+        mockRequestPathInfo.setSelectorString("%s.%s".formatted(ServletSimilar.SELECTOR, assetUUID));
+        mockRequestPathInfo.setExtension(ServletSimilar.EXTENSION);
+        lenient().when(request.getRequestPathInfo()).thenReturn(mockRequestPathInfo);
+        request.setParameterMap(Map.of(ServletSimilar.PARAMETER_MAX_DISTANCE, new String[]{maxDistance}));
+        request.setRemoteUser(MockJcr.DEFAULT_USER_ID);
+        request.setMethod(HttpConstants.METHOD_GET);
+        return request;
+    }
+
+    @SneakyThrows
+    private int code(MockSlingJakartaHttpServletResponse response) {
+        return new ObjectMapper().readTree(response.getOutputAsString()).get("status").get("code").asInt();
+    }
+}
@@ -0,0 +1,282 @@
+package eu.ciechanowiec.sling.rocket.asset.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.ciechanowiec.sling.rocket.asset.AssetsRepository;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationCounter;
+import eu.ciechanowiec.sling.rocket.asset.SHA256Digest;
+import eu.ciechanowiec.sling.rocket.asset.UsualFileAsAssetFile;
+import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import lombok.SneakyThrows;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.testing.mock.jcr.MockJcr;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.servlet.MockRequestPathInfo;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class ServletUploadSessionTest extends TestEnvironment {
+
+    private byte[] content;
+    private String sha256;
+
+    ServletUploadSessionTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    @SneakyThrows
+    void setup() {
+        context.registerInjectActivateService(AssetsAPI.class);
+        context.registerInjectActivateService(DownloadLink.class);
+        context.registerInjectActivateService(DeduplicationCounter.class);
+        context.registerInjectActivateService(ServletUpload.class);
+        File file = loadResourceIntoFile("1.jpeg");
+        content = Files.readAllBytes(file.toPath());
+        sha256 = new SHA256Digest(new UsualFileAsAssetFile(file)).get();
+    }
+
+    @Test
+    void mustUploadInChunks() {
+        context.registerInjectActivateService(UploadSessions.class);
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        String uploadSessionID = open(servlet, sha256);
+        int half = content.length / 2;
+        MockSlingJakartaHttpServletResponse firstChunkResponse = context.jakartaResponse();
+        servlet.doPut(chunkRequest(uploadSessionID, 0, Arrays.copyOfRange(content, 0, half)), firstChunkResponse);
+        MockSlingJakartaHttpServletResponse wrongOffsetResponse = context.jakartaResponse();
+        servlet.doPut(
+            chunkRequest(uploadSessionID, 0, Arrays.copyOfRange(content, half, content.length)), wrongOffsetResponse
+        );
+        MockSlingJakartaHttpServletResponse incompleteResponse = context.jakartaResponse();
+        servlet.doPost(request(uploadSessionID, HttpConstants.METHOD_POST), incompleteResponse);
+        MockSlingJakartaHttpServletResponse secondChunkResponse = context.jakartaResponse();
+        servlet.doPut(
+            chunkRequest(uploadSessionID, half, Arrays.copyOfRange(content, half, content.length)),
+            secondChunkResponse
+        );
+        MockSlingJakartaHttpServletResponse statusResponse = context.jakartaResponse();
+        servlet.doGet(request(uploadSessionID, HttpConstants.METHOD_GET), statusResponse);
+        MockSlingJakartaHttpServletResponse finalizeResponse = context.jakartaResponse();
+        servlet.doPost(request(uploadSessionID, HttpConstants.METHOD_POST), finalizeResponse);
+        MockSlingJakartaHttpServletResponse closedResponse = context.jakartaResponse();
+        servlet.doGet(request(uploadSessionID, HttpConstants.METHOD_GET), closedResponse);
+        assertAll(
+            () -> assertEquals(200, code(firstChunkResponse)),
+            () -> assertEquals(409, code(wrongOffsetResponse)),
+            () -> assertEquals(half, affected(wrongOffsetResponse).get("offset").asLong()),
+            () -> assertEquals(409, code(incompleteResponse)),
+            () -> assertEquals(200, code(secondChunkResponse)),
+            () -> assertEquals(content.length, affected(statusResponse).get("offset").asLong()),
+            () -> assertEquals(201, code(finalizeResponse)),
+            () -> assertEquals(404, code(closedResponse)),
+            () -> assertEquals(1, new AssetsRepository(fullResourceAccess).all().size())
+        );
+    }
+
+    @Test
+    void mustRejectChecksumMismatch() {
+        context.registerInjectActivateService(UploadSessions.class);
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        String uploadSessionID = open(servlet, "0".repeat(64));
+        servlet.doPut(chunkRequest(uploadSessionID, 0, content), context.jakartaResponse());
+        MockSlingJakartaHttpServletResponse finalizeResponse = context.jakartaResponse();
+        servlet.doPost(request(uploadSessionID, HttpConstants.METHOD_POST), finalizeResponse);
+        assertAll(
+            () -> assertEquals(422, code(finalizeResponse)),
+            () -> assertTrue(new AssetsRepository(fullResourceAccess).all().isEmpty())
+        );
+    }
+
+    @Test
+    void mustHideSessionsOfOtherUsers() {
+        context.registerInjectActivateService(UploadSessions.class);
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        String uploadSessionID = open(servlet, sha256);
+        AuthIDUser testUser = createOrGetUser(new AuthIDUser("testUser"));
+        MockSlingJakartaHttpServletRequest request = request(uploadSessionID, HttpConstants.METHOD_GET);
+        doAnswer(invocation -> getRRForUser(testUser)).when(request).getResourceResolver();
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doGet(request, response);
+        assertEquals(
+            "{\"status\":{\"code\":404,\"message\":\"Upload session not found\"},\"affected\":[]}",
+            response.getOutputAsString()
+        );
+    }
+
+    @Test
+    void mustDiscardExpiredSessions() {
+        UploadSessions uploadSessions = context.registerInjectActivateService(
+            UploadSessions.class, Map.of("session-ttl.seconds", -1L)
+        );
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        String uploadSessionID = open(servlet, sha256);
+        uploadSessions.closeExpired();
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doPut(chunkRequest(uploadSessionID, 0, content), response);
+        assertEquals(404, code(response));
+    }
+
+    @Test
+    void mustRejectTooBigUploads() {
+        context.registerInjectActivateService(UploadSessions.class, Map.of("max-size.bytes", 1L));
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        MockSlingJakartaHttpServletRequest request = request(null, HttpConstants.METHOD_POST);
+        request.setParameterMap(
+            Map.of(
+                ServletUploadSession.PARAMETER_FILE_NAME, new String[]{"1.jpeg"},
+                ServletUploadSession.PARAMETER_SIZE, new String[]{String.valueOf(content.length)}
+            )
+        );
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doPost(request, response);
+        assertEquals(413, code(response));
+    }
+
+    @Test
+    void mustLimitSessionsPerUser() {
+        context.registerInjectActivateService(UploadSessions.class, Map.of("max-sessions.per-user", 1));
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        open(servlet, sha256);
+        MockSlingJakartaHttpServletRequest request = request(null, HttpConstants.METHOD_POST);
+        request.setParameterMap(
+            Map.of(
+                ServletUploadSession.PARAMETER_FILE_NAME, new String[]{"1.jpeg"},
+                ServletUploadSession.PARAMETER_SIZE, new String[]{String.valueOf(content.length)}
+            )
+        );
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doPost(request, response);
+        assertEquals(
+            "{\"status\":{\"code\":429,\"message\":\"Limit of 1 open upload sessions reached\"},\"affected\":[]}",
+            response.getOutputAsString()
+        );
+    }
+
+    @Test
+    void mustLimitStagingSize() {
+        context.registerInjectActivateService(
+            UploadSessions.class, Map.of("max-staging-size.bytes", content.length * 3L / 2)
+        );
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        open(servlet, sha256);
+        MockSlingJakartaHttpServletRequest request = request(null, HttpConstants.METHOD_POST);
+        request.setParameterMap(
+            Map.of(
+                ServletUploadSession.PARAMETER_FILE_NAME, new String[]{"1.jpeg"},
+                ServletUploadSession.PARAMETER_SIZE, new String[]{String.valueOf(content.length)}
+            )
+        );
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doPost(request, response);
+        assertEquals(507, code(response));
+    }
+
+    @Test
+    @SneakyThrows
+    void mustDeleteNonEmptyStagingDirectoryOnDeactivation() {
+        UploadSessions uploadSessions = context.registerInjectActivateService(UploadSessions.class);
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        String uploadSessionID = open(servlet, sha256);
+        UploadSession uploadSession = uploadSessions.find(uploadSessionID, MockJcr.DEFAULT_USER_ID).orElseThrow();
+        Path stagingDirectory = uploadSession.file().file().toPath().getParent();
+        Files.createFile(stagingDirectory.resolve("leftover"));
+        uploadSessions.deactivate();
+        assertFalse(Files.exists(stagingDirectory));
+    }
+
+    @Test
+    void mustPassVerifiedDigestWithFile() {
+        UploadSessions uploadSessions = context.registerInjectActivateService(UploadSessions.class);
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        String uploadSessionID = open(servlet, sha256.toUpperCase(Locale.ROOT));
+        servlet.doPut(chunkRequest(uploadSessionID, 0, content), context.jakartaResponse());
+        UploadSession uploadSession = uploadSessions.find(uploadSessionID, MockJcr.DEFAULT_USER_ID).orElseThrow();
+        assertAll(
+            () -> assertTrue(uploadSession.file().sha256Digest().isEmpty()),
+            () -> assertTrue(uploadSession.isChecksumValid()),
+            () -> assertEquals(Optional.of(sha256), uploadSession.file().sha256Digest())
+        );
+    }
+
+    @Test
+    void mustNotDiscardClaimedSessions() {
+        UploadSessions uploadSessions = context.registerInjectActivateService(UploadSessions.class);
+        ServletUploadSession servlet = context.registerInjectActivateService(ServletUploadSession.class);
+        String uploadSessionID = open(servlet, sha256);
+        servlet.doPut(chunkRequest(uploadSessionID, 0, content), context.jakartaResponse());
+        UploadSession uploadSession = uploadSessions.find(uploadSessionID, MockJcr.DEFAULT_USER_ID).orElseThrow();
+        assertTrue(uploadSessions.claim(uploadSession));
+        uploadSessions.close(uploadSession);
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doPost(request(uploadSessionID, HttpConstants.METHOD_POST), response);
+        assertAll(
+            () -> assertFalse(uploadSessions.claim(uploadSession)),
+            () -> assertTrue(uploadSession.file().file().exists()),
+            () -> assertTrue(uploadSession.isChecksumValid()),
+            () -> assertEquals(404, code(response))
+        );
+    }
+
+    private String open(ServletUploadSession servlet, String declaredSHA256) {
+        MockSlingJakartaHttpServletRequest request = request(null, HttpConstants.METHOD_POST);
+        request.setParameterMap(
+            Map.of(
+                ServletUploadSession.PARAMETER_FILE_NAME, new String[]{"1.jpeg"},
+                ServletUploadSession.PARAMETER_SIZE, new String[]{String.valueOf(content.length)},
+                ServletUploadSession.PARAMETER_SHA256, new String[]{declaredSHA256}
+            )
+        );
+        MockSlingJakartaHttpServletResponse response = context.jakartaResponse();
+        servlet.doPost(request, response);
+        assertEquals(201, code(response));
+        return affected(response).get("uploadSessionID").asText();
+    }
+
+    private MockSlingJakartaHttpServletRequest chunkRequest(String uploadSessionID, long offset, byte[] chunk) {
+        MockSlingJakartaHttpServletRequest request = request(uploadSessionID, HttpConstants.METHOD_PUT);
+        request.addHeader(ServletUploadSession.HEADER_UPLOAD_OFFSET, String.valueOf(offset));
+        request.setContent(chunk);
+        return request;
+    }
+
+    private MockSlingJakartaHttpServletRequest request(String uploadSessionID, String method) {
+        MockSlingJakartaHttpServletRequest request = spy(context.jakartaRequest());
+        MockRequestPathInfo mockRequestPathInfo = new MockRequestPathInfo(context.resourceResolver());
+        mockRequestPathInfo.setResourcePath(AssetsAPI.ASSETS_API_PATH);
+        mockRequestPathInfo.setSelectorString(
+            uploadSessionID == null ? ServletUploadSession.SELECTOR : ServletUploadSession.SELECTOR + "."
+                + uploadSessionID
+        );
+        mockRequestPathInfo.setExtension(ServletUploadSession.EXTENSION);
+        lenient().when(request.getRequestPathInfo()).thenReturn(mockRequestPathInfo);
+        request.setRemoteUser(MockJcr.DEFAULT_USER_ID);
+        request.setMethod(method);
+        return request;
+    }
+
+    @SneakyThrows
+    private int code(MockSlingJakartaHttpServletResponse response) {
+        return new ObjectMapper().readTree(response.getOutputAsString()).get("status").get("code").asInt();
+    }
+
+    @SneakyThrows
+    private JsonNode affected(MockSlingJakartaHttpServletResponse response) {
+        return new ObjectMapper().readTree(response.getOutputAsString()).get("affected").get(0);
+    }
+}
@@ -1,5 +1,6 @@
 package eu.ciechanowiec.sling.rocket.asset.api;
 
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationCounter;
 import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
 import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
 import eu.ciechanowiec.sling.rocket.privilege.PrivilegeAdmin;
@@ -39,6 +40,7 @@ class ServletUploadTest extends TestEnvironment {
     void setup() {
         context.registerInjectActivateService(AssetsAPI.class);
         context.registerInjectActivateService(DownloadLink.class);
+        context.registerInjectActivateService(DeduplicationCounter.class);
         servletUpload = context.registerInjectActivateService(ServletUpload.class);
     }
 
@@ -0,0 +1,83 @@
+package eu.ciechanowiec.sling.rocket.asset.extraction;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.FileMetadata;
+import eu.ciechanowiec.sling.rocket.asset.StagedAssetReal;
+import eu.ciechanowiec.sling.rocket.asset.UsualFileAsAssetFile;
+import eu.ciechanowiec.sling.rocket.jcr.DefaultProperties;
+import eu.ciechanowiec.sling.rocket.jcr.NodeProperties;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class MetadataExtractionTest extends TestEnvironment {
+
+    private JobManager jobManager;
+    private MetadataExtraction metadataExtraction;
+
+    MetadataExtractionTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        jobManager = mock(JobManager.class);
+        context.registerService(JobManager.class, jobManager);
+        context.registerInjectActivateService(ImageDimensionsExtractor.class);
+        context.registerInjectActivateService(AudioDurationExtractor.class);
+        metadataExtraction = context.registerInjectActivateService(MetadataExtraction.class);
+    }
+
+    @Test
+    void mustExtractImageDimensions() {
+        File fileJPG = loadResourceIntoFile("1.jpeg");
+        Asset asset = new StagedAssetReal(
+            new UsualFileAsAssetFile(fileJPG), new FileMetadata(fileJPG), fullResourceAccess
+        ).save(new TargetJCRPath("/content/jpg"));
+        metadataExtraction.submit(asset);
+        verify(jobManager).addJob(
+            MetadataExtraction.JOB_TOPIC, Map.of(MetadataExtraction.PN_ASSET_UUID, asset.jcrUUID())
+        );
+        Job job = mock(Job.class);
+        when(job.getProperty(MetadataExtraction.PN_ASSET_UUID, String.class)).thenReturn(asset.jcrUUID());
+        JobConsumer.JobResult jobResult = metadataExtraction.process(job);
+        NodeProperties nodeProperties = asset.assetMetadata().properties().orElseThrow();
+        String json = metadataExtraction.asJSON();
+        assertAll(
+            () -> assertEquals(JobConsumer.JobResult.OK, jobResult),
+            () -> assertTrue(
+                nodeProperties.propertyValue(ImageDimensionsExtractor.PN_IMAGE_WIDTH, DefaultProperties.STRING_CLASS)
+                    .map(Integer::parseInt)
+                    .filter(width -> width > 0)
+                    .isPresent()
+            ),
+            () -> assertTrue(
+                nodeProperties.propertyValue(ImageDimensionsExtractor.PN_IMAGE_HEIGHT, DefaultProperties.STRING_CLASS)
+                    .map(Integer::parseInt)
+                    .filter(height -> height > 0)
+                    .isPresent()
+            ),
+            () -> assertTrue(json.contains(ImageDimensionsExtractor.class.getName())),
+            () -> assertFalse(json.contains(AudioDurationExtractor.class.getName()))
+        );
+    }
+
+    @Test
+    void mustCancelForMissingAsset() {
+        Job job = mock(Job.class);
+        when(job.getProperty(MetadataExtraction.PN_ASSET_UUID, String.class)).thenReturn("non-existent-uuid");
+        assertEquals(JobConsumer.JobResult.CANCEL, metadataExtraction.process(job));
+    }
+}
@@ -1,10 +1,19 @@
 package eu.ciechanowiec.sling.rocket.asset.image;
 
+import dev.brachtendorf.jimagehash.hash.Hash;
+import dev.brachtendorf.jimagehash.hashAlgorithms.HashingAlgorithm;
+import dev.brachtendorf.jimagehash.hashAlgorithms.PerceptiveHash;
+import eu.ciechanowiec.sling.rocket.unit.DataSize;
+import eu.ciechanowiec.sling.rocket.unit.DataUnit;
 import lombok.SneakyThrows;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -56,6 +65,82 @@ class ComparableImagesTest {
         );
     }
 
+    @Test
+    void mustHashInBatches() {
+        List<File> files = List.of(a1, a2, a3, a4, b1, b2, b3, b4, mp3);
+        ComparableImages comparableImages = new ComparableImages(files.stream().map(ComparableImage::new).toList());
+        ComparableImages hashedImages;
+        try (BatchHashing batchHashing = new BatchHashing(4, new DataSize(1, DataUnit.KILOBYTES))) {
+            hashedImages = batchHashing.hash(comparableImages);
+        }
+        List<ComparableImage> lazilyHashed = List.copyOf(comparableImages.source());
+        List<ComparableImage> batchHashed = List.copyOf(hashedImages.source());
+        Collection<String> namesOfFiles = hashedImages.excludeSimilarImages()
+            .asFiles()
+            .stream()
+            .map(File::getName)
+            .toList();
+        assertAll(
+            () -> assertEquals(files, hashedImages.asFiles()),
+            () -> assertTrue(batchHashed.stream().allMatch(ComparableImage::isHashed)),
+            () -> assertTrue(batchHashed.getLast().lastComputedHash().isEmpty()),
+            () -> assertEquals(
+                lazilyHashed.stream().map(ComparableImage::lastComputedHash).toList(),
+                batchHashed.stream().map(ComparableImage::lastComputedHash).toList()
+            ),
+            () -> assertEquals(5, namesOfFiles.size())
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void mustHashSubsampledImagesCloseToFullResolution() {
+        for (File file : List.of(a1, a2, a3, a4, b1, b2, b3, b4)) {
+            File bigFile = enlarge(file);
+            Hash fullResolutionHash = new PerceptiveHash(BitResolution.MAX_256.value()).hash(bigFile);
+            Hash subsampledHash = new ComparableImage(bigFile).lastComputedHash().orElseThrow();
+            assertTrue(
+                fullResolutionHash.normalizedHammingDistance(subsampledHash)
+                    <= ComparableImage.DEFAULT_MAX_NORMALIZED_HAMMING_DISTANCE,
+                "Subsampled hash of %s differs from its full resolution hash".formatted(file)
+            );
+        }
+    }
+
+    @Test
+    void mustHashWithReusedAlgorithm() {
+        HashingAlgorithm hashingAlgorithm = PerceptualHash.newHashingAlgorithm();
+        Hash firstHash = new PerceptualHash(a1, hashingAlgorithm).compute().orElseThrow();
+        Hash secondHash = new PerceptualHash(b1, hashingAlgorithm).compute().orElseThrow();
+        assertAll(
+            () -> assertEquals(new PerceptualHash(a1).compute(), Optional.of(firstHash)),
+            () -> assertEquals(new PerceptualHash(b1).compute(), Optional.of(secondHash)),
+            () -> assertEquals(hashingAlgorithm.algorithmId(), PerceptualHash.algorithmID()),
+            () -> assertEquals(PerceptualHash.algorithmID(), firstHash.getAlgorithmId())
+        );
+    }
+
+    @SneakyThrows
+    private File enlarge(File file) {
+        BufferedImage original = ImageIO.read(file);
+        double scale = (double) PerceptualHash.MIN_DECODED_DIMENSION * 4
+            / Math.min(original.getWidth(), original.getHeight());
+        int width = (int) Math.ceil(original.getWidth() * scale);
+        int height = (int) Math.ceil(original.getHeight() * scale);
+        BufferedImage enlarged = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = enlarged.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        File enlargedFile = File.createTempFile("jcr-binary_enlarged_", ".png");
+        enlargedFile.deleteOnExit();
+        ImageIO.write(enlarged, "png", enlargedFile);
+        return enlargedFile;
+    }
+
     @SneakyThrows
     @BeforeEach
     void setup() {
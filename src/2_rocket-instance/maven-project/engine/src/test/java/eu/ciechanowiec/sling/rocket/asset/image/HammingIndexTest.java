@@ -0,0 +1,81 @@
+package eu.ciechanowiec.sling.rocket.asset.image;
+
+import dev.brachtendorf.jimagehash.hash.Hash;
+import lombok.SneakyThrows;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HammingIndexTest {
+
+    private List<ComparableImage> images;
+
+    @BeforeEach
+    void setup() {
+        images = Stream.of("a-1", "a-2", "a-3", "a-4", "b-1", "b-2", "b-3", "b-4")
+            .map(name -> new ComparableImage(loadResourceIntoFile("image_sets/%s.jpg".formatted(name), name)))
+            .toList();
+    }
+
+    @Test
+    void mustFindSameHashesAsFullScan() {
+        HammingIndex hammingIndex = new HammingIndex(images.stream().map(ComparableImage::lastComputedHash).toList());
+        int[] maxDistances = {0, 10, 26, 64, 256};
+        for (ComparableImage image : images) {
+            Hash hash = image.lastComputedHash().orElseThrow();
+            for (int maxDistance : maxDistances) {
+                Set<Integer> expected = IntStream.range(0, images.size())
+                    .filter(
+                        position -> images.get(position)
+                            .lastComputedHash()
+                            .orElseThrow()
+                            .hammingDistance(hash) <= maxDistance
+                    )
+                    .boxed()
+                    .collect(Collectors.toSet());
+                assertEquals(expected, Set.copyOf(hammingIndex.positionsWithin(hash, maxDistance)));
+            }
+        }
+    }
+
+    @Test
+    void mustSkipUnhashableImages() {
+        ComparableImage mp3 = new ComparableImage(loadResourceIntoFile("time-forward.mp3", "time-forward"));
+        HammingIndex hammingIndex = new HammingIndex(
+            Stream.of(mp3, images.getFirst()).map(ComparableImage::lastComputedHash).toList()
+        );
+        Hash hash = images.getFirst().lastComputedHash().orElseThrow();
+        assertEquals(List.of(1), hammingIndex.positionsWithin(hash, 256));
+    }
+
+    @SneakyThrows
+    private File loadResourceIntoFile(String resourceName, String fileName) {
+        File createdFile = File.createTempFile("jcr-binary_" + fileName + "_", ".tmp");
+        createdFile.deleteOnExit();
+        Path tempFilePath = createdFile.toPath();
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try (
+            InputStream inputStream = Optional.ofNullable(
+                classLoader.getResourceAsStream(resourceName)
+            ).orElseThrow();
+            OutputStream outputStream = Files.newOutputStream(tempFilePath)
+        ) {
+            IOUtils.copy(inputStream, outputStream);
+        }
+        return createdFile;
+    }
+}
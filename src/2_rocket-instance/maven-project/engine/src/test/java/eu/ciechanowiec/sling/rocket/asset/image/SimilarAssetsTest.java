@@ -0,0 +1,178 @@
+package eu.ciechanowiec.sling.rocket.asset.image;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.FileMetadata;
+import eu.ciechanowiec.sling.rocket.asset.StagedAssetReal;
+import eu.ciechanowiec.sling.rocket.asset.UsualFileAsAssetFile;
+import eu.ciechanowiec.sling.rocket.asset.extraction.MetadataExtraction;
+import eu.ciechanowiec.sling.rocket.commons.FullResourceAccess;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class SimilarAssetsTest extends TestEnvironment {
+
+    private JobManager jobManager;
+    private PerceptualHashExtractor perceptualHashExtractor;
+    private Asset firstA;
+    private Asset fourthA;
+    private Asset fourthB;
+
+    SimilarAssetsTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        jobManager = mock(JobManager.class);
+        context.registerService(JobManager.class, jobManager);
+        perceptualHashExtractor = context.registerInjectActivateService(PerceptualHashExtractor.class);
+        context.registerInjectActivateService(MetadataExtraction.class);
+        firstA = save("image_sets/a-1.jpg", "/content/images/a-1");
+        fourthA = save("image_sets/a-4.jpg", "/content/images/a-4");
+        fourthB = save("image_sets/b-4.jpg", "/content/images/b-4");
+    }
+
+    @Test
+    void mustBackfillAndFindSimilarAssets() {
+        SimilarAssets similarAssets = context.registerInjectActivateService(SimilarAssets.class);
+        int firstBackfill = similarAssets.backfill();
+        List.of(firstA, fourthA, fourthB).forEach(this::hash);
+        int secondBackfill = similarAssets.backfill();
+        similarAssets.rebuild();
+        assertAll(
+            () -> assertEquals(3, firstBackfill),
+            () -> verify(jobManager, times(3)).addJob(anyString(), anyMap()),
+            () -> assertEquals(0, secondBackfill),
+            () -> assertEquals(List.of(fourthA.jcrUUID()), similarAssets.similarAssetUUIDs(firstA, 0.1)),
+            () -> assertEquals(List.of(), similarAssets.similarAssetUUIDs(fourthB, 0.1)),
+            () -> assertEquals(
+                Set.of(firstA.jcrUUID(), fourthB.jcrUUID()), Set.copyOf(similarAssets.similarAssetUUIDs(fourthA, 1))
+            )
+        );
+    }
+
+    @Test
+    void mustIgnoreAssetsWithoutHash() {
+        SimilarAssets similarAssets = context.registerInjectActivateService(SimilarAssets.class);
+        hash(fourthA);
+        similarAssets.rebuild();
+        assertAll(
+            () -> assertTrue(similarAssets.similarAssetUUIDs(firstA, 1).isEmpty()),
+            () -> assertTrue(similarAssets.similarAssetUUIDs(fourthA, 1).isEmpty())
+        );
+    }
+
+    @Test
+    void mustUpdateIndexIncrementally() {
+        SimilarAssets similarAssets = context.registerInjectActivateService(SimilarAssets.class);
+        List.of(firstA, fourthA, fourthB).forEach(this::hash);
+        similarAssets.rebuild();
+        List<String> beforeRemoval = similarAssets.similarAssetUUIDs(firstA, 0.1);
+        similarAssets.onChange(
+            List.of(new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/images/a-4", false))
+        );
+        List<String> afterRemoval = similarAssets.similarAssetUUIDs(firstA, 0.1);
+        similarAssets.onChange(
+            List.of(new ResourceChange(ResourceChange.ChangeType.CHANGED, "/content/images/a-4/metadata", false))
+        );
+        List<String> afterChange = similarAssets.similarAssetUUIDs(firstA, 0.1);
+        similarAssets.onChange(
+            List.of(new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/images", false))
+        );
+        List<String> afterAncestorRemoval = similarAssets.similarAssetUUIDs(fourthA, 1);
+        assertAll(
+            () -> assertEquals(List.of(fourthA.jcrUUID()), beforeRemoval),
+            () -> assertEquals(List.of(), afterRemoval),
+            () -> assertEquals(List.of(fourthA.jcrUUID()), afterChange),
+            () -> assertEquals(List.of(), afterAncestorRemoval)
+        );
+    }
+
+    @Test
+    void mustRequestRebuildInsteadOfBuildingOnSearch() {
+        SimilarAssets similarAssets = context.registerInjectActivateService(SimilarAssets.class);
+        List.of(firstA, fourthA, fourthB).forEach(this::hash);
+        List<String> firstSearch = similarAssets.similarAssetUUIDs(firstA, 0.1);
+        List<String> secondSearch = similarAssets.similarAssetUUIDs(firstA, 0.1);
+        similarAssets.rebuild();
+        List<String> searchAfterRebuild = similarAssets.similarAssetUUIDs(firstA, 0.1);
+        assertAll(
+            () -> assertEquals(List.of(), firstSearch),
+            () -> assertEquals(List.of(), secondSearch),
+            () -> verify(jobManager, times(1)).addJob(SimilarAssets.JOB_TOPIC, Map.of()),
+            () -> assertEquals(List.of(fourthA.jcrUUID()), searchAfterRebuild)
+        );
+    }
+
+    @Test
+    void mustReplayChangesReceivedDuringRebuild() {
+        List.of(firstA, fourthA, fourthB).forEach(this::hash);
+        FullResourceAccess spiedAccess = spy(fullResourceAccess);
+        SimilarAssets similarAssets = new SimilarAssets(
+            spiedAccess, jobManager, null, mock(SimilarAssetsConfig.class)
+        );
+        AtomicInteger acquisitions = new AtomicInteger();
+        doAnswer(
+            invocation -> {
+                // The first acquisition is the one of the rebuild, before the persisted hashes are loaded:
+                if (acquisitions.incrementAndGet() == 1) {
+                    similarAssets.onChange(
+                        List.of(new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/images/a-4", false))
+                    );
+                }
+                return invocation.callRealMethod();
+            }
+        ).when(spiedAccess).acquireAccess();
+        similarAssets.rebuild();
+        assertAll(
+            () -> assertTrue(acquisitions.get() > 2),
+            () -> assertEquals(List.of(), similarAssets.similarAssetUUIDs(firstA, 0.1)),
+            () -> assertEquals(List.of(firstA.jcrUUID()), similarAssets.similarAssetUUIDs(fourthB, 1))
+        );
+    }
+
+    @Test
+    void mustPersistHashes() {
+        Map<String, String> extracted = perceptualHashExtractor.extract(firstA);
+        assertAll(
+            () -> assertTrue(StringUtils.isNumeric(extracted.get(PerceptualHashExtractor.PN_PERCEPTUAL_HASH_BITS))),
+            () -> assertEquals(
+                new ComparableImage(loadResourceIntoFile("image_sets/a-1.jpg")).lastComputedHash(),
+                PerceptualHashExtractor.storedHash(extracted)
+            )
+        );
+    }
+
+    private void hash(Asset asset) {
+        asset.assetMetadata()
+            .properties()
+            .orElseThrow()
+            .setProperties(new HashMap<>(perceptualHashExtractor.extract(asset)));
+    }
+
+    private Asset save(String resourceName, String jcrPath) {
+        File file = loadResourceIntoFile(resourceName);
+        return new StagedAssetReal(
+            new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess
+        ).save(new TargetJCRPath(jcrPath));
+    }
+}
@@ -0,0 +1,152 @@
+package eu.ciechanowiec.sling.rocket.asset.rendition;
+
+import eu.ciechanowiec.sling.rocket.asset.*;
+import eu.ciechanowiec.sling.rocket.commons.UserResourceAccess;
+import eu.ciechanowiec.sling.rocket.identity.AuthIDUser;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.privilege.PrivilegeAdmin;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import lombok.SneakyThrows;
+import org.apache.jackrabbit.oak.spi.security.privilege.PrivilegeConstants;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class RenditionsTest extends TestEnvironment {
+
+    private static final Map<String, Object> ALLOWED_SIZES = Map.of("allowed.sizes", new String[]{"40x30"});
+
+    private Asset asset;
+
+    RenditionsTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        File file = loadResourceIntoFile("1.jpeg");
+        asset = new StagedAssetReal(
+            new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess
+        ).save(new TargetJCRPath("/content/images/logo"));
+    }
+
+    @Test
+    @SneakyThrows
+    void mustGenerateRenditionOnce() {
+        Renditions renditions = context.registerInjectActivateService(Renditions.class, ALLOWED_SIZES);
+        RenditionSize renditionSize = new RenditionSize(40, 30);
+        Asset firstRendition = renditions.rendition(asset, renditionSize, fullResourceAccess).orElseThrow();
+        Asset secondRendition = renditions.rendition(asset, renditionSize, fullResourceAccess).orElseThrow();
+        BufferedImage image;
+        try (InputStream inputStream = firstRendition.assetFile().retrieve()) {
+            image = ImageIO.read(inputStream);
+        }
+        assertAll(
+            () -> assertTrue(image.getWidth() <= renditionSize.width()),
+            () -> assertTrue(image.getHeight() <= renditionSize.height()),
+            () -> assertTrue(image.getWidth() == renditionSize.width() || image.getHeight() == renditionSize.height()),
+            () -> assertEquals(firstRendition.assetFile().size(), secondRendition.assetFile().size()),
+            () -> assertEquals(asset.jcrUUID(), firstRendition.jcrUUID()),
+            () -> assertEquals("image/jpeg", firstRendition.assetMetadata().mimeType()),
+            () -> assertEquals(1, renditions.generations()),
+            () -> assertEquals(1, renditions.memoryHits()),
+            () -> assertEquals(0.5, renditions.hitRatio()),
+            () -> assertNotNull(context.resourceResolver().getResource("/content/images/logo/renditions/40x30")),
+            () -> assertEquals(1, new AssetsRepository(fullResourceAccess).all().size())
+        );
+    }
+
+    @Test
+    void mustReuseStoredRendition() {
+        RenditionSize renditionSize = new RenditionSize(40, 30);
+        Renditions generatingRenditions = context.registerInjectActivateService(Renditions.class, ALLOWED_SIZES);
+        long generatedSize = generatingRenditions.rendition(asset, renditionSize, fullResourceAccess)
+            .orElseThrow().assetFile().size().bytes();
+        Renditions reusingRenditions = context.registerInjectActivateService(
+            Renditions.class, Map.of("allowed.sizes", new String[]{"40x30"}, "generation-timeout.seconds", 5L)
+        );
+        long reusedSize = reusingRenditions.rendition(asset, renditionSize, fullResourceAccess)
+            .orElseThrow().assetFile().size().bytes();
+        assertAll(
+            () -> assertEquals(generatedSize, reusedSize),
+            () -> assertEquals(0, reusingRenditions.generations()),
+            () -> assertEquals(1, reusingRenditions.repositoryHits())
+        );
+    }
+
+    @Test
+    void mustRejectSizesNotAllowed() {
+        Renditions renditions = context.registerInjectActivateService(Renditions.class, ALLOWED_SIZES);
+        assertAll(
+            () -> assertTrue(renditions.rendition(asset, new RenditionSize(41, 30), fullResourceAccess).isEmpty()),
+            () -> assertTrue(renditions.rendition(asset, new RenditionSize(30, 40), fullResourceAccess).isEmpty()),
+            () -> assertEquals(0, renditions.generations())
+        );
+    }
+
+    @Test
+    void mustNotStoreRenditionsForReadOnlyUsers() {
+        AuthIDUser testUser = createOrGetUser(new AuthIDUser("testUser"));
+        new PrivilegeAdmin(fullResourceAccess).allow(new TargetJCRPath("/"), testUser, PrivilegeConstants.JCR_READ);
+        UserResourceAccess userResourceAccess = new UserResourceAccess(testUser, fullResourceAccess);
+        Renditions renditions = context.registerInjectActivateService(Renditions.class, ALLOWED_SIZES);
+        RenditionSize renditionSize = new RenditionSize(40, 30);
+        Optional<Asset> firstRendition = renditions.rendition(asset, renditionSize, userResourceAccess);
+        Optional<Asset> secondRendition = renditions.rendition(asset, renditionSize, userResourceAccess);
+        assertAll(
+            () -> assertTrue(firstRendition.isPresent()),
+            () -> assertTrue(secondRendition.isPresent()),
+            () -> assertEquals(1, renditions.generations()),
+            () -> assertEquals(1, renditions.memoryHits()),
+            () -> assertNull(context.resourceResolver().getResource("/content/images/logo/renditions"))
+        );
+    }
+
+    @Test
+    void mustShareRenditionsOfLinks() {
+        Asset link = new StagedAssetLink(asset, fullResourceAccess).save(new TargetJCRPath("/content/images/link"));
+        Renditions renditions = context.registerInjectActivateService(Renditions.class, ALLOWED_SIZES);
+        RenditionSize renditionSize = new RenditionSize(40, 30);
+        Asset linkRendition = renditions.rendition(link, renditionSize, fullResourceAccess).orElseThrow();
+        Optional<Asset> assetRendition = renditions.rendition(asset, renditionSize, fullResourceAccess);
+        assertAll(
+            () -> assertEquals(link.jcrUUID(), linkRendition.jcrUUID()),
+            () -> assertTrue(assetRendition.isPresent()),
+            () -> assertEquals(1, renditions.generations()),
+            () -> assertEquals(1, renditions.memoryHits()),
+            () -> assertNotNull(context.resourceResolver().getResource("/content/images/logo/renditions/40x30"))
+        );
+    }
+
+    @Test
+    void mustFallBackToPNG() {
+        RenditionSize renditionSize = new RenditionSize(40, 30);
+        assertAll(
+            () -> assertEquals("image/png", new ScaledImage(renditionSize, Optional.of(".heic")).mimeType()),
+            () -> assertEquals("image/png", new ScaledImage(renditionSize, Optional.empty()).mimeType()),
+            () -> assertEquals("image/jpeg", new ScaledImage(renditionSize, Optional.of(".jpg")).mimeType())
+        );
+    }
+
+    @Test
+    void mustParseSizes() {
+        assertAll(
+            () -> assertEquals(Optional.of(new RenditionSize(320, 240)), RenditionSize.parse("320x240")),
+            () -> assertEquals("320x240", new RenditionSize(320, 240).toString()),
+            () -> assertTrue(RenditionSize.parse("0x240").isEmpty()),
+            () -> assertTrue(RenditionSize.parse("320x").isEmpty()),
+            () -> assertTrue(RenditionSize.parse("redundant").isEmpty()),
+            () -> assertThrows(IllegalArgumentException.class, () -> new RenditionSize(-1, 1))
+        );
+    }
+}
@@ -0,0 +1,326 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import eu.ciechanowiec.sling.rocket.asset.Asset;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.asset.FileMetadata;
+import eu.ciechanowiec.sling.rocket.asset.StagedAssetReal;
+import eu.ciechanowiec.sling.rocket.asset.UsualFileAsAssetFile;
+import eu.ciechanowiec.sling.rocket.jcr.SimpleNode;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.observation.audit.Entry;
+import eu.ciechanowiec.sling.rocket.observation.audit.EntryTrampoline;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import lombok.SneakyThrows;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"MagicNumber", "MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class ClamAVRescanTest extends TestEnvironment {
+
+    private static final String NEW_VERSION = "ClamAV 1.5.2/28024/Test";
+
+    private EntryTrampoline entryTrampoline;
+
+    ClamAVRescanTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @BeforeEach
+    void setup() {
+        entryTrampoline = context.registerService(EntryTrampoline.class, mock(EntryTrampoline.class));
+    }
+
+    private void registerClamAV(FakeClamd fakeClamd) {
+        context.registerInjectActivateService(
+            ClamAV.class, Map.of(
+                "clamav.host", "localhost",
+                "clamav.port", fakeClamd.port(),
+                "clamav.connect-timeout", 2_000,
+                "clamav.read-timeout", 10_000,
+                "clamav.cache.version-check-interval", 0L
+            )
+        );
+    }
+
+    @SneakyThrows
+    private Asset saveAsset(String content, String jcrPath) {
+        File file = File.createTempFile("jcr-binary_", ".tmp");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), content, StandardCharsets.US_ASCII);
+        return new StagedAssetReal(
+            new UsualFileAsAssetFile(file), new FileMetadata(file), fullResourceAccess
+        ).save(new TargetJCRPath(jcrPath));
+    }
+
+    @Test
+    void mustRescanAfterVersionChange() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            registerClamAV(fakeClamd);
+            ClamAV clamAV = context.getService(ClamAV.class);
+            Asset cleanAsset = saveAsset("This content is perfectly innocent", "/content/rescan/clean");
+            Asset infectedAsset = saveAsset(FakeClamd.EICAR, "/content/rescan/infected");
+            ClamAVRescan clamAVRescan = context.registerInjectActivateService(ClamAVRescan.class);
+            clamAVRescan.rescan();
+            ClamAVRescan.RescanCheckpoint baseline = clamAVRescan.lastCheckpoint().orElseThrow();
+            long numOfScansAfterBaseline = clamAV.numOfScans();
+            fakeClamd.version(NEW_VERSION);
+            clamAVRescan.rescan();
+            ArgumentCaptor<Entry> entryCaptor = ArgumentCaptor.forClass(Entry.class);
+            verify(entryTrampoline, times(1)).submitForSaving(entryCaptor.capture());
+            Entry entry = entryCaptor.getValue();
+            assertAll(
+                () -> assertEquals(
+                    new ClamAVRescan.RescanCheckpoint(FakeClamd.VERSION_REPLY, StringUtils.EMPTY, true), baseline
+                ),
+                () -> assertEquals(0, numOfScansAfterBaseline),
+                () -> assertEquals(2, clamAV.numOfScans()),
+                () -> assertEquals(1, clamAV.numOfInfectedScans()),
+                () -> assertEquals(2, clamAVRescan.rescannedAssets()),
+                () -> assertEquals(1, clamAVRescan.infectedAssets()),
+                () -> assertEquals(
+                    new ClamAVRescan.RescanCheckpoint(NEW_VERSION, lastJCRUUID(cleanAsset, infectedAsset), true),
+                    clamAVRescan.lastCheckpoint().orElseThrow()
+                ),
+                () -> assertEquals(infectedAsset.jcrPath().get(), entry.subject()),
+                () -> assertEquals(
+                    FakeClamd.EICAR_SIGNATURE_NAME, entry.additionalProperties().get("signatureName")
+                ),
+                () -> assertEquals(NEW_VERSION, entry.additionalProperties().get("signatureVersion")),
+                () -> assertTrue(clamAVRescan.asJSON().contains("\"rescannedAssets\":2"))
+            );
+            clamAVRescan.rescan();
+            assertEquals(2, clamAV.numOfScans());
+        }
+    }
+
+    @Test
+    void mustSkipContentAlreadyScannedUnderCurrentVersion() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            registerClamAV(fakeClamd);
+            ClamAV clamAV = context.getService(ClamAV.class);
+            Asset firstAsset = saveAsset("Duplicated innocent content", "/content/rescan/first");
+            Asset secondAsset = saveAsset("Duplicated innocent content", "/content/rescan/second");
+            Asset thirdAsset = saveAsset("Unique innocent content", "/content/rescan/third");
+            ClamAVRescan clamAVRescan = context.registerInjectActivateService(
+                ClamAVRescan.class, Map.of("page.size", 1)
+            );
+            clamAVRescan.rescan();
+            fakeClamd.version(NEW_VERSION);
+            clamAVRescan.rescan();
+            assertAll(
+                () -> assertEquals(2, clamAV.numOfScans()),
+                () -> assertEquals(2, clamAVRescan.rescannedAssets()),
+                () -> assertEquals(1, clamAVRescan.skippedAssets()),
+                () -> assertEquals(
+                    new ClamAVRescan.RescanCheckpoint(
+                        NEW_VERSION, lastJCRUUID(firstAsset, secondAsset, thirdAsset), true
+                    ),
+                    clamAVRescan.lastCheckpoint().orElseThrow()
+                )
+            );
+        }
+    }
+
+    @Test
+    void mustPersistScannedDigests() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            registerClamAV(fakeClamd);
+            ClamAV clamAV = context.getService(ClamAV.class);
+            Asset recordedAsset = saveAsset("Recorded innocent content", "/content/rescan/recorded");
+            Asset staleAsset = saveAsset("Stale innocent content", "/content/rescan/stale");
+            String recordedSHA256 = recordedAsset.assetMetadata().all().get(AssetMetadata.PN_SHA256);
+            String staleSHA256 = staleAsset.assetMetadata().all().get(AssetMetadata.PN_SHA256);
+            recordScannedDigest(recordedSHA256, NEW_VERSION);
+            recordScannedDigest(staleSHA256, FakeClamd.VERSION_REPLY);
+            new SimpleNode(new TargetJCRPath(ClamAVRescan.CHECKPOINT_PATH), fullResourceAccess)
+                .nodeProperties()
+                .setProperties(
+                    Map.of(
+                        ClamAVRescan.PN_SIGNATURE_VERSION, NEW_VERSION,
+                        ClamAVRescan.PN_LAST_JCR_UUID, StringUtils.EMPTY,
+                        ClamAVRescan.PN_IS_COMPLETED, false
+                    )
+                );
+            fakeClamd.version(NEW_VERSION);
+            ClamAVRescan clamAVRescan = context.registerInjectActivateService(ClamAVRescan.class);
+            clamAVRescan.rescan();
+            long numOfScansUnderRecordedVersion = clamAV.numOfScans();
+            fakeClamd.version(FakeClamd.VERSION_REPLY);
+            clamAVRescan.rescan();
+            assertAll(
+                () -> assertEquals(1, numOfScansUnderRecordedVersion),
+                () -> assertEquals(1, clamAVRescan.skippedAssets()),
+                () -> assertEquals(
+                    Optional.of(FakeClamd.VERSION_REPLY), scannedDigestVersion(recordedSHA256)
+                ),
+                () -> assertEquals(
+                    Optional.of(FakeClamd.VERSION_REPLY), scannedDigestVersion(staleSHA256)
+                )
+            );
+        }
+    }
+
+    private void recordScannedDigest(String sha256, String signatureVersion) {
+        new SimpleNode(new TargetJCRPath(scannedDigestPath(sha256)), fullResourceAccess)
+            .nodeProperties()
+            .setProperties(Map.of(ClamAVRescan.PN_SIGNATURE_VERSION, signatureVersion));
+    }
+
+    private Optional<String> scannedDigestVersion(String sha256) {
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            return Optional.ofNullable(resourceResolver.getResource(scannedDigestPath(sha256)))
+                .map(resource -> resource.getValueMap().get(ClamAVRescan.PN_SIGNATURE_VERSION, String.class));
+        }
+    }
+
+    private String scannedDigestPath(String sha256) {
+        return "%s/%s/%s".formatted(ClamAVRescan.SCANNED_DIGESTS_PATH, sha256.substring(0, 2), sha256);
+    }
+
+    private String lastJCRUUID(Asset... assets) {
+        return Stream.of(assets).map(Asset::jcrUUID).max(Comparator.naturalOrder()).orElseThrow();
+    }
+
+    @Test
+    void mustRemoveScannedDigestsInBatches() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            registerClamAV(fakeClamd);
+            ClamAVRescan clamAVRescan = context.registerInjectActivateService(ClamAVRescan.class);
+            clamAVRescan.rescan();
+            List<String> staleSHA256s = IntStream.rangeClosed(0, ClamAVRescan.BATCH_SIZE)
+                .mapToObj(index -> "ab%062d".formatted(index))
+                .toList();
+            recordScannedDigests(staleSHA256s, FakeClamd.VERSION_REPLY);
+            fakeClamd.version(NEW_VERSION);
+            clamAVRescan.rescan();
+            try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+                assertAll(
+                    () -> assertTrue(scannedDigestVersion(staleSHA256s.getFirst()).isEmpty()),
+                    () -> assertTrue(scannedDigestVersion(staleSHA256s.getLast()).isEmpty()),
+                    () -> assertNull(resourceResolver.getResource(ClamAVRescan.SCANNED_DIGESTS_PATH)),
+                    () -> assertTrue(clamAVRescan.lastCheckpoint().orElseThrow().isCompleted())
+                );
+            }
+        }
+    }
+
+    @SneakyThrows
+    private void recordScannedDigests(List<String> sha256s, String signatureVersion) {
+        try (ResourceResolver resourceResolver = fullResourceAccess.acquireAccess()) {
+            for (String sha256 : sha256s) {
+                ResourceUtil.getOrCreateResource(
+                    resourceResolver, scannedDigestPath(sha256),
+                    Map.of(
+                        JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED,
+                        ClamAVRescan.PN_SIGNATURE_VERSION, signatureVersion
+                    ), null, false
+                );
+            }
+            resourceResolver.commit();
+        }
+    }
+
+    @Test
+    void mustContinueFromCheckpoint() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            registerClamAV(fakeClamd);
+            ClamAV clamAV = context.getService(ClamAV.class);
+            List<Asset> assetsInOrder = Stream.of(
+                saveAsset("First innocent content", "/content/rescan/a"),
+                saveAsset("Second innocent content", "/content/rescan/b"),
+                saveAsset("Third innocent content", "/content/rescan/c")
+            ).sorted(Comparator.comparing(Asset::jcrUUID)).toList();
+            new SimpleNode(new TargetJCRPath(ClamAVRescan.CHECKPOINT_PATH), fullResourceAccess)
+                .nodeProperties()
+                .setProperties(
+                    Map.of(
+                        ClamAVRescan.PN_SIGNATURE_VERSION, FakeClamd.VERSION_REPLY,
+                        ClamAVRescan.PN_LAST_JCR_UUID, assetsInOrder.get(1).jcrUUID(),
+                        ClamAVRescan.PN_IS_COMPLETED, false
+                    )
+                );
+            ClamAVRescan clamAVRescan = context.registerInjectActivateService(
+                ClamAVRescan.class, Map.of("page.size", 2)
+            );
+            clamAVRescan.rescan();
+            assertAll(
+                () -> assertEquals(1, clamAV.numOfScans()),
+                () -> assertEquals(1, clamAVRescan.rescannedAssets()),
+                () -> assertEquals(
+                    Optional.of(FakeClamd.VERSION_REPLY), scannedDigestVersion(sha256Of(assetsInOrder.getLast()))
+                ),
+                () -> assertTrue(scannedDigestVersion(sha256Of(assetsInOrder.getFirst())).isEmpty()),
+                () -> assertEquals(
+                    new ClamAVRescan.RescanCheckpoint(
+                        FakeClamd.VERSION_REPLY, assetsInOrder.getLast().jcrUUID(), true
+                    ),
+                    clamAVRescan.lastCheckpoint().orElseThrow()
+                )
+            );
+        }
+    }
+
+    private String sha256Of(Asset asset) {
+        return asset.assetMetadata().all().get(AssetMetadata.PN_SHA256);
+    }
+
+    @Test
+    void mustNotTouchCheckpointWhenClamdIsUnreachable() {
+        FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO);
+        registerClamAV(fakeClamd);
+        saveAsset("This content is perfectly innocent", "/content/rescan/clean");
+        ClamAVRescan clamAVRescan = context.registerInjectActivateService(ClamAVRescan.class);
+        clamAVRescan.rescan();
+        fakeClamd.close();
+        clamAVRescan.rescan();
+        assertAll(
+            () -> assertEquals(0, clamAVRescan.rescannedAssets()),
+            () -> assertEquals(0, clamAVRescan.failedAssets()),
+            () -> assertEquals(
+                new ClamAVRescan.RescanCheckpoint(FakeClamd.VERSION_REPLY, StringUtils.EMPTY, true),
+                clamAVRescan.lastCheckpoint().orElseThrow()
+            )
+        );
+    }
+
+    @Test
+    void mustThrottle() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            registerClamAV(fakeClamd);
+            saveAsset("a".repeat(100), "/content/rescan/first");
+            saveAsset("b".repeat(100), "/content/rescan/second");
+            ClamAVRescan clamAVRescan = context.registerInjectActivateService(
+                ClamAVRescan.class, Map.of("throttle.bytes-per-second", 200L)
+            );
+            clamAVRescan.rescan();
+            fakeClamd.version(NEW_VERSION);
+            long startNanos = System.nanoTime();
+            clamAVRescan.rescan();
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+            assertAll(
+                () -> assertEquals(2, clamAVRescan.rescannedAssets()),
+                () -> assertTrue(elapsed.compareTo(Duration.ofMillis(900)) >= 0, "Elapsed: " + elapsed)
+            );
+        }
+    }
+}
@@ -2,10 +2,14 @@ package eu.ciechanowiec.sling.rocket.clamav;
 
 import eu.ciechanowiec.sling.rocket.asset.Asset;
 import eu.ciechanowiec.sling.rocket.asset.AssetFile;
+import eu.ciechanowiec.sling.rocket.asset.AssetMetadata;
+import eu.ciechanowiec.sling.rocket.asset.SHA256Digest;
 import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
@@ -13,8 +17,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.ServerSocket;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -22,6 +39,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Slf4j
@@ -131,6 +150,12 @@ class ClamAVTest extends TestEnvironment {
         }
     }
 
+    @SneakyThrows
+    private String sha256(String content) {
+        MessageDigest messageDigest = MessageDigest.getInstance(SHA256Digest.ALGORITHM);
+        return HexFormat.of().formatHex(messageDigest.digest(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
     @SneakyThrows
     private int unusedPort() {
         try (ServerSocket throwawaySocket = new ServerSocket(0)) {
@@ -243,6 +268,377 @@ class ClamAVTest extends TestEnvironment {
         }
     }
 
+    @Test
+    void mustRecordScanMetrics() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = clamAVFor(fakeClamd.port());
+            String innocentContent = "Innocent content";
+            clamAV.scan(contentOf(innocentContent));
+            clamAV.scan(contentOf(FakeClamd.EICAR));
+            ScanMetrics scanMetrics = clamAV.scanMetricsSnapshot();
+            long expectedScannedBytes = innocentContent.length() + FakeClamd.EICAR.length();
+            String statsAsJSON = clamAV.asJSON();
+            String scanMetricsAsJSON = clamAV.getScanMetrics();
+            assertAll(
+                () -> assertEquals(2, scanMetrics.scanTime().count()),
+                () -> assertEquals(2, scanMetrics.connectTime().count()),
+                () -> assertEquals(2, scanMetrics.streamTime().count()),
+                () -> assertEquals(2, scanMetrics.verdictTime().count()),
+                () -> assertEquals(2, scanMetrics.scanTimeBySize().get("upTo64KiB").count()),
+                () -> assertEquals(0, scanMetrics.scanTimeBySize().get("over128MiB").count()),
+                () -> assertEquals(expectedScannedBytes, scanMetrics.scannedBytes()),
+                () -> assertEquals(expectedScannedBytes, clamAV.getScannedBytes()),
+                () -> assertEquals(2, clamAV.getNumOfScans()),
+                () -> assertTrue(clamAV.getScanTimeMaxMillis() >= clamAV.getScanTimeP50Millis()),
+                () -> assertTrue(clamAV.getScanTimeP99Millis() <= clamAV.getScanTimeMaxMillis()),
+                () -> assertTrue(clamAV.getThroughputBytesPerSecond() > 0),
+                () -> assertTrue(statsAsJSON.contains("\"scanMetrics\":{")),
+                () -> assertTrue(statsAsJSON.contains("\"upTo64KiB\":{")),
+                () -> assertFalse(statsAsJSON.contains("MBeanInfo")),
+                () -> assertTrue(scanMetricsAsJSON.contains("\"p99Millis\""))
+            );
+            clamAV.resetScanMetrics();
+            assertEquals(0, clamAV.scanMetricsSnapshot().scanTime().count());
+        }
+    }
+
+    @Test
+    void mustNotRecordScanMetricsWithoutVerdict() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.SIZE_LIMIT)) {
+            ClamAV clamAV = clamAVFor(fakeClamd.port());
+            clamAV.scan(contentOf("Content rejected due to its size"));
+            assertAll(
+                () -> assertEquals(1, clamAV.numOfFailedScans()),
+                () -> assertEquals(0, clamAV.scanMetricsSnapshot().scanTime().count()),
+                () -> assertEquals(0, clamAV.getScannedBytes())
+            );
+        }
+    }
+
+    @Test
+    void mustReuseSessions() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = clamAVFor(fakeClamd.port());
+            ScanResult firstScanResult = clamAV.scan(contentOf("First innocent content"));
+            ScanResult secondScanResult = clamAV.scan(contentOf(FakeClamd.EICAR));
+            boolean isReachable = clamAV.ping();
+            Optional<String> version = clamAV.version();
+            long numOfReusedConnections = clamAV.endpoints().getFirst().pool().reused();
+            String statsAsJSON = clamAV.asJSON();
+            assertAll(
+                () -> assertInstanceOf(Clean.class, firstScanResult),
+                () -> assertInstanceOf(Infected.class, secondScanResult),
+                () -> assertTrue(isReachable),
+                () -> assertTrue(version.orElseThrow().startsWith("ClamAV")),
+                () -> assertEquals(1, fakeClamd.numOfAcceptedConnections()),
+                () -> assertEquals(1, clamAV.endpoints().getFirst().pool().created()),
+                () -> assertEquals(1, clamAV.endpoints().getFirst().pool().idle()),
+                () -> assertEquals(4, numOfReusedConnections),
+                () -> assertTrue(statsAsJSON.contains("\"connectionPool\":{"))
+            );
+        }
+    }
+
+    @Test
+    void mustDiscardBrokenSessions() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.SIZE_LIMIT)) {
+            ClamAV clamAV = clamAVFor(fakeClamd.port());
+            clamAV.scan(contentOf("First content beyond all reasonable size limits"));
+            clamAV.scan(contentOf("Second content beyond all reasonable size limits"));
+            assertAll(
+                () -> assertEquals(2, fakeClamd.numOfAcceptedConnections()),
+                () -> assertEquals(2, clamAV.endpoints().getFirst().pool().discarded()),
+                () -> assertEquals(0, clamAV.endpoints().getFirst().pool().idle())
+            );
+        }
+    }
+
+    @Test
+    void mustNotPoolWithZeroPoolSize() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.host", "localhost",
+                    "clamav.port", fakeClamd.port(),
+                    "clamav.pool.size", 0
+                )
+            );
+            clamAV.scan(contentOf("Innocent content"));
+            boolean isReachable = clamAV.ping();
+            assertAll(
+                () -> assertTrue(isReachable),
+                () -> assertEquals(2, fakeClamd.numOfAcceptedConnections()),
+                () -> assertEquals(0, clamAV.endpoints().getFirst().pool().idle())
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mustBoundOpenConnections() {
+        try (
+            FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO);
+            ExecutorService scanners = Executors.newVirtualThreadPerTaskExecutor()
+        ) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.host", "localhost",
+                    "clamav.port", fakeClamd.port(),
+                    "clamav.connect-timeout", 200,
+                    "clamav.pool.max-connections", 1
+                )
+            );
+            CountDownLatch latch = new CountDownLatch(1);
+            InputStream blockingContent = blockingContentOf("Blocking content", latch);
+            CompletableFuture<ScanResult> blockingScanResult = CompletableFuture.supplyAsync(
+                () -> clamAV.scan(blockingContent), scanners
+            );
+            Awaitility.await().atMost(10, TimeUnit.SECONDS).untilAsserted(
+                () -> assertEquals(1, fakeClamd.numOfAcceptedConnections())
+            );
+            ScanResult timedOutScanResult = clamAV.scan(contentOf("Timed out content"));
+            latch.countDown();
+            assertAll(
+                () -> assertInstanceOf(Failed.class, timedOutScanResult),
+                () -> assertInstanceOf(Clean.class, blockingScanResult.join()),
+                () -> assertEquals(1, fakeClamd.numOfAcceptedConnections()),
+                () -> assertEquals(1, clamAV.endpoints().getFirst().pool().timedOutBorrowings()),
+                () -> assertInstanceOf(Clean.class, clamAV.scan(contentOf("Subsequent content")))
+            );
+        }
+    }
+
+    @Test
+    void mustScanAsynchronously() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = clamAVFor(fakeClamd.port());
+            AssetFile infectedAssetFile = mock(AssetFile.class);
+            when(infectedAssetFile.retrieve()).thenReturn(contentOf(FakeClamd.EICAR));
+            Asset asset = mock(Asset.class);
+            when(asset.assetFile()).thenReturn(infectedAssetFile);
+            ScanResult scanResult = clamAV.scanAsync(asset).join();
+            assertAll(
+                () -> assertInstanceOf(Infected.class, scanResult),
+                () -> assertEquals(1, clamAV.numOfAdmittedScans()),
+                () -> assertEquals(0, clamAV.numOfRejectedScans()),
+                () -> assertEquals(1, clamAV.numOfInfectedScans())
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mustRejectAsynchronousScansWhenQueueIsFull() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.host", "localhost",
+                    "clamav.port", fakeClamd.port(),
+                    "clamav.max-concurrent-scans", 1,
+                    "clamav.scan-queue.size", 1
+                )
+            );
+            CountDownLatch latch = new CountDownLatch(1);
+            AssetFile blockingAssetFile = mock(AssetFile.class);
+            when(blockingAssetFile.retrieve()).thenAnswer(
+                invocation -> {
+                    latch.await();
+                    return contentOf("Innocent content");
+                }
+            );
+            CompletableFuture<ScanResult> activeScan = clamAV.scanAsync(blockingAssetFile);
+            CompletableFuture<ScanResult> queuedScan = clamAV.scanAsync(blockingAssetFile);
+            CompletableFuture<ScanResult> rejectedScan = clamAV.scanAsync(blockingAssetFile);
+            int numOfQueuedScans = clamAV.numOfQueuedScans();
+            boolean isRejectedImmediately = rejectedScan.isDone();
+            latch.countDown();
+            assertAll(
+                () -> assertTrue(isRejectedImmediately),
+                () -> assertEquals(1, numOfQueuedScans),
+                () -> assertInstanceOf(Failed.class, rejectedScan.join()),
+                () -> assertInstanceOf(Clean.class, activeScan.join()),
+                () -> assertInstanceOf(Clean.class, queuedScan.join()),
+                () -> assertEquals(2, clamAV.numOfAdmittedScans()),
+                () -> assertEquals(1, clamAV.numOfRejectedScans()),
+                () -> assertTrue(clamAV.asJSON().contains("\"numOfRejectedScans\":1"))
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mustCompleteDroppedAsynchronousScansUponDeactivation() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.host", "localhost",
+                    "clamav.port", fakeClamd.port(),
+                    "clamav.max-concurrent-scans", 1,
+                    "clamav.scan-queue.size", 2
+                )
+            );
+            CountDownLatch latch = new CountDownLatch(1);
+            AssetFile blockingAssetFile = mock(AssetFile.class);
+            when(blockingAssetFile.retrieve()).thenAnswer(
+                invocation -> {
+                    latch.await();
+                    return contentOf("Innocent content");
+                }
+            );
+            CompletableFuture<ScanResult> activeScan = clamAV.scanAsync(blockingAssetFile);
+            CompletableFuture<ScanResult> firstQueuedScan = clamAV.scanAsync(blockingAssetFile);
+            CompletableFuture<ScanResult> secondQueuedScan = clamAV.scanAsync(blockingAssetFile);
+            clamAV.deactivate();
+            CompletableFuture<ScanResult> lateScan = clamAV.scanAsync(blockingAssetFile);
+            latch.countDown();
+            assertAll(
+                () -> assertFalse(activeScan.isCancelled()),
+                () -> assertInstanceOf(Failed.class, firstQueuedScan.getNow(null)),
+                () -> assertInstanceOf(Failed.class, secondQueuedScan.getNow(null)),
+                () -> assertInstanceOf(Failed.class, lateScan.getNow(null)),
+                () -> assertEquals(0, clamAV.numOfRejectedScans())
+            );
+        }
+    }
+
+    @Test
+    void mustFailAsynchronousScanThrowingUnexpectedly() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = clamAVFor(fakeClamd.port());
+            AssetFile brokenAssetFile = mock(AssetFile.class);
+            when(brokenAssetFile.retrieve()).thenThrow(new IllegalStateException("Broken asset file"));
+            ScanResult scanResult = clamAV.scanAsync(brokenAssetFile).join();
+            assertAll(
+                () -> assertInstanceOf(Failed.class, scanResult),
+                () -> assertEquals(1, clamAV.numOfFailedScans())
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mustNotRejectAsynchronousScansUponReconfiguration() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = clamAVFor(fakeClamd.port());
+            ClamAVConfig newConfig = mock(ClamAVConfig.class);
+            when(newConfig.clamav_host()).thenReturn("localhost");
+            when(newConfig.clamav_port()).thenReturn(fakeClamd.port());
+            when(newConfig.clamav_unix$_$socket_path()).thenReturn(StringUtils.EMPTY);
+            when(newConfig.clamav_connect$_$timeout()).thenReturn(2_000);
+            when(newConfig.clamav_read$_$timeout()).thenReturn(10_000);
+            when(newConfig.clamav_pool_size()).thenReturn(4);
+            when(newConfig.clamav_pool_max$_$connections()).thenReturn(10);
+            when(newConfig.clamav_pool_max$_$idle()).thenReturn(20_000);
+            when(newConfig.clamav_max$_$concurrent$_$scans()).thenReturn(10);
+            when(newConfig.clamav_scan$_$queue_size()).thenReturn(100);
+            when(newConfig.clamav_cache_size()).thenReturn(10);
+            when(newConfig.clamav_endpoints()).thenReturn(new String[0]);
+            when(newConfig.clamav_circuit_failure$_$threshold()).thenReturn(3);
+            when(newConfig.clamav_circuit_open$_$duration()).thenReturn(10_000L);
+            AssetFile assetFile = mock(AssetFile.class);
+            when(assetFile.retrieve()).thenAnswer(invocation -> contentOf("Innocent content"));
+            Thread reconfiguration = Thread.ofPlatform().start(
+                () -> IntStream.range(0, 20).forEach(index -> clamAV.configure(newConfig))
+            );
+            List<CompletableFuture<ScanResult>> scanResults = IntStream.range(0, 20)
+                .mapToObj(index -> clamAV.scanAsync(assetFile))
+                .toList();
+            reconfiguration.join();
+            assertAll(
+                () -> assertEquals(0, clamAV.numOfRejectedScans()),
+                () -> assertEquals(20, clamAV.numOfAdmittedScans()),
+                () -> scanResults.forEach(scanResult -> assertInstanceOf(ScanResult.class, scanResult.join()))
+            );
+        }
+    }
+
+    @Test
+    void mustReuseCachedScanResults() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = clamAVFor(fakeClamd.port());
+            String content = "Innocent content scanned many times";
+            AssetFile assetFile = mock(AssetFile.class);
+            when(assetFile.retrieve()).thenAnswer(invocation -> contentOf(content));
+            AssetMetadata assetMetadata = mock(AssetMetadata.class);
+            when(assetMetadata.all()).thenReturn(
+                Map.of(AssetMetadata.PN_SHA256, sha256(content).toUpperCase(Locale.ROOT))
+            );
+            Asset asset = mock(Asset.class);
+            when(asset.assetFile()).thenReturn(assetFile);
+            when(asset.assetMetadata()).thenReturn(assetMetadata);
+            ScanResult firstScanResult = clamAV.scan(asset);
+            ScanResult secondScanResult = clamAV.scan(asset);
+            ScanResult thirdScanResult = clamAV.scanAsync(asset).join();
+            assertAll(
+                () -> assertInstanceOf(Clean.class, firstScanResult),
+                () -> assertInstanceOf(Clean.class, secondScanResult),
+                () -> assertInstanceOf(Clean.class, thirdScanResult),
+                () -> verify(assetFile, times(1)).retrieve(),
+                () -> assertEquals(3, clamAV.numOfCleanScans()),
+                () -> assertEquals(2, clamAV.scanResultCache().hits()),
+                () -> assertTrue(clamAV.asJSON().contains("\"hits\":2"))
+            );
+        }
+    }
+
+    @Test
+    void mustNotCacheInfectedScanResultsByDefault() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            ClamAV clamAV = clamAVFor(fakeClamd.port());
+            AssetFile assetFile = mock(AssetFile.class);
+            when(assetFile.retrieve()).thenAnswer(invocation -> contentOf(FakeClamd.EICAR));
+            AssetMetadata assetMetadata = mock(AssetMetadata.class);
+            when(assetMetadata.all()).thenReturn(Map.of(AssetMetadata.PN_SHA256, sha256(FakeClamd.EICAR)));
+            Asset asset = mock(Asset.class);
+            when(asset.assetFile()).thenReturn(assetFile);
+            when(asset.assetMetadata()).thenReturn(assetMetadata);
+            clamAV.scan(asset);
+            clamAV.scan(asset);
+            assertAll(
+                () -> verify(assetFile, times(2)).retrieve(),
+                () -> assertEquals(2, clamAV.numOfInfectedScans()),
+                () -> assertEquals(0, clamAV.scanResultCache().hits())
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mustScanOverUnixDomainSocket() {
+        Path unixSocketPath = Files.createTempDirectory("clamd").resolve("clamd.sock");
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO, unixSocketPath)) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of("clamav.unix-socket.path", unixSocketPath.toString())
+            );
+            ScanResult cleanScanResult = clamAV.scan(new ByteArrayInputStream(new byte[200_000]));
+            ScanResult infectedScanResult = clamAV.scan(contentOf(FakeClamd.EICAR));
+            assertAll(
+                () -> assertInstanceOf(Clean.class, cleanScanResult),
+                () -> assertInstanceOf(Infected.class, infectedScanResult),
+                () -> assertTrue(clamAV.ping()),
+                () -> assertEquals(1, fakeClamd.numOfAcceptedConnections())
+            );
+        }
+    }
+
+    @Test
+    void mustTimeOutWhenReplyIsLate() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.STALL)) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.host", "localhost",
+                    "clamav.port", fakeClamd.port(),
+                    "clamav.read-timeout", 200
+                )
+            );
+            ScanResult scanResult = clamAV.scan(contentOf("Whatever content"));
+            assertAll(
+                () -> assertInstanceOf(Failed.class, scanResult),
+                () -> assertFalse(clamAV.ping())
+            );
+        }
+    }
+
     @Test
     void mustReconfigure() {
         try (
@@ -254,10 +650,279 @@ class ClamAVTest extends TestEnvironment {
             ClamAVConfig newConfig = mock(ClamAVConfig.class);
             when(newConfig.clamav_host()).thenReturn("localhost");
             when(newConfig.clamav_port()).thenReturn(subsequentFakeClamd.port());
+            when(newConfig.clamav_unix$_$socket_path()).thenReturn(StringUtils.EMPTY);
             when(newConfig.clamav_connect$_$timeout()).thenReturn(2_000);
             when(newConfig.clamav_read$_$timeout()).thenReturn(10_000);
+            when(newConfig.clamav_pool_size()).thenReturn(4);
+            when(newConfig.clamav_pool_max$_$connections()).thenReturn(10);
+            when(newConfig.clamav_pool_max$_$idle()).thenReturn(20_000);
+            when(newConfig.clamav_max$_$concurrent$_$scans()).thenReturn(10);
+            when(newConfig.clamav_scan$_$queue_size()).thenReturn(100);
+            when(newConfig.clamav_cache_size()).thenReturn(10);
+            when(newConfig.clamav_endpoints()).thenReturn(new String[0]);
+            when(newConfig.clamav_circuit_failure$_$threshold()).thenReturn(3);
+            when(newConfig.clamav_circuit_open$_$duration()).thenReturn(10_000L);
             clamAV.configure(newConfig);
             assertTrue(clamAV.ping());
         }
     }
+
+    @Test
+    void mustFailOverToAvailableEndpoint() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)) {
+            int unusedPort = unusedPort();
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.endpoints", new String[]{"localhost:" + unusedPort, "localhost:" + fakeClamd.port()},
+                    "clamav.circuit.failure-threshold", 1,
+                    "clamav.circuit.open-duration", 60_000L
+                )
+            );
+            ScanResult cleanScanResult = clamAV.scan(contentOf("Innocent content"));
+            ScanResult infectedScanResult = clamAV.scan(contentOf(FakeClamd.EICAR));
+            ClamdEndpoint unavailableEndpoint = clamAV.endpoints().getFirst();
+            String statsAsJSON = clamAV.asJSON();
+            assertAll(
+                () -> assertInstanceOf(Clean.class, cleanScanResult),
+                () -> assertInstanceOf(Infected.class, infectedScanResult),
+                () -> assertTrue(clamAV.ping()),
+                () -> assertEquals(2, clamAV.endpoints().size()),
+                () -> assertTrue(unavailableEndpoint.failedExchanges() <= 1),
+                () -> assertTrue(clamAV.failovers() <= unavailableEndpoint.failedExchanges()),
+                () -> assertTrue(statsAsJSON.contains("\"endpoints\":[{")),
+                () -> assertTrue(statsAsJSON.contains(String.valueOf(unusedPort))),
+                () -> assertTrue(statsAsJSON.contains(String.valueOf(fakeClamd.port()))),
+                () -> assertTrue(statsAsJSON.contains("\"circuitState\":\"CLOSED\"")),
+                () -> assertTrue(statsAsJSON.contains("\"failovers\":"))
+            );
+        }
+    }
+
+    @Test
+    void mustOpenCircuitBreakerAfterConsecutiveFailures() {
+        ClamAV clamAV = context.registerInjectActivateService(
+            ClamAV.class, Map.of(
+                "clamav.endpoints", new String[]{"localhost:" + unusedPort()},
+                "clamav.circuit.failure-threshold", 2,
+                "clamav.circuit.open-duration", 60_000L
+            )
+        );
+        ClamdEndpoint endpoint = clamAV.endpoints().getFirst();
+        assertFalse(clamAV.ping());
+        assertEquals(ClamdEndpoint.CircuitState.CLOSED, endpoint.circuitState());
+        assertFalse(clamAV.ping());
+        assertEquals(ClamdEndpoint.CircuitState.OPEN, endpoint.circuitState());
+        ScanResult scanResult = clamAV.scan(contentOf("Whatever content"));
+        assertAll(
+            () -> assertInstanceOf(Failed.class, scanResult),
+            () -> assertTrue(((Failed) scanResult).details().contains("unreachable")),
+            () -> assertEquals(2, endpoint.exchanges()),
+            () -> assertEquals(2, endpoint.failedExchanges())
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void mustCloseCircuitBreakerAfterSuccessfulProbe() {
+        Path unixSocketPath = Files.createTempDirectory("clamd").resolve("clamd.sock");
+        ClamAV clamAV = context.registerInjectActivateService(
+            ClamAV.class, Map.of(
+                "clamav.endpoints", new String[]{"unix:" + unixSocketPath},
+                "clamav.circuit.failure-threshold", 1,
+                "clamav.circuit.open-duration", 0L
+            )
+        );
+        ClamdEndpoint endpoint = clamAV.endpoints().getFirst();
+        assertFalse(clamAV.ping());
+        assertEquals(ClamdEndpoint.CircuitState.OPEN, endpoint.circuitState());
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO, unixSocketPath)) {
+            ScanResult scanResult = clamAV.scan(contentOf(FakeClamd.EICAR));
+            assertAll(
+                () -> assertInstanceOf(Infected.class, scanResult),
+                () -> assertEquals(ClamdEndpoint.CircuitState.CLOSED, endpoint.circuitState()),
+                () -> assertEquals(0, endpoint.consecutiveFailures())
+            );
+        }
+    }
+
+    @Test
+    void mustBalanceAcrossEndpoints() {
+        try (
+            FakeClamd firstFakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO);
+            FakeClamd secondFakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)
+        ) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.endpoints", new String[]{
+                        "localhost:" + firstFakeClamd.port(), " localhost:" + secondFakeClamd.port() + " ", "::"
+                    }
+                )
+            );
+            IntStream.range(0, 20).forEach(scan -> clamAV.scan(contentOf("Content no. " + scan)));
+            assertAll(
+                () -> assertEquals(2, clamAV.endpoints().size()),
+                () -> assertEquals(
+                    20, clamAV.endpoints().stream().mapToLong(ClamdEndpoint::exchanges).sum()
+                ),
+                () -> assertTrue(firstFakeClamd.numOfAcceptedConnections() >= 1),
+                () -> assertTrue(secondFakeClamd.numOfAcceptedConnections() >= 1),
+                () -> assertEquals(0, clamAV.failovers())
+            );
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mustSelectLeastOutstandingEndpointForConcurrentScans() {
+        try (
+            FakeClamd firstFakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO);
+            FakeClamd secondFakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO);
+            ExecutorService scanners = Executors.newVirtualThreadPerTaskExecutor()
+        ) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.endpoints", new String[]{
+                        "localhost:" + firstFakeClamd.port(), "localhost:" + secondFakeClamd.port()
+                    }
+                )
+            );
+            CountDownLatch latch = new CountDownLatch(1);
+            List<CompletableFuture<ScanResult>> scanResults = new ArrayList<>();
+            for (int scan = 0; scan < 6; scan++) {
+                InputStream content = blockingContentOf("Content no. " + scan, latch);
+                scanResults.add(CompletableFuture.supplyAsync(() -> clamAV.scan(content), scanners));
+                int numOfStartedScans = scan + 1;
+                Awaitility.await().atMost(10, TimeUnit.SECONDS).untilAsserted(
+                    () -> assertEquals(
+                        numOfStartedScans, clamAV.endpoints().stream().mapToInt(ClamdEndpoint::outstanding).sum()
+                    )
+                );
+            }
+            List<Integer> outstanding = clamAV.endpoints().stream().map(ClamdEndpoint::outstanding).toList();
+            latch.countDown();
+            assertAll(
+                () -> assertEquals(List.of(3, 3), outstanding),
+                () -> scanResults.forEach(scanResult -> assertInstanceOf(Clean.class, scanResult.join()))
+            );
+        }
+    }
+
+    @Test
+    void mustOpenCircuitBreakerAfterConsecutiveFailedScans() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.RESET_MIDSTREAM)) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.endpoints", new String[]{"localhost:" + fakeClamd.port()},
+                    "clamav.circuit.failure-threshold", 2,
+                    "clamav.circuit.open-duration", 60_000L
+                )
+            );
+            ClamdEndpoint endpoint = clamAV.endpoints().getFirst();
+            ScanResult firstScanResult = clamAV.scan(new ByteArrayInputStream(new byte[2_000_000]));
+            ClamdEndpoint.CircuitState stateAfterFirstFailure = endpoint.circuitState();
+            clamAV.scan(new ByteArrayInputStream(new byte[2_000_000]));
+            assertAll(
+                () -> assertInstanceOf(Failed.class, firstScanResult),
+                () -> assertEquals(ClamdEndpoint.CircuitState.CLOSED, stateAfterFirstFailure),
+                () -> assertEquals(ClamdEndpoint.CircuitState.OPEN, endpoint.circuitState()),
+                () -> assertEquals(2, endpoint.failedExchanges())
+            );
+        }
+    }
+
+    @Test
+    void mustNotOpenCircuitBreakerAfterFailuresCausedByContent() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.SIZE_LIMIT)) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.endpoints", new String[]{"localhost:" + fakeClamd.port()},
+                    "clamav.circuit.failure-threshold", 2,
+                    "clamav.circuit.open-duration", 60_000L
+                )
+            );
+            InputStream unreadableContent = new InputStream() {
+
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("This stream cannot be read");
+                }
+            };
+            ClamdEndpoint endpoint = clamAV.endpoints().getFirst();
+            ScanResult firstScanResult = clamAV.scan(contentOf("First content beyond all reasonable size limits"));
+            ScanResult secondScanResult = clamAV.scan(contentOf("Second content beyond all reasonable size limits"));
+            ScanResult unreadableScanResult = clamAV.scan(unreadableContent);
+            assertAll(
+                () -> assertInstanceOf(Failed.class, firstScanResult),
+                () -> assertInstanceOf(Failed.class, secondScanResult),
+                () -> assertTrue(((Failed) unreadableScanResult).details().contains("Unable to read")),
+                () -> assertEquals(ClamdEndpoint.CircuitState.CLOSED, endpoint.circuitState()),
+                () -> assertEquals(0, endpoint.failedExchanges()),
+                () -> assertEquals(3, endpoint.exchanges())
+            );
+        }
+    }
+
+    @Test
+    void mustOpenCircuitBreakerAfterUnsuccessfulPing() {
+        try (FakeClamd fakeClamd = new FakeClamd(FakeClamd.Mode.GARBAGE)) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.endpoints", new String[]{"localhost:" + fakeClamd.port()},
+                    "clamav.circuit.failure-threshold", 1,
+                    "clamav.circuit.open-duration", 60_000L
+                )
+            );
+            boolean isReachable = clamAV.ping();
+            assertAll(
+                () -> assertFalse(isReachable),
+                () -> assertEquals(ClamdEndpoint.CircuitState.OPEN, clamAV.endpoints().getFirst().circuitState())
+            );
+        }
+    }
+
+    @Test
+    void mustTellVersionOnlyIfEndpointsAgree() {
+        try (
+            FakeClamd firstFakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO);
+            FakeClamd secondFakeClamd = new FakeClamd(FakeClamd.Mode.EICAR_AUTO)
+        ) {
+            ClamAV clamAV = context.registerInjectActivateService(
+                ClamAV.class, Map.of(
+                    "clamav.endpoints", new String[]{
+                        "localhost:" + firstFakeClamd.port(), "localhost:" + secondFakeClamd.port()
+                    }
+                )
+            );
+            Optional<String> agreedVersion = clamAV.version();
+            String newVersion = "ClamAV 1.5.2/28024/Test";
+            firstFakeClamd.version(newVersion);
+            Optional<String> disagreedVersion = clamAV.version();
+            secondFakeClamd.version(newVersion);
+            assertAll(
+                () -> assertEquals(Optional.of(FakeClamd.VERSION_REPLY), agreedVersion),
+                () -> assertTrue(disagreedVersion.isEmpty()),
+                () -> assertEquals(Optional.of(newVersion), clamAV.version())
+            );
+        }
+    }
+
+    private InputStream blockingContentOf(String text, CountDownLatch latch) {
+        InputStream content = contentOf(text);
+        return new InputStream() {
+
+            @Override
+            @SneakyThrows
+            public int read() {
+                latch.await();
+                return content.read();
+            }
+
+            @Override
+            @SneakyThrows
+            public int read(byte[] buffer, int offset, int length) {
+                latch.await();
+                return content.read(buffer, offset, length);
+            }
+        };
+    }
 }
@@ -2,19 +2,33 @@ package eu.ciechanowiec.sling.rocket.clamav;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Hermetic in-process fake of a ClamAV daemon (clamd) for tests. Speaks the {@code z}-style clamd protocol
- * over a {@link ServerSocket} bound to a dynamic port.
+ * Hermetic in-process fake of a ClamAV daemon (clamd) for tests. Speaks the {@code z}-style clamd protocol, including
+ * the {@code IDSESSION} mode, over a {@link ServerSocketChannel} bound either to a dynamic TCP port or to a unix domain
+ * socket. Every connection is handled in a separate thread.
  */
 @Slf4j
 @SuppressWarnings("PMD.CloseResource")
@@ -51,96 +65,204 @@ final class FakeClamd implements AutoCloseable {
         /**
          * Every command is answered with no reply at all (graceful connection close).
          */
-        NO_REPLY
+        NO_REPLY,
+
+        /**
+         * Every command is received, but never answered, while the connection is kept open.
+         */
+        STALL
     }
 
     static final String EICAR
         = "X5O!P%@AP[4\\PZX54(P^)7CC)7}$EICAR-STANDARD-ANTIVIRUS-TEST-FILE!$H+H*";
     static final String EICAR_SIGNATURE_NAME = "Eicar-Test-Signature";
     private static final String GARBAGE_REPLY = "BLAH-BLAH";
-    private static final String VERSION_REPLY = "ClamAV 1.5.2/28023/Test";
+    static final String VERSION_REPLY = "ClamAV 1.5.2/28023/Test";
     private static final int STREAM_TERMINATOR = 0;
     private static final int MAX_CHUNK_SIZE = 65_536;
 
-    private final ServerSocket serverSocket;
+    private final ServerSocketChannel serverChannel;
+    private final Optional<Path> unixSocketPathNullable;
     private final Mode mode;
+    private final Set<SocketChannel> openChannels;
+    private final AtomicInteger acceptedConnections;
+    private final AtomicReference<String> version;
 
-    @SneakyThrows
+    /**
+     * Constructs an instance of this class, listening on a dynamic TCP port.
+     *
+     * @param mode reply behavior of the constructed {@link FakeClamd}
+     */
     FakeClamd(Mode mode) {
+        this(mode, Optional.empty());
+    }
+
+    /**
+     * Constructs an instance of this class, listening on a unix domain socket at the passed path.
+     *
+     * @param mode           reply behavior of the constructed {@link FakeClamd}
+     * @param unixSocketPath path at which the unix domain socket should be created; must not exist yet
+     */
+    FakeClamd(Mode mode, Path unixSocketPath) {
+        this(mode, Optional.of(unixSocketPath));
+    }
+
+    @SneakyThrows
+    private FakeClamd(Mode mode, Optional<Path> unixSocketPathNullable) {
         this.mode = mode;
-        this.serverSocket = new ServerSocket(0);
+        this.unixSocketPathNullable = unixSocketPathNullable;
+        this.openChannels = ConcurrentHashMap.newKeySet();
+        this.acceptedConnections = new AtomicInteger();
+        this.version = new AtomicReference<>(VERSION_REPLY);
+        this.serverChannel = unixSocketPathNullable.isPresent()
+            ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+            .bind(UnixDomainSocketAddress.of(unixSocketPathNullable.get()))
+            : ServerSocketChannel.open().bind(new InetSocketAddress(0));
         Thread acceptLoop = new Thread(this::acceptLoop, "fake-clamd");
         acceptLoop.setDaemon(true);
         acceptLoop.start();
-        log.info("Started a fake clamd on port {} in mode {}", port(), mode);
+        log.info("Started a fake clamd at {} in mode {}", serverChannel.getLocalAddress(), mode);
     }
 
+    @SneakyThrows
     int port() {
-        return serverSocket.getLocalPort();
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Changes the version replied by this {@link FakeClamd} to the {@code VERSION} command, as if the virus
+     * definitions database was updated.
+     *
+     * @param newVersion version that should be replied from now on
+     */
+    void version(String newVersion) {
+        version.set(newVersion);
+    }
+
+    /**
+     * Number of connections accepted by this {@link FakeClamd} so far.
+     *
+     * @return number of connections accepted by this {@link FakeClamd} so far
+     */
+    int numOfAcceptedConnections() {
+        return acceptedConnections.get();
     }
 
     private void acceptLoop() {
-        while (!serverSocket.isClosed()) {
+        while (serverChannel.isOpen()) {
             acceptSingleConnection();
         }
     }
 
     private void acceptSingleConnection() {
-        try (Socket socket = serverSocket.accept()) {
-            handle(socket);
+        try {
+            SocketChannel channel = serverChannel.accept();
+            acceptedConnections.incrementAndGet();
+            openChannels.add(channel);
+            Thread connectionHandler = new Thread(() -> handleAndClose(channel), "fake-clamd-connection");
+            connectionHandler.setDaemon(true);
+            connectionHandler.start();
+        } catch (IOException exception) {
+            log.debug("Fake clamd stopped accepting connections", exception);
+        }
+    }
+
+    private void handleAndClose(SocketChannel channel) {
+        try (channel) {
+            handle(channel);
         } catch (IOException exception) {
             log.debug("Fake clamd connection ended", exception);
+        } finally {
+            openChannels.remove(channel);
         }
     }
 
-    private void handle(Socket socket) throws IOException {
-        String command = readUntilNul(socket.getInputStream());
-        log.info("Fake clamd received command: '{}'", command);
-        switch (command) {
-            case "zPING" -> replySimple(socket, "PONG");
-            case "zVERSION" -> replySimple(socket, VERSION_REPLY);
-            case "zINSTREAM" -> handleInstream(socket);
-            default -> reply(socket, GARBAGE_REPLY);
+    private void handle(SocketChannel channel) throws IOException {
+        String command = readUntilNul(Channels.newInputStream(channel));
+        if ("zIDSESSION".equals(command)) {
+            handleSession(channel);
+        } else {
+            handleCommand(channel, command, StringUtils.EMPTY);
+        }
+    }
+
+    private void handleSession(SocketChannel channel) throws IOException {
+        log.info("Fake clamd started a session");
+        int commandID = 0;
+        boolean isSessionOpen = true;
+        while (isSessionOpen) {
+            String command = readUntilNul(Channels.newInputStream(channel));
+            commandID++;
+            isSessionOpen = !command.isEmpty() && !"zEND".equals(command)
+                && handleCommand(channel, command, "%d: ".formatted(commandID));
         }
+        log.info("Fake clamd ended a session after {} command(s)", commandID);
     }
 
-    private void replySimple(Socket socket, String normalReply) throws IOException {
+    private boolean handleCommand(SocketChannel channel, String command, String replyPrefix) throws IOException {
+        log.info("Fake clamd received command: '{}'", command);
+        return switch (command) {
+            case "zPING" -> replySimple(channel, replyPrefix + "PONG");
+            case "zVERSION" -> replySimple(channel, replyPrefix + version.get());
+            case "zINSTREAM" -> handleInstream(channel, replyPrefix);
+            default -> {
+                reply(channel, GARBAGE_REPLY);
+                yield false;
+            }
+        };
+    }
+
+    private boolean replySimple(SocketChannel channel, String normalReply) throws IOException {
         switch (mode) {
-            case GARBAGE -> reply(socket, GARBAGE_REPLY);
+            case GARBAGE -> reply(channel, GARBAGE_REPLY);
             case NO_REPLY -> log.info("Fake clamd deliberately not replying");
-            default -> reply(socket, normalReply);
+            case STALL -> stall(channel);
+            default -> reply(channel, normalReply);
         }
+        return mode != Mode.GARBAGE && mode != Mode.NO_REPLY;
     }
 
-    private void handleInstream(Socket socket) throws IOException {
+    private boolean handleInstream(SocketChannel channel, String replyPrefix) throws IOException {
         if (mode == Mode.RESET_MIDSTREAM) {
-            resetAfterFirstChunk(socket);
-            return;
+            resetAfterFirstChunk(channel);
+            return false;
         }
-        byte[] content = readAllChunks(socket.getInputStream());
+        byte[] content = readAllChunks(Channels.newInputStream(channel));
         switch (mode) {
-            case SIZE_LIMIT -> reply(socket, "INSTREAM size limit exceeded. ERROR");
-            case GARBAGE -> reply(socket, GARBAGE_REPLY);
+            case SIZE_LIMIT -> reply(channel, replyPrefix + "INSTREAM size limit exceeded. ERROR");
+            case GARBAGE -> reply(channel, GARBAGE_REPLY);
             case NO_REPLY -> log.info("Fake clamd deliberately not replying");
-            default -> replyForContent(socket, content);
+            case STALL -> stall(channel);
+            default -> replyForContent(channel, content, replyPrefix);
         }
+        return mode == Mode.EICAR_AUTO;
     }
 
-    private void replyForContent(Socket socket, byte[] content) throws IOException {
+    private void replyForContent(SocketChannel channel, byte[] content, String replyPrefix) throws IOException {
         String contentAsString = new String(content, StandardCharsets.US_ASCII);
         if (contentAsString.contains(EICAR)) {
-            reply(socket, "stream: %s FOUND".formatted(EICAR_SIGNATURE_NAME));
+            reply(channel, replyPrefix + "stream: %s FOUND".formatted(EICAR_SIGNATURE_NAME));
         } else {
-            reply(socket, "stream: OK");
+            reply(channel, replyPrefix + "stream: OK");
+        }
+    }
+
+    private void stall(SocketChannel channel) throws IOException {
+        log.info("Fake clamd deliberately stalls until the connection is closed by the client");
+        int singleByte = Channels.newInputStream(channel).read();
+        while (singleByte != -1) {
+            singleByte = Channels.newInputStream(channel).read();
         }
     }
 
-    private void resetAfterFirstChunk(Socket socket) throws IOException {
-        DataInputStream input = new DataInputStream(socket.getInputStream());
+    private void resetAfterFirstChunk(SocketChannel channel) throws IOException {
+        DataInputStream input = new DataInputStream(Channels.newInputStream(channel));
         int firstChunkLength = input.readInt();
         input.readFully(new byte[firstChunkLength]);
         log.info("Fake clamd read the first chunk of {} bytes and now resets the connection", firstChunkLength);
-        socket.setSoLinger(true, 0);
+        if (unixSocketPathNullable.isEmpty()) {
+            channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+        }
     }
 
     private byte[] readAllChunks(InputStream rawInput) throws IOException {
@@ -156,8 +278,8 @@ final class FakeClamd implements AutoCloseable {
         return content.toByteArray();
     }
 
-    private void reply(Socket socket, String replyText) throws IOException {
-        OutputStream output = socket.getOutputStream();
+    private void reply(SocketChannel channel, String replyText) throws IOException {
+        OutputStream output = Channels.newOutputStream(channel);
         output.write((replyText + '\0').getBytes(StandardCharsets.US_ASCII));
         output.flush();
     }
@@ -175,6 +297,12 @@ final class FakeClamd implements AutoCloseable {
     @Override
     @SneakyThrows
     public void close() {
-        serverSocket.close();
+        serverChannel.close();
+        for (SocketChannel openChannel : openChannels) {
+            openChannel.close();
+        }
+        if (unixSocketPathNullable.isPresent()) {
+            Files.deleteIfExists(unixSocketPathNullable.get());
+        }
     }
 }
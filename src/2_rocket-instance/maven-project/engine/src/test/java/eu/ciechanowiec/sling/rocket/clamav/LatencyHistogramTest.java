@@ -0,0 +1,79 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("MagicNumber")
+class LatencyHistogramTest {
+
+    @Test
+    void mustBeEmptyInitially() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        assertAll(
+            () -> assertEquals(0, latencyHistogram.count()),
+            () -> assertEquals(0D, latencyHistogram.meanMillis()),
+            () -> assertEquals(0D, latencyHistogram.p99Millis()),
+            () -> assertEquals(0D, latencyHistogram.maxMillis()),
+            () -> assertEquals(Duration.ZERO, latencyHistogram.total())
+        );
+    }
+
+    @Test
+    void mustReportPercentilesWithBoundedPrecision() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 1_000).forEach(millis -> latencyHistogram.record(Duration.ofMillis(millis)));
+        assertAll(
+            () -> assertEquals(1_000, latencyHistogram.count()),
+            () -> assertEquals(500.5D, latencyHistogram.meanMillis(), 0.001D),
+            () -> assertEquals(1_000D, latencyHistogram.maxMillis()),
+            () -> assertEquals(500D, latencyHistogram.p50Millis(), 500D * 0.125D),
+            () -> assertEquals(900D, latencyHistogram.p90Millis(), 900D * 0.125D),
+            () -> assertEquals(990D, latencyHistogram.p99Millis(), 990D * 0.125D),
+            () -> assertTrue(latencyHistogram.p999Millis() <= latencyHistogram.maxMillis()),
+            () -> assertTrue(latencyHistogram.p50Millis() >= 500D),
+            () -> assertEquals(Duration.ofMillis(500_500), latencyHistogram.total())
+        );
+    }
+
+    @Test
+    void mustRecordSmallAndNegativeValuesExactly() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        latencyHistogram.record(Duration.ofNanos(-1));
+        latencyHistogram.record(Duration.ofMicros(3));
+        latencyHistogram.record(Duration.ofMicros(7));
+        assertAll(
+            () -> assertEquals(0L, latencyHistogram.percentileMicros(0)),
+            () -> assertEquals(3L, latencyHistogram.percentileMicros(50)),
+            () -> assertEquals(7L, latencyHistogram.percentileMicros(100))
+        );
+    }
+
+    @Test
+    @SneakyThrows
+    void mustRecordConcurrently() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(
+                thread -> executor.execute(
+                    () -> IntStream.range(0, 10_000).forEach(
+                        micros -> latencyHistogram.record(Duration.ofMicros(micros))
+                    )
+                )
+            );
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+        assertAll(
+            () -> assertEquals(80_000, latencyHistogram.count()),
+            () -> assertEquals(9.999D, latencyHistogram.maxMillis())
+        );
+    }
+}
@@ -0,0 +1,57 @@
+package eu.ciechanowiec.sling.rocket.clamav;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("MultipleStringLiterals")
+class ScanResultCacheTest {
+
+    private static final String SHA256 = "a".repeat(64);
+
+    @Test
+    void mustDiscardScanResultsUponVersionChange() {
+        AtomicReference<Optional<String>> version = new AtomicReference<>(Optional.of("ClamAV 1.5.2/28023/Test"));
+        ScanResultCache scanResultCache = new ScanResultCache(config(false), version::get);
+        scanResultCache.put(SHA256, new Clean());
+        Optional<ScanResult> beforeVersionChange = scanResultCache.get(SHA256.toUpperCase(Locale.ROOT));
+        version.set(Optional.of("ClamAV 1.5.2/28024/Test"));
+        Optional<ScanResult> afterVersionChange = scanResultCache.get(SHA256);
+        assertAll(
+            () -> assertInstanceOf(Clean.class, beforeVersionChange.orElseThrow()),
+            () -> assertTrue(afterVersionChange.isEmpty()),
+            () -> assertEquals(0, scanResultCache.size())
+        );
+    }
+
+    @Test
+    void mustCacheOnlyEligibleScanResults() {
+        ScanResultCache withoutInfected = new ScanResultCache(config(false), () -> Optional.of("ClamAV"));
+        ScanResultCache withInfected = new ScanResultCache(config(true), () -> Optional.of("ClamAV"));
+        ScanResultCache withoutVersion = new ScanResultCache(config(true), Optional::empty);
+        withoutInfected.put(SHA256, new Infected("Eicar-Test-Signature"));
+        withInfected.put(SHA256, new Infected("Eicar-Test-Signature"));
+        withInfected.put("b".repeat(64), new Failed("Empty reply from clamd"));
+        withoutVersion.put(SHA256, new Clean());
+        assertAll(
+            () -> assertTrue(withoutInfected.get(SHA256).isEmpty()),
+            () -> assertInstanceOf(Infected.class, withInfected.get(SHA256).orElseThrow()),
+            () -> assertTrue(withInfected.get("b".repeat(64)).isEmpty()),
+            () -> assertTrue(withoutVersion.get(SHA256).isEmpty())
+        );
+    }
+
+    private ClamAVConfig config(boolean isCachingInfected) {
+        ClamAVConfig config = mock(ClamAVConfig.class);
+        when(config.clamav_cache_size()).thenReturn(10);
+        when(config.clamav_cache_infected()).thenReturn(isCachingInfected);
+        when(config.clamav_cache_version$_$check$_$interval()).thenReturn(0L);
+        return config;
+    }
+}
@@ -0,0 +1,46 @@
+package eu.ciechanowiec.sling.rocket.commons;
+
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScopedResourceAccessTest extends TestEnvironment {
+
+    ScopedResourceAccessTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @Test
+    void mustShareResolverUntilClosed() {
+        ScopedResourceAccess scopedResourceAccess = new ScopedResourceAccess(fullResourceAccess);
+        ResourceResolver firstResolver = scopedResourceAccess.acquireAccess();
+        firstResolver.close();
+        ResourceResolver secondResolver = scopedResourceAccess.acquireAccess();
+        boolean isLiveBeforeClosing = secondResolver.isLive();
+        scopedResourceAccess.close();
+        assertAll(
+            () -> assertTrue(isLiveBeforeClosing),
+            () -> assertFalse(secondResolver.isLive())
+        );
+    }
+
+    @Test
+    void mustBeConfinedToOwnerThread() {
+        try (ScopedResourceAccess scopedResourceAccess = new ScopedResourceAccess(fullResourceAccess)) {
+            CompletableFuture<ResourceResolver> foreignAccess = CompletableFuture.supplyAsync(
+                scopedResourceAccess::acquireAccess
+            );
+            CompletionException exception = assertThrows(CompletionException.class, foreignAccess::join);
+            assertAll(
+                () -> assertInstanceOf(IllegalStateException.class, exception.getCause()),
+                () -> assertTrue(scopedResourceAccess.acquireAccess().isLive())
+            );
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package eu.ciechanowiec.sling.rocket.jcr;
+
+import eu.ciechanowiec.sling.rocket.jcr.path.JCRPath;
+import eu.ciechanowiec.sling.rocket.jcr.path.TargetJCRPath;
+import eu.ciechanowiec.sling.rocket.test.TestEnvironment;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"MultipleStringLiterals", "PMD.AvoidDuplicateLiterals"})
+class DeletableResourcesTest extends TestEnvironment {
+
+    DeletableResourcesTest() {
+        super(ResourceResolverType.JCR_OAK);
+    }
+
+    @Test
+    void mustDeleteNestedResourcesTogetherWithAncestor() {
+        context.build()
+            .resource("/content/parent/child/grandchild")
+            .resource("/content/parent-sibling")
+            .commit();
+        List<JCRPath> jcrPaths = List.of(
+            new TargetJCRPath("/content/parent/child/grandchild"),
+            new TargetJCRPath("/content/parent/child/non-existent"),
+            new TargetJCRPath("/content/parent-sibling"),
+            new TargetJCRPath("/content/parent"),
+            new TargetJCRPath("/content/parent/child")
+        );
+        Set<JCRPath> deleted = new DeletableResources(jcrPaths, fullResourceAccess, 2).delete();
+        assertAll(
+            () -> assertEquals(
+                Set.of(
+                    new TargetJCRPath("/content/parent/child/grandchild"),
+                    new TargetJCRPath("/content/parent-sibling"),
+                    new TargetJCRPath("/content/parent"),
+                    new TargetJCRPath("/content/parent/child")
+                ), deleted
+            ),
+            () -> assertNull(context.resourceResolver().getResource("/content/parent")),
+            () -> assertNull(context.resourceResolver().getResource("/content/parent-sibling")),
+            () -> assertNotNull(context.resourceResolver().getResource("/content"))
+        );
+    }
+}
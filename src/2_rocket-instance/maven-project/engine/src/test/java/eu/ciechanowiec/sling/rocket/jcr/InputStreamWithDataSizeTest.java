@@ -175,6 +175,43 @@ class InputStreamWithDataSizeTest extends TestEnvironment {
         }
     }
 
+    @Test
+    @SneakyThrows
+    void singleByteReadsReturnWholeContent() {
+        saveFileInJCR();
+        byte[] expected = Files.readAllBytes(file.toPath());
+        try (
+            InputStreamWithDataSize inputStream =
+                new InputStreamWithDataSize(jcrContent, JcrConstants.JCR_DATA, fullResourceAccess);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+        ) {
+            int nextByte = inputStream.read();
+            while (nextByte != -1) {
+                outputStream.write(nextByte);
+                nextByte = inputStream.read();
+            }
+            assertAll(
+                () -> assertArrayEquals(expected, outputStream.toByteArray()),
+                () -> assertEquals(expected.length, inputStream.dataSize().bytes())
+            );
+        }
+    }
+
+    @Test
+    void readsNothingFromMissingBinary() {
+        try (
+            InputStreamWithDataSize inputStream =
+                new InputStreamWithDataSize(jcrContent, JcrConstants.JCR_DATA, fullResourceAccess)
+        ) {
+            assertAll(
+                () -> assertEquals(-1, inputStream.read()),
+                () -> assertEquals(-1, inputStream.read(new byte[10], 0, 10)),
+                () -> assertEquals(0, inputStream.available()),
+                () -> assertEquals(0, inputStream.dataSize().bytes())
+            );
+        }
+    }
+
     @Test
     void closeCanBeCalledMultipleTimesWithoutError() {
         // Even if we never saved data, closing multiple times should not fail
@@ -3,6 +3,7 @@ package eu.ciechanowiec.sling.rocket.llm;
 import org.junit.jupiter.api.Test;
 
 import java.lang.annotation.Annotation;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +21,15 @@ class LLMConfigObfuscatedTest {
         );
     }
 
+    @Test
+    void testTimeouts() {
+        LLMConfigObfuscated zeroConfig = new LLMConfigObfuscated(config(0, 0));
+        assertAll(
+            () -> assertEquals(Duration.ofMillis(1), zeroConfig.connectTimeout()),
+            () -> assertEquals(Duration.ofMillis(1), zeroConfig.requestTimeout())
+        );
+    }
+
     @SuppressWarnings({"OverlyComplexAnonymousInnerClass", "MethodLength"})
     private LLMConfig config(int llmMaxTokens, int llmMaxCompletionTokens) {
         return new LLMConfig() {
@@ -74,6 +84,16 @@ class LLMConfigObfuscatedTest {
                 return 0;
             }
 
+            @Override
+            public int llm_connect$_$timeout() {
+                return 0;
+            }
+
+            @Override
+            public int llm_request$_$timeout() {
+                return 0;
+            }
+
             @Override
             public String jcr_home() {
                 return "";
@@ -12,6 +12,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
 import org.eclipse.jetty.ee11.servlet.ServletContextHandler;
 import org.eclipse.jetty.ee11.servlet.ServletHolder;
+import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.junit.jupiter.api.AfterEach;
@@ -20,11 +21,15 @@ import org.junit.jupiter.api.Test;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -34,6 +39,8 @@ class LLMTest extends TestEnvironment {
 
     private Server server;
     private LLM llm;
+    private int port;
+    private AtomicInteger numOfOpenedConnections;
 
     LLMTest() {
         super(ResourceResolverType.JCR_OAK);
@@ -48,9 +55,18 @@ class LLMTest extends TestEnvironment {
         contextHandler.setContextPath("/");
         contextHandler.addServlet(new ServletHolder(new LLMAPI()), "/*");
         server.setHandler(contextHandler);
+        numOfOpenedConnections = new AtomicInteger();
+        server.getConnectors()[0].addBean(
+            new Connection.Listener() {
+                @Override
+                public void onOpened(Connection connection) {
+                    numOfOpenedConnections.incrementAndGet();
+                }
+            }
+        );
         server.start();
         ServerConnector connector = (ServerConnector) server.getConnectors()[0];
-        int port = connector.getLocalPort();
+        port = connector.getLocalPort();
         log.info("Jetty Server started on dynamic port: {}", port);
         llm = context.registerInjectActivateService(
             LLM.class, Map.of(
@@ -109,6 +125,46 @@ class LLMTest extends TestEnvironment {
         );
     }
 
+    @Test
+    @SuppressWarnings("MagicNumber")
+    void testConnectionReuse() {
+        List<ChatMessage> messages = List.of(
+            new ChatMessageDefault(Role.SYSTEM, "Answer like you are HAL 9000."),
+            new ChatMessageDefault(Role.USER, "What is your name?")
+        );
+        ChatCompletionRequestBody chatCompletionRequestBody = new CCRequestBodyDefault(
+            "gpt-839104284",
+            messages,
+            Optional::empty,
+            () -> Optional.of(320),
+            () -> Optional.of(0.8F),
+            () -> Optional.of(0.8F),
+            () -> Optional.of(0.8F)
+        );
+        long dedicatedClientStartNanos = System.nanoTime();
+        IntStream.range(0, 5).forEach(
+            request -> new CCRequestDefault(
+                URI.create("http://localhost:%d".formatted(port)), "this-is-a-secret-test-token",
+                chatCompletionRequestBody
+            ).execute()
+        );
+        Duration dedicatedClientTime = Duration.ofNanos(System.nanoTime() - dedicatedClientStartNanos);
+        int numOfConnectionsWithDedicatedClients = numOfOpenedConnections.getAndSet(0);
+        long sharedClientStartNanos = System.nanoTime();
+        IntStream.range(0, 5).forEach(request -> llm.complete(messages));
+        Duration sharedClientTime = Duration.ofNanos(System.nanoTime() - sharedClientStartNanos);
+        int numOfConnectionsWithSharedClient = numOfOpenedConnections.get();
+        log.info(
+            "5 chat completions took {} over dedicated HTTP clients and {} over a shared HTTP client",
+            dedicatedClientTime, sharedClientTime
+        );
+        assertAll(
+            () -> assertEquals(5, numOfConnectionsWithDedicatedClients),
+            () -> assertEquals(1, numOfConnectionsWithSharedClient),
+            () -> assertEquals(16 * 5, llm.llmStats().numOfGeneratedTokens())
+        );
+    }
+
     @Test
     @SuppressWarnings("MagicNumber")
     void testContentWindowSize() {
@@ -1,6 +1,7 @@
 package eu.ciechanowiec.sling.rocket.observation.stats;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import eu.ciechanowiec.sling.rocket.asset.DeduplicationCounter;
 import eu.ciechanowiec.sling.rocket.asset.FileMetadata;
 import eu.ciechanowiec.sling.rocket.asset.StagedAssetReal;
 import eu.ciechanowiec.sling.rocket.asset.UsualFileAsAssetFile;
@@ -49,6 +50,7 @@ class RocketStatsDisplayTest extends TestEnvironment {
         };
         context.registerService(RocketStats.class, customStats);
         context.registerInjectActivateService(DiskStats.class);
+        context.registerInjectActivateService(DeduplicationCounter.class);
         context.registerInjectActivateService(AssetsStats.class);
         RocketStatsDisplay rocketStatsDisplay = context.registerInjectActivateService(RocketStatsDisplay.class);
         String actualJson = rocketStatsDisplay.asJSON();